@@ -0,0 +1,299 @@
+package org.adempiere.ad.dao.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.adempiere.exceptions.AdempiereException;
+
+import com.google.common.collect.ImmutableSet;
+
+import de.metas.cache.model.CacheInvalidateMultiRequest;
+import de.metas.cache.model.CacheInvalidateRequest;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Compact binary alternative to {@link CacheInvalidateMultiRequestSerializer}, used when broadcasting cache invalidations.
+ * <p>
+ * Format (all integers are unsigned varints):
+ * <ul>
+ * <li>format version (one byte)
+ * <li>table names dictionary: count, followed by the UTF names; all other table name references are indexes in this dictionary
+ * <li>"all records for table" requests: count, followed by the table indexes
+ * <li>"root record" requests: tables count, then for each table: table index, runs count, then for each run of consecutive record IDs: gap to the previous run's end and the run length
+ * <li>all other requests: count, then for each request: root table index+1, root record ID+1, child table index+1, child record ID+1 (zero meaning "none")
+ * </ul>
+ * The "debugFrom" info of the requests is not serialized.
+ */
+public class CacheInvalidateMultiRequestCompactSerializer
+{
+	private static final byte FORMAT_VERSION = 1;
+
+	public String toBase64String(@NonNull final CacheInvalidateMultiRequest multiRequest)
+	{
+		return Base64.getEncoder().encodeToString(toBytes(multiRequest));
+	}
+
+	public CacheInvalidateMultiRequest fromBase64String(@NonNull final String base64)
+	{
+		return fromBytes(Base64.getDecoder().decode(base64));
+	}
+
+	public byte[] toBytes(@NonNull final CacheInvalidateMultiRequest multiRequest)
+	{
+		final Map<String, Integer> tableIndexes = new LinkedHashMap<>();
+		final TreeSet<String> allRecordsTableNames = new TreeSet<>();
+		final TreeMap<String, TreeSet<Integer>> rootRecordIdsByTableName = new TreeMap<>();
+		final List<CacheInvalidateRequest> otherRequests = new ArrayList<>();
+
+		for (final CacheInvalidateRequest request : multiRequest.getRequests())
+		{
+			final String rootTableName = request.getRootTableName();
+			final String childTableName = request.getChildTableName();
+			if (rootTableName != null && childTableName == null && request.isAllRecords())
+			{
+				allRecordsTableNames.add(rootTableName);
+				tableIndexes.computeIfAbsent(rootTableName, k -> tableIndexes.size());
+			}
+			else if (rootTableName != null && childTableName == null)
+			{
+				rootRecordIdsByTableName.computeIfAbsent(rootTableName, k -> new TreeSet<>()).add(request.getRootRecordId());
+				tableIndexes.computeIfAbsent(rootTableName, k -> tableIndexes.size());
+			}
+			else
+			{
+				otherRequests.add(request);
+				if (rootTableName != null)
+				{
+					tableIndexes.computeIfAbsent(rootTableName, k -> tableIndexes.size());
+				}
+				if (childTableName != null)
+				{
+					tableIndexes.computeIfAbsent(childTableName, k -> tableIndexes.size());
+				}
+			}
+		}
+
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (final DataOutputStream out = new DataOutputStream(bytes))
+		{
+			out.writeByte(FORMAT_VERSION);
+
+			writeVarInt(out, tableIndexes.size());
+			for (final String tableName : tableIndexes.keySet())
+			{
+				out.writeUTF(tableName);
+			}
+
+			writeVarInt(out, allRecordsTableNames.size());
+			for (final String tableName : allRecordsTableNames)
+			{
+				writeVarInt(out, tableIndexes.get(tableName));
+			}
+
+			writeVarInt(out, rootRecordIdsByTableName.size());
+			for (final Map.Entry<String, TreeSet<Integer>> entry : rootRecordIdsByTableName.entrySet())
+			{
+				writeVarInt(out, tableIndexes.get(entry.getKey()));
+				writeRecordIdRuns(out, entry.getValue());
+			}
+
+			writeVarInt(out, otherRequests.size());
+			for (final CacheInvalidateRequest request : otherRequests)
+			{
+				writeVarInt(out, request.getRootTableName() != null ? tableIndexes.get(request.getRootTableName()) + 1 : 0);
+				writeVarInt(out, request.getRootRecordId() + 1);
+				writeVarInt(out, request.getChildTableName() != null ? tableIndexes.get(request.getChildTableName()) + 1 : 0);
+				writeVarInt(out, request.getChildRecordId() + 1);
+			}
+		}
+		catch (final IOException ex)
+		{
+			throw new AdempiereException("Failed converting request to bytes: " + multiRequest, ex);
+		}
+
+		return bytes.toByteArray();
+	}
+
+	private static void writeRecordIdRuns(final DataOutputStream out, final TreeSet<Integer> recordIds) throws IOException
+	{
+		final List<int[]> runs = new ArrayList<>();
+		int[] currentRun = null;
+		for (final int recordId : recordIds)
+		{
+			if (currentRun != null && currentRun[0] + currentRun[1] == recordId)
+			{
+				currentRun[1]++;
+			}
+			else
+			{
+				currentRun = new int[] { recordId, 1 };
+				runs.add(currentRun);
+			}
+		}
+
+		writeVarInt(out, runs.size());
+		int previousRunEnd = 0;
+		for (final int[] run : runs)
+		{
+			writeVarInt(out, run[0] - previousRunEnd);
+			writeVarInt(out, run[1]);
+			previousRunEnd = run[0] + run[1];
+		}
+	}
+
+	public CacheInvalidateMultiRequest fromBytes(@NonNull final byte[] data)
+	{
+		try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(data)))
+		{
+			final byte formatVersion = in.readByte();
+			if (formatVersion != FORMAT_VERSION)
+			{
+				throw new AdempiereException("Unsupported format version " + formatVersion);
+			}
+
+			final int tableNamesCount = readVarInt(in);
+			final String[] tableNames = new String[tableNamesCount];
+			for (int i = 0; i < tableNamesCount; i++)
+			{
+				tableNames[i] = in.readUTF();
+			}
+
+			final ImmutableSet.Builder<CacheInvalidateRequest> requests = ImmutableSet.builder();
+
+			final int allRecordsTablesCount = readVarInt(in);
+			for (int i = 0; i < allRecordsTablesCount; i++)
+			{
+				requests.add(CacheInvalidateRequest.allRecordsForTable(tableNames[readVarInt(in)]));
+			}
+
+			final int rootRecordTablesCount = readVarInt(in);
+			for (int i = 0; i < rootRecordTablesCount; i++)
+			{
+				final String tableName = tableNames[readVarInt(in)];
+				final int runsCount = readVarInt(in);
+				int previousRunEnd = 0;
+				for (int r = 0; r < runsCount; r++)
+				{
+					final int runStart = previousRunEnd + readVarInt(in);
+					final int runLength = readVarInt(in);
+					for (int recordId = runStart; recordId < runStart + runLength; recordId++)
+					{
+						requests.add(CacheInvalidateRequest.rootRecord(tableName, recordId));
+					}
+					previousRunEnd = runStart + runLength;
+				}
+			}
+
+			final int otherRequestsCount = readVarInt(in);
+			for (int i = 0; i < otherRequestsCount; i++)
+			{
+				final int rootTableIndex = readVarInt(in) - 1;
+				final int rootRecordId = readVarInt(in) - 1;
+				final int childTableIndex = readVarInt(in) - 1;
+				final int childRecordId = readVarInt(in) - 1;
+				requests.add(toRequest(
+						rootTableIndex >= 0 ? tableNames[rootTableIndex] : null,
+						rootRecordId,
+						childTableIndex >= 0 ? tableNames[childTableIndex] : null,
+						childRecordId));
+			}
+
+			return CacheInvalidateMultiRequest.of(requests.build());
+		}
+		catch (final IOException | ArrayIndexOutOfBoundsException ex)
+		{
+			throw new AdempiereException("Failed converting bytes to request", ex);
+		}
+	}
+
+	private static CacheInvalidateRequest toRequest(
+			final String rootTableName,
+			final int rootRecordId,
+			final String childTableName,
+			final int childRecordId)
+	{
+		if (rootTableName == null)
+		{
+			return CacheInvalidateRequest.all();
+		}
+		else if (childTableName == null)
+		{
+			return CacheInvalidateRequest.fromTableNameAndRecordId(rootTableName, rootRecordId);
+		}
+		else if (childRecordId < 0)
+		{
+			return CacheInvalidateRequest.allChildRecords(rootTableName, rootRecordId, childTableName);
+		}
+		else
+		{
+			return CacheInvalidateRequest.builder()
+					.rootRecord(rootTableName, rootRecordId)
+					.childRecord(childTableName, childRecordId)
+					.build();
+		}
+	}
+
+	private static void writeVarInt(final DataOutputStream out, final int value) throws IOException
+	{
+		int remaining = value;
+		while ((remaining & ~0x7F) != 0)
+		{
+			out.writeByte((remaining & 0x7F) | 0x80);
+			remaining >>>= 7;
+		}
+		out.writeByte(remaining);
+	}
+
+	private static int readVarInt(final DataInputStream in) throws IOException
+	{
+		int value = 0;
+		int shift = 0;
+		while (true)
+		{
+			final byte b = in.readByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+			{
+				return value;
+			}
+
+			shift += 7;
+			if (shift > 28)
+			{
+				throw new IOException("Malformed varint");
+			}
+		}
+	}
+}
@@ -42,6 +42,9 @@ import org.adempiere.ad.dao.IQueryOrderBy;
 import org.adempiere.ad.dao.IQueryUpdater;
 import org.adempiere.ad.dao.ISqlQueryUpdater;
 import org.adempiere.ad.persistence.TableModelLoader;
+import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.ad.trx.api.OnTrxMissingPolicy;
 import org.adempiere.exceptions.AdempiereException;
 import org.adempiere.exceptions.DBException;
 import org.adempiere.exceptions.DBMoreThanOneRecordsFoundException;
@@ -337,6 +340,41 @@ public class TypedSqlQuery<T> extends AbstractTypedQuery<T>
 		return list;
 	}
 
+	@Override
+	public <ET extends T> Iterator<ET> iterateUsingCursor(final Class<ET> clazz) throws DBException
+	{
+		final String sql = buildSQL(null, null, null, true);
+		final List<Object> sqlParams = getParametersEffective();
+		final Integer cursorFetchSize = getOption(OPTION_CursorFetchSize);
+		final int fetchSize = cursorFetchSize != null && cursorFetchSize > 0 ? cursorFetchSize : DEFAULT_OPTION_CursorFetchSize;
+
+		final String cursorTrxName = getCursorTrxNameOrNull(trxName);
+
+		final boolean readOnly = isReadOnlyRecords();
+		return TypedSqlQueryCursorIterator.open(sql, sqlParams, cursorTrxName, fetchSize, rs -> {
+			final ET model = retrieveNextModel(rs, clazz);
+			if (model != null)
+			{
+				InterfaceWrapperHelper.setSaveDeleteDisabled(model, readOnly);
+			}
+			return model;
+		});
+	}
+
+	/**
+	 * The cursor shall see the uncommitted changes of our transaction, if any.
+	 *
+	 * @return the name of the existing transaction to open the cursor in or <code>null</code> if the cursor shall use a dedicated connection
+	 */
+	@VisibleForTesting
+	@Nullable
+	static String getCursorTrxNameOrNull(@Nullable final String trxName)
+	{
+		final ITrxManager trxManager = Services.get(ITrxManager.class);
+		final ITrx trx = trxManager.get(trxName, OnTrxMissingPolicy.ReturnTrxNone);
+		return trxManager.isNull(trx) ? null : trx.getTrxName();
+	}
+
 	/**
 	 * Move <code>rs</code>'s cursor forward and get next model.
 	 * <p>
@@ -1739,6 +1777,78 @@ public class TypedSqlQuery<T> extends AbstractTypedQuery<T>
 		}
 	}
 
+	@Override
+	public List<T> updateDirectlyAndReturnUpdated(@NonNull final IQueryUpdater<T> queryUpdater)
+	{
+		final boolean useSelectFromSubQuery = this.limit > 0 || this.offset >= 0;
+		if (!(queryUpdater instanceof ISqlQueryUpdater) || useSelectFromSubQuery)
+		{
+			return updateAndReturnUpdated(queryUpdater);
+		}
+
+		final ISqlQueryUpdater<T> sqlQueryUpdater = (ISqlQueryUpdater<T>)queryUpdater;
+		final List<Object> sqlParams = new ArrayList<>();
+		final String sqlUpdateSet = sqlQueryUpdater.getSql(getCtx(), sqlParams);
+
+		final StringBuilder sqlUpdate = new StringBuilder("UPDATE ")
+				.append(getTableName())
+				.append(" SET ").append(sqlUpdateSet);
+		final String fromClause = "";
+		final String groupByClause = null;
+
+		final String sql = buildSQL(sqlUpdate, fromClause, groupByClause, false) // useOrderByClause=false
+				+ "\n RETURNING " + getPOInfo().getSqlSelectColumns();
+		sqlParams.addAll(getParametersEffective());
+
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try
+		{
+			pstmt = DB.prepareStatement(sql, trxName);
+			DB.setParameters(pstmt, sqlParams);
+			rs = pstmt.executeQuery();
+
+			final List<T> updatedModels = new ArrayList<>();
+			while (rs.next())
+			{
+				updatedModels.add(retrieveModel(rs, modelClass));
+			}
+			return updatedModels;
+		}
+		catch (final SQLException e)
+		{
+			throw new DBException(e, sql, sqlParams);
+		}
+		finally
+		{
+			DB.close(rs, pstmt);
+		}
+	}
+
+	private List<T> updateAndReturnUpdated(final IQueryUpdater<T> queryUpdater)
+	{
+		final List<T> updatedModels = new ArrayList<>();
+		final Iterator<T> records = iterate(modelClass, true); // guaranteed=true
+		try
+		{
+			while (records.hasNext())
+			{
+				final T record = records.next();
+				final boolean updated = queryUpdater.update(record);
+				if (updated)
+				{
+					InterfaceWrapperHelper.save(record);
+					updatedModels.add(record);
+				}
+			}
+			return updatedModels;
+		}
+		finally
+		{
+			IteratorUtils.closeQuietly(records);
+		}
+	}
+
 	@Override
 	public int update(final IQueryUpdater<T> queryUpdater)
 	{
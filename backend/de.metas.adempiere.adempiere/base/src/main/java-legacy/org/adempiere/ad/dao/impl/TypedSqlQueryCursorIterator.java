@@ -0,0 +1,217 @@
+package org.adempiere.ad.dao.impl;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import javax.annotation.Nullable;
+
+import org.adempiere.exceptions.DBException;
+import org.adempiere.util.lang.ImmutablePair;
+import org.compiere.util.DB;
+import org.slf4j.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import de.metas.logging.LogManager;
+import lombok.NonNull;
+
+/**
+ * Iterates the rows of a database cursor and converts them to models one at a time, while the JDBC driver fetches <code>fetchSize</code> rows at a time.
+ * <p>
+ * If no transaction is given, the cursor is opened on a dedicated connection, which is rolled back and closed together with the cursor.
+ * Else it's opened in given transaction, so it also sees the transaction's uncommitted changes.
+ * <p>
+ * The database resources are released when the last row was fetched or when {@link #close()} is called, whichever comes first.
+ */
+final class TypedSqlQueryCursorIterator<ET> implements Iterator<ET>, AutoCloseable
+{
+	private static final Logger logger = LogManager.getLogger(TypedSqlQueryCursorIterator.class);
+
+	@FunctionalInterface
+	interface ModelLoader<ET>
+	{
+		/** @return the model of the next accepted row or <code>null</code> if there are no more rows */
+		@Nullable
+		ET retrieveNextModel(ResultSet rs) throws SQLException;
+	}
+
+	public static <ET> TypedSqlQueryCursorIterator<ET> open(
+			@NonNull final String sql,
+			@NonNull final List<Object> sqlParams,
+			@Nullable final String trxName,
+			final int fetchSize,
+			@NonNull final ModelLoader<ET> modelLoader)
+	{
+		Connection conn = null;
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try
+		{
+			if (trxName == null)
+			{
+				final ImmutablePair<Connection, PreparedStatement> connAndStmt = DB.prepareConnectionAndStatementForDataExport(sql, sqlParams, fetchSize);
+				conn = connAndStmt.getLeft();
+				pstmt = connAndStmt.getRight();
+			}
+			else
+			{
+				pstmt = DB.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, trxName);
+				pstmt.setFetchSize(fetchSize);
+				DB.setParameters(pstmt, sqlParams);
+			}
+
+			rs = pstmt.executeQuery();
+			return new TypedSqlQueryCursorIterator<>(conn, pstmt, rs, modelLoader, sql, sqlParams);
+		}
+		catch (final SQLException ex)
+		{
+			close(conn, pstmt, rs);
+			throw new DBException(ex, sql, sqlParams);
+		}
+		catch (final RuntimeException ex)
+		{
+			close(conn, pstmt, rs);
+			throw ex;
+		}
+	}
+
+	private final String sql;
+	private final List<Object> sqlParams;
+	private final ModelLoader<ET> modelLoader;
+
+	// NOTE: following fields are set to null when closed
+	private Connection connection;
+	private PreparedStatement pstmt;
+	private ResultSet rs;
+
+	private ET next = null;
+	private boolean nextLoaded = false;
+
+	@VisibleForTesting
+	TypedSqlQueryCursorIterator(
+			@Nullable final Connection connection,
+			@NonNull final PreparedStatement pstmt,
+			@NonNull final ResultSet rs,
+			@NonNull final ModelLoader<ET> modelLoader,
+			@NonNull final String sql,
+			@NonNull final List<Object> sqlParams)
+	{
+		this.connection = connection;
+		this.pstmt = pstmt;
+		this.rs = rs;
+		this.modelLoader = modelLoader;
+		this.sql = sql;
+		this.sqlParams = sqlParams;
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+		if (nextLoaded)
+		{
+			return next != null;
+		}
+		if (rs == null)
+		{
+			return false; // already closed
+		}
+
+		try
+		{
+			next = modelLoader.retrieveNextModel(rs);
+			nextLoaded = true;
+		}
+		catch (final SQLException ex)
+		{
+			close();
+			throw new DBException(ex, sql, sqlParams);
+		}
+		catch (final RuntimeException ex)
+		{
+			close();
+			throw ex;
+		}
+
+		if (next == null)
+		{
+			close(); // no more rows => release the cursor right away
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public ET next()
+	{
+		if (!hasNext())
+		{
+			throw new NoSuchElementException();
+		}
+
+		final ET model = next;
+		next = null;
+		nextLoaded = false;
+		return model;
+	}
+
+	/**
+	 * Releases the cursor and, if any, the dedicated connection. Can be called more than once.
+	 */
+	@Override
+	public void close()
+	{
+		close(connection, pstmt, rs);
+		connection = null;
+		pstmt = null;
+		rs = null;
+	}
+
+	private static void close(
+			@Nullable final Connection connection,
+			@Nullable final PreparedStatement pstmt,
+			@Nullable final ResultSet rs)
+	{
+		DB.close(rs, pstmt);
+
+		if (connection != null)
+		{
+			try
+			{
+				// we only read, but the connection is not in autocommit mode
+				connection.rollback();
+			}
+			catch (final SQLException ex)
+			{
+				logger.warn("Failed rolling back {}. Ignored.", connection, ex);
+			}
+			DB.close(connection);
+		}
+	}
+}
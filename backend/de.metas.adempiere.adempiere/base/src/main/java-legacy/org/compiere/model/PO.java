@@ -53,6 +53,8 @@ import org.adempiere.ad.migration.model.X_AD_MigrationStep;
 import org.adempiere.ad.modelvalidator.ModelChangeType;
 import org.adempiere.ad.persistence.po.INoDataFoundHandler;
 import org.adempiere.ad.persistence.po.NoDataFoundHandlers;
+import org.adempiere.ad.persistence.po.POBatchedPersistence;
+import org.adempiere.ad.persistence.po.POBatchedPersistence.POStatementsBatch;
 import org.adempiere.ad.service.IADReferenceDAO;
 import org.adempiere.ad.service.IDeveloperModeBL;
 import org.adempiere.ad.session.ChangeLogRecord;
@@ -3438,8 +3440,15 @@ public abstract class PO
 			//
 			// Execute UPDATE SQL
 			log.trace("Save update: SQL={}", sql);
+			final POStatementsBatch batch = m_lobInfo == null ? POBatchedPersistence.getBatchOrNull(m_trxName) : null;
 			final int no;
-			if (isUseTimeoutForUpdate())
+			if (batch != null)
+			{
+				// batched persistence is enabled: the update is queued and will be executed together with the other ones
+				batch.add(p_info.getTableName(), sql.toString());
+				no = 1;
+			}
+			else if (isUseTimeoutForUpdate())
 			{
 				no = DB.executeUpdateEx(sql.toString(), m_trxName, QUERY_TIME_OUT);
 			}
@@ -3669,6 +3678,9 @@ public abstract class PO
 
 		lobReset();
 
+		// If batched persistence is enabled, we try to queue the INSERT instead of executing it (see below)
+		final POStatementsBatch batch = POBatchedPersistence.getBatchOrNull(m_trxName);
+
 		//
 		// Build INSERT SQL
 		final StringBuilder sqlInsert = new StringBuilder("INSERT INTO ");
@@ -3703,7 +3715,8 @@ public abstract class PO
 				//
 				// Case: We deal with a staleable column which has no value specified on inserting
 				// => Do nothing, but retrieve it from database after insert
-				else if (p_info.isColumnStaleable(i))
+				// (in batched mode we don't, because the PO is marked as stale anyways and the column will be loaded on demand)
+				else if (p_info.isColumnStaleable(i) && batch == null)
 				{
 					loadAfterInsertProcessor.addColumnName(columnName);
 				}
@@ -3840,12 +3853,22 @@ public abstract class PO
 
 		//
 		// Execute actual database INSERT
-		final int no = DB.executeUpdate(sqlInsert.toString(),
-				(Object[])null,  // params,
-				OnFail.ThrowException,  // onFail
-				m_trxName,
-				0,  // timeOut,
-				loadAfterInsertProcessor);
+		final int no;
+		if (batch != null && loadAfterInsertProcessor == null && m_lobInfo == null)
+		{
+			// nothing to read back from database => the insert can be queued and executed together with the other ones
+			batch.add(tableName, sqlInsert.toString());
+			no = 1;
+		}
+		else
+		{
+			no = DB.executeUpdate(sqlInsert.toString(),
+					(Object[])null,  // params,
+					OnFail.ThrowException,  // onFail
+					m_trxName,
+					0,  // timeOut,
+					loadAfterInsertProcessor);
+		}
 		boolean ok = no == 1;
 
 		//
@@ -50,6 +50,7 @@ import javax.sql.RowSet;
 import org.adempiere.ad.dao.impl.InArrayQueryFilter;
 import org.adempiere.ad.migration.logger.IMigrationLogger;
 import org.adempiere.ad.service.ISystemBL;
+import org.adempiere.ad.service.ITableIdAllocator;
 import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.ad.trx.api.ITrxManager;
 import org.adempiere.exceptions.AdempiereException;
@@ -621,6 +622,19 @@ public final class DB
 			@NonNull final String sqlSelect,
 			@Nullable final List<?> sqlParams/* not ImmutableList because list elements might be null */)
 	{
+		return prepareConnectionAndStatementForDataExport(sqlSelect, sqlParams, 1000);
+	}
+
+	/**
+	 * Same as {@link #prepareConnectionAndStatementForDataExport(String, List)}, but fetching <code>fetchSize</code> rows at a time.
+	 */
+	public static ImmutablePair<Connection, PreparedStatement> prepareConnectionAndStatementForDataExport(
+			@NonNull final String sqlSelect,
+			@Nullable final List<?> sqlParams/* not ImmutableList because list elements might be null */,
+			final int fetchSize)
+	{
+		Check.assume(fetchSize > 0, "fetchSize > 0 but it was {}", fetchSize);
+
 		Connection conn = null;
 		PreparedStatement pstmt = null;
 		try
@@ -633,7 +647,7 @@ public final class DB
 
 			Check.assume(pstmt.getResultSetType() == ResultSet.TYPE_FORWARD_ONLY, "Prepared statement's ResultSetType shall be TYPE_FORWARD_ONLY");
 
-			pstmt.setFetchSize(1000);
+			pstmt.setFetchSize(fetchSize);
 			DB.setParameters(pstmt, sqlParams);
 			return ImmutablePair.of(conn, pstmt);
 		}
@@ -1809,7 +1823,15 @@ public final class DB
 	 */
 	public static int getNextID(final int AD_Client_ID, final String TableName, final String trxName)
 	{
-		final boolean useNativeSequences = DB.isUseNativeSequences(AD_Client_ID, TableName);
+		final boolean idPreallocationAllowed = DB.isIDPreallocationAllowed(AD_Client_ID, TableName);
+		final boolean useNativeSequences = idPreallocationAllowed && isUseNativeSequences();
+
+		final ITableIdAllocator tableIdAllocator = Services.get(ITableIdAllocator.class);
+		if (idPreallocationAllowed && tableIdAllocator.isBlockAllocationEnabled(TableName))
+		{
+			return tableIdAllocator.nextId(TableName, useNativeSequences);
+		}
+
 		if (useNativeSequences)
 		{
 			final String sequenceName = getTableSequenceName(TableName);
@@ -2483,6 +2505,24 @@ public final class DB
 	{
 		log.debug("Checking if we shall use native sequences for {} (AD_Client_ID={})", TableName, AD_Client_ID);
 
+		if (!isIDPreallocationAllowed(AD_Client_ID, TableName))
+		{
+			return false;
+		}
+
+		//
+		// Default: use native sequences if activated
+		final boolean useNativeSequences = isUseNativeSequences();
+		log.debug("Returning the result of isUseNativeSequences: {}", useNativeSequences);
+		return useNativeSequences;
+	}
+
+	/**
+	 * @return true if the IDs of given table can be obtained from a native sequence or can be reserved in blocks by {@link ITableIdAllocator};
+	 *         false if each ID has to be fetched individually from <code>AD_Sequence</code> or from an external ID system.
+	 */
+	public static boolean isIDPreallocationAllowed(final int AD_Client_ID, final String TableName)
+	{
 		//
 		// Check: If Log Migration Scripts is enabled then don't use native sequences
 		if (Ini.isPropertyBool(Ini.P_LOGMIGRATIONSCRIPT)
@@ -2508,11 +2548,8 @@ public final class DB
 			log.debug("Returning 'false' because MSequence.isUseExternalIDSystem() returned 'true' for TableName {} and AD_Client_ID {}", TableName, AD_Client_ID);
 			return false;
 		}
-		//
-		// Default: use native sequences if activated
-		final boolean useNativeSequences = isUseNativeSequences();
-		log.debug("Returning the result of isUseNativeSequences: {}", useNativeSequences);
-		return useNativeSequences;
+
+		return true;
 	}
 
 	public static void setUseNativeSequences(final boolean enabled)
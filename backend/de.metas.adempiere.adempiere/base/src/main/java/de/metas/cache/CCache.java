@@ -41,6 +41,7 @@ import org.adempiere.util.lang.impl.TableRecordReference;
 import org.compiere.util.Util;
 import org.slf4j.Logger;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.common.base.MoreObjects;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
@@ -52,6 +53,7 @@ import com.google.common.util.concurrent.ExecutionError;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 
 import de.metas.logging.LogManager;
+import de.metas.util.Check;
 import lombok.Builder;
 import lombok.NonNull;
 import lombok.Singular;
@@ -80,7 +82,7 @@ public class CCache<K, V> implements CacheInterface
 		return CCache.<K, V> builder()
 				.cacheName(cacheName)
 				// .tableName(null) // auto-detect tableName
-				.initialCapacity(maxSize) // FIXME this is confusing because in case of LRU, initialCapacity is used as maxSize
+				.maximumSize(maxSize)
 				.expireMinutes(expireAfterMinutes)
 				.cacheMapType(CacheMapType.LRU)
 				.build();
@@ -130,6 +132,16 @@ public class CCache<K, V> implements CacheInterface
 	/** Internal map that is used as cache */
 	private final Cache<K, V> cache;
 
+	/** Maximum number of entries; negative means unbounded */
+	private final long maximumSize;
+	/** Maximum total weight of the entries (see {@link CacheWeigher}); zero means the cache is not bounded by weight */
+	private final long maximumWeight;
+	/** Used to bound the cache (if maximumWeight is set) and to estimate the cache's weight in {@link #stats()} */
+	@Nullable
+	private final CacheWeigher<K, V> weigher;
+	/** How many entries are weighed at most when estimating the cache's weight */
+	private static final int STATS_WEIGHT_SAMPLE_SIZE = 1000;
+
 	static final AtomicLong NEXT_CACHE_ID = new AtomicLong(1);
 	/** unique cache ID, mainly used for tracking, logging and debugging */
 	private final long cacheId;
@@ -184,6 +196,9 @@ public class CCache<K, V> implements CacheInterface
 				initialCapacity,
 				expireMinutes,
 				CacheMapType.HashMap,
+				(Integer)null, // maximumSize
+				(Long)null, // maximumWeight
+				(CacheWeigher<K, V>)null,
 				(CachingKeysMapper<K>)null,
 				(CacheRemovalListener<K, V>)null,
 				(CacheAdditionListener<K, V>)null);
@@ -197,6 +212,9 @@ public class CCache<K, V> implements CacheInterface
 			final Integer initialCapacity,
 			final Integer expireMinutes,
 			final CacheMapType cacheMapType,
+			@Nullable final Integer maximumSize,
+			@Nullable final Long maximumWeight,
+			@Nullable final CacheWeigher<K, V> weigher,
 			@Nullable final CachingKeysMapper<K> invalidationKeysMapper,
 			@Nullable final CacheRemovalListener<K, V> removalListener,
 			@Nullable final CacheAdditionListener<K, V> additionListener)
@@ -245,9 +263,39 @@ public class CCache<K, V> implements CacheInterface
 		this.labels = buildCacheLabels(tableNameEffective, additionalTableNamesToResetFor);
 
 		this.expireMinutes = expireMinutes != null ? expireMinutes : EXPIREMINUTES_Never;
+
+		final CacheMapType cacheMapTypeEffective = cacheMapType != null ? cacheMapType : CacheMapType.HashMap;
+		final int initialCapacityEffective = initialCapacity != null ? initialCapacity : 0;
+		if (maximumWeight != null && maximumWeight > 0)
+		{
+			Check.assumeNotNull(weigher, "weigher shall be set if maximumWeight is set for {}", this.cacheName);
+			this.maximumWeight = maximumWeight;
+			this.maximumSize = -1; // NOTE: guava does not support having both
+		}
+		else if (maximumSize != null && maximumSize > 0)
+		{
+			this.maximumWeight = 0;
+			this.maximumSize = maximumSize;
+		}
+		else if (cacheMapTypeEffective == CacheMapType.LRU)
+		{
+			// backward compatibility: in case of LRU caches, the initialCapacity was used as maximum size (also if it's zero)
+			this.maximumWeight = 0;
+			this.maximumSize = initialCapacityEffective;
+		}
+		else
+		{
+			this.maximumWeight = 0;
+			this.maximumSize = -1;
+		}
+		this.weigher = weigher;
+
 		this.cache = buildGuavaCache(
-				cacheMapType != null ? cacheMapType : CacheMapType.HashMap,
-				initialCapacity != null ? initialCapacity : 0,
+				cacheMapTypeEffective,
+				initialCapacityEffective,
+				this.maximumSize,
+				this.maximumWeight,
+				this.weigher,
 				this.expireMinutes,
 				removalListener);
 
@@ -316,25 +364,45 @@ public class CCache<K, V> implements CacheInterface
 	private static final <K, V> Cache<K, V> buildGuavaCache(
 			@NonNull final CacheMapType cacheMapType,
 			final int initialCapacity,
+			final long maximumSize,
+			final long maximumWeight,
+			@Nullable final CacheWeigher<K, V> weigher,
 			final int expireMinutes,
 			@Nullable final CacheRemovalListener<K, V> removalListener)
 	{
-		CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder();
+		CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder()
+				.recordStats();
 		if (cacheMapType == CacheMapType.HashMap)
 		{
-			cacheBuilder = cacheBuilder
-					.initialCapacity(initialCapacity);
+			if (initialCapacity > 0)
+			{
+				cacheBuilder = cacheBuilder.initialCapacity(initialCapacity);
+			}
 		}
 		else if (cacheMapType == CacheMapType.LRU)
 		{
-			cacheBuilder = cacheBuilder
-					.maximumSize(initialCapacity); // FIXME: this is confusing
+			// nothing to do: LRU caches are bounded by maximumSize or maximumWeight
 		}
 		else
 		{
 			throw new AdempiereException("Unknown CacheMapType: " + cacheMapType);
 		}
 
+		if (maximumWeight > 0 && weigher != null)
+		{
+			cacheBuilder = cacheBuilder
+					.maximumWeight(maximumWeight)
+					.weigher((key, value) -> {
+						@SuppressWarnings("unchecked")
+						final int weight = weigher.weigh((K)key, (V)value);
+						return weight;
+					});
+		}
+		else if (maximumSize >= 0)
+		{
+			cacheBuilder = cacheBuilder.maximumSize(maximumSize);
+		}
+
 		if (expireMinutes > 0)
 		{
 			cacheBuilder = cacheBuilder.expireAfterWrite(expireMinutes, TimeUnit.MINUTES);
@@ -448,6 +516,30 @@ public class CCache<K, V> implements CacheInterface
 		}
 	}
 
+	@Override
+	public boolean mightContainEntries()
+	{
+		// NOTE: if the cache is empty but was not flagged as "just reset", we still need to reset it, so that isReset() behaves as before
+		return !m_justReset || cache.size() > 0;
+	}
+
+	@Override
+	public boolean mightContainRecord(@NonNull final TableRecordReference recordRef)
+	{
+		if (!mightContainEntries())
+		{
+			return false;
+		}
+
+		if (!invalidationKeysMapper.isPresent())
+		{
+			return true; // we will reset everything
+		}
+
+		final CachingKeysMapper<K> keysMapper = invalidationKeysMapper.get();
+		return keysMapper.isResetAll(recordRef) || keysMapper.mightContainRecord(recordRef);
+	}
+
 	private long resetForRecordIdUsingKeysMapper(
 			@NonNull final TableRecordReference recordRef,
 			@NonNull final CachingKeysMapper<K> keysMapper)
@@ -820,7 +912,43 @@ public class CCache<K, V> implements CacheInterface
 	 */
 	public CCacheStats stats()
 	{
-		return new CCacheStats(cacheId, cacheName, cache.size(), cache.stats());
+		final long size = cache.size();
+		return new CCacheStats(cacheId, cacheName, size, estimateWeight(size), maximumSize, maximumWeight, cache.stats());
+	}
+
+	/**
+	 * Weighs up to {@value #STATS_WEIGHT_SAMPLE_SIZE} entries and extrapolates their weight to the whole cache,
+	 * so that getting the stats of a big cache does not iterate all its entries.
+	 *
+	 * @return estimated total weight of all entries or <code>-1</code> if this cache has no {@link CacheWeigher}
+	 */
+	private long estimateWeight(final long size)
+	{
+		final CacheWeigher<K, V> weigher = this.weigher;
+		if (weigher == null)
+		{
+			return -1;
+		}
+
+		long sampleWeight = 0;
+		int sampleSize = 0;
+		for (final Entry<K, V> entry : cache.asMap().entrySet())
+		{
+			if (sampleSize >= STATS_WEIGHT_SAMPLE_SIZE)
+			{
+				break;
+			}
+			sampleWeight += weigher.weigh(entry.getKey(), entry.getValue());
+			sampleSize++;
+		}
+
+		if (sampleSize == 0)
+		{
+			return 0;
+		}
+		return sampleSize >= size
+				? sampleWeight
+				: Math.round((double)sampleWeight / sampleSize * size);
 	}
 
 	@SuppressWarnings("serial")
@@ -831,13 +959,26 @@ public class CCache<K, V> implements CacheInterface
 		private final long cacheId;
 		private final String name;
 		private final long size;
+		private final long estimatedWeight;
+		private final long maximumSize;
+		private final long maximumWeight;
 		private final CacheStats guavaStats;
 
-		private CCacheStats(final long cacheId, final String name, final long size, final CacheStats guavaStats)
+		private CCacheStats(
+				final long cacheId,
+				final String name,
+				final long size,
+				final long estimatedWeight,
+				final long maximumSize,
+				final long maximumWeight,
+				final CacheStats guavaStats)
 		{
 			this.cacheId = cacheId;
 			this.name = name;
 			this.size = size;
+			this.estimatedWeight = estimatedWeight;
+			this.maximumSize = maximumSize;
+			this.maximumWeight = maximumWeight;
 			this.guavaStats = guavaStats;
 		}
 
@@ -847,6 +988,9 @@ public class CCache<K, V> implements CacheInterface
 			return MoreObjects.toStringHelper(this)
 					.add("name", name)
 					.add("size", size)
+					.add("estimatedWeight", estimatedWeight >= 0 ? estimatedWeight : null)
+					.add("maximumSize", maximumSize >= 0 ? maximumSize : null)
+					.add("maximumWeight", maximumWeight > 0 ? maximumWeight : null)
 					.add("guavaStats", guavaStats)
 					.add("cacheId", cacheId)
 					.toString();
@@ -855,7 +999,7 @@ public class CCache<K, V> implements CacheInterface
 		@Override
 		public int hashCode()
 		{
-			return Objects.hash(cacheId, name, size, guavaStats);
+			return Objects.hash(cacheId, name, size, estimatedWeight, guavaStats);
 		}
 
 		@Override
@@ -867,6 +1011,9 @@ public class CCache<K, V> implements CacheInterface
 				return cacheId == other.cacheId
 						&& name.equals(other.name)
 						&& size == other.size
+						&& estimatedWeight == other.estimatedWeight
+						&& maximumSize == other.maximumSize
+						&& maximumWeight == other.maximumWeight
 						&& guavaStats.equals(other.guavaStats);
 			}
 			return false;
@@ -887,6 +1034,59 @@ public class CCache<K, V> implements CacheInterface
 			return size;
 		}
 
+		/**
+		 * @return estimated total weight of all entries (e.g. approximate size in bytes) or <code>-1</code> if the cache has no {@link CacheWeigher}.
+		 *         For big caches, the weight is extrapolated from a sample of the entries.
+		 */
+		public long getEstimatedWeight()
+		{
+			return estimatedWeight;
+		}
+
+		/**
+		 * @return maximum number of entries or <code>-1</code> if the cache is not bounded by size
+		 */
+		public long getMaximumSize()
+		{
+			return maximumSize;
+		}
+
+		public long getMaximumWeight()
+		{
+			return maximumWeight;
+		}
+
+		public long getHitCount()
+		{
+			return guavaStats.hitCount();
+		}
+
+		public long getMissCount()
+		{
+			return guavaStats.missCount();
+		}
+
+		public double getHitRate()
+		{
+			return guavaStats.hitRate();
+		}
+
+		public long getEvictionCount()
+		{
+			return guavaStats.evictionCount();
+		}
+
+		public long getLoadCount()
+		{
+			return guavaStats.loadCount();
+		}
+
+		public double getAverageLoadPenaltyMillis()
+		{
+			return guavaStats.averageLoadPenalty() / 1_000_000d;
+		}
+
+		@JsonIgnore
 		public CacheStats getGuavaStats()
 		{
 			return guavaStats;
@@ -0,0 +1,77 @@
+package de.metas.cache;
+
+import java.util.Comparator;
+
+import de.metas.cache.CCache.CCacheStats;
+import de.metas.util.Check;
+import lombok.Getter;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * How to rank the {@link CCacheStats} returned by {@link CacheMgt#getCacheStats(CCacheStatsOrderBy)}.
+ * The "worst" caches (biggest, most misses, lowest hit rate) come first.
+ */
+public enum CCacheStatsOrderBy
+{
+	Size(Comparator.comparingLong(CCacheStats::getSize).reversed()),
+
+	/** Caches without {@link CacheWeigher} have a weight of <code>-1</code>, so they come last */
+	Weight(Comparator.comparingLong(CCacheStats::getEstimatedWeight).reversed()),
+
+	MissCount(Comparator.comparingLong(CCacheStats::getMissCount).reversed()),
+
+	HitRate(Comparator.comparingDouble(CCacheStats::getHitRate)),
+
+	EvictionCount(Comparator.comparingLong(CCacheStats::getEvictionCount).reversed()),
+
+	Name(Comparator.comparing(CCacheStats::getName)),
+	;
+
+	@Getter
+	private final Comparator<CCacheStats> comparator;
+
+	CCacheStatsOrderBy(@NonNull final Comparator<CCacheStats> comparator)
+	{
+		this.comparator = comparator.thenComparing(CCacheStats::getCacheId);
+	}
+
+	public static CCacheStatsOrderBy ofNullableStringOrDefault(final String orderByStr, @NonNull final CCacheStatsOrderBy defaultOrderBy)
+	{
+		if (Check.isEmpty(orderByStr, true))
+		{
+			return defaultOrderBy;
+		}
+
+		for (final CCacheStatsOrderBy orderBy : values())
+		{
+			if (orderBy.name().equalsIgnoreCase(orderByStr.trim()))
+			{
+				return orderBy;
+			}
+		}
+
+		return defaultOrderBy;
+	}
+}
@@ -49,13 +49,16 @@ import lombok.NonNull;
  * <pre>
  * CCache.&lt;YourKey, YourValue&gt;builder()
  * 		[...]
- * 		.invalidationKeysMapper(cacheIndex::computeCachingKeys)
+ * 		.invalidationKeysMapper(cacheIndex)
  * 		.removalListener(cacheIndex::remove)
  * 		.additionListener(cacheIndex::add)
  * 		[...]
  * 		.build();
  * </pre>
  * <p>
+ * Note: pass the {@link CacheIndex} itself (and not e.g. <code>cacheIndex::computeCachingKeys</code>) as invalidation keys mapper,
+ * so that the cache can use {@link #mightContainRecord(TableRecordReference)} to skip invalidations which are not about its records.
+ * <p>
  * Note: if you have a very straight 1:1 relation between your cache's key and value, then just implementing {@link CachingKeysMapper} might be sufficient for you.
  * <p>
  *
@@ -94,6 +97,12 @@ public final class CacheIndex<DataItemId, CacheKey, DataItem> implements Caching
 		return getCacheKeys(recordRef);
 	}
 
+	@Override
+	public synchronized boolean mightContainRecord(@NonNull final TableRecordReference recordRef)
+	{
+		return _recordRef_to_dateItemId.containsKey(recordRef);
+	}
+
 	private synchronized Collection<CacheKey> getCacheKeys(@NonNull final TableRecordReference recordRef)
 	{
 		final Set<DataItemId> dataItemIds = _recordRef_to_dateItemId.get(recordRef);
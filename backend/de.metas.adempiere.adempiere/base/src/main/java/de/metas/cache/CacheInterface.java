@@ -42,6 +42,26 @@ public interface CacheInterface
 	 */
 	long resetForRecordId(TableRecordReference recordRef);
 
+	/**
+	 * Used by {@link CacheMgt} to skip caches which surely have nothing to invalidate.
+	 *
+	 * @return <code>false</code> if this cache is empty and calling {@link #reset()} would have no effect
+	 */
+	default boolean mightContainEntries()
+	{
+		return true;
+	}
+
+	/**
+	 * Used by {@link CacheMgt} to skip caches which surely have nothing to invalidate for the given record.
+	 *
+	 * @return <code>false</code> if calling {@link #resetForRecordId(TableRecordReference)} would have no effect
+	 */
+	default boolean mightContainRecord(final TableRecordReference recordRef)
+	{
+		return mightContainEntries();
+	}
+
 	/**
 	 * Reset Cache
 	 * 
@@ -0,0 +1,330 @@
+package de.metas.cache;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.slf4j.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
+
+import de.metas.cache.model.CacheInvalidateMultiRequest;
+import de.metas.cache.model.CacheInvalidateRequest;
+import de.metas.logging.LogManager;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Collects the cache invalidation requests which shall be broadcasted by this node and sends them as one merged request,
+ * after a given time window passed or when a given number of requests was collected.
+ * <p>
+ * Before sending, the collected requests are deduplicated and, if there are too many records of the same table, replaced by one "all records of table" request.
+ */
+final class CacheInvalidationBroadcastBatcher
+{
+	private static final Logger logger = LogManager.getLogger(CacheInvalidationBroadcastBatcher.class);
+
+	private final Consumer<CacheInvalidateMultiRequest> sender;
+
+	private final Object lock = new Object();
+	// NOTE: following fields shall be accessed while holding the lock
+	private LinkedHashSet<CacheInvalidateRequest> pendingRequests = new LinkedHashSet<>();
+	private ScheduledFuture<?> scheduledFlush;
+	private int wholeTableThreshold;
+	private ScheduledExecutorService _scheduler;
+	private boolean destroyed = false;
+
+	private final AtomicLong requestsReceived = new AtomicLong();
+	private final AtomicLong requestsDeduplicated = new AtomicLong();
+	private final AtomicLong requestsCompacted = new AtomicLong();
+	private final AtomicLong messagesReceived = new AtomicLong();
+	private final AtomicLong messagesSent = new AtomicLong();
+
+	CacheInvalidationBroadcastBatcher(@NonNull final Consumer<CacheInvalidateMultiRequest> sender)
+	{
+		this.sender = sender;
+	}
+
+	public void enqueue(@NonNull final CacheInvalidateMultiRequest multiRequest, @NonNull final BatchingConfig config)
+	{
+		messagesReceived.incrementAndGet();
+		requestsReceived.addAndGet(multiRequest.getRequests().size());
+
+		if (config.getWindowMillis() <= 0)
+		{
+			send(multiRequest);
+			return;
+		}
+
+		boolean sendNow = false;
+		boolean flushNow = false;
+		synchronized (lock)
+		{
+			if (destroyed)
+			{
+				// nobody would flush the pending requests anymore
+				sendNow = true;
+			}
+			else
+			{
+				for (final CacheInvalidateRequest request : multiRequest.getRequests())
+				{
+					if (!pendingRequests.add(request))
+					{
+						requestsDeduplicated.incrementAndGet();
+					}
+				}
+				wholeTableThreshold = config.getWholeTableThreshold();
+
+				if (pendingRequests.size() >= config.getMaxRequests())
+				{
+					flushNow = true;
+				}
+				else if (scheduledFlush == null)
+				{
+					scheduledFlush = getScheduler().schedule(this::flushNoFail, config.getWindowMillis(), TimeUnit.MILLISECONDS);
+				}
+			}
+		}
+
+		if (sendNow)
+		{
+			send(multiRequest);
+		}
+		else if (flushNow)
+		{
+			flush();
+		}
+	}
+
+	private ScheduledExecutorService getScheduler()
+	{
+		// NOTE: called while holding the lock
+		if (_scheduler == null)
+		{
+			_scheduler = Executors.newSingleThreadScheduledExecutor(CustomizableThreadFactory.builder()
+					.setThreadNamePrefix(CacheInvalidationBroadcastBatcher.class.getSimpleName())
+					.setDaemon(true)
+					.build());
+		}
+		return _scheduler;
+	}
+
+	private void flushNoFail()
+	{
+		try
+		{
+			flush();
+		}
+		catch (final Exception ex)
+		{
+			logger.warn("Failed broadcasting cache invalidation requests. Ignored.", ex);
+		}
+	}
+
+	@VisibleForTesting
+	void flush()
+	{
+		final Set<CacheInvalidateRequest> requests;
+		final int wholeTableThreshold;
+		synchronized (lock)
+		{
+			if (scheduledFlush != null)
+			{
+				scheduledFlush.cancel(false);
+				scheduledFlush = null;
+			}
+
+			if (pendingRequests.isEmpty())
+			{
+				return;
+			}
+
+			requests = pendingRequests;
+			pendingRequests = new LinkedHashSet<>();
+			wholeTableThreshold = this.wholeTableThreshold;
+		}
+
+		final ImmutableSet<CacheInvalidateRequest> compactedRequests = compact(requests, wholeTableThreshold);
+		requestsCompacted.addAndGet(requests.size() - compactedRequests.size());
+
+		send(CacheInvalidateMultiRequest.of(compactedRequests));
+	}
+
+	/**
+	 * Sends the pending requests and stops the time window scheduler. Requests enqueued afterwards are sent right away.
+	 */
+	public void destroy()
+	{
+		final ScheduledExecutorService scheduler;
+		synchronized (lock)
+		{
+			destroyed = true;
+			scheduler = _scheduler;
+			_scheduler = null;
+		}
+
+		flush();
+
+		if (scheduler != null)
+		{
+			scheduler.shutdown();
+		}
+	}
+
+	private void send(final CacheInvalidateMultiRequest multiRequest)
+	{
+		sender.accept(multiRequest);
+		messagesSent.incrementAndGet();
+	}
+
+	/**
+	 * @return requests where
+	 *         <ul>
+	 *         <li>root records of tables which are fully invalidated anyways were removed
+	 *         <li>root records of tables with more than <code>wholeTableThreshold</code> records were replaced by one "all records for table" request
+	 *         </ul>
+	 */
+	@VisibleForTesting
+	static ImmutableSet<CacheInvalidateRequest> compact(@NonNull final Set<CacheInvalidateRequest> requests, final int wholeTableThreshold)
+	{
+		if (requests.stream().anyMatch(CacheInvalidateRequest::isAll))
+		{
+			return ImmutableSet.of(CacheInvalidateRequest.all());
+		}
+
+		final Set<String> allRecordsTableNames = new HashSet<>();
+		final Map<String, Integer> rootRecordsCountByTableName = new HashMap<>();
+		for (final CacheInvalidateRequest request : requests)
+		{
+			if (!isRootRecordOnly(request))
+			{
+				continue;
+			}
+
+			if (request.isAllRecords())
+			{
+				allRecordsTableNames.add(request.getRootTableName());
+			}
+			else
+			{
+				rootRecordsCountByTableName.merge(request.getRootTableName(), 1, Integer::sum);
+			}
+		}
+
+		if (wholeTableThreshold > 0)
+		{
+			rootRecordsCountByTableName.forEach((tableName, recordsCount) -> {
+				if (recordsCount > wholeTableThreshold)
+				{
+					allRecordsTableNames.add(tableName);
+				}
+			});
+		}
+
+		if (allRecordsTableNames.isEmpty())
+		{
+			return ImmutableSet.copyOf(requests);
+		}
+
+		final ImmutableSet.Builder<CacheInvalidateRequest> result = ImmutableSet.builder();
+		for (final String tableName : allRecordsTableNames)
+		{
+			result.add(CacheInvalidateRequest.allRecordsForTable(tableName));
+		}
+		for (final CacheInvalidateRequest request : requests)
+		{
+			if (isRootRecordOnly(request) && allRecordsTableNames.contains(request.getRootTableName()))
+			{
+				continue;
+			}
+			result.add(request);
+		}
+		return result.build();
+	}
+
+	private static boolean isRootRecordOnly(final CacheInvalidateRequest request)
+	{
+		return request.getRootTableName() != null && request.getChildTableName() == null;
+	}
+
+	public BroadcastStats getStats()
+	{
+		return BroadcastStats.builder()
+				.messagesReceived(messagesReceived.get())
+				.messagesSent(messagesSent.get())
+				.requestsReceived(requestsReceived.get())
+				.requestsDeduplicated(requestsDeduplicated.get())
+				.requestsCompacted(requestsCompacted.get())
+				.build();
+	}
+
+	@Value
+	@Builder(toBuilder = true)
+	public static class BatchingConfig
+	{
+		public static final BatchingConfig NO_BATCHING = builder().windowMillis(0).maxRequests(1).wholeTableThreshold(0).build();
+
+		/** How long to collect requests before sending them; zero or negative means that requests are sent right away */
+		int windowMillis;
+
+		/** Send the collected requests right away when this many were collected */
+		int maxRequests;
+
+		/** If more records of the same table were collected, send one "all records for table" request instead; zero or negative means never */
+		int wholeTableThreshold;
+	}
+
+	@Value
+	@Builder
+	public static class BroadcastStats
+	{
+		/** How many {@link CacheInvalidateMultiRequest}s we were asked to broadcast */
+		long messagesReceived;
+		/** How many {@link CacheInvalidateMultiRequest}s we actually broadcasted */
+		long messagesSent;
+
+		long requestsReceived;
+		long requestsDeduplicated;
+		/** How many requests were dropped because they were covered by "all records for table" requests */
+		long requestsCompacted;
+
+		public long getMessagesSaved()
+		{
+			return messagesReceived - messagesSent;
+		}
+	}
+}
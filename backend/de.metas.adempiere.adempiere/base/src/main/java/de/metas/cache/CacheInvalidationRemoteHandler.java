@@ -3,13 +3,17 @@ package de.metas.cache;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
+import org.adempiere.ad.dao.cache.CacheInvalidateMultiRequestCompactSerializer;
 import org.adempiere.ad.dao.cache.CacheInvalidateMultiRequestSerializer;
+import org.adempiere.service.ISysConfigBL;
 import org.slf4j.Logger;
 import org.slf4j.MDC.MDCCloseable;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
 
+import de.metas.cache.CacheInvalidationBroadcastBatcher.BatchingConfig;
+import de.metas.cache.CacheInvalidationBroadcastBatcher.BroadcastStats;
 import de.metas.cache.model.CacheInvalidateMultiRequest;
 import de.metas.cache.model.CacheInvalidateRequest;
 import de.metas.event.Event;
@@ -59,11 +63,23 @@ final class CacheInvalidationRemoteHandler implements IEventListener
 			.build();
 
 	private static final String EVENT_PROPERTY = CacheInvalidateRequest.class.getSimpleName();
+	private static final String EVENT_PROPERTY_Compact = CacheInvalidateRequest.class.getSimpleName() + ".compact";
+
+	/**
+	 * Nodes which don't know the compact encoding would ignore such events, so it shall be enabled only after all nodes were upgraded.
+	 */
+	private static final String SYSCONFIG_UseCompactEncoding = "de.metas.cache.CacheInvalidationRemoteHandler.UseCompactEncoding";
+	private static final String SYSCONFIG_BatchWindowMillis = "de.metas.cache.CacheInvalidationRemoteHandler.BatchWindowMillis";
+	private static final String SYSCONFIG_BatchMaxRequests = "de.metas.cache.CacheInvalidationRemoteHandler.BatchMaxRequests";
+	private static final String SYSCONFIG_WholeTableThreshold = "de.metas.cache.CacheInvalidationRemoteHandler.WholeTableThreshold";
 
 	private final AtomicBoolean _initalized = new AtomicBoolean(false);
 	private ImmutableTableNamesGroupsIndex _tableNamesToBroadcastIndex = ImmutableTableNamesGroupsIndex.EMPTY;
 
 	private final CacheInvalidateMultiRequestSerializer jsonSerializer = new CacheInvalidateMultiRequestSerializer();
+	private final CacheInvalidateMultiRequestCompactSerializer compactSerializer = new CacheInvalidateMultiRequestCompactSerializer();
+
+	private final CacheInvalidationBroadcastBatcher batcher = new CacheInvalidationBroadcastBatcher(this::broadcastNow);
 
 	private CacheInvalidationRemoteHandler()
 	{
@@ -146,8 +162,23 @@ final class CacheInvalidationRemoteHandler implements IEventListener
 			return;
 		}
 
-		// Broadcast the event.
-		final Event event = createEventFromRequest(request);
+		batcher.enqueue(request, getBatchingConfig());
+	}
+
+	private BatchingConfig getBatchingConfig()
+	{
+		final ISysConfigBL sysConfigBL = Services.get(ISysConfigBL.class);
+		return BatchingConfig.builder()
+				.windowMillis(sysConfigBL.getIntValue(SYSCONFIG_BatchWindowMillis, 100))
+				.maxRequests(sysConfigBL.getIntValue(SYSCONFIG_BatchMaxRequests, 500))
+				.wholeTableThreshold(sysConfigBL.getIntValue(SYSCONFIG_WholeTableThreshold, 1000))
+				.build();
+	}
+
+	private void broadcastNow(final CacheInvalidateMultiRequest request)
+	{
+		final boolean useCompactEncoding = Services.get(ISysConfigBL.class).getBooleanValue(SYSCONFIG_UseCompactEncoding, false);
+		final Event event = createEventFromRequest(request, useCompactEncoding);
 		try (final MDCCloseable mdc = EventMDC.putEvent(event))
 		{
 			logger.debug("Broadcasting cacheInvalidateMultiRequest={}", request);
@@ -157,6 +188,14 @@ final class CacheInvalidationRemoteHandler implements IEventListener
 		}
 	}
 
+	/**
+	 * Broadcasts the pending cache invalidation requests, so they are not lost when this node is shutting down.
+	 */
+	public void destroy()
+	{
+		batcher.destroy();
+	}
+
 	private boolean isAllowBroadcast(final CacheInvalidateMultiRequest multiRequest)
 	{
 		return multiRequest.getRequests().stream().anyMatch(this::isAllowBroadcast);
@@ -196,18 +235,47 @@ final class CacheInvalidationRemoteHandler implements IEventListener
 		CacheMgt.get().reset(request, CacheMgt.ResetMode.LOCAL); // don't broadcast it anymore because else we would introduce recursion
 	}
 
+	public BroadcastStats getBroadcastStats()
+	{
+		return batcher.getStats();
+	}
+
 	@VisibleForTesting
 	Event createEventFromRequest(@NonNull final CacheInvalidateMultiRequest request)
 	{
-		final Event event = Event.builder()
-				.putProperty(EVENT_PROPERTY, jsonSerializer.toJson(request))
-				.build();
+		final boolean useCompactEncoding = false;
+		return createEventFromRequest(request, useCompactEncoding);
+	}
+
+	@VisibleForTesting
+	Event createEventFromRequest(@NonNull final CacheInvalidateMultiRequest request, final boolean useCompactEncoding)
+	{
+		final Event event;
+		if (useCompactEncoding)
+		{
+			event = Event.builder()
+					.putProperty(EVENT_PROPERTY_Compact, compactSerializer.toBase64String(request))
+					.build();
+		}
+		else
+		{
+			event = Event.builder()
+					.putProperty(EVENT_PROPERTY, jsonSerializer.toJson(request))
+					.build();
+		}
 
 		return event;
 	}
 
-	private CacheInvalidateMultiRequest createRequestFromEvent(final Event event)
+	@VisibleForTesting
+	CacheInvalidateMultiRequest createRequestFromEvent(final Event event)
 	{
+		final String compactRequest = event.getProperty(EVENT_PROPERTY_Compact);
+		if (!Check.isEmpty(compactRequest, true))
+		{
+			return compactSerializer.fromBase64String(compactRequest);
+		}
+
 		final String jsonRequest = event.getProperty(EVENT_PROPERTY);
 		if (Check.isEmpty(jsonRequest, true))
 		{
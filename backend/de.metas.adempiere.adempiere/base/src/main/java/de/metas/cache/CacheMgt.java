@@ -16,6 +16,7 @@
  *****************************************************************************/
 package de.metas.cache;
 
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -43,10 +44,12 @@ import org.slf4j.MDC.MDCCloseable;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.MapMaker;
 import com.google.common.collect.Maps;
 
+import de.metas.cache.CCache.CCacheStats;
 import de.metas.cache.model.CacheInvalidateMultiRequest;
 import de.metas.cache.model.CacheInvalidateRequest;
 import de.metas.logging.LogManager;
@@ -57,7 +60,9 @@ import de.metas.monitoring.adapter.PerformanceMonitoringService.SubType;
 import de.metas.monitoring.adapter.PerformanceMonitoringService.Type;
 import de.metas.util.Check;
 import de.metas.util.Services;
+import lombok.Builder;
 import lombok.NonNull;
+import lombok.Value;
 
 /**
  * Adempiere Cache Management
@@ -86,6 +91,8 @@ public final class CacheMgt
 	private final AtomicBoolean cacheResetRunning = new AtomicBoolean();
 	private final AtomicLong lastCacheReset = new AtomicLong();
 
+	private final InvalidationCounters invalidationCounters = new InvalidationCounters();
+
 	private CacheMgt()
 	{
 		JMXRegistry.get().registerJMX(new JMXCacheMgt(), OnJMXAlreadyExistsPolicy.Replace);
@@ -110,7 +117,7 @@ public final class CacheMgt
 
 	private CachesGroup getCachesGroup(@NonNull final CacheLabel label)
 	{
-		return cachesByLabel.computeIfAbsent(label, CachesGroup::new);
+		return cachesByLabel.computeIfAbsent(label, newLabel -> new CachesGroup(newLabel, invalidationCounters));
 	}
 
 	private CachesGroup getCachesGroupIfPresent(@NonNull final CacheLabel label)
@@ -162,6 +169,14 @@ public final class CacheMgt
 		return CacheInvalidationRemoteHandler.instance.getTableNamesToBroadcast();
 	}
 
+	/**
+	 * Broadcasts the cache invalidation requests which are still collected for batching. To be called when this node is shutting down.
+	 */
+	public void flushPendingBroadcasts()
+	{
+		CacheInvalidationRemoteHandler.instance.destroy();
+	}
+
 	/** @return last time cache reset timestamp */
 	public long getLastCacheReset()
 	{
@@ -333,6 +348,24 @@ public final class CacheMgt
 		{
 			return this == LOCAL_AND_BROADCAST || this == JUST_BROADCAST;
 		}
+
+		public ResetMode union(@NonNull final ResetMode other)
+		{
+			final boolean resetLocal = isResetLocal() || other.isResetLocal();
+			final boolean broadcast = isBroadcast() || other.isBroadcast();
+			if (resetLocal && broadcast)
+			{
+				return LOCAL_AND_BROADCAST;
+			}
+			else if (resetLocal)
+			{
+				return LOCAL;
+			}
+			else
+			{
+				return JUST_BROADCAST;
+			}
+		}
 	}
 
 	public long reset(@NonNull final CacheInvalidateMultiRequest multiRequest)
@@ -388,48 +421,73 @@ public final class CacheMgt
 			return reset();
 		}
 
-		int total = 0;
+		//
+		// Coalesce the requests:
+		// * each table which needs to be fully invalidated is invalidated only once
+		// * each record is invalidated only once, even if it's the root record of many requests (e.g. the C_Order of many C_OrderLines)
+		// * records of tables which are fully invalidated anyways are skipped
+		final Set<String> tableNamesToInvalidateAll = new LinkedHashSet<>();
+		final Set<TableRecordReference> recordRefsToInvalidate = new LinkedHashSet<>();
+		int invalidationsRequested = 0;
 		for (final CacheInvalidateRequest request : multiRequest.getRequests())
 		{
-			final long totalPerRequest = invalidateForRequest(request);
-			total += totalPerRequest;
-		}
-
-		return total;
-	}
-
-	private long invalidateForRequest(@NonNull final CacheInvalidateRequest request)
-	{
-		if (request.isAllRecords())
-		{
-			final CacheLabel label = CacheLabel.ofTableName(request.getTableNameEffective());
-			try (final MDCCloseable ignored = CacheMDC.putCacheLabel(label))
+			if (request.isAllRecords())
+			{
+				tableNamesToInvalidateAll.add(request.getTableNameEffective());
+				invalidationsRequested++;
+			}
+			else
 			{
-				final CachesGroup cachesGroup = getCachesGroupIfPresent(label);
-				if (cachesGroup == null)
+				final TableRecordReference childRecordRef = request.getChildRecordOrNull();
+				if (childRecordRef != null)
 				{
-					return 0;
+					recordRefsToInvalidate.add(childRecordRef);
+					invalidationsRequested++;
+				}
+				final TableRecordReference rootRecordRef = request.getRootRecordOrNull();
+				if (rootRecordRef != null)
+				{
+					recordRefsToInvalidate.add(rootRecordRef);
+					invalidationsRequested++;
 				}
-
-				return cachesGroup.invalidateAllNoFail();
 			}
 		}
-		else
-		{
-			long resetCount = 0;
 
-			final TableRecordReference childRecordRef = request.getChildRecordOrNull();
-			if (childRecordRef != null)
+		long total = 0;
+		int invalidationsPerformed = 0;
+		for (final String tableName : tableNamesToInvalidateAll)
+		{
+			total += invalidateAllForTable(tableName);
+			invalidationsPerformed++;
+		}
+		for (final TableRecordReference recordRef : recordRefsToInvalidate)
+		{
+			if (tableNamesToInvalidateAll.contains(recordRef.getTableName()))
 			{
-				resetCount += invalidateForRecord(childRecordRef);
+				continue;
 			}
-			final TableRecordReference rootRecordRef = request.getRootRecordOrNull();
-			if (rootRecordRef != null)
+
+			total += invalidateForRecord(recordRef);
+			invalidationsPerformed++;
+		}
+
+		invalidationCounters.requestsCoalesced.addAndGet(invalidationsRequested - invalidationsPerformed);
+
+		return total;
+	}
+
+	private long invalidateAllForTable(@NonNull final String tableName)
+	{
+		final CacheLabel label = CacheLabel.ofTableName(tableName);
+		try (final MDCCloseable ignored = CacheMDC.putCacheLabel(label))
+		{
+			final CachesGroup cachesGroup = getCachesGroupIfPresent(label);
+			if (cachesGroup == null)
 			{
-				resetCount += invalidateForRecord(rootRecordRef);
+				return 0;
 			}
 
-			return resetCount;
+			return cachesGroup.invalidateAllNoFail();
 		}
 	}
 
@@ -448,6 +506,31 @@ public final class CacheMgt
 		}
 	}
 
+	/**
+	 * @return counters about how many cache invalidations were performed and how many were avoided
+	 */
+	public CacheInvalidationStats getInvalidationStats()
+	{
+		return invalidationCounters.toStats();
+	}
+
+	/**
+	 * @return statistics of all registered {@link CCache}s, ranked by given criteria
+	 */
+	public ImmutableList<CCacheStats> getCacheStats(@NonNull final CCacheStatsOrderBy orderBy)
+	{
+		return cachesByLabel.values()
+				.stream()
+				.flatMap(CachesGroup::streamCaches)
+				.filter(cache -> cache instanceof CCache)
+				.map(cache -> (CCache<?, ?>)cache)
+				.collect(ImmutableMap.toImmutableMap(CCache::getCacheId, CCache::stats, (stats1, stats2) -> stats1)) // same cache can be registered for several labels
+				.values()
+				.stream()
+				.sorted(orderBy.getComparator())
+				.collect(ImmutableList.toImmutableList());
+	}
+
 	/**
 	 * @return how many cached elements do we have in total
 	 */
@@ -545,8 +628,16 @@ public final class CacheMgt
 		/** Enqueues a record */
 		public void addRecord(@NonNull final CacheInvalidateMultiRequest multiRequest, @NonNull final ResetMode resetMode)
 		{
-			multiRequest.getRequests()
-					.forEach(request -> request2resetMode.put(request, resetMode));
+			for (final CacheInvalidateRequest request : multiRequest.getRequests())
+			{
+				final ResetMode previousResetMode = request2resetMode.get(request);
+				if (previousResetMode != null)
+				{
+					// same request was already scheduled (e.g. same record saved twice in this transaction)
+					CacheMgt.get().invalidationCounters.requestsCoalesced.incrementAndGet();
+				}
+				request2resetMode.merge(request, resetMode, ResetMode::union);
+			}
 			logger.debug("Scheduled cache invalidation on transaction commit: {} ({})", multiRequest, resetMode);
 		}
 
@@ -589,16 +680,51 @@ public final class CacheMgt
 		}
 	}
 
+	/** Counters which are updated on each invalidation; see {@link CacheMgt#getInvalidationStats()}. */
+	private static final class InvalidationCounters
+	{
+		private final AtomicLong cachesInvalidated = new AtomicLong();
+		private final AtomicLong cachesSkipped = new AtomicLong();
+		private final AtomicLong requestsCoalesced = new AtomicLong();
+
+		private CacheInvalidationStats toStats()
+		{
+			return CacheInvalidationStats.builder()
+					.cachesInvalidated(cachesInvalidated.get())
+					.cachesSkipped(cachesSkipped.get())
+					.requestsCoalesced(requestsCoalesced.get())
+					.build();
+		}
+	}
+
+	@Value
+	@Builder
+	public static class CacheInvalidationStats
+	{
+		/** How many times a cache was asked to invalidate all or some of its entries */
+		long cachesInvalidated;
+
+		/** How many times a cache was not touched because it surely did not contain anything to invalidate */
+		long cachesSkipped;
+
+		/** How many invalidation requests were not executed because they were duplicates or covered by a "reset all records of table" request */
+		long requestsCoalesced;
+	}
+
 	private static class CachesGroup
 	{
 		private final CacheLabel label;
+		private final InvalidationCounters invalidationCounters;
 		private final ConcurrentMap<Long, CacheInterface> caches = new MapMaker()
 				.weakValues()
 				.makeMap();
 
-		public CachesGroup(@NonNull final CacheLabel label)
+		public CachesGroup(
+				@NonNull final CacheLabel label,
+				@NonNull final InvalidationCounters invalidationCounters)
 		{
 			this.label = label;
+			this.invalidationCounters = invalidationCounters;
 		}
 
 		@Override
@@ -643,6 +769,7 @@ public final class CacheMgt
 		public long invalidateAllNoFail()
 		{
 			return streamCaches()
+					.filter(cache -> isInvalidationNeeded(cache.mightContainEntries()))
 					.mapToLong(CachesGroup::invalidateNoFail)
 					.sum();
 		}
@@ -650,10 +777,25 @@ public final class CacheMgt
 		public long invalidateForRecordNoFail(final TableRecordReference recordRef)
 		{
 			return streamCaches()
+					.filter(cache -> isInvalidationNeeded(cache.mightContainRecord(recordRef)))
 					.mapToLong(cache -> invalidateNoFail(cache, recordRef))
 					.sum();
 		}
 
+		private boolean isInvalidationNeeded(final boolean mightContainData)
+		{
+			if (mightContainData)
+			{
+				invalidationCounters.cachesInvalidated.incrementAndGet();
+				return true;
+			}
+			else
+			{
+				invalidationCounters.cachesSkipped.incrementAndGet();
+				return false;
+			}
+		}
+
 		private static long invalidateNoFail(final CacheInterface cacheInstance, final TableRecordReference recordRef)
 		{
 			try (final IAutoCloseable ignored = CacheMDC.putCache(cacheInstance))
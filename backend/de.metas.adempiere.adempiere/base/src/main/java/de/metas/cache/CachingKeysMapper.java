@@ -53,4 +53,14 @@ public interface CachingKeysMapper<CK>
 		return false;
 	}
 
+	/**
+	 * Cheap check which allows the cache to skip the invalidation if it surely holds nothing related to the given record.
+	 *
+	 * @return <code>false</code> if {@link #computeCachingKeys(TableRecordReference)} would surely return no keys
+	 */
+	default boolean mightContainRecord(final TableRecordReference recordRef)
+	{
+		return true;
+	}
+
 }
@@ -6,6 +6,7 @@ import java.util.Set;
 import org.adempiere.util.jmx.IJMXNameAware;
 import org.slf4j.Logger;
 
+import de.metas.cache.CCache.CCacheStats;
 import de.metas.logging.LogManager;
 
 /**
@@ -83,6 +84,51 @@ public class JMXCacheMgt implements JMXCacheMgtMBean, IJMXNameAware
 		getCacheMgt().enableRemoteCacheInvalidationForTableName(tableName);
 	}
 
+	@Override
+	public String[] getCacheStatsOrderedBySize()
+	{
+		return getCacheStats(CCacheStatsOrderBy.Size);
+	}
+
+	@Override
+	public String[] getCacheStatsOrderedByWeight()
+	{
+		return getCacheStats(CCacheStatsOrderBy.Weight);
+	}
+
+	@Override
+	public String[] getCacheStatsOrderedByHitRate()
+	{
+		return getCacheStats(CCacheStatsOrderBy.HitRate);
+	}
+
+	@Override
+	public String[] getCacheStatsOrderedByMissCount()
+	{
+		return getCacheStats(CCacheStatsOrderBy.MissCount);
+	}
+
+	@Override
+	public String getInvalidationStats()
+	{
+		return getCacheMgt().getInvalidationStats().toString();
+	}
+
+	@Override
+	public String getRemoteInvalidationStats()
+	{
+		return CacheInvalidationRemoteHandler.instance.getBroadcastStats().toString();
+	}
+
+	private String[] getCacheStats(final CCacheStatsOrderBy orderBy)
+	{
+		return getCacheMgt()
+				.getCacheStats(orderBy)
+				.stream()
+				.map(CCacheStats::toString)
+				.toArray(size -> new String[size]);
+	}
+
 	@Override
 	public long resetAll()
 	{
@@ -20,6 +20,24 @@ public interface JMXCacheMgtMBean
 
 	void enableRemoteCacheInvalidationForTableName(String tableName);
 
+	/** @return cache statistics, biggest caches first */
+	String[] getCacheStatsOrderedBySize();
+
+	/** @return cache statistics, heaviest caches (by estimated weight) first */
+	String[] getCacheStatsOrderedByWeight();
+
+	/** @return cache statistics, lowest hit rate first */
+	String[] getCacheStatsOrderedByHitRate();
+
+	/** @return cache statistics, most misses first */
+	String[] getCacheStatsOrderedByMissCount();
+
+	/** @return how many cache invalidations were performed and how many were avoided */
+	String getInvalidationStats();
+
+	/** @return how many cache invalidation messages were broadcasted and how many were saved by batching */
+	String getRemoteInvalidationStats();
+
 	long resetAll();
 
 	long resetForTable(String tableName);
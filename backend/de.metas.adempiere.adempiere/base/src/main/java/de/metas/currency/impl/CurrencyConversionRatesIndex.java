@@ -0,0 +1,381 @@
+package de.metas.currency.impl;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import org.adempiere.service.ClientId;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import de.metas.money.CurrencyConversionTypeId;
+import de.metas.money.CurrencyId;
+import de.metas.organization.OrgId;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Immutable in-memory index of the conversion rates of one client (including the system client's rates) and one conversion type.
+ * <p>
+ * The rates are grouped by currency from/to, client and org. Inside a group, the validity intervals are sorted by ValidFrom,
+ * so the rate valid at a given date is found using a binary search.
+ * <p>
+ * The rate lookup has the same semantics as the query from {@link CurrencyDAO#retrieveRateQuery(de.metas.currency.CurrencyConversionContext, CurrencyId, CurrencyId)}:
+ * the rate of the given client is preferred to system's rate, the rate of the given org is preferred to the "any org" rate and the most recent ValidFrom wins.
+ * <p>
+ * When a single rate changes, use {@link #withRate(RateRecord)} or {@link #withoutRate(int)} to get an updated copy instead of rebuilding the whole index.
+ */
+final class CurrencyConversionRatesIndex
+{
+	public static CurrencyConversionRatesIndex of(
+			@NonNull final ClientId clientId,
+			@NonNull final CurrencyConversionTypeId conversionTypeId,
+			@NonNull final Collection<RateRecord> rates)
+	{
+		return new CurrencyConversionRatesIndex(clientId, conversionTypeId, rates);
+	}
+
+	@Value
+	@Builder
+	static class RateRecord
+	{
+		int conversionRateId;
+		@NonNull
+		ClientId clientId;
+		@NonNull
+		OrgId orgId;
+		@NonNull
+		CurrencyId currencyFromId;
+		@NonNull
+		CurrencyId currencyToId;
+		@NonNull
+		LocalDate validFrom;
+		@NonNull
+		LocalDate validTo;
+		@NonNull
+		BigDecimal multiplyRate;
+	}
+
+	@Value
+	private static class GroupKey
+	{
+		int currencyFromId;
+		int currencyToId;
+		int clientId;
+		int orgId;
+
+		static GroupKey of(@NonNull final RateRecord rate)
+		{
+			return new GroupKey(
+					rate.getCurrencyFromId().getRepoId(),
+					rate.getCurrencyToId().getRepoId(),
+					rate.getClientId().getRepoId(),
+					rate.getOrgId().getRepoId());
+		}
+	}
+
+	private final ClientId clientId;
+	private final CurrencyConversionTypeId conversionTypeId;
+	private final ImmutableMap<GroupKey, RatesGroup> groups;
+	private final ImmutableMap<Integer, RateRecord> ratesById;
+
+	private CurrencyConversionRatesIndex(
+			@NonNull final ClientId clientId,
+			@NonNull final CurrencyConversionTypeId conversionTypeId,
+			@NonNull final Collection<RateRecord> rates)
+	{
+		this.clientId = clientId;
+		this.conversionTypeId = conversionTypeId;
+
+		final Map<GroupKey, List<RateRecord>> ratesByGroupKey = new HashMap<>();
+		final Map<Integer, RateRecord> ratesById = new HashMap<>();
+		for (final RateRecord rate : rates)
+		{
+			ratesByGroupKey.computeIfAbsent(GroupKey.of(rate), k -> new ArrayList<>()).add(rate);
+			ratesById.put(rate.getConversionRateId(), rate);
+		}
+
+		final ImmutableMap.Builder<GroupKey, RatesGroup> groups = ImmutableMap.builder();
+		ratesByGroupKey.forEach((groupKey, groupRates) -> groups.put(groupKey, new RatesGroup(groupRates)));
+		this.groups = groups.build();
+		this.ratesById = ImmutableMap.copyOf(ratesById);
+	}
+
+	private CurrencyConversionRatesIndex(
+			@NonNull final ClientId clientId,
+			@NonNull final CurrencyConversionTypeId conversionTypeId,
+			@NonNull final ImmutableMap<GroupKey, RatesGroup> groups,
+			@NonNull final ImmutableMap<Integer, RateRecord> ratesById)
+	{
+		this.clientId = clientId;
+		this.conversionTypeId = conversionTypeId;
+		this.groups = groups;
+		this.ratesById = ratesById;
+	}
+
+	@Override
+	public String toString()
+	{
+		return MoreObjects.toStringHelper(this)
+				.add("clientId", clientId)
+				.add("conversionTypeId", conversionTypeId)
+				.add("groups", groups.size())
+				.add("size", ratesById.size())
+				.toString();
+	}
+
+	public int size()
+	{
+		return ratesById.size();
+	}
+
+	public boolean containsConversionRateId(final int conversionRateId)
+	{
+		return ratesById.containsKey(conversionRateId);
+	}
+
+	/**
+	 * @return true if a rate of given conversion type and client belongs to this index
+	 */
+	public boolean isMatching(
+			@NonNull final CurrencyConversionTypeId rateConversionTypeId,
+			@NonNull final ClientId rateClientId)
+	{
+		return conversionTypeId.equals(rateConversionTypeId)
+				&& (rateClientId.isSystem() || clientId.equals(rateClientId));
+	}
+
+	/**
+	 * @return index which contains given rate instead of the rate with the same ID (if any); only the affected groups are rebuilt
+	 */
+	public CurrencyConversionRatesIndex withRate(@NonNull final RateRecord rate)
+	{
+		final RateRecord previousRate = ratesById.get(rate.getConversionRateId());
+		if (rate.equals(previousRate))
+		{
+			return this;
+		}
+
+		return withRateReplaced(previousRate, rate);
+	}
+
+	/**
+	 * @return index without the rate with given ID; only the affected group is rebuilt
+	 */
+	public CurrencyConversionRatesIndex withoutRate(final int conversionRateId)
+	{
+		final RateRecord previousRate = ratesById.get(conversionRateId);
+		if (previousRate == null)
+		{
+			return this;
+		}
+
+		return withRateReplaced(previousRate, null);
+	}
+
+	private CurrencyConversionRatesIndex withRateReplaced(@Nullable final RateRecord previousRate, @Nullable final RateRecord newRate)
+	{
+		final Map<GroupKey, RatesGroup> groups = new HashMap<>(this.groups);
+		final Map<Integer, RateRecord> ratesById = new HashMap<>(this.ratesById);
+
+		if (previousRate != null)
+		{
+			final GroupKey groupKey = GroupKey.of(previousRate);
+			final RatesGroup group = groups.get(groupKey).withoutRate(previousRate.getConversionRateId());
+			if (group != null)
+			{
+				groups.put(groupKey, group);
+			}
+			else
+			{
+				groups.remove(groupKey);
+			}
+			ratesById.remove(previousRate.getConversionRateId());
+		}
+
+		if (newRate != null)
+		{
+			final GroupKey groupKey = GroupKey.of(newRate);
+			final RatesGroup group = groups.get(groupKey);
+			groups.put(groupKey, group != null ? group.withRate(newRate) : new RatesGroup(ImmutableList.of(newRate)));
+			ratesById.put(newRate.getConversionRateId(), newRate);
+		}
+
+		return new CurrencyConversionRatesIndex(clientId, conversionTypeId, ImmutableMap.copyOf(groups), ImmutableMap.copyOf(ratesById));
+	}
+
+	@Nullable
+	public BigDecimal getRateOrNull(
+			@NonNull final CurrencyId currencyFromId,
+			@NonNull final CurrencyId currencyToId,
+			@NonNull final OrgId orgId,
+			@NonNull final LocalDate date)
+	{
+		final long day = date.toEpochDay();
+
+		// same order as in the SQL query: AD_Client_ID DESC, AD_Org_ID DESC
+		final List<ClientId> clientIds = clientId.isSystem() ? ImmutableList.of(ClientId.SYSTEM) : ImmutableList.of(clientId, ClientId.SYSTEM);
+		final List<OrgId> orgIds = orgId.isAny() ? ImmutableList.of(OrgId.ANY) : ImmutableList.of(orgId, OrgId.ANY);
+		for (final ClientId candidateClientId : clientIds)
+		{
+			for (final OrgId candidateOrgId : orgIds)
+			{
+				final GroupKey groupKey = new GroupKey(currencyFromId.getRepoId(), currencyToId.getRepoId(), candidateClientId.getRepoId(), candidateOrgId.getRepoId());
+				final RatesGroup group = groups.get(groupKey);
+				if (group == null)
+				{
+					continue;
+				}
+
+				final BigDecimal rate = group.getRateOrNull(day);
+				if (rate != null)
+				{
+					return rate;
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Rates of one currency from/to, client and org.
+	 */
+	private static final class RatesGroup
+	{
+		private final ImmutableList<RateRecord> sortedRates;
+
+		/** sorted ascending */
+		private final long[] validFromDays;
+		private final long[] validToDays;
+		/** max of {@link #validToDays} from 0 to the given position; used to stop searching for an interval which contains a given day */
+		private final long[] maxValidToDays;
+		private final BigDecimal[] rates;
+
+		private RatesGroup(@NonNull final List<RateRecord> groupRates)
+		{
+			final List<RateRecord> sortedRates = new ArrayList<>(groupRates);
+			sortedRates.sort(Comparator.comparing(RateRecord::getValidFrom));
+			this.sortedRates = ImmutableList.copyOf(sortedRates);
+
+			final int count = sortedRates.size();
+			validFromDays = new long[count];
+			validToDays = new long[count];
+			maxValidToDays = new long[count];
+			rates = new BigDecimal[count];
+
+			long maxValidToDay = Long.MIN_VALUE;
+			for (int i = 0; i < count; i++)
+			{
+				final RateRecord rate = sortedRates.get(i);
+				validFromDays[i] = rate.getValidFrom().toEpochDay();
+				validToDays[i] = rate.getValidTo().toEpochDay();
+				maxValidToDay = Math.max(maxValidToDay, validToDays[i]);
+				maxValidToDays[i] = maxValidToDay;
+				rates[i] = rate.getMultiplyRate();
+			}
+		}
+
+		public RatesGroup withRate(@NonNull final RateRecord rate)
+		{
+			final List<RateRecord> groupRates = new ArrayList<>(sortedRates.size() + 1);
+			for (final RateRecord existingRate : sortedRates)
+			{
+				if (existingRate.getConversionRateId() != rate.getConversionRateId())
+				{
+					groupRates.add(existingRate);
+				}
+			}
+			groupRates.add(rate);
+			return new RatesGroup(groupRates);
+		}
+
+		/**
+		 * @return group without the rate with given ID or null if no rates would be left
+		 */
+		@Nullable
+		public RatesGroup withoutRate(final int conversionRateId)
+		{
+			final List<RateRecord> groupRates = new ArrayList<>(sortedRates.size());
+			for (final RateRecord existingRate : sortedRates)
+			{
+				if (existingRate.getConversionRateId() != conversionRateId)
+				{
+					groupRates.add(existingRate);
+				}
+			}
+			return !groupRates.isEmpty() ? new RatesGroup(groupRates) : null;
+		}
+
+		@Nullable
+		public BigDecimal getRateOrNull(final long day)
+		{
+			// start with the most recent interval which starts before or at given day, and go back until one interval contains the day
+			for (int i = indexOfLastValidFromBeforeOrAt(day); i >= 0 && maxValidToDays[i] >= day; i--)
+			{
+				if (validToDays[i] >= day)
+				{
+					return rates[i];
+				}
+			}
+
+			return null;
+		}
+
+		/**
+		 * @return index of last ValidFrom which is before or at given day; -1 if none
+		 */
+		private int indexOfLastValidFromBeforeOrAt(final long day)
+		{
+			int low = 0;
+			int high = validFromDays.length - 1;
+			int result = -1;
+			while (low <= high)
+			{
+				final int mid = (low + high) >>> 1;
+				if (validFromDays[mid] <= day)
+				{
+					result = mid;
+					low = mid + 1;
+				}
+				else
+				{
+					high = mid - 1;
+				}
+			}
+			return result;
+		}
+	}
+}
@@ -5,8 +5,12 @@ package de.metas.currency.impl;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.List;
+import java.util.Collection;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
 
 import org.adempiere.ad.dao.IQueryBL;
 import org.adempiere.ad.dao.IQueryBuilder;
@@ -15,6 +19,7 @@ import org.adempiere.ad.dao.IQueryOrderBy.Nulls;
 import org.adempiere.ad.dao.impl.CompareQueryFilter.Operator;
 import org.adempiere.model.InterfaceWrapperHelper;
 import org.adempiere.service.ClientId;
+import org.adempiere.util.lang.impl.TableRecordReference;
 import org.compiere.model.I_C_ConversionType;
 import org.compiere.model.I_C_ConversionType_Default;
 import org.compiere.model.I_C_Conversion_Rate;
@@ -22,8 +27,12 @@ import org.compiere.model.I_C_Currency;
 import org.compiere.util.TimeUtil;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
 import de.metas.cache.CCache;
+import de.metas.cache.CacheMgt;
+import de.metas.cache.model.CacheInvalidateMultiRequest;
+import de.metas.cache.model.CacheInvalidateRequest;
 import de.metas.currency.ConversionTypeMethod;
 import de.metas.currency.Currency;
 import de.metas.currency.CurrencyCode;
@@ -31,12 +40,15 @@ import de.metas.currency.CurrencyConversionContext;
 import de.metas.currency.CurrencyConversionType;
 import de.metas.currency.CurrencyPrecision;
 import de.metas.currency.ICurrencyDAO;
+import de.metas.currency.impl.CurrencyConversionRatesIndex.RateRecord;
 import de.metas.i18n.IModelTranslationMap;
 import de.metas.money.CurrencyConversionTypeId;
 import de.metas.money.CurrencyId;
 import de.metas.organization.OrgId;
+import de.metas.util.NumberUtils;
 import de.metas.util.Services;
 import lombok.NonNull;
+import lombok.Value;
 
 /*
  * #%L
@@ -76,6 +88,50 @@ public class CurrencyDAO implements ICurrencyDAO
 			.tableName(I_C_ConversionType_Default.Table_Name)
 			.build();
 
+	private final CCache<RatesIndexKey, VersionedRatesIndex> ratesIndexCache = CCache.<RatesIndexKey, VersionedRatesIndex> builder()
+			.tableName(I_C_Conversion_Rate.Table_Name)
+			.invalidationKeysMapper(this::getRatesIndexKeysToInvalidate)
+			.build();
+
+	/** incremented on each C_Conversion_Rate change, see {@link #onConversionRatesChanged(CacheInvalidateMultiRequest)} */
+	private final AtomicLong ratesVersion = new AtomicLong();
+
+	private static final String[] RATE_COLUMNNAMES = {
+			I_C_Conversion_Rate.COLUMNNAME_C_Conversion_Rate_ID,
+			I_C_Conversion_Rate.COLUMNNAME_C_ConversionType_ID,
+			I_C_Conversion_Rate.COLUMNNAME_AD_Client_ID,
+			I_C_Conversion_Rate.COLUMNNAME_AD_Org_ID,
+			I_C_Conversion_Rate.COLUMNNAME_C_Currency_ID,
+			I_C_Conversion_Rate.COLUMNNAME_C_Currency_ID_To,
+			I_C_Conversion_Rate.COLUMNNAME_ValidFrom,
+			I_C_Conversion_Rate.COLUMNNAME_ValidTo,
+			I_C_Conversion_Rate.COLUMNNAME_MultiplyRate };
+
+	@Value(staticConstructor = "of")
+	private static class RatesIndexKey
+	{
+		@NonNull
+		ClientId clientId;
+		@NonNull
+		CurrencyConversionTypeId conversionTypeId;
+	}
+
+	/**
+	 * Rates index together with the {@link #ratesVersion} it was loaded or last updated at.
+	 */
+	@Value(staticConstructor = "of")
+	private static class VersionedRatesIndex
+	{
+		@NonNull
+		CurrencyConversionRatesIndex ratesIndex;
+		long version;
+	}
+
+	public CurrencyDAO()
+	{
+		CacheMgt.get().addCacheResetListener(I_C_Conversion_Rate.Table_Name, this::onConversionRatesChanged);
+	}
+
 	// private final CCache<ConversionTypeMethod, CurrencyConversionTypeId> conversionTypeIdsByType = CCache.<ConversionTypeMethod, CurrencyConversionTypeId> builder()
 	// .tableName(I_C_ConversionType.Table_Name)
 	// .build();
@@ -239,22 +295,169 @@ public class CurrencyDAO implements ICurrencyDAO
 
 	@Override
 	public BigDecimal retrieveRateOrNull(
-			final CurrencyConversionContext conversionCtx,
-			final CurrencyId currencyFromId,
-			final CurrencyId currencyToId)
+			@NonNull final CurrencyConversionContext conversionCtx,
+			@NonNull final CurrencyId currencyFromId,
+			@NonNull final CurrencyId currencyToId)
+	{
+		return getRatesIndex(conversionCtx.getClientId(), conversionCtx.getConversionTypeId())
+				.getRateOrNull(currencyFromId, currencyToId, conversionCtx.getOrgId(), conversionCtx.getConversionDate());
+	}
+
+	private CurrencyConversionRatesIndex getRatesIndex(
+			@NonNull final ClientId clientId,
+			@NonNull final CurrencyConversionTypeId conversionTypeId)
 	{
-		final List<Map<String, Object>> recordsList = retrieveRateQuery(conversionCtx, currencyFromId, currencyToId)
-				.setLimit(1)
+		final RatesIndexKey key = RatesIndexKey.of(clientId, conversionTypeId);
+		final VersionedRatesIndex versionedRatesIndex = ratesIndexCache.getOrLoad(key, this::retrieveRatesIndex);
+		if (versionedRatesIndex.getVersion() < ratesVersion.get())
+		{
+			// loaded before the last rate change, but cached after that change was applied
+			ratesIndexCache.remove(key);
+			return ratesIndexCache.getOrLoad(key, this::retrieveRatesIndex).getRatesIndex();
+		}
+
+		return versionedRatesIndex.getRatesIndex();
+	}
+
+	private VersionedRatesIndex retrieveRatesIndex(@NonNull final RatesIndexKey key)
+	{
+		final long version = ratesVersion.get();
+		final ImmutableList<RateRecord> rates = Services.get(IQueryBL.class)
+				.createQueryBuilderOutOfTrx(I_C_Conversion_Rate.class)
+				.addEqualsFilter(I_C_Conversion_Rate.COLUMN_C_ConversionType_ID, key.getConversionTypeId())
+				.addInArrayOrAllFilter(I_C_Conversion_Rate.COLUMN_AD_Client_ID, ClientId.SYSTEM, key.getClientId())
 				.create()
-				.listColumns(I_C_Conversion_Rate.COLUMNNAME_MultiplyRate);
+				.listColumns(RATE_COLUMNNAMES)
+				.stream()
+				.map(CurrencyDAO::toRateRecordOrNull)
+				.filter(Objects::nonNull)
+				.collect(ImmutableList.toImmutableList());
+
+		return VersionedRatesIndex.of(CurrencyConversionRatesIndex.of(key.getClientId(), key.getConversionTypeId(), rates), version);
+	}
 
-		if (recordsList.isEmpty())
+	@Nullable
+	private static RateRecord toRateRecordOrNull(@NonNull final Map<String, Object> row)
+	{
+		final LocalDate validFrom = TimeUtil.asLocalDate(row.get(I_C_Conversion_Rate.COLUMNNAME_ValidFrom));
+		final LocalDate validTo = TimeUtil.asLocalDate(row.get(I_C_Conversion_Rate.COLUMNNAME_ValidTo));
+		final BigDecimal multiplyRate = NumberUtils.asBigDecimal(row.get(I_C_Conversion_Rate.COLUMNNAME_MultiplyRate));
+		if (validFrom == null || validTo == null || multiplyRate == null)
 		{
+			// such a rate would never be matched by retrieveRateQuery
 			return null;
 		}
 
-		final Map<String, Object> record = recordsList.get(0);
-		final BigDecimal rate = (BigDecimal)record.get(I_C_Conversion_Rate.COLUMNNAME_MultiplyRate);
-		return rate;
+		return RateRecord.builder()
+				.conversionRateId(NumberUtils.asInt(row.get(I_C_Conversion_Rate.COLUMNNAME_C_Conversion_Rate_ID), -1))
+				.clientId(ClientId.ofRepoId(NumberUtils.asInt(row.get(I_C_Conversion_Rate.COLUMNNAME_AD_Client_ID), -1)))
+				.orgId(OrgId.ofRepoIdOrAny(NumberUtils.asInt(row.get(I_C_Conversion_Rate.COLUMNNAME_AD_Org_ID), -1)))
+				.currencyFromId(CurrencyId.ofRepoId(NumberUtils.asInt(row.get(I_C_Conversion_Rate.COLUMNNAME_C_Currency_ID), -1)))
+				.currencyToId(CurrencyId.ofRepoId(NumberUtils.asInt(row.get(I_C_Conversion_Rate.COLUMNNAME_C_Currency_ID_To), -1)))
+				.validFrom(validFrom)
+				.validTo(validTo)
+				.multiplyRate(multiplyRate)
+				.build();
+	}
+
+	/**
+	 * Single rate changes are applied to the cached indexes by {@link #onConversionRatesChanged(CacheInvalidateMultiRequest)},
+	 * so the indexes are only invalidated if the record ID is not known.
+	 */
+	private Collection<RatesIndexKey> getRatesIndexKeysToInvalidate(@NonNull final TableRecordReference recordRef)
+	{
+		return recordRef.getRecord_ID() > 0
+				? ImmutableSet.of()
+				: ImmutableSet.copyOf(ratesIndexCache.keySet());
+	}
+
+	/**
+	 * Called after {@link #ratesIndexCache} was (possibly) invalidated for the given request.
+	 * Bumps the rates version and applies the changed C_Conversion_Rate records to the cached rates indexes, i.e. removes each rate from the indexes
+	 * where it no longer belongs and adds or replaces it in the indexes where it belongs now.
+	 * <p>
+	 * Synchronized, so that each change is applied to the outcome of the previous one.
+	 */
+	private synchronized long onConversionRatesChanged(@NonNull final CacheInvalidateMultiRequest multiRequest)
+	{
+		if (multiRequest.isResetAll())
+		{
+			ratesVersion.incrementAndGet();
+			return 0;
+		}
+
+		long count = 0;
+		for (final CacheInvalidateRequest request : multiRequest.getRequests())
+		{
+			if (!I_C_Conversion_Rate.Table_Name.equals(request.getTableNameEffective()))
+			{
+				continue;
+			}
+
+			final long version = ratesVersion.incrementAndGet();
+			if (!request.isAllRecords())
+			{
+				count += updateRatesIndexes(request.getRecordIdEffective(), version);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * The record is loaded once, and only if there is any cached index.
+	 *
+	 * @return how many indexes were updated or removed
+	 */
+	private long updateRatesIndexes(final int conversionRateId, final long version)
+	{
+		final ImmutableSet<RatesIndexKey> keys = ImmutableSet.copyOf(ratesIndexCache.keySet());
+		if (keys.isEmpty())
+		{
+			return 0;
+		}
+
+		final Map<String, Object> row = Services.get(IQueryBL.class)
+				.createQueryBuilderOutOfTrx(I_C_Conversion_Rate.class)
+				.addEqualsFilter(I_C_Conversion_Rate.COLUMN_C_Conversion_Rate_ID, conversionRateId)
+				.create()
+				.listColumns(RATE_COLUMNNAMES)
+				.stream()
+				.findFirst()
+				.orElse(null);
+		final RateRecord rate = row != null ? toRateRecordOrNull(row) : null;
+		final CurrencyConversionTypeId rateConversionTypeId = row != null ? CurrencyConversionTypeId.ofRepoIdOrNull(NumberUtils.asInt(row.get(I_C_Conversion_Rate.COLUMNNAME_C_ConversionType_ID), -1)) : null;
+
+		long count = 0;
+		for (final RatesIndexKey key : keys)
+		{
+			final VersionedRatesIndex versionedRatesIndex = ratesIndexCache.get(key);
+			if (versionedRatesIndex == null || versionedRatesIndex.getVersion() >= version)
+			{
+				// not cached or already loaded after this change
+				continue;
+			}
+			if (versionedRatesIndex.getVersion() < version - 1)
+			{
+				// loaded before an earlier change, but cached after that change was applied
+				ratesIndexCache.remove(key);
+				count++;
+				continue;
+			}
+
+			final CurrencyConversionRatesIndex ratesIndex = versionedRatesIndex.getRatesIndex();
+			final boolean belongsToIndex = rate != null
+					&& rateConversionTypeId != null
+					&& ratesIndex.isMatching(rateConversionTypeId, rate.getClientId());
+			final CurrencyConversionRatesIndex updatedRatesIndex = belongsToIndex
+					? ratesIndex.withRate(rate)
+					: ratesIndex.withoutRate(conversionRateId);
+			ratesIndexCache.put(key, VersionedRatesIndex.of(updatedRatesIndex, version));
+			if (updatedRatesIndex != ratesIndex)
+			{
+				count++;
+			}
+		}
+
+		return count;
 	}
 }
@@ -28,6 +28,7 @@ import java.util.UUID;
 
 import org.adempiere.service.ClientId;
 import org.adempiere.service.ISysConfigBL;
+import org.adempiere.util.concurrent.ExecutorType;
 import org.compiere.Adempiere;
 import org.slf4j.Logger;
 
@@ -131,6 +132,33 @@ public final class EventBusConfig
 		return StringUtils.toBoolean(standardValue, false);
 	}
 
+	/**
+	 * @return which kind of threads shall deliver the events of an async event bus (see {@link #isEventBusPostAsync(Topic)})
+	 */
+	public static ExecutorType getAsyncEventBusExecutorType(@NonNull final Topic topic)
+	{
+		final String nameForAllTopics = "de.metas.event.asyncEventBus.ExecutorType";
+		final ISysConfigBL sysConfigBL = Services.get(ISysConfigBL.class);
+
+		final String standardValue = sysConfigBL.getValue(nameForAllTopics, ExecutorType.PlatformThreadPool.name());
+		final String valueForTopic = sysConfigBL.getValue(nameForAllTopics + ".topic_" + topic.getName(), standardValue);
+		return ExecutorType.ofNullableStringOrDefault(valueForTopic, ExecutorType.PlatformThreadPool);
+	}
+
+	/**
+	 * @return how many events of an async event bus may be delivered at the same time, when using {@link ExecutorType#VirtualThreads}.
+	 *         The default is 1, which means that the events are delivered one after the other in the order they were posted, like with the single threaded executor.
+	 */
+	public static int getAsyncEventBusMaxConcurrency(@NonNull final Topic topic)
+	{
+		final String nameForAllTopics = "de.metas.event.asyncEventBus.MaxConcurrency";
+		final ISysConfigBL sysConfigBL = Services.get(ISysConfigBL.class);
+
+		final int standardValue = sysConfigBL.getIntValue(nameForAllTopics, 1);
+		final int valueForTopic = sysConfigBL.getIntValue(nameForAllTopics + ".topic_" + topic.getName(), standardValue);
+		return valueForTopic > 0 ? valueForTopic : 1;
+	}
+
 	public static boolean isMonitorIncomingEvents()
 	{
 		return Services.get(ISysConfigBL.class).getBooleanValue("de.metas.event.MonitorIncomingEvents", false);
@@ -7,7 +7,10 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.util.concurrent.ConcurrencyLimitedExecutor;
 import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.adempiere.util.concurrent.ExecutorType;
+import org.adempiere.util.concurrent.VirtualThreads;
 import org.adempiere.util.jmx.JMXRegistry;
 import org.adempiere.util.jmx.JMXRegistry.OnJMXAlreadyExistsPolicy;
 import org.slf4j.Logger;
@@ -22,6 +25,7 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.SetMultimap;
 
+import de.metas.cache.CacheMgt;
 import de.metas.event.EventBusConfig;
 import de.metas.event.IEventBus;
 import de.metas.event.IEventBusFactory;
@@ -34,6 +38,7 @@ import de.metas.logging.LogManager;
 import lombok.NonNull;
 
 import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
 
 @Service
 public class EventBusFactory implements IEventBusFactory
@@ -114,6 +119,15 @@ public class EventBusFactory implements IEventBusFactory
 		}
 	}
 
+	/**
+	 * Sends the pending cache invalidation broadcasts while the event busses are still available.
+	 */
+	@PreDestroy
+	public void destroy()
+	{
+		CacheMgt.get().flushPendingBroadcasts();
+	}
+
 	@Override
 	public void destroyAllEventBusses()
 	{
@@ -161,14 +175,26 @@ public class EventBusFactory implements IEventBusFactory
 	private ExecutorService createExecutorOrNull(@NonNull final Topic topic)
 	{
 		// Setup EventBus executor
-		if (EventBusConfig.isEventBusPostAsync(topic))
+		if (!EventBusConfig.isEventBusPostAsync(topic))
 		{
-			return Executors.newSingleThreadExecutor(CustomizableThreadFactory.builder()
-					.setThreadNamePrefix(getClass().getName() + "-" + topic.getName() + "-AsyncExecutor")
-					.setDaemon(true)
-					.build());
+			return null;
 		}
-		return null;
+
+		final String threadNamePrefix = getClass().getName() + "-" + topic.getName() + "-AsyncExecutor";
+		if (ExecutorType.VirtualThreads.equals(EventBusConfig.getAsyncEventBusExecutorType(topic)))
+		{
+			final ConcurrencyLimitedExecutor executor = ConcurrencyLimitedExecutor.builder()
+					.delegate(VirtualThreads.newThreadPerTaskExecutor(threadNamePrefix))
+					.maxConcurrency(EventBusConfig.getAsyncEventBusMaxConcurrency(topic))
+					.build();
+			logger.info("Using {} for topic={} (virtual threads supported: {})", executor, topic, VirtualThreads.isSupported());
+			return executor;
+		}
+
+		return Executors.newSingleThreadExecutor(CustomizableThreadFactory.builder()
+				.setThreadNamePrefix(threadNamePrefix)
+				.setDaemon(true)
+				.build());
 	}
 
 	private void destroyEventBus(@NonNull final EventBus eventBus)
@@ -1,6 +1,7 @@
 package org.adempiere.ad.dao;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 /*
  * #%L
@@ -41,6 +42,13 @@ public interface ICompositeQueryUpdaterExecutor<T> extends ICompositeQueryUpdate
 	 */
 	int execute();
 
+	/**
+	 * Execute this update
+	 * 
+	 * @return the updated records, as they are after the update; see {@link org.compiere.model.IQuery#updateDirectlyAndReturnUpdated(IQueryUpdater)}
+	 */
+	List<T> executeAndReturnUpdated();
+
 	/**
 	 * Sets if the update shall be directly on underlying database or the records shall be updated one by one using the persistence engine API.
 	 * 
@@ -23,10 +23,13 @@ package org.adempiere.ad.dao.impl;
  */
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.adempiere.ad.dao.ICompositeQueryUpdaterExecutor;
 import org.adempiere.ad.dao.IQueryFilter;
 import org.adempiere.ad.dao.IQueryUpdater;
+import org.adempiere.model.InterfaceWrapperHelper;
 import org.compiere.model.IQuery;
 
 import lombok.NonNull;
@@ -56,6 +59,28 @@ import lombok.NonNull;
 		}
 	}
 
+	@Override
+	public List<T> executeAndReturnUpdated()
+	{
+		if (executeDirectly)
+		{
+			return query.updateDirectlyAndReturnUpdated(this);
+		}
+		else
+		{
+			final List<T> updatedModels = new ArrayList<>();
+			for (final T model : query.list())
+			{
+				if (update(model))
+				{
+					InterfaceWrapperHelper.save(model);
+					updatedModels.add(model);
+				}
+			}
+			return updatedModels;
+		}
+	}
+
 	@Override
 	public ICompositeQueryUpdaterExecutor<T> setExecuteDirectly(final boolean executeDirectly)
 	{
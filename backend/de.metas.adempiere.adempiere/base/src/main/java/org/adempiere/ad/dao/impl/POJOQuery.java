@@ -801,6 +801,26 @@ public class POJOQuery<T> extends AbstractTypedQuery<T>
 		return update(queryUpdater);
 	}
 
+	@Override
+	public List<T> updateDirectlyAndReturnUpdated(final IQueryUpdater<T> queryUpdater)
+	{
+		// NOTE: direct updating is not supported, so we go with the clasic one-by-one update.
+		final List<T> updatedModels = new ArrayList<>();
+		for (final T model : list())
+		{
+			final boolean updated = queryUpdater.update(model);
+			if (!updated)
+			{
+				continue;
+			}
+
+			InterfaceWrapperHelper.save(model);
+			updatedModels.add(model);
+		}
+
+		return updatedModels;
+	}
+
 	@Override
 	public int update(final IQueryUpdater<T> queryUpdater)
 	{
@@ -0,0 +1,332 @@
+package org.adempiere.ad.persistence.po;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.ad.trx.api.ITrxListenerManager.TrxEventTiming;
+import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.ad.trx.api.OnTrxMissingPolicy;
+import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.exceptions.DBException;
+import org.adempiere.service.ISysConfigBL;
+import org.adempiere.util.lang.IAutoCloseable;
+import org.compiere.util.DB;
+import org.compiere.util.Trx;
+import org.slf4j.Logger;
+
+import com.google.common.collect.ImmutableMap;
+
+import de.metas.logging.LogManager;
+import de.metas.util.Services;
+import lombok.NonNull;
+import lombok.ToString;
+import lombok.Value;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Opt-in "batched persistence" scope for a given transaction.
+ * <p>
+ * While the scope is active, PO inserts and updates which don't need to read anything back from the database are not executed right away,
+ * but are queued and sent to the database as one JDBC batch.
+ * The model interceptors are still fired in the usual order, when the PO is saved.
+ * <p>
+ * The queued statements are flushed
+ * <ul>
+ * <li>when the number of queued statements reaches the flush threshold
+ * <li>before any other statement is executed in the same transaction (see {@link org.adempiere.sql.impl.StatementsFactory}), so reads always see the queued writes
+ * <li>before a savepoint is created or rolled back
+ * <li>before the transaction is committed and when the scope is closed
+ * </ul>
+ * Usage:
+ *
+ * <pre>
+ * try (final IAutoCloseable batchedPersistence = POBatchedPersistence.temporaryEnable(trxName))
+ * {
+ * 	// create and save your records
+ * }
+ * </pre>
+ */
+public final class POBatchedPersistence
+{
+	private static final transient Logger logger = LogManager.getLogger(POBatchedPersistence.class);
+
+	private static final String SYSCONFIG_FlushThreshold = "org.adempiere.ad.persistence.po.POBatchedPersistence.FlushThreshold";
+	private static final int DEFAULT_FlushThreshold = 500;
+
+	private static final String TRX_PROPERTY_Batch = POBatchedPersistence.class.getName();
+
+	/** Number of currently active batches, in all transactions. Used to make {@link #flushIfPending(String)} as cheap as possible in case there are none. */
+	private static final AtomicInteger activeBatchesCount = new AtomicInteger(0);
+
+	private POBatchedPersistence()
+	{
+	}
+
+	public static IAutoCloseable temporaryEnable(final String trxName)
+	{
+		final int flushThreshold = Services.get(ISysConfigBL.class).getIntValue(SYSCONFIG_FlushThreshold, DEFAULT_FlushThreshold);
+		return temporaryEnable(trxName, flushThreshold);
+	}
+
+	public static IAutoCloseable temporaryEnable(final String trxName, final int flushThreshold)
+	{
+		final ITrxManager trxManager = Services.get(ITrxManager.class);
+		final ITrx trx = trxManager.get(trxName, OnTrxMissingPolicy.Fail);
+		if (trxManager.isNull(trx) || trx.isAutoCommit())
+		{
+			throw new AdempiereException("Batched persistence requires a transaction which is not auto-commit: " + trx);
+		}
+
+		final POStatementsBatch existingBatch = trx.getProperty(TRX_PROPERTY_Batch);
+		if (existingBatch != null)
+		{
+			// nested scope: keep using the outer one
+			return () -> {};
+		}
+
+		final POStatementsBatch batch = new POStatementsBatch(trx, flushThreshold);
+		trx.setProperty(TRX_PROPERTY_Batch, batch);
+		activeBatchesCount.incrementAndGet();
+
+		trx.getTrxListenerManager()
+				.newEventListener(TrxEventTiming.BEFORE_COMMIT)
+				.invokeMethodJustOnce(false)
+				.registerHandlingMethod(innerTrx -> batch.flush());
+		trx.getTrxListenerManager()
+				.newEventListener(TrxEventTiming.AFTER_ROLLBACK)
+				.invokeMethodJustOnce(false)
+				.registerHandlingMethod(innerTrx -> batch.discard());
+
+		return () -> {
+			try
+			{
+				if (trx.isActive())
+				{
+					batch.flush();
+				}
+			}
+			finally
+			{
+				trx.setProperty(TRX_PROPERTY_Batch, null);
+				activeBatchesCount.decrementAndGet();
+				logger.debug("Batched persistence scope closed: {}", batch);
+			}
+		};
+	}
+
+	/**
+	 * @return the active batch of given transaction or <code>null</code>
+	 */
+	public static POStatementsBatch getBatchOrNull(final String trxName)
+	{
+		if (activeBatchesCount.get() <= 0)
+		{
+			return null;
+		}
+
+		final ITrxManager trxManager = Services.get(ITrxManager.class);
+		final ITrx trx = trxManager.get(trxName, OnTrxMissingPolicy.ReturnTrxNone);
+		if (trxManager.isNull(trx))
+		{
+			return null;
+		}
+
+		return trx.getProperty(TRX_PROPERTY_Batch);
+	}
+
+	/**
+	 * Executes the queued statements of given transaction, if any.
+	 */
+	public static void flushIfPending(final String trxName)
+	{
+		final POStatementsBatch batch = getBatchOrNull(trxName);
+		if (batch != null)
+		{
+			batch.flush();
+		}
+	}
+
+	public static void flushIfPending(@NonNull final ITrx trx)
+	{
+		if (activeBatchesCount.get() <= 0)
+		{
+			return;
+		}
+
+		final POStatementsBatch batch = trx.getProperty(TRX_PROPERTY_Batch);
+		if (batch != null)
+		{
+			batch.flush();
+		}
+	}
+
+	/**
+	 * The queued INSERT/UPDATE statements of one transaction.
+	 * <p>
+	 * The statements are kept in the order they were added (and not grouped by table), because a record might reference a record which was queued before it.
+	 */
+	@ToString(of = { "trxName", "flushThreshold", "pendingCount", "flushCount", "executedCountByTableName" })
+	public static final class POStatementsBatch
+	{
+		private final ITrx trx;
+		private final String trxName;
+		private final int flushThreshold;
+
+		private final List<PendingStatement> pending = new ArrayList<>();
+		private int pendingCount = 0;
+
+		private int flushCount = 0;
+		private long flushTotalMillis = 0;
+		private final Map<String, Integer> executedCountByTableName = new TreeMap<>();
+
+		/** true while we are flushing. Used to avoid recursion, in case flushing is triggered again from the statements factory */
+		private boolean flushing = false;
+
+		private POStatementsBatch(@NonNull final ITrx trx, final int flushThreshold)
+		{
+			this.trx = trx;
+			this.trxName = trx.getTrxName();
+			this.flushThreshold = flushThreshold > 0 ? flushThreshold : DEFAULT_FlushThreshold;
+		}
+
+		public synchronized void add(@NonNull final String tableName, @NonNull final String sql)
+		{
+			pending.add(new PendingStatement(tableName, sql));
+			pendingCount = pending.size();
+
+			if (pendingCount >= flushThreshold)
+			{
+				flush();
+			}
+		}
+
+		public synchronized void flush()
+		{
+			if (pending.isEmpty() || flushing)
+			{
+				return;
+			}
+
+			flushing = true;
+			final long startNanos = System.nanoTime();
+			final List<PendingStatement> statements = new ArrayList<>(pending);
+			pending.clear();
+			pendingCount = 0;
+			try
+			{
+				executeBatch(statements);
+			}
+			finally
+			{
+				flushing = false;
+				flushCount++;
+				flushTotalMillis += TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+			}
+		}
+
+		private void executeBatch(final List<PendingStatement> statements)
+		{
+			final Connection conn = ((Trx)trx).getConnection();
+			Statement stmt = null;
+			try
+			{
+				stmt = conn.createStatement();
+				for (final PendingStatement statement : statements)
+				{
+					stmt.addBatch(statement.getSql());
+				}
+
+				final int[] updateCounts = stmt.executeBatch();
+				for (int i = 0; i < updateCounts.length; i++)
+				{
+					// NOTE: SUCCESS_NO_INFO means that the statement was executed, but the driver does not know how many rows were affected
+					if (updateCounts[i] != 1 && updateCounts[i] != Statement.SUCCESS_NO_INFO)
+					{
+						throw new DBException("Batched statement affected " + updateCounts[i] + " rows instead of one: " + statements.get(i).getSql());
+					}
+				}
+
+				for (final PendingStatement statement : statements)
+				{
+					executedCountByTableName.merge(statement.getTableName(), 1, Integer::sum);
+				}
+				logger.debug("Executed {} batched statements in {}", statements.size(), trxName);
+			}
+			catch (final SQLException ex)
+			{
+				final SQLException nextException = ex.getNextException();
+				throw new DBException(nextException != null ? nextException : ex);
+			}
+			finally
+			{
+				DB.close(stmt);
+			}
+		}
+
+		private synchronized void discard()
+		{
+			if (!pending.isEmpty())
+			{
+				logger.debug("Discarding {} batched statements because {} was rolled back", pending.size(), trxName);
+			}
+			pending.clear();
+			pendingCount = 0;
+		}
+
+		public synchronized int getPendingCount()
+		{
+			return pendingCount;
+		}
+
+		public synchronized int getFlushCount()
+		{
+			return flushCount;
+		}
+
+		public synchronized long getFlushTotalMillis()
+		{
+			return flushTotalMillis;
+		}
+
+		public synchronized Map<String, Integer> getExecutedCountByTableName()
+		{
+			return ImmutableMap.copyOf(executedCountByTableName);
+		}
+	}
+
+	@Value
+	private static class PendingStatement
+	{
+		String tableName;
+		String sql;
+	}
+}
@@ -0,0 +1,88 @@
+package org.adempiere.ad.service;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.util.List;
+
+import de.metas.util.ISingletonService;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Hands out table primary keys from blocks of IDs which were reserved in advance (one DB statement per block).
+ * <p>
+ * The reserved IDs are kept in memory, per table. IDs which were reserved but not used (e.g. on shutdown) are lost, so there will be gaps.
+ * <p>
+ * To get the next ID of a table, please use {@link org.compiere.util.DB#getNextID(int, String, String)}, which decides if this allocator shall be used or not.
+ */
+public interface ITableIdAllocator extends ISingletonService
+{
+	/** Block size used for all tables which don't have a specific block size configured. Values less or equal to one disable the block allocation. */
+	String SYSCONFIG_BlockSize = "org.adempiere.ad.service.ITableIdAllocator.BlockSize";
+
+	/** Prefix for table specific block sizes, e.g. <code>org.adempiere.ad.service.ITableIdAllocator.BlockSize.C_Invoice_Candidate</code> */
+	String SYSCONFIG_BlockSize_TablePrefix = SYSCONFIG_BlockSize + ".";
+
+	/**
+	 * @return true if the IDs of given table shall be reserved in blocks
+	 */
+	boolean isBlockAllocationEnabled(String tableName);
+
+	/**
+	 * @param useNativeSequence if true, the IDs will be reserved from the table's native DB sequence; else they will be reserved from <code>AD_Sequence</code>
+	 * @return next ID for given table
+	 */
+	int nextId(String tableName, boolean useNativeSequence);
+
+	/**
+	 * Forgets all reserved IDs. The next {@link #nextId(String, boolean)} call will reserve a new block.
+	 */
+	void reset();
+
+	List<TableIdAllocatorStats> getStats();
+
+	@Value
+	@Builder
+	public static class TableIdAllocatorStats
+	{
+		@NonNull
+		String tableName;
+
+		/** IDs handed out since startup */
+		long idsAllocated;
+		/** IDs reserved from database since startup */
+		long idsReserved;
+		/** IDs still available in the current block */
+		int idsAvailable;
+
+		int refillCount;
+		long refillTotalMillis;
+		long refillMaxMillis;
+
+		public long getRefillAvgMillis()
+		{
+			return refillCount > 0 ? refillTotalMillis / refillCount : 0;
+		}
+	}
+}
@@ -0,0 +1,334 @@
+package org.adempiere.ad.service.impl;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.adempiere.ad.service.ITableIdAllocator;
+import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.exceptions.DBException;
+import org.adempiere.service.ISysConfigBL;
+import org.compiere.util.DB;
+import org.slf4j.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+
+import de.metas.logging.LogManager;
+import de.metas.util.Services;
+import lombok.NonNull;
+
+public class TableIdAllocator implements ITableIdAllocator
+{
+	private static final Logger logger = LogManager.getLogger(TableIdAllocator.class);
+
+	private final ConcurrentHashMap<String, TableIdPool> poolsByTableName = new ConcurrentHashMap<>();
+
+	private final TableIdBlockLoader blockLoader;
+
+	public TableIdAllocator()
+	{
+		this(new SqlTableIdBlockLoader());
+	}
+
+	@VisibleForTesting
+	TableIdAllocator(@NonNull final TableIdBlockLoader blockLoader)
+	{
+		this.blockLoader = blockLoader;
+	}
+
+	@Override
+	public boolean isBlockAllocationEnabled(@NonNull final String tableName)
+	{
+		return getBlockSize(tableName) > 1;
+	}
+
+	private int getBlockSize(final String tableName)
+	{
+		final ISysConfigBL sysConfigBL = Services.get(ISysConfigBL.class);
+		final int defaultBlockSize = sysConfigBL.getIntValue(SYSCONFIG_BlockSize, 1);
+		return sysConfigBL.getIntValue(SYSCONFIG_BlockSize_TablePrefix + tableName, defaultBlockSize);
+	}
+
+	@Override
+	public int nextId(@NonNull final String tableName, final boolean useNativeSequence)
+	{
+		return poolsByTableName
+				.computeIfAbsent(tableName.toUpperCase(), k -> new TableIdPool(tableName))
+				.nextId(useNativeSequence);
+	}
+
+	@Override
+	public void reset()
+	{
+		poolsByTableName.clear();
+	}
+
+	@Override
+	public List<TableIdAllocatorStats> getStats()
+	{
+		return poolsByTableName.values()
+				.stream()
+				.map(TableIdPool::getStats)
+				.collect(ImmutableList.toImmutableList());
+	}
+
+	@VisibleForTesting
+	interface TableIdBlockLoader
+	{
+		int[] reserveFromADSequence(String tableName, int blockSize);
+
+		int[] reserveFromNativeSequence(String tableName, int blockSize);
+	}
+
+	/**
+	 * A reserved block of IDs. Handing out IDs is lock-free; when the block is exhausted, {@link #nextIdOrZero()} returns zero.
+	 */
+	private static final class TableIdBlock
+	{
+		private final int[] ids;
+		private final AtomicInteger nextIndex = new AtomicInteger(0);
+
+		private TableIdBlock(@NonNull final int[] ids)
+		{
+			this.ids = ids;
+		}
+
+		public int nextIdOrZero()
+		{
+			final int index = nextIndex.getAndIncrement();
+			return index < ids.length ? ids[index] : 0;
+		}
+
+		public int getIdsAvailable()
+		{
+			return Math.max(ids.length - nextIndex.get(), 0);
+		}
+	}
+
+	private final class TableIdPool
+	{
+		private final String tableName;
+		private final AtomicReference<TableIdBlock> currentBlock = new AtomicReference<>();
+
+		private final AtomicLong idsAllocated = new AtomicLong(0);
+		private final AtomicLong idsReserved = new AtomicLong(0);
+		private final AtomicInteger refillCount = new AtomicInteger(0);
+		private final AtomicLong refillTotalMillis = new AtomicLong(0);
+		private final AtomicLong refillMaxMillis = new AtomicLong(0);
+
+		private TableIdPool(@NonNull final String tableName)
+		{
+			this.tableName = tableName;
+		}
+
+		public int nextId(final boolean useNativeSequence)
+		{
+			while (true)
+			{
+				final TableIdBlock block = currentBlock.get();
+				final int id = block != null ? block.nextIdOrZero() : 0;
+				if (id > 0)
+				{
+					idsAllocated.incrementAndGet();
+					return id;
+				}
+
+				refill(block, useNativeSequence);
+			}
+		}
+
+		private synchronized void refill(final TableIdBlock exhaustedBlock, final boolean useNativeSequence)
+		{
+			// another thread already refilled the pool while we were waiting for the monitor
+			if (currentBlock.get() != exhaustedBlock)
+			{
+				return;
+			}
+
+			final int blockSize = Math.max(getBlockSize(tableName), 1);
+
+			final long startNanos = System.nanoTime();
+			final int[] ids = useNativeSequence
+					? blockLoader.reserveFromNativeSequence(tableName, blockSize)
+					: blockLoader.reserveFromADSequence(tableName, blockSize);
+			final long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+			if (ids.length <= 0)
+			{
+				throw new AdempiereException("No IDs could be reserved for " + tableName);
+			}
+
+			currentBlock.set(new TableIdBlock(ids));
+
+			idsReserved.addAndGet(ids.length);
+			refillCount.incrementAndGet();
+			refillTotalMillis.addAndGet(durationMillis);
+			refillMaxMillis.accumulateAndGet(durationMillis, Math::max);
+
+			logger.debug("Reserved {} IDs for {} in {}ms (useNativeSequence={})", ids.length, tableName, durationMillis, useNativeSequence);
+		}
+
+		public TableIdAllocatorStats getStats()
+		{
+			final TableIdBlock block = currentBlock.get();
+			return TableIdAllocatorStats.builder()
+					.tableName(tableName)
+					.idsAllocated(idsAllocated.get())
+					.idsReserved(idsReserved.get())
+					.idsAvailable(block != null ? block.getIdsAvailable() : 0)
+					.refillCount(refillCount.get())
+					.refillTotalMillis(refillTotalMillis.get())
+					.refillMaxMillis(refillMaxMillis.get())
+					.build();
+		}
+	}
+
+	private static final class SqlTableIdBlockLoader implements TableIdBlockLoader
+	{
+		/**
+		 * Moves <code>CurrentNext</code> forward by a whole block, in one statement.
+		 * Unlike {@link org.compiere.model.MSequence#getNextID(int, String)}, there is no <code>SELECT ... FOR UPDATE</code>, so the row lock is held only for the duration of the update.
+		 */
+		private static final String SQL_ReserveFromADSequence = "UPDATE AD_Sequence SET CurrentNext = CurrentNext + IncrementNo * ?"
+				+ " WHERE Name=? AND IsActive='Y' AND IsTableID='Y' AND IsAutoSequence='Y'"
+				+ " RETURNING CurrentNext - IncrementNo * ?, IncrementNo";
+
+		private static final String SQL_ReserveFromNativeSequence = "SELECT nextval(?::regclass) FROM generate_series(1, ?)";
+
+		@Override
+		public int[] reserveFromADSequence(final String tableName, final int blockSize)
+		{
+			return executeOutOfTrx(SQL_ReserveFromADSequence, pstmt -> {
+				pstmt.setInt(1, blockSize);
+				pstmt.setString(2, tableName);
+				pstmt.setInt(3, blockSize);
+
+				try (final ResultSet rs = pstmt.executeQuery())
+				{
+					if (!rs.next())
+					{
+						throw new AdempiereException("No AD_Sequence found for " + tableName);
+					}
+
+					final int firstId = rs.getInt(1);
+					final int incrementNo = rs.getInt(2);
+
+					final int[] ids = new int[blockSize];
+					for (int i = 0; i < blockSize; i++)
+					{
+						ids[i] = firstId + i * incrementNo;
+					}
+					return ids;
+				}
+			});
+		}
+
+		@Override
+		public int[] reserveFromNativeSequence(final String tableName, final int blockSize)
+		{
+			final String sequenceName = DB.getTableSequenceName(tableName).toLowerCase();
+			return executeOutOfTrx(SQL_ReserveFromNativeSequence, pstmt -> {
+				pstmt.setString(1, sequenceName);
+				pstmt.setInt(2, blockSize);
+
+				final int[] ids = new int[blockSize];
+				int count = 0;
+				try (final ResultSet rs = pstmt.executeQuery())
+				{
+					while (rs.next() && count < blockSize)
+					{
+						ids[count] = rs.getInt(1);
+						count++;
+					}
+				}
+				return count == blockSize ? ids : Arrays.copyOf(ids, count);
+			});
+		}
+
+		@FunctionalInterface
+		private interface StatementCallback
+		{
+			int[] execute(PreparedStatement pstmt) throws SQLException;
+		}
+
+		/**
+		 * Same as MSequence (task 08240): the IDs are reserved on a dedicated connection and committed right away, so that we never hold the lock until the caller's transaction ends.
+		 */
+		private static int[] executeOutOfTrx(final String sql, final StatementCallback callback)
+		{
+			Connection conn = null;
+			PreparedStatement pstmt = null;
+			try
+			{
+				conn = DB.getConnectionID();
+				pstmt = conn.prepareStatement(sql);
+				final int[] ids = callback.execute(pstmt);
+				conn.commit();
+				return ids;
+			}
+			catch (final SQLException ex)
+			{
+				rollbackQuietly(conn);
+				throw new DBException(ex, sql);
+			}
+			catch (final RuntimeException ex)
+			{
+				rollbackQuietly(conn);
+				throw ex;
+			}
+			finally
+			{
+				DB.close(pstmt);
+				DB.close(conn);
+			}
+		}
+
+		private static void rollbackQuietly(final Connection conn)
+		{
+			if (conn == null)
+			{
+				return;
+			}
+
+			try
+			{
+				conn.rollback();
+			}
+			catch (final SQLException e)
+			{
+				logger.warn("Failed rolling back {}. Ignored.", conn, e);
+			}
+		}
+	}
+}
@@ -30,6 +30,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
+import org.adempiere.ad.persistence.po.POBatchedPersistence;
 import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.ad.trx.api.ITrxListenerManager;
 import org.adempiere.ad.trx.api.ITrxManager;
@@ -218,6 +219,9 @@ public abstract class AbstractTrx implements ITrx
 	public boolean rollback(final ITrxSavepoint savepoint)
 	{
 		validateTrxSavepoint(savepoint);
+
+		// make sure the batched statements issued before the savepoint are not lost
+		POBatchedPersistence.flushIfPending(this);
 		try
 		{
 			return rollbackNative(savepoint);
@@ -283,6 +287,8 @@ public abstract class AbstractTrx implements ITrx
 	@Override
 	public ITrxSavepoint createTrxSavepoint(String name)
 	{
+		POBatchedPersistence.flushIfPending(this);
+
 		final ITrxSavepoint savepoint;
 		try
 		{
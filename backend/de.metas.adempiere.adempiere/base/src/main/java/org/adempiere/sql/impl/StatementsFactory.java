@@ -24,6 +24,7 @@ import org.adempiere.ad.dao.IQueryStatisticsCollector;
  * #L%
  */
 
+import org.adempiere.ad.persistence.po.POBatchedPersistence;
 import org.adempiere.sql.IStatementsFactory;
 import org.compiere.util.CCallableStatement;
 import org.compiere.util.CPreparedStatement;
@@ -60,6 +61,8 @@ public final class StatementsFactory implements IStatementsFactory
 	@Override
 	public CStatement newCStatement(final int resultSetType, final int resultSetConcurrency, final String trxName)
 	{
+		POBatchedPersistence.flushIfPending(trxName);
+
 		final CStatementProxy stmt = new CStatementProxy(resultSetType, resultSetConcurrency, trxName);
 		if (sqlQueriesTracingEnabled)
 		{
@@ -71,6 +74,8 @@ public final class StatementsFactory implements IStatementsFactory
 	@Override
 	public CPreparedStatement newCPreparedStatement(final int resultSetType, final int resultSetConcurrency, final String sql, final String trxName)
 	{
+		POBatchedPersistence.flushIfPending(trxName);
+
 		final CPreparedStatementProxy pstmt = new CPreparedStatementProxy(resultSetType, resultSetConcurrency, sql, trxName);
 		if (sqlQueriesTracingEnabled)
 		{
@@ -82,12 +87,16 @@ public final class StatementsFactory implements IStatementsFactory
 	@Override
 	public CCallableStatement newCCallableStatement(final int resultSetType, final int resultSetConcurrency, final String sql, final String trxName)
 	{
+		POBatchedPersistence.flushIfPending(trxName);
+
 		return new CCallableStatementProxy(resultSetType, resultSetConcurrency, sql, trxName);
 	}
 
 	@Override
 	public CStatement newCStatement(final CStatementVO info)
 	{
+		POBatchedPersistence.flushIfPending(info.getTrxName());
+
 		final CStatementProxy stmt = new CStatementProxy(info);
 		if (sqlQueriesTracingEnabled)
 		{
@@ -99,6 +108,8 @@ public final class StatementsFactory implements IStatementsFactory
 	@Override
 	public CPreparedStatement newCPreparedStatement(final CStatementVO info)
 	{
+		POBatchedPersistence.flushIfPending(info.getTrxName());
+
 		final CPreparedStatementProxy pstmt = new CPreparedStatementProxy(info);
 		if (sqlQueriesTracingEnabled)
 		{
@@ -110,6 +121,8 @@ public final class StatementsFactory implements IStatementsFactory
 	@Override
 	public CCallableStatement newCCallableStatement(final CStatementVO info)
 	{
+		POBatchedPersistence.flushIfPending(info.getTrxName());
+
 		return new CCallableStatementProxy(info);
 	}
 }
@@ -79,6 +79,18 @@ public interface IQuery<T>
 	 */
 	String OPTION_ReturnReadOnlyRecords = "ReturnReadOnlyRecords";
 
+	/**
+	 * If this instance is used to get a cursor based iterator or stream, then this option tells how many rows shall be fetched from database at a time.
+	 *
+	 * @see #iterateUsingCursor(Class)
+	 */
+	String OPTION_CursorFetchSize = "CursorFetchSize";
+
+	/**
+	 * Default value for {@link #OPTION_CursorFetchSize}.
+	 */
+	int DEFAULT_OPTION_CursorFetchSize = 1000;
+
 	/**
 	 * Default value for {@link #OPTION_GuaranteedIteratorRequired}.
 	 * <p>
@@ -436,6 +448,15 @@ public interface IQuery<T>
 	 */
 	int updateDirectly(IQueryUpdater<T> queryUpdater);
 
+	/**
+	 * Same as {@link #updateDirectly(IQueryUpdater)}, but returns the updated records.
+	 * <p>
+	 * If <code>queryUpdater</code> implements {@link ISqlQueryUpdater} then one SQL "UPDATE .. RETURNING" will be issued, so the records are not loaded again after the update.
+	 *
+	 * @return the updated records, as they are after the update; the order is not defined
+	 */
+	List<T> updateDirectlyAndReturnUpdated(IQueryUpdater<T> queryUpdater);
+
 	/**
 	 * Update records which are matched by this query.
 	 * <p>
@@ -621,4 +642,47 @@ public interface IQuery<T>
 	{
 		return list(clazz).stream();
 	}
+
+	/**
+	 * Return an iterator over all records that match the query criteria, without loading them all in memory.
+	 * <p>
+	 * The records are fetched from a database cursor, {@link #OPTION_CursorFetchSize} rows at a time, and are converted to models while iterating.
+	 * If this query has no transaction, the cursor is opened on a dedicated read-only connection; else the cursor is opened in the query's transaction,
+	 * so that transaction shall not be committed before the iterator was consumed.
+	 * <p>
+	 * IMPORTANT: the iterator holds database resources until it was fully consumed, so please close it using {@link IteratorUtils#close(Iterator)} if that's not guaranteed.
+	 *
+	 * @param clazz all resulting models will be converted to this interface
+	 * @return iterator
+	 * @throws DBException
+	 */
+	default <ET extends T> Iterator<ET> iterateUsingCursor(final Class<ET> clazz) throws DBException
+	{
+		return iterate(clazz);
+	}
+
+	/**
+	 * Same as {@link #iterateUsingCursor(Class)}, but returns a stream which is closing the underlying iterator when the stream is closed.
+	 * <p>
+	 * IMPORTANT: please use try-with-resources if it's not guaranteed that the stream is fully consumed.
+	 *
+	 * @param clazz all resulting models will be converted to this interface
+	 * @return Stream
+	 * @throws DBException
+	 */
+	default <ET extends T> Stream<ET> streamUsingCursor(final Class<ET> clazz) throws DBException
+	{
+		final Iterator<ET> iterator = iterateUsingCursor(clazz);
+		final boolean parallel = false;
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), parallel)
+				.onClose(() -> IteratorUtils.close(iterator));
+	}
+
+	/**
+	 * @see #streamUsingCursor(Class)
+	 */
+	default Stream<T> streamUsingCursor() throws DBException
+	{
+		return streamUsingCursor(getModelClass());
+	}
 }
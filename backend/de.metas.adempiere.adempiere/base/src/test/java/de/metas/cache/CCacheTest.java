@@ -28,12 +28,16 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import org.junit.Assert;
 import org.junit.Test;
 
 import com.google.common.collect.ImmutableMap;
 
+import de.metas.cache.CCache.CCacheStats;
+import de.metas.cache.CCache.CacheMapType;
+
 public class CCacheTest
 {
 	public static class MyUncheckedException extends RuntimeException
@@ -244,4 +248,140 @@ public class CCacheTest
 		cache.remove("k1");
 		assertThat(removedItems).containsEntry("k1", "v1");
 	}
+
+	@Test
+	public void test_maximumSize()
+	{
+		final CCache<Integer, String> cache = CCache.<Integer, String> builder()
+				.maximumSize(10)
+				.build();
+
+		for (int i = 1; i <= 100; i++)
+		{
+			cache.put(i, "value" + i);
+		}
+
+		assertThat(cache.size()).isLessThanOrEqualTo(10);
+		assertThat(cache.stats().getEvictionCount()).isGreaterThanOrEqualTo(90);
+		assertThat(cache.stats().getMaximumSize()).isEqualTo(10);
+	}
+
+	@Test
+	public void test_maximumWeight()
+	{
+		final CCache<Integer, String> cache = CCache.<Integer, String> builder()
+				.maximumWeight(100L)
+				.weigher((key, value) -> value.length())
+				.build();
+
+		for (int i = 1; i <= 100; i++)
+		{
+			cache.put(i, "0123456789");
+		}
+
+		final CCacheStats stats = cache.stats();
+		assertThat(stats.getSize()).isLessThanOrEqualTo(10);
+		assertThat(stats.getMaximumWeight()).isEqualTo(100);
+		assertThat(stats.getMaximumSize()).isEqualTo(-1);
+		assertThat(stats.getEstimatedWeight()).isEqualTo(stats.getSize() * 10);
+	}
+
+	@Test
+	public void test_estimatedWeight_withoutMaximumWeight()
+	{
+		final CCache<Integer, String> cache = CCache.<Integer, String> builder()
+				.weigher((key, value) -> value.length())
+				.build();
+
+		for (int i = 1; i <= 5000; i++)
+		{
+			cache.put(i, "0123456789");
+		}
+
+		// not bounded, but weighed; the weight is extrapolated from a sample of the entries
+		final CCacheStats stats = cache.stats();
+		assertThat(stats.getSize()).isEqualTo(5000);
+		assertThat(stats.getMaximumWeight()).isZero();
+		assertThat(stats.getEstimatedWeight()).isEqualTo(50000);
+	}
+
+	@Test
+	public void test_estimatedWeight_noWeigher()
+	{
+		final CCache<Integer, String> cache = CCache.<Integer, String> builder().build();
+		cache.put(1, "value1");
+
+		assertThat(cache.stats().getEstimatedWeight()).isEqualTo(-1);
+	}
+
+	@Test
+	public void test_orderByWeight()
+	{
+		final CCache<Integer, String> light = CCache.<Integer, String> builder()
+				.weigher((key, value) -> value.length())
+				.build();
+		light.put(1, "0123456789");
+		light.put(2, "0123456789");
+		light.put(3, "0123456789");
+
+		final CCache<Integer, String> heavy = CCache.<Integer, String> builder()
+				.weigher((key, value) -> value.length() * 1000)
+				.build();
+		heavy.put(1, "0123456789");
+
+		final CCache<Integer, String> notWeighed = CCache.<Integer, String> builder().build();
+		notWeighed.put(1, "0123456789");
+		notWeighed.put(2, "0123456789");
+		notWeighed.put(3, "0123456789");
+		notWeighed.put(4, "0123456789");
+
+		final CCacheStats lightStats = light.stats();
+		final CCacheStats heavyStats = heavy.stats();
+		final CCacheStats notWeighedStats = notWeighed.stats();
+
+		assertThat(Stream.of(lightStats, notWeighedStats, heavyStats).sorted(CCacheStatsOrderBy.Weight.getComparator()))
+				.containsExactly(heavyStats, lightStats, notWeighedStats);
+	}
+
+	@Test
+	public void test_LRU_withoutMaximumSize_keepsInitialCapacityAsBound()
+	{
+		final CCache<Integer, String> cache = CCache.<Integer, String> builder()
+				.cacheMapType(CacheMapType.LRU)
+				.build();
+
+		cache.put(1, "value1");
+
+		// same as before maximumSize was introduced: the initialCapacity (zero) is the maximum size
+		assertThat(cache.size()).isZero();
+		assertThat(cache.stats().getMaximumSize()).isZero();
+	}
+
+	@Test
+	public void test_HashMap_withoutMaximumSize_isUnbounded()
+	{
+		final CCache<Integer, String> cache = CCache.<Integer, String> builder().build();
+
+		for (int i = 1; i <= 100; i++)
+		{
+			cache.put(i, "value" + i);
+		}
+
+		assertThat(cache.size()).isEqualTo(100);
+		assertThat(cache.stats().getMaximumSize()).isEqualTo(-1);
+	}
+
+	@Test
+	public void test_stats_hitAndMissCount()
+	{
+		final CCache<String, String> cache = CCache.<String, String> builder().build();
+
+		cache.getOrLoad("k1", key -> "v1"); // miss
+		cache.getOrLoad("k1", key -> "v1"); // hit
+		cache.getOrLoad("k2", key -> "v2"); // miss
+
+		final CCacheStats stats = cache.stats();
+		assertThat(stats.getHitCount()).isEqualTo(1);
+		assertThat(stats.getMissCount()).isEqualTo(2);
+	}
 }
@@ -0,0 +1,140 @@
+package de.metas.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableSet;
+
+import de.metas.cache.CacheInvalidationBroadcastBatcher.BatchingConfig;
+import de.metas.cache.model.CacheInvalidateMultiRequest;
+import de.metas.cache.model.CacheInvalidateRequest;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+class CacheInvalidationBroadcastBatcherTest
+{
+	private static final BatchingConfig CONFIG = BatchingConfig.builder()
+			.windowMillis(60 * 1000) // we flush manually
+			.maxRequests(1000)
+			.wholeTableThreshold(3)
+			.build();
+
+	@Test
+	void noBatching()
+	{
+		final List<CacheInvalidateMultiRequest> sent = new ArrayList<>();
+		final CacheInvalidationBroadcastBatcher batcher = new CacheInvalidationBroadcastBatcher(sent::add);
+
+		batcher.enqueue(CacheInvalidateMultiRequest.rootRecord("T1", 1), BatchingConfig.NO_BATCHING);
+		batcher.enqueue(CacheInvalidateMultiRequest.rootRecord("T1", 2), BatchingConfig.NO_BATCHING);
+
+		assertThat(sent).hasSize(2);
+		assertThat(batcher.getStats().getMessagesSaved()).isZero();
+	}
+
+	@Test
+	void mergeAndDeduplicate()
+	{
+		final List<CacheInvalidateMultiRequest> sent = new ArrayList<>();
+		final CacheInvalidationBroadcastBatcher batcher = new CacheInvalidationBroadcastBatcher(sent::add);
+
+		batcher.enqueue(CacheInvalidateMultiRequest.rootRecord("T1", 1), CONFIG);
+		batcher.enqueue(CacheInvalidateMultiRequest.rootRecord("T1", 2), CONFIG);
+		batcher.enqueue(CacheInvalidateMultiRequest.rootRecord("T1", 1), CONFIG);
+		assertThat(sent).isEmpty();
+
+		batcher.flush();
+
+		assertThat(sent).hasSize(1);
+		assertThat(sent.get(0).getRequests()).containsExactlyInAnyOrder(
+				CacheInvalidateRequest.rootRecord("T1", 1),
+				CacheInvalidateRequest.rootRecord("T1", 2));
+		assertThat(batcher.getStats().getMessagesSaved()).isEqualTo(2);
+		assertThat(batcher.getStats().getRequestsDeduplicated()).isEqualTo(1);
+	}
+
+	@Test
+	void flushWhenMaxRequestsReached()
+	{
+		final List<CacheInvalidateMultiRequest> sent = new ArrayList<>();
+		final CacheInvalidationBroadcastBatcher batcher = new CacheInvalidationBroadcastBatcher(sent::add);
+		final BatchingConfig config = CONFIG.toBuilder().maxRequests(2).build();
+
+		batcher.enqueue(CacheInvalidateMultiRequest.rootRecord("T1", 1), config);
+		assertThat(sent).isEmpty();
+
+		batcher.enqueue(CacheInvalidateMultiRequest.rootRecord("T1", 2), config);
+		assertThat(sent).hasSize(1);
+	}
+
+	@Test
+	void destroy_sendsPendingRequests()
+	{
+		final List<CacheInvalidateMultiRequest> sent = new ArrayList<>();
+		final CacheInvalidationBroadcastBatcher batcher = new CacheInvalidationBroadcastBatcher(sent::add);
+
+		batcher.enqueue(CacheInvalidateMultiRequest.rootRecord("T1", 1), CONFIG);
+		assertThat(sent).isEmpty();
+
+		batcher.destroy();
+		assertThat(sent).hasSize(1);
+
+		// nobody would flush them anymore, so they are sent right away
+		batcher.enqueue(CacheInvalidateMultiRequest.rootRecord("T1", 2), CONFIG);
+		assertThat(sent).hasSize(2);
+	}
+
+	@Test
+	void compact_tooManyRecordsOfSameTable()
+	{
+		final CacheInvalidateRequest childRequest = CacheInvalidateRequest.builder().rootRecord("T1", 1).childRecord("T2", 1).build();
+		final ImmutableSet<CacheInvalidateRequest> requests = ImmutableSet.of(
+				CacheInvalidateRequest.rootRecord("T1", 1),
+				CacheInvalidateRequest.rootRecord("T1", 2),
+				CacheInvalidateRequest.rootRecord("T1", 3),
+				CacheInvalidateRequest.rootRecord("T1", 4),
+				CacheInvalidateRequest.rootRecord("T3", 1),
+				childRequest);
+
+		assertThat(CacheInvalidationBroadcastBatcher.compact(requests, 3))
+				.containsExactlyInAnyOrder(
+						CacheInvalidateRequest.allRecordsForTable("T1"),
+						CacheInvalidateRequest.rootRecord("T3", 1),
+						childRequest);
+	}
+
+	@Test
+	void compact_all()
+	{
+		final ImmutableSet<CacheInvalidateRequest> requests = ImmutableSet.of(
+				CacheInvalidateRequest.rootRecord("T1", 1),
+				CacheInvalidateRequest.all());
+
+		assertThat(CacheInvalidationBroadcastBatcher.compact(requests, 3))
+				.containsExactly(CacheInvalidateRequest.all());
+	}
+}
@@ -45,4 +45,15 @@ class CacheInvalidationRemoteHandlerTest
 		assertThat(result).isNotNull();
 	}
 
+	@Test
+	void createEventFromRequest_compactEncoding()
+	{
+		final CacheInvalidateMultiRequest multiRequest = CacheInvalidateMultiRequest.of(CacheInvalidateRequest.builder()
+				.rootRecord("SomeRootTable", 123)
+				.childRecord("SomeChildTable", 456)
+				.build());
+
+		final Event event = CacheInvalidationRemoteHandler.instance.createEventFromRequest(multiRequest, true);
+		assertThat(CacheInvalidationRemoteHandler.instance.createRequestFromEvent(event)).isEqualTo(multiRequest);
+	}
 }
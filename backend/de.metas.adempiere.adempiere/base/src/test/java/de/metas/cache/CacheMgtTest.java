@@ -2,6 +2,7 @@ package de.metas.cache;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
@@ -10,12 +11,15 @@ import org.adempiere.util.lang.impl.TableRecordReference;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
 import de.metas.cache.CacheMgt.ResetMode;
 import de.metas.cache.model.CacheInvalidateMultiRequest;
 import de.metas.cache.model.CacheInvalidateRequest;
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.Value;
 
 /*
  * #%L
@@ -104,6 +108,117 @@ public class CacheMgtTest
 		invoiceLineCache.assertRecordInvalidated(TableRecordReference.of("C_InvoiceLine", 2));
 	}
 
+	@Test
+	public void resetSameRootRecordForManyChildRecords_rootRecordIsInvalidatedOnlyOnce()
+	{
+		final CacheMgt cacheManager = CacheMgt.get();
+
+		final AssertCache invoiceCache = AssertCache.newForTableName("C_Invoice");
+		cacheManager.register(invoiceCache);
+
+		final long requestsCoalescedBefore = cacheManager.getInvalidationStats().getRequestsCoalesced();
+
+		final CacheInvalidateMultiRequest request = CacheInvalidateMultiRequest.of(ImmutableList.of(
+				CacheInvalidateRequest.builder().rootRecord("C_Invoice", 1).childRecord("C_InvoiceLine", 2).build(),
+				CacheInvalidateRequest.builder().rootRecord("C_Invoice", 1).childRecord("C_InvoiceLine", 3).build(),
+				CacheInvalidateRequest.builder().rootRecord("C_Invoice", 1).childRecord("C_InvoiceLine", 4).build()));
+		cacheManager.reset(request, ResetMode.LOCAL);
+
+		assertThat(invoiceCache.getResetForRecordIdCalls()).isEqualTo(1);
+		assertThat(cacheManager.getInvalidationStats().getRequestsCoalesced() - requestsCoalescedBefore).isEqualTo(2);
+	}
+
+	@Test
+	public void resetRecordAndAllRecordsOfSameTable_recordIsNotInvalidatedSeparately()
+	{
+		final CacheMgt cacheManager = CacheMgt.get();
+
+		final AssertCache invoiceCache = AssertCache.newForTableName("C_Invoice");
+		cacheManager.register(invoiceCache);
+
+		final CacheInvalidateMultiRequest request = CacheInvalidateMultiRequest.of(ImmutableList.of(
+				CacheInvalidateRequest.rootRecord("C_Invoice", 1),
+				CacheInvalidateRequest.allRecordsForTable("C_Invoice")));
+		cacheManager.reset(request, ResetMode.LOCAL);
+
+		invoiceCache.assertResetForRecordIdWasNotCalled();
+		assertThat(invoiceCache.getResetCalls()).isEqualTo(1);
+	}
+
+	@Test
+	public void resetByTableNameAndRecordId_emptyCacheIsSkipped()
+	{
+		final CacheMgt cacheManager = CacheMgt.get();
+
+		final CCache<Integer, String> cache = new CCache<>("Table3", 10);
+		final long cachesSkippedBefore = cacheManager.getInvalidationStats().getCachesSkipped();
+
+		cacheManager.reset("Table3", 100);
+		assertThat(cacheManager.getInvalidationStats().getCachesSkipped() - cachesSkippedBefore).isEqualTo(1);
+
+		cache.put(1, "value1");
+		cacheManager.reset("Table3", 100);
+		assertThat(cache.size()).isZero();
+		assertThat(cacheManager.getInvalidationStats().getCachesSkipped() - cachesSkippedBefore).isEqualTo(1);
+	}
+
+	@Test
+	public void resetByTableNameAndRecordId_CacheIndex_notIndexedRecordIsSkipped()
+	{
+		final CacheMgt cacheManager = CacheMgt.get();
+
+		final CacheIndex<Integer, String, TestDataItem> cacheIndex = CacheIndex.of(new TestDataItemIndex());
+		final CCache<String, TestDataItem> cache = CCache.<String, TestDataItem> builder()
+				.tableName("Table4")
+				.additionalTableNameToResetFor("Table5")
+				.invalidationKeysMapper(cacheIndex)
+				.removalListener(cacheIndex::remove)
+				.additionListener(cacheIndex::add)
+				.build();
+		cache.put("key1", new TestDataItem(1, "key1", TableRecordReference.of("Table5", 10)));
+
+		final long cachesSkippedBefore = cacheManager.getInvalidationStats().getCachesSkipped();
+
+		// not about the cached records
+		cacheManager.reset("Table4", 10);
+		cacheManager.reset("Table5", 20);
+		assertThat(cacheManager.getInvalidationStats().getCachesSkipped() - cachesSkippedBefore).isEqualTo(2);
+		assertThat(cache.size()).isEqualTo(1);
+
+		cacheManager.reset("Table5", 10);
+		assertThat(cacheManager.getInvalidationStats().getCachesSkipped() - cachesSkippedBefore).isEqualTo(2);
+		assertThat(cache.size()).isZero();
+	}
+
+	@Value
+	private static class TestDataItem
+	{
+		int id;
+		String cacheKey;
+		TableRecordReference recordRef;
+	}
+
+	private static class TestDataItemIndex implements CacheIndexDataAdapter<Integer, String, TestDataItem>
+	{
+		@Override
+		public Integer extractDataItemId(final TestDataItem dataItem)
+		{
+			return dataItem.getId();
+		}
+
+		@Override
+		public Collection<String> extractCacheKeys(final TestDataItem dataItem)
+		{
+			return ImmutableSet.of(dataItem.getCacheKey());
+		}
+
+		@Override
+		public Collection<TableRecordReference> extractRecordRefs(final TestDataItem dataItem)
+		{
+			return ImmutableSet.of(dataItem.getRecordRef());
+		}
+	}
+
 	private static class AssertCache implements CacheInterface
 	{
 		public static AssertCache newForTableName(final String tableName)
@@ -114,6 +229,10 @@ public class CacheMgtTest
 		private final long cacheId;
 		private final String tableName;
 		private final LinkedHashSet<TableRecordReference> resetRecords = new LinkedHashSet<>();
+		@Getter
+		private int resetForRecordIdCalls = 0;
+		@Getter
+		private int resetCalls = 0;
 
 		private AssertCache(@NonNull final String tableName)
 		{
@@ -142,6 +261,7 @@ public class CacheMgtTest
 		@Override
 		public long reset()
 		{
+			resetCalls++;
 			return 1;
 		}
 
@@ -149,6 +269,7 @@ public class CacheMgtTest
 		public long resetForRecordId(final TableRecordReference recordRef)
 		{
 			resetRecords.add(recordRef);
+			resetForRecordIdCalls++;
 			return 1;
 		}
 
@@ -0,0 +1,211 @@
+package de.metas.currency.impl;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+import org.adempiere.service.ClientId;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.metas.currency.impl.CurrencyConversionRatesIndex.RateRecord;
+import de.metas.money.CurrencyConversionTypeId;
+import de.metas.money.CurrencyId;
+import de.metas.organization.OrgId;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Measures the rate lookups of {@link CurrencyConversionRatesIndex}, compared with a linear scan which is doing what the <code>C_Conversion_Rate</code> query is doing
+ * (filter by currencies, client, org and date, order by client, org and ValidFrom, take the first).
+ * <p>
+ * The rates are daily rates of some currency pairs over a few years, plus some monthly client/org specific rates.
+ * The results of both lookups are compared, so this is also a sanity check of the index.
+ */
+@Ignore
+public class CurrencyConversionRatesIndexBenchmark
+{
+	private static final Logger logger = LoggerFactory.getLogger(CurrencyConversionRatesIndexBenchmark.class);
+
+	private static final ClientId CLIENT = ClientId.ofRepoId(1000000);
+	private static final OrgId ORG = OrgId.ofRepoId(1000001);
+	private static final CurrencyConversionTypeId CONVERSION_TYPE = CurrencyConversionTypeId.ofRepoId(114);
+
+	private static final int COUNT_CURRENCIES = 8;
+	private static final LocalDate FIRST_DAY = LocalDate.of(2015, 1, 1);
+	private static final int COUNT_DAYS = 5 * 365;
+	private static final int COUNT_LOOKUPS = 1_000_000;
+	private static final int COUNT_LOOKUPS_LINEAR = 2_000;
+
+	public static void main(final String[] args)
+	{
+		new CurrencyConversionRatesIndexBenchmark().run();
+	}
+
+	@Test
+	public void run()
+	{
+		final List<RateRecord> rates = createRates();
+		final CurrencyConversionRatesIndex index = CurrencyConversionRatesIndex.of(CLIENT, CONVERSION_TYPE, rates);
+		logger.info("Created {}", index);
+
+		// warm up
+		lookupUsingIndex(index, 100_000);
+
+		final long indexNanos = lookupUsingIndex(index, COUNT_LOOKUPS);
+		logger.info("Index: {} lookups in {}ms => {}ns/lookup", COUNT_LOOKUPS, indexNanos / 1_000_000, indexNanos / COUNT_LOOKUPS);
+
+		final long linearNanos = lookupLinearAndCompare(index, rates, COUNT_LOOKUPS_LINEAR);
+		logger.info("Linear scan: {} lookups in {}ms => {}ns/lookup", COUNT_LOOKUPS_LINEAR, linearNanos / 1_000_000, linearNanos / COUNT_LOOKUPS_LINEAR);
+	}
+
+	private static List<RateRecord> createRates()
+	{
+		final Random random = new Random(42);
+		final List<RateRecord> rates = new ArrayList<>();
+		for (int from = 1; from <= COUNT_CURRENCIES; from++)
+		{
+			for (int to = 1; to <= COUNT_CURRENCIES; to++)
+			{
+				if (from == to)
+				{
+					continue;
+				}
+
+				for (int day = 0; day < COUNT_DAYS; day++)
+				{
+					final LocalDate date = FIRST_DAY.plusDays(day);
+					rates.add(rate(rates.size() + 1, ClientId.SYSTEM, OrgId.ANY, from, to, date, date, random));
+
+					if (date.getDayOfMonth() == 1 && random.nextBoolean())
+					{
+						final OrgId orgId = random.nextBoolean() ? ORG : OrgId.ANY;
+						rates.add(rate(rates.size() + 1, CLIENT, orgId, from, to, date, date.plusDays(random.nextInt(10)), random));
+					}
+				}
+			}
+		}
+		return rates;
+	}
+
+	private static RateRecord rate(
+			final int id,
+			final ClientId clientId,
+			final OrgId orgId,
+			final int from,
+			final int to,
+			final LocalDate validFrom,
+			final LocalDate validTo,
+			final Random random)
+	{
+		return RateRecord.builder()
+				.conversionRateId(id)
+				.clientId(clientId)
+				.orgId(orgId)
+				.currencyFromId(CurrencyId.ofRepoId(from))
+				.currencyToId(CurrencyId.ofRepoId(to))
+				.validFrom(validFrom)
+				.validTo(validTo)
+				.multiplyRate(BigDecimal.valueOf(random.nextInt(100000) + 1, 4))
+				.build();
+	}
+
+	private static long lookupUsingIndex(final CurrencyConversionRatesIndex index, final int countLookups)
+	{
+		final Random random = new Random(1);
+		int countFound = 0;
+		final long startNanos = System.nanoTime();
+		for (int i = 0; i < countLookups; i++)
+		{
+			if (index.getRateOrNull(randomCurrencyId(random), randomCurrencyId(random), ORG, randomDate(random)) != null)
+			{
+				countFound++;
+			}
+		}
+		final long durationNanos = System.nanoTime() - startNanos;
+		logger.debug("found {} rates", countFound);
+		return durationNanos;
+	}
+
+	private static long lookupLinearAndCompare(final CurrencyConversionRatesIndex index, final List<RateRecord> rates, final int countLookups)
+	{
+		final Random random = new Random(2);
+		long durationNanos = 0;
+		for (int i = 0; i < countLookups; i++)
+		{
+			final CurrencyId currencyFromId = randomCurrencyId(random);
+			final CurrencyId currencyToId = randomCurrencyId(random);
+			final LocalDate date = randomDate(random);
+
+			final long startNanos = System.nanoTime();
+			final BigDecimal expectedRate = lookupLinear(rates, currencyFromId, currencyToId, ORG, date);
+			durationNanos += System.nanoTime() - startNanos;
+
+			final BigDecimal actualRate = index.getRateOrNull(currencyFromId, currencyToId, ORG, date);
+			if (!Objects.equals(expectedRate, actualRate))
+			{
+				throw new IllegalStateException("Expected " + expectedRate + " but got " + actualRate
+						+ " for " + currencyFromId + "->" + currencyToId + " at " + date);
+			}
+		}
+		return durationNanos;
+	}
+
+	private static BigDecimal lookupLinear(
+			final List<RateRecord> rates,
+			final CurrencyId currencyFromId,
+			final CurrencyId currencyToId,
+			final OrgId orgId,
+			final LocalDate date)
+	{
+		return rates.stream()
+				.filter(rate -> rate.getCurrencyFromId().equals(currencyFromId) && rate.getCurrencyToId().equals(currencyToId))
+				.filter(rate -> rate.getClientId().isSystem() || rate.getClientId().equals(CLIENT))
+				.filter(rate -> rate.getOrgId().isAny() || rate.getOrgId().equals(orgId))
+				.filter(rate -> !rate.getValidFrom().isAfter(date) && !rate.getValidTo().isBefore(date))
+				.sorted(Comparator.comparing((RateRecord rate) -> rate.getClientId().getRepoId())
+						.thenComparing(rate -> rate.getOrgId().getRepoId())
+						.thenComparing(RateRecord::getValidFrom)
+						.reversed())
+				.map(RateRecord::getMultiplyRate)
+				.findFirst()
+				.orElse(null);
+	}
+
+	private static CurrencyId randomCurrencyId(final Random random)
+	{
+		return CurrencyId.ofRepoId(random.nextInt(COUNT_CURRENCIES) + 1);
+	}
+
+	private static LocalDate randomDate(final Random random)
+	{
+		// also ask for some dates outside of the rates' range
+		return FIRST_DAY.plusDays(random.nextInt(COUNT_DAYS + 60) - 30);
+	}
+}
@@ -0,0 +1,208 @@
+package de.metas.currency.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.adempiere.service.ClientId;
+import org.junit.jupiter.api.Test;
+
+import de.metas.currency.impl.CurrencyConversionRatesIndex.RateRecord;
+import de.metas.money.CurrencyConversionTypeId;
+import de.metas.money.CurrencyId;
+import de.metas.organization.OrgId;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class CurrencyConversionRatesIndexTest
+{
+	private static final ClientId CLIENT = ClientId.ofRepoId(1000000);
+	private static final OrgId ORG = OrgId.ofRepoId(1000001);
+	private static final CurrencyConversionTypeId CONVERSION_TYPE = CurrencyConversionTypeId.ofRepoId(114);
+	private static final CurrencyId EUR = CurrencyId.ofRepoId(102);
+	private static final CurrencyId CHF = CurrencyId.ofRepoId(318);
+
+	private final List<RateRecord> rates = new ArrayList<>();
+
+	private void rate(final ClientId clientId, final OrgId orgId, final String validFrom, final String validTo, final String rate)
+	{
+		rates.add(newRate(rates.size() + 1, clientId, orgId, validFrom, validTo, rate));
+	}
+
+	private static RateRecord newRate(final int conversionRateId, final ClientId clientId, final OrgId orgId, final String validFrom, final String validTo, final String rate)
+	{
+		return RateRecord.builder()
+				.conversionRateId(conversionRateId)
+				.clientId(clientId)
+				.orgId(orgId)
+				.currencyFromId(EUR)
+				.currencyToId(CHF)
+				.validFrom(LocalDate.parse(validFrom))
+				.validTo(LocalDate.parse(validTo))
+				.multiplyRate(new BigDecimal(rate))
+				.build();
+	}
+
+	private static BigDecimal getRate(final CurrencyConversionRatesIndex index, final OrgId orgId, final String date)
+	{
+		return index.getRateOrNull(EUR, CHF, orgId, LocalDate.parse(date));
+	}
+
+	private BigDecimal getRate(final OrgId orgId, final String date)
+	{
+		return getRate(CurrencyConversionRatesIndex.of(CLIENT, CONVERSION_TYPE, rates), orgId, date);
+	}
+
+	@Test
+	public void mostRecentValidFromWins()
+	{
+		rate(ClientId.SYSTEM, OrgId.ANY, "2020-01-01", "2020-12-31", "1.1");
+		rate(ClientId.SYSTEM, OrgId.ANY, "2020-03-01", "2020-03-31", "1.2");
+
+		assertThat(getRate(ORG, "2019-12-31")).isNull();
+		assertThat(getRate(ORG, "2020-01-01")).isEqualByComparingTo("1.1");
+		assertThat(getRate(ORG, "2020-03-01")).isEqualByComparingTo("1.2");
+		assertThat(getRate(ORG, "2020-03-31")).isEqualByComparingTo("1.2");
+		// the march rate is no longer valid, but the overlapping yearly one is
+		assertThat(getRate(ORG, "2020-04-01")).isEqualByComparingTo("1.1");
+		assertThat(getRate(ORG, "2021-01-01")).isNull();
+	}
+
+	@Test
+	public void clientAndOrgSpecificRatesArePreferred()
+	{
+		rate(ClientId.SYSTEM, OrgId.ANY, "2020-01-01", "2020-12-31", "1.1");
+		rate(CLIENT, OrgId.ANY, "2020-01-01", "2020-06-30", "1.2");
+		rate(CLIENT, ORG, "2020-01-01", "2020-01-31", "1.3");
+
+		assertThat(getRate(ORG, "2020-01-15")).isEqualByComparingTo("1.3");
+		assertThat(getRate(OrgId.ANY, "2020-01-15")).isEqualByComparingTo("1.2");
+		assertThat(getRate(ORG, "2020-02-15")).isEqualByComparingTo("1.2");
+		assertThat(getRate(ORG, "2020-07-15")).isEqualByComparingTo("1.1");
+	}
+
+	@Test
+	public void otherCurrenciesAreNotMatched()
+	{
+		rate(ClientId.SYSTEM, OrgId.ANY, "2020-01-01", "2020-12-31", "1.1");
+
+		assertThat(CurrencyConversionRatesIndex.of(CLIENT, CONVERSION_TYPE, rates).getRateOrNull(CHF, EUR, ORG, LocalDate.parse("2020-05-01"))).isNull();
+	}
+
+	@Test
+	public void containsConversionRateId()
+	{
+		rate(ClientId.SYSTEM, OrgId.ANY, "2020-01-01", "2020-12-31", "1.1");
+
+		final CurrencyConversionRatesIndex index = CurrencyConversionRatesIndex.of(CLIENT, CONVERSION_TYPE, rates);
+		assertThat(index.containsConversionRateId(1)).isTrue();
+		assertThat(index.containsConversionRateId(2)).isFalse();
+	}
+
+	@Test
+	public void withRate_addsNewRate()
+	{
+		rate(ClientId.SYSTEM, OrgId.ANY, "2020-01-01", "2020-12-31", "1.1");
+		final CurrencyConversionRatesIndex index = CurrencyConversionRatesIndex.of(CLIENT, CONVERSION_TYPE, rates);
+
+		final CurrencyConversionRatesIndex updatedIndex = index.withRate(newRate(2, CLIENT, ORG, "2020-03-01", "2020-03-31", "1.2"));
+
+		assertThat(updatedIndex.size()).isEqualTo(2);
+		assertThat(getRate(updatedIndex, ORG, "2020-03-15")).isEqualByComparingTo("1.2");
+		assertThat(getRate(updatedIndex, ORG, "2020-04-15")).isEqualByComparingTo("1.1");
+
+		// the original index is not changed
+		assertThat(index.size()).isEqualTo(1);
+		assertThat(getRate(index, ORG, "2020-03-15")).isEqualByComparingTo("1.1");
+	}
+
+	@Test
+	public void withRate_replacesRateWithSameId()
+	{
+		rate(ClientId.SYSTEM, OrgId.ANY, "2020-01-01", "2020-12-31", "1.1");
+		rate(ClientId.SYSTEM, OrgId.ANY, "2020-03-01", "2020-03-31", "1.2");
+		final CurrencyConversionRatesIndex index = CurrencyConversionRatesIndex.of(CLIENT, CONVERSION_TYPE, rates);
+
+		final CurrencyConversionRatesIndex updatedIndex = index.withRate(newRate(2, ClientId.SYSTEM, OrgId.ANY, "2020-03-01", "2020-03-31", "1.3"));
+
+		assertThat(updatedIndex.size()).isEqualTo(2);
+		assertThat(getRate(updatedIndex, ORG, "2020-03-15")).isEqualByComparingTo("1.3");
+		assertThat(getRate(updatedIndex, ORG, "2020-05-15")).isEqualByComparingTo("1.1");
+	}
+
+	@Test
+	public void withRate_movesRateToAnotherGroup()
+	{
+		rate(ClientId.SYSTEM, OrgId.ANY, "2020-01-01", "2020-12-31", "1.1");
+		rate(ClientId.SYSTEM, OrgId.ANY, "2020-03-01", "2020-03-31", "1.2");
+		final CurrencyConversionRatesIndex index = CurrencyConversionRatesIndex.of(CLIENT, CONVERSION_TYPE, rates);
+
+		// the march rate is now specific to ORG
+		final CurrencyConversionRatesIndex updatedIndex = index.withRate(newRate(2, CLIENT, ORG, "2020-03-01", "2020-03-31", "1.2"));
+
+		assertThat(updatedIndex.size()).isEqualTo(2);
+		assertThat(getRate(updatedIndex, ORG, "2020-03-15")).isEqualByComparingTo("1.2");
+		assertThat(getRate(updatedIndex, OrgId.ANY, "2020-03-15")).isEqualByComparingTo("1.1");
+	}
+
+	@Test
+	public void withRate_unchangedRate_returnsSameIndex()
+	{
+		rate(ClientId.SYSTEM, OrgId.ANY, "2020-01-01", "2020-12-31", "1.1");
+		final CurrencyConversionRatesIndex index = CurrencyConversionRatesIndex.of(CLIENT, CONVERSION_TYPE, rates);
+
+		assertThat(index.withRate(newRate(1, ClientId.SYSTEM, OrgId.ANY, "2020-01-01", "2020-12-31", "1.1"))).isSameAs(index);
+	}
+
+	@Test
+	public void withoutRate()
+	{
+		rate(ClientId.SYSTEM, OrgId.ANY, "2020-01-01", "2020-12-31", "1.1");
+		rate(CLIENT, ORG, "2020-03-01", "2020-03-31", "1.2");
+		final CurrencyConversionRatesIndex index = CurrencyConversionRatesIndex.of(CLIENT, CONVERSION_TYPE, rates);
+
+		final CurrencyConversionRatesIndex updatedIndex = index.withoutRate(2);
+		assertThat(updatedIndex.size()).isEqualTo(1);
+		assertThat(updatedIndex.containsConversionRateId(2)).isFalse();
+		assertThat(getRate(updatedIndex, ORG, "2020-03-15")).isEqualByComparingTo("1.1");
+
+		assertThat(updatedIndex.withoutRate(1).size()).isZero();
+		assertThat(getRate(updatedIndex.withoutRate(1), ORG, "2020-03-15")).isNull();
+
+		assertThat(index.withoutRate(3)).isSameAs(index);
+	}
+
+	@Test
+	public void isMatching()
+	{
+		final CurrencyConversionRatesIndex index = CurrencyConversionRatesIndex.of(CLIENT, CONVERSION_TYPE, rates);
+
+		assertThat(index.isMatching(CONVERSION_TYPE, CLIENT)).isTrue();
+		assertThat(index.isMatching(CONVERSION_TYPE, ClientId.SYSTEM)).isTrue();
+		assertThat(index.isMatching(CONVERSION_TYPE, ClientId.ofRepoId(1000002))).isFalse();
+		assertThat(index.isMatching(CurrencyConversionTypeId.ofRepoId(115), CLIENT)).isFalse();
+	}
+}
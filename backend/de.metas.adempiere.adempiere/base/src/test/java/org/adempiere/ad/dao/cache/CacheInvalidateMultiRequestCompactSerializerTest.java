@@ -0,0 +1,102 @@
+package org.adempiere.ad.dao.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.metas.cache.model.CacheInvalidateMultiRequest;
+import de.metas.cache.model.CacheInvalidateRequest;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class CacheInvalidateMultiRequestCompactSerializerTest
+{
+	private final CacheInvalidateMultiRequestCompactSerializer serializer = new CacheInvalidateMultiRequestCompactSerializer();
+	private final CacheInvalidateMultiRequestSerializer jsonSerializer = new CacheInvalidateMultiRequestSerializer();
+
+	private void testSerializeDeserialize(final CacheInvalidateMultiRequest multiRequest)
+	{
+		final String base64 = serializer.toBase64String(multiRequest);
+		final CacheInvalidateMultiRequest multiRequest2 = serializer.fromBase64String(base64);
+		assertThat(multiRequest2).isEqualTo(multiRequest);
+	}
+
+	@Test
+	void request_all()
+	{
+		final CacheInvalidateMultiRequest multiRequest = CacheInvalidateMultiRequest.all();
+		final CacheInvalidateMultiRequest multiRequest2 = serializer.fromBase64String(serializer.toBase64String(multiRequest));
+		assertThat(multiRequest2.isResetAll()).isTrue();
+	}
+
+	@Test
+	void request_allRecordsForTable()
+	{
+		testSerializeDeserialize(CacheInvalidateMultiRequest.allRecordsForTable("SomeTable"));
+	}
+
+	@Test
+	void request_rootRecord()
+	{
+		testSerializeDeserialize(CacheInvalidateMultiRequest.rootRecord("SomeTable", 123));
+	}
+
+	@Test
+	void request_allChildRecords()
+	{
+		testSerializeDeserialize(CacheInvalidateMultiRequest.of(CacheInvalidateRequest.allChildRecords("SomeRootTable", 456, "SomeChildTable")));
+	}
+
+	@Test
+	void request_childRecord()
+	{
+		testSerializeDeserialize(CacheInvalidateMultiRequest.of(CacheInvalidateRequest.builder()
+				.rootRecord("SomeRootTable", 123)
+				.childRecord("SomeChildTable", 456)
+				.build()));
+	}
+
+	@Test
+	void mixedRequests_withRecordIdRuns()
+	{
+		final ImmutableList.Builder<CacheInvalidateRequest> requests = ImmutableList.builder();
+		for (int recordId = 1000; recordId < 1100; recordId++)
+		{
+			requests.add(CacheInvalidateRequest.rootRecord("SomeTable", recordId));
+		}
+		requests.add(CacheInvalidateRequest.rootRecord("SomeTable", 5));
+		requests.add(CacheInvalidateRequest.rootRecord("SomeTable", 2000000));
+		requests.add(CacheInvalidateRequest.rootRecord("SomeOtherTable", 0));
+		requests.add(CacheInvalidateRequest.allRecordsForTable("SomeThirdTable"));
+		requests.add(CacheInvalidateRequest.builder().rootRecord("SomeTable", 7).childRecord("SomeChildTable", 8).build());
+		final CacheInvalidateMultiRequest multiRequest = CacheInvalidateMultiRequest.of(requests.build());
+
+		testSerializeDeserialize(multiRequest);
+
+		final int compactSize = serializer.toBytes(multiRequest).length;
+		final int jsonSize = jsonSerializer.toJson(multiRequest).length();
+		assertThat(compactSize).isLessThan(jsonSize / 20);
+	}
+}
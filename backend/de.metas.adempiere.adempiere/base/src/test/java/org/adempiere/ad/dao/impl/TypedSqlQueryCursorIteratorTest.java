@@ -0,0 +1,207 @@
+package org.adempiere.ad.dao.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.adempiere.exceptions.DBException;
+import org.compiere.model.IQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.google.common.collect.ImmutableList;
+
+import de.metas.util.collections.IteratorUtils;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class TypedSqlQueryCursorIteratorTest
+{
+	private static final String SQL = "SELECT * FROM Test";
+
+	private Connection connection;
+	private PreparedStatement pstmt;
+	private ResultSet rs;
+
+	@BeforeEach
+	public void init()
+	{
+		connection = Mockito.mock(Connection.class);
+		pstmt = Mockito.mock(PreparedStatement.class);
+		rs = Mockito.mock(ResultSet.class);
+	}
+
+	/**
+	 * @return iterator which is opened on a dedicated connection, like when the query has no transaction
+	 */
+	private TypedSqlQueryCursorIterator<String> newIterator(final String... rows)
+	{
+		return newIterator(connection, rows);
+	}
+
+	private TypedSqlQueryCursorIterator<String> newIterator(final Connection connection, final String... rows)
+	{
+		final Iterator<String> rowsIterator = Arrays.asList(rows).iterator();
+		return new TypedSqlQueryCursorIterator<>(
+				connection,
+				pstmt,
+				rs,
+				rs -> rowsIterator.hasNext() ? rowsIterator.next() : null,
+				SQL,
+				ImmutableList.of());
+	}
+
+	private void assertClosed() throws SQLException
+	{
+		Mockito.verify(rs).close();
+		Mockito.verify(pstmt).close();
+		Mockito.verify(connection).rollback();
+		Mockito.verify(connection).close();
+	}
+
+	private void assertNotClosed() throws SQLException
+	{
+		Mockito.verify(rs, Mockito.never()).close();
+		Mockito.verify(pstmt, Mockito.never()).close();
+		Mockito.verify(connection, Mockito.never()).close();
+	}
+
+	@Test
+	public void iteratesAllRows_andClosesWhenExhausted() throws SQLException
+	{
+		final TypedSqlQueryCursorIterator<String> iterator = newIterator("a", "b", "c");
+
+		assertThat(iterator.next()).isEqualTo("a");
+		assertThat(iterator.hasNext()).isTrue();
+		assertThat(iterator.hasNext()).isTrue(); // does not skip rows
+		assertThat(iterator.next()).isEqualTo("b");
+		assertThat(iterator.next()).isEqualTo("c");
+		assertNotClosed();
+
+		assertThat(iterator.hasNext()).isFalse();
+		assertClosed();
+
+		assertThatThrownBy(iterator::next).isInstanceOf(NoSuchElementException.class);
+	}
+
+	@Test
+	public void noRows() throws SQLException
+	{
+		final TypedSqlQueryCursorIterator<String> iterator = newIterator();
+
+		assertThat(iterator.hasNext()).isFalse();
+		assertClosed();
+	}
+
+	@Test
+	public void close_onEarlyExit() throws SQLException
+	{
+		final TypedSqlQueryCursorIterator<String> iterator = newIterator("a", "b", "c");
+		assertThat(iterator.next()).isEqualTo("a");
+
+		IteratorUtils.close(iterator);
+		assertClosed();
+		assertThat(iterator.hasNext()).isFalse();
+
+		// closing again does nothing
+		iterator.close();
+		assertClosed();
+	}
+
+	@Test
+	public void openedInTransaction_doesNotTouchTheTransactionConnection() throws SQLException
+	{
+		final TypedSqlQueryCursorIterator<String> iterator = newIterator((Connection)null, "a");
+
+		assertThat(ImmutableList.copyOf(iterator)).containsExactly("a");
+
+		Mockito.verify(rs).close();
+		Mockito.verify(pstmt).close();
+		Mockito.verifyNoMoreInteractions(connection);
+	}
+
+	@Test
+	public void failingRow_closesAndWrapsSQLException() throws SQLException
+	{
+		final TypedSqlQueryCursorIterator<String> iterator = new TypedSqlQueryCursorIterator<>(
+				connection,
+				pstmt,
+				rs,
+				rs -> {
+					throw new SQLException("test");
+				},
+				SQL,
+				ImmutableList.of());
+
+		assertThatThrownBy(iterator::hasNext).isInstanceOf(DBException.class);
+		assertClosed();
+		assertThat(iterator.hasNext()).isFalse();
+	}
+
+	@Test
+	public void failingRow_closesAndRethrowsRuntimeException() throws SQLException
+	{
+		final RuntimeException failure = new IllegalStateException("test");
+		final TypedSqlQueryCursorIterator<String> iterator = new TypedSqlQueryCursorIterator<>(
+				connection,
+				pstmt,
+				rs,
+				rs -> {
+					throw failure;
+				},
+				SQL,
+				ImmutableList.of());
+
+		assertThatThrownBy(iterator::next).isSameAs(failure);
+		assertClosed();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void streamUsingCursor_closesIteratorWhenStreamIsClosed() throws SQLException
+	{
+		final IQuery<String> query = Mockito.mock(IQuery.class, Mockito.CALLS_REAL_METHODS);
+		Mockito.doReturn(newIterator("a", "b", "c")).when(query).iterateUsingCursor(String.class);
+
+		final List<String> firstTwo;
+		try (final Stream<String> stream = query.streamUsingCursor(String.class))
+		{
+			firstTwo = stream.limit(2).collect(Collectors.toList());
+			assertNotClosed();
+		}
+
+		assertThat(firstTwo).containsExactly("a", "b");
+		assertClosed();
+	}
+}
@@ -5,12 +5,17 @@ import static org.assertj.core.api.Assertions.assertThat;
 import java.util.Arrays;
 
 import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.test.AdempiereTestHelper;
 import org.assertj.core.api.AbstractCharSequenceAssert;
 import org.compiere.model.I_AD_Table;
 import org.compiere.util.Env;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import de.metas.util.Services;
+
 /*
  * #%L
  * de.metas.adempiere.adempiere.base
@@ -95,4 +100,47 @@ public class TypedSqlQueryTests
 					.isEqualTo("SELECT * FROM Table where c=1 -- Exceeding params: 'str', 3");
 		}
 	}
+
+	@Nested
+	public class getCursorTrxNameOrNull
+	{
+		@BeforeEach
+		public void init()
+		{
+			AdempiereTestHelper.get().init();
+		}
+
+		@Test
+		public void noTrx()
+		{
+			assertThat(TypedSqlQuery.getCursorTrxNameOrNull(ITrx.TRXNAME_None)).isNull();
+			assertThat(TypedSqlQuery.getCursorTrxNameOrNull(null)).isNull();
+		}
+
+		@Test
+		public void threadInherited_withoutThreadTrx()
+		{
+			assertThat(TypedSqlQuery.getCursorTrxNameOrNull(ITrx.TRXNAME_ThreadInherited)).isNull();
+		}
+
+		@Test
+		public void threadInherited_insideTrx()
+		{
+			final ITrxManager trxManager = Services.get(ITrxManager.class);
+			trxManager.runInNewTrx(() -> {
+				final String threadTrxName = trxManager.getThreadInheritedTrxName();
+				assertThat(threadTrxName).isNotNull();
+				assertThat(TypedSqlQuery.getCursorTrxNameOrNull(ITrx.TRXNAME_ThreadInherited)).isEqualTo(threadTrxName);
+			});
+		}
+
+		@Test
+		public void explicitTrx()
+		{
+			final ITrxManager trxManager = Services.get(ITrxManager.class);
+			final String trxName = trxManager.createTrxName("TypedSqlQueryTests", true);
+
+			assertThat(TypedSqlQuery.getCursorTrxNameOrNull(trxName)).isEqualTo(trxName);
+		}
+	}
 }
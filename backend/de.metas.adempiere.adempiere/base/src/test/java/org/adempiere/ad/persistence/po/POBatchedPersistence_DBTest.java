@@ -0,0 +1,108 @@
+package org.adempiere.ad.persistence.po;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.io.File;
+import java.util.UUID;
+
+import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.model.InterfaceWrapperHelper;
+import org.adempiere.util.lang.IAutoCloseable;
+import org.compiere.Adempiere.RunMode;
+import org.compiere.model.I_Test;
+import org.compiere.util.Env;
+import org.junit.Ignore;
+
+import com.google.common.base.Stopwatch;
+
+import de.metas.util.Check;
+import de.metas.util.Services;
+
+/**
+ * Database coupled benchmark which compares the per-row PO persistence with the {@link POBatchedPersistence}.
+ * <p>
+ * Run it as a java application.
+ */
+@Ignore
+// requires database connection
+public class POBatchedPersistence_DBTest
+{
+	private static final int RECORDS_COUNT = 50000;
+
+	public static void main(final String[] args)
+	{
+		final POBatchedPersistence_DBTest test = new POBatchedPersistence_DBTest();
+		test.setupAdempiere();
+
+		// warm up
+		test.createRecords(1000, false);
+		test.createRecords(1000, true);
+
+		final Stopwatch perRow = test.createRecords(RECORDS_COUNT, false);
+		final Stopwatch batched = test.createRecords(RECORDS_COUNT, true);
+
+		System.out.println("Insert+Update of " + RECORDS_COUNT + " records");
+		System.out.println("per row: " + perRow);
+		System.out.println("batched: " + batched);
+	}
+
+	private void setupAdempiere()
+	{
+		//
+		// Use hardcoded default PropertyFile if none found
+		if (Check.isEmpty(System.getProperty("PropertyFile"), true))
+		{
+			final String propertyFile = new File(".").getAbsolutePath()
+					+ File.separator + ".." + File.separator + ".."
+					+ File.separator + "de.metas.endcustomer."
+					+ File.separator + "Adempiere.properties_" + System.getProperty("user.name");
+			System.out.println("Set default PropertyFile=" + propertyFile);
+			System.setProperty("PropertyFile", propertyFile);
+		}
+
+		Env.getSingleAdempiereInstance(null).startup(RunMode.SWING_CLIENT);
+	}
+
+	private Stopwatch createRecords(final int count, final boolean batched)
+	{
+		final Stopwatch stopwatch = Stopwatch.createStarted();
+
+		Services.get(ITrxManager.class).runInNewTrx(localTrxName -> {
+			try (final IAutoCloseable batchedPersistence = batched ? POBatchedPersistence.temporaryEnable(localTrxName) : () -> {})
+			{
+				for (int i = 0; i < count; i++)
+				{
+					final I_Test record = InterfaceWrapperHelper.create(Env.getCtx(), I_Test.class, ITrx.TRXNAME_ThreadInherited);
+					record.setName("Test_" + UUID.randomUUID());
+					InterfaceWrapperHelper.save(record);
+
+					record.setDescription("Generated by " + getClass() + " (batched=" + batched + ")");
+					InterfaceWrapperHelper.save(record);
+				}
+			}
+		});
+
+		return stopwatch.stop();
+	}
+}
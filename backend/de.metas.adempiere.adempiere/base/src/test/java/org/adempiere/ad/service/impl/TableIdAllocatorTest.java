@@ -0,0 +1,184 @@
+package org.adempiere.ad.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.adempiere.ad.service.ITableIdAllocator;
+import org.adempiere.ad.service.ITableIdAllocator.TableIdAllocatorStats;
+import org.adempiere.service.ClientId;
+import org.adempiere.service.ISysConfigBL;
+import org.adempiere.test.AdempiereTestHelper;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.metas.organization.OrgId;
+import de.metas.util.Services;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class TableIdAllocatorTest
+{
+	private MockedBlockLoader blockLoader;
+	private TableIdAllocator allocator;
+
+	@Before
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+
+		blockLoader = new MockedBlockLoader();
+		allocator = new TableIdAllocator(blockLoader);
+	}
+
+	private void setBlockSize(final String sysConfigName, final int blockSize)
+	{
+		Services.get(ISysConfigBL.class).setValue(sysConfigName, blockSize, ClientId.SYSTEM, OrgId.ANY);
+	}
+
+	@Test
+	public void isBlockAllocationEnabled()
+	{
+		assertThat(allocator.isBlockAllocationEnabled("C_Invoice_Candidate")).isFalse();
+
+		setBlockSize(ITableIdAllocator.SYSCONFIG_BlockSize_TablePrefix + "C_Invoice_Candidate", 100);
+		assertThat(allocator.isBlockAllocationEnabled("C_Invoice_Candidate")).isTrue();
+		assertThat(allocator.isBlockAllocationEnabled("C_Order")).isFalse();
+
+		setBlockSize(ITableIdAllocator.SYSCONFIG_BlockSize, 10);
+		assertThat(allocator.isBlockAllocationEnabled("C_Order")).isTrue();
+	}
+
+	@Test
+	public void nextId_reservesOneBlockPerBlockSizeIds()
+	{
+		setBlockSize(ITableIdAllocator.SYSCONFIG_BlockSize, 10);
+
+		final List<Integer> ids = new ArrayList<>();
+		for (int i = 0; i < 25; i++)
+		{
+			ids.add(allocator.nextId("C_Invoice_Candidate", false));
+		}
+
+		assertThat(ids).doesNotHaveDuplicates().startsWith(1000, 1001, 1002);
+		assertThat(blockLoader.adSequenceCalls.get()).isEqualTo(3);
+		assertThat(blockLoader.nativeSequenceCalls.get()).isEqualTo(0);
+
+		final TableIdAllocatorStats stats = allocator.getStats().get(0);
+		assertThat(stats.getTableName()).isEqualTo("C_Invoice_Candidate");
+		assertThat(stats.getIdsAllocated()).isEqualTo(25);
+		assertThat(stats.getIdsReserved()).isEqualTo(30);
+		assertThat(stats.getIdsAvailable()).isEqualTo(5);
+		assertThat(stats.getRefillCount()).isEqualTo(3);
+	}
+
+	@Test
+	public void nextId_nativeSequence()
+	{
+		setBlockSize(ITableIdAllocator.SYSCONFIG_BlockSize, 5);
+
+		allocator.nextId("M_HU", true);
+
+		assertThat(blockLoader.adSequenceCalls.get()).isEqualTo(0);
+		assertThat(blockLoader.nativeSequenceCalls.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void nextId_concurrent_noDuplicates() throws Exception
+	{
+		setBlockSize(ITableIdAllocator.SYSCONFIG_BlockSize, 7);
+
+		final int threads = 8;
+		final int idsPerThread = 1000;
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try
+		{
+			final ImmutableList.Builder<Future<List<Integer>>> futures = ImmutableList.builder();
+			for (int t = 0; t < threads; t++)
+			{
+				futures.add(executor.submit(() -> {
+					final List<Integer> ids = new ArrayList<>();
+					for (int i = 0; i < idsPerThread; i++)
+					{
+						ids.add(allocator.nextId("M_HU", false));
+					}
+					return ids;
+				}));
+			}
+
+			final Set<Integer> allIds = new HashSet<>();
+			for (final Future<List<Integer>> future : futures.build())
+			{
+				allIds.addAll(future.get(30, TimeUnit.SECONDS));
+			}
+
+			assertThat(allIds).hasSize(threads * idsPerThread);
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	private static class MockedBlockLoader implements TableIdAllocator.TableIdBlockLoader
+	{
+		private final AtomicInteger nextId = new AtomicInteger(1000);
+		private final AtomicInteger adSequenceCalls = new AtomicInteger(0);
+		private final AtomicInteger nativeSequenceCalls = new AtomicInteger(0);
+
+		@Override
+		public int[] reserveFromADSequence(final String tableName, final int blockSize)
+		{
+			adSequenceCalls.incrementAndGet();
+			return reserve(blockSize);
+		}
+
+		@Override
+		public int[] reserveFromNativeSequence(final String tableName, final int blockSize)
+		{
+			nativeSequenceCalls.incrementAndGet();
+			return reserve(blockSize);
+		}
+
+		private int[] reserve(final int blockSize)
+		{
+			final int firstId = nextId.getAndAdd(blockSize);
+			final int[] ids = new int[blockSize];
+			for (int i = 0; i < blockSize; i++)
+			{
+				ids[i] = firstId + i;
+			}
+			return ids;
+		}
+	}
+}
@@ -0,0 +1,10 @@
+-- Leases of the server processes (AD_Scheduler, AD_WorkflowProcessor etc), used to run each of them on only one node of the cluster.
+-- See org.compiere.server.AdempiereServerLeases. The table is technical, so it's not registered in the application dictionary.
+CREATE TABLE IF NOT EXISTS AD_Server_Lease
+(
+	ServerID   varchar(60)              NOT NULL PRIMARY KEY,
+	Owner      varchar(255)             NOT NULL,
+	LeaseUntil timestamp with time zone NOT NULL,
+	Updated    timestamp with time zone NOT NULL DEFAULT now()
+)
+;
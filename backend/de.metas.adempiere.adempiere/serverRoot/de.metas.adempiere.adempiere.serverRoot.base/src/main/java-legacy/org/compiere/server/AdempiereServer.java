@@ -20,10 +20,15 @@ import static org.adempiere.model.InterfaceWrapperHelper.save;
 
 import java.sql.Timestamp;
 import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.service.IClientDAO;
+import org.adempiere.util.lang.IAutoCloseable;
 import org.compiere.model.AdempiereProcessor;
 import org.compiere.model.AdempiereProcessor2;
 import org.compiere.model.AdempiereProcessorLog;
@@ -40,23 +45,31 @@ import org.compiere.util.TimeUtil;
 import org.compiere.wf.MWorkflowProcessor;
 import org.slf4j.Logger;
 
+import com.google.common.annotations.VisibleForTesting;
+
 import de.metas.logging.LogManager;
 import de.metas.util.Check;
 import de.metas.util.Services;
 
 /**
  * Adempiere Server Base
+ * <p>
+ * The servers are not running in their own threads. Their runs are triggered by a scheduler and executed on an executor, which are both shared by all servers (see {@link AdempiereServerMgr}).
+ * After each run, the next run is computed (see {@link #computeNextRunMillis(long)}) and the server is scheduled again.
+ * If {@link AdempiereServerLeases} are provided, a run is done only if this node holds the server's lease, so a server runs on only one node of the cluster at a time.
+ * The lease is held only while working: it's renewed periodically while the server is working and released after each run.
+ * The next run is shared with the other nodes by <code>DateNextRun</code>, so each planned run is done by only one node, and if a node dies, another one does its next run.
  *
  * @author Jorg Janke
  * @version $Id: AdempiereServer.java,v 1.3 2006/10/09 00:23:26 jjanke Exp $
  */
-public abstract class AdempiereServer extends Thread
+public abstract class AdempiereServer
 {
 	/**
-	 * Create New Server Thread
+	 * Create New Server
 	 *
 	 * @param model model
-	 * @return server tread or null
+	 * @return server
 	 */
 	public static AdempiereServer create(AdempiereProcessor model)
 	{
@@ -94,13 +107,8 @@ public abstract class AdempiereServer extends Thread
 	 */
 	public AdempiereServer(final AdempiereProcessor model, final int initialNapSecs)
 	{
-		super(
-				AdempiereServerGroup.get(), // ThreadGroup
-				null, // Runnable
-				model.getClass().getSimpleName() + "-" + model.getName(), // Thread Name
-				0 // stackSize (0=this parameter is to be ignored)
-		);
 		p_model = model;
+		m_name = model.getClass().getSimpleName() + "-" + model.getName();
 		m_ctx = Env.deriveCtx(model.getCtx());
 
 		final I_AD_Client adClient = Services.get(IClientDAO.class).retriveClient(m_ctx);
@@ -109,15 +117,29 @@ public abstract class AdempiereServer extends Thread
 		m_initialNapSecs = initialNapSecs;
 	}	// ServerBase
 
+	/** Max number of missed runs which are counted when computing the next run; just to avoid endless loops */
+	private static final int MAX_MISSED_RUNS_TO_COUNT = 10000;
+
 	/** The Processor Model */
 	private final AdempiereProcessor p_model;
+	/** Server name */
+	private final String m_name;
 	/** Initial nap is seconds */
 	private int m_initialNapSecs = 0;
 
-	/** Miliseconds to sleep - 10 Min default */
-	private long m_sleepMS = 600000;
-	/** Sleeping */
-	private final AtomicBoolean sleeping = new AtomicBoolean(false);
+	/** The shared executor on which we are scheduled; set when started */
+	private ScheduledExecutorService scheduler;
+	/** The shared executor on which we are working; set when started */
+	private Executor workExecutor;
+	/** Server leases; null if disabled */
+	private AdempiereServerLeases leases;
+	/** Next scheduled run; null if not started */
+	private volatile ScheduledFuture<?> scheduledFuture;
+	/** Working right now */
+	private final AtomicBoolean working = new AtomicBoolean(false);
+	/** Stop was requested */
+	private volatile boolean stopRequested = false;
+
 	/** Server start time */
 	private long serverStartTimeMillis = 0;
 	/** Number of Work executions */
@@ -129,7 +151,15 @@ public abstract class AdempiereServer extends Thread
 	/** Number of MS total */
 	private long m_runTotalMS = 0;
 	/** When to run next */
-	private long m_nextWork = 0;
+	private volatile long m_nextWork = 0;
+	/** How late the last run started, compared to when it was planned */
+	private long m_lagLastMS = 0;
+	/** Max lag */
+	private long m_lagMaxMS = 0;
+	/** Number of planned runs which were skipped because another node holds the lease */
+	private int m_skippedRunsCount = 0;
+	/** Number of planned runs which were missed because the previous run took too long */
+	private int m_missedRunsCount = 0;
 
 	/** Logger */
 	protected final transient Logger log = LogManager.getLogger(getClass());
@@ -147,47 +177,12 @@ public abstract class AdempiereServer extends Thread
 	}	// getCtx
 
 	/**
-	 * @return Returns the sleepMS.
-	 */
-	private final long getSleepMS()
-	{
-		return m_sleepMS;
-	}	// getSleepMS
-
-	/**
-	 * Sleep for set time
-	 *
-	 * @return true if not interrupted
+	 * @return server name
 	 */
-	protected final boolean sleep()
+	public final String getName()
 	{
-		final String threadName = getName();
-
-		if (isInterrupted())
-		{
-			log.info("{}: interrupted", threadName);
-			return false;
-		}
-
-		final long sleepMillis = getSleepMS();
-		log.debug("{}: sleeping {}", threadName, TimeUtil.formatElapsed(sleepMillis));
-
-		sleeping.getAndSet(true);
-		try
-		{
-			Thread.sleep(sleepMillis);
-			return true;
-		}
-		catch (final InterruptedException e)
-		{
-			log.info("{}: interrupted", threadName);
-			return false;
-		}
-		finally
-		{
-			sleeping.set(false);
-		}
-	}	// sleep
+		return m_name;
+	}
 
 	/**
 	 * Run Now
@@ -234,143 +229,263 @@ public abstract class AdempiereServer extends Thread
 	}	// runNow
 
 	/**************************************************************************
-	 * Run async
+	 * Schedules this server on given executor.
+	 *
+	 * @param scheduler executor which is shared by all servers and which only triggers the runs
+	 * @param workExecutor executor which is shared by all servers and which does the actual work; it shall not limit the number of threads,
+	 *            so that a long running server does not delay the others
+	 * @param leases server leases or <code>null</code> if this server shall run no matter if it's running on other nodes too
 	 */
-	@Override
-	public void run()
+	public final synchronized void start(
+			final ScheduledExecutorService scheduler,
+			final Executor workExecutor,
+			final AdempiereServerLeases leases)
 	{
-		final String threadName = getName();
-		try
+		Check.assumeNotNull(scheduler, "scheduler not null");
+		Check.assumeNotNull(workExecutor, "workExecutor not null");
+		if (!stopRequested && scheduledFuture != null)
 		{
-			final int initialNapSecs = m_initialNapSecs;
-			log.debug("{}: pre-nap - {} seconds", threadName, initialNapSecs);
-			sleep(m_initialNapSecs * 1000);
+			return;
 		}
-		catch (InterruptedException ex)
+
+		this.scheduler = scheduler;
+		this.workExecutor = workExecutor;
+		this.leases = leases;
+		this.stopRequested = false;
+
+		// still working after it was stopped: cancelling the stop is enough, the next run is scheduled when the work is done
+		if (working.get())
 		{
-			log.error("{}: pre-nap interrupted", threadName, ex);
 			return;
 		}
 
 		serverStartTimeMillis = System.currentTimeMillis();
+		m_nextWork = computeFirstRunMillis(serverStartTimeMillis + m_initialNapSecs * 1000L);
+		scheduleNextRun();
+	}
+
+	/**
+	 * Stops scheduling this server. If the server is working right now, the work is not interrupted.
+	 */
+	public final synchronized void stop()
+	{
+		stopRequested = true;
+
+		final ScheduledFuture<?> scheduledFuture = this.scheduledFuture;
+		this.scheduledFuture = null;
+		if (scheduledFuture != null)
+		{
+			scheduledFuture.cancel(false);
+		}
+	}
+
+	private synchronized void scheduleNextRun()
+	{
+		if (stopRequested)
+		{
+			return;
+		}
+
+		final long delayMillis = Math.max(m_nextWork - System.currentTimeMillis(), 0);
+		log.debug("{}: next run in {}", m_name, TimeUtil.formatElapsed(delayMillis));
+
+		scheduledFuture = scheduler.schedule(() -> workExecutor.execute(this::runScheduled), delayMillis, TimeUnit.MILLISECONDS);
+	}
+
+	private void runScheduled()
+	{
+		if (stopRequested)
+		{
+			return;
+		}
+
+		working.set(true);
+		// 03034: do the actual work in a try-catch block to make sure that the server is scheduled again
+		// if an unexpected (and maybe temporary) problem arises
+		DB.saveConstraints();
 		try
 		{
-			while (true)
-			{
-				// 03034: do the actual work in a try-catch block to make sure that the server thread doesn't just end
-				// if an unexpected (and maybe temporary) problem arises in the thread
-				DB.saveConstraints();
-				try
-				{
-					DB.getConstraints().addAllowedTrxNamePrefix(ITrx.TRXNAME_PREFIX_LOCAL);
-
-					final boolean doBreak = run0();
-					if (doBreak)
-					{
-						break;
-					}
-				}
-				catch (final Exception ex)
-				{
-					final ServerThreadException serverThreadEx = new ServerThreadException(p_model.getName(), ex);
-					log.error("{}: run failed", threadName, serverThreadEx);
-				}
-				finally
-				{
-					DB.restoreConstraints();
-				}
-				// me_03034 end
-
-				if (!sleep())
-				{
-					break;
-				}
-			}
+			DB.getConstraints().addAllowedTrxNamePrefix(ITrx.TRXNAME_PREFIX_LOCAL);
+
+			runScheduled0();
+		}
+		catch (final Exception ex)
+		{
+			final ServerThreadException serverThreadEx = new ServerThreadException(p_model.getName(), ex);
+			log.error("{}: run failed", m_name, serverThreadEx);
+
+			m_nextWork = computeNextRunMillis(System.currentTimeMillis());
 		}
 		finally
 		{
-			serverStartTimeMillis = 0;
+			DB.restoreConstraints();
+			onRunFinished();
 		}
-	}	// run
+		// me_03034 end
+	}
 
 	/**
-	 * This method does the actual work of the {@link #run()} method.
-	 *
-	 * @return <code>true</code> if the calling {@link #run()} should break out of its <code>while(true)</code> block.
-	 *
-	 * @see http://dewiki908/mediawiki/index.php/03034:_ADempiere_ServerProcesses_can_die_%282012072510000033%29
+	 * NOTE: synchronized with {@link #start(ScheduledExecutorService, Executor, AdempiereServerLeases)}, which might cancel a stop while we are working.
 	 */
-	private final boolean run0() throws Exception
+	private synchronized void onRunFinished()
+	{
+		working.set(false);
+		scheduleNextRun();
+	}
+
+	private void runScheduled0()
 	{
-		// note that this is basically the original code that has formerly been part of the run() method.
-		if (m_nextWork <= 0)
+		final long plannedMillis = m_nextWork;
+		final long startMillis = System.currentTimeMillis();
+
+		m_lagLastMS = Math.max(startMillis - plannedMillis, 0);
+		m_lagMaxMS = Math.max(m_lagMaxMS, m_lagLastMS);
+
+		if (!tryAcquireLease())
 		{
-			Timestamp dateNextRun = getDateNextRun(true);
-			if (dateNextRun != null)
-			{
-				m_nextWork = dateNextRun.getTime();
-			}
+			m_skippedRunsCount++;
+			m_nextWork = computeNextRunMillis(plannedMillis, System.currentTimeMillis());
+			log.debug("{}: skipped run because it's running on another node", m_name);
+			return;
 		}
-		long now = System.currentTimeMillis();
-		if (m_nextWork > now)
+
+		try
 		{
-			m_sleepMS = m_nextWork - now;
-			if (!sleep())
+			// NOTE: checked while holding the lease, because the other nodes are saving their next run while holding it
+			final long nextRunMillisOfOtherNode = getNextRunMillisOfOtherNode(startMillis);
+			if (nextRunMillisOfOtherNode > 0)
 			{
-				return true;
+				m_skippedRunsCount++;
+				m_nextWork = nextRunMillisOfOtherNode;
+				log.debug("{}: skipped run because it was done by another node", m_name);
+				return;
 			}
+
+			// ---------------
+			workStartTimeMillis = startMillis;
+			try (final IAutoCloseable leaseRenewal = renewLeasePeriodically())
+			{
+				doWork();
+			}
+			final long now = System.currentTimeMillis();
+			// ---------------
+
+			p_runCount++;
+			m_runLastMS = now - workStartTimeMillis;
+			m_runTotalMS += m_runLastMS;
+			//
+			m_nextWork = computeNextRunMillis(plannedMillis, now);
+			//
+			final Timestamp lastRun = isFixedRate() ? new Timestamp(workStartTimeMillis) : new Timestamp(now);
+			p_model.setDateLastRun(lastRun);
+			p_model.setDateNextRun(new Timestamp(m_nextWork));
+			p_model.saveOutOfTrx();
 		}
-		if (isInterrupted())
+		finally
 		{
-			log.info("{}: interrupted", getName());
-			return true;
+			// the other nodes shall be able to do the next run, if we die meanwhile
+			releaseLease();
 		}
 
-		// ---------------
-		workStartTimeMillis = System.currentTimeMillis();
-		doWork();
-		now = System.currentTimeMillis();
-		// ---------------
+		log.debug("{}: {}", m_name, getStatistics());
+	}
 
-		p_runCount++;
-		m_runLastMS = now - workStartTimeMillis;
-		m_runTotalMS += m_runLastMS;
-		//
-		m_sleepMS = calculateSleep();
-		Timestamp lastRun = new Timestamp(now);
-		if (p_model instanceof AdempiereProcessor2)
+	/**
+	 * @return the next run which was planned by another node, if it already did the run which we planned for <code>startMillis</code>; 0 otherwise
+	 */
+	private long getNextRunMillisOfOtherNode(final long startMillis)
+	{
+		if (leases == null)
 		{
-			AdempiereProcessor2 ap = (AdempiereProcessor2)p_model;
-			if (ap.isIgnoreProcessingTime())
-			{
-				lastRun = new Timestamp(workStartTimeMillis);
-				if (m_nextWork <= 0)
-				{
-					m_nextWork = workStartTimeMillis;
-				}
-				m_nextWork = m_nextWork + m_sleepMS;
-				while (m_nextWork < now)
-				{
-					m_nextWork = m_nextWork + m_sleepMS;
-				}
-			}
-			else
-			{
-				m_nextWork = now + m_sleepMS;
-			}
+			return 0;
 		}
-		else
+
+		final Timestamp dateNextRun = getDateNextRun(true);
+		return dateNextRun != null && dateNextRun.getTime() > startMillis ? dateNextRun.getTime() : 0;
+	}
+
+	/**
+	 * Computes the next run after a run which was planned at <code>plannedMillis</code> and which finished at <code>nowMillis</code>.
+	 * If the server is running at fixed rate, the runs which were missed in meantime are counted and skipped.
+	 */
+	@VisibleForTesting
+	final long computeNextRunMillis(final long plannedMillis, final long nowMillis)
+	{
+		if (!isFixedRate())
 		{
-			m_nextWork = now + m_sleepMS;
+			return computeNextRunMillis(nowMillis);
 		}
-		//
-		p_model.setDateLastRun(lastRun);
-		p_model.setDateNextRun(new Timestamp(m_nextWork));
-		p_model.saveOutOfTrx();
 
-		log.debug(getName() + ": " + getStatistics());
+		long nextMillis = computeNextRunMillis(plannedMillis);
+		int missedRuns = 0;
+		while (nextMillis <= nowMillis && missedRuns < MAX_MISSED_RUNS_TO_COUNT)
+		{
+			nextMillis = computeNextRunMillis(nextMillis);
+			missedRuns++;
+		}
+		if (nextMillis <= nowMillis)
+		{
+			nextMillis = computeNextRunMillis(nowMillis);
+		}
+
+		m_missedRunsCount += missedRuns;
+		return nextMillis;
+	}
+
+	/**
+	 * @param earliestMillis the server shall not run before this time (i.e. after the initial nap)
+	 * @return when the first run shall be done after the server was started
+	 */
+	protected long computeFirstRunMillis(final long earliestMillis)
+	{
+		final Timestamp dateNextRun = getDateNextRun(true);
+		return dateNextRun != null ? Math.max(dateNextRun.getTime(), earliestMillis) : earliestMillis;
+	}
+
+	/**
+	 * @return when the next run shall be done, after given time
+	 */
+	protected long computeNextRunMillis(final long afterMillis)
+	{
+		return afterMillis + calculateSleep();
+	}
+
+	/**
+	 * @return true if the runs are planned relative to the previously planned run, no matter how long the work took;
+	 *         false if the runs are planned relative to when the previous run finished.
+	 */
+	protected boolean isFixedRate()
+	{
+		return p_model instanceof AdempiereProcessor2
+				&& ((AdempiereProcessor2)p_model).isIgnoreProcessingTime();
+	}
+
+	private boolean tryAcquireLease()
+	{
+		final AdempiereServerLeases leases = this.leases;
+		return leases == null || leases.tryAcquireForRun(getServerID());
+	}
+
+	/**
+	 * Renews the lease while working, so it does not expire if the work takes longer than planned and another node won't start this server meanwhile.
+	 */
+	private IAutoCloseable renewLeasePeriodically()
+	{
+		final AdempiereServerLeases leases = this.leases;
+		if (leases == null)
+		{
+			return () -> {};
+		}
+		return leases.renewPeriodically(getServerID());
+	}
 
-		return false;
+	private void releaseLease()
+	{
+		final AdempiereServerLeases leases = this.leases;
+		if (leases != null)
+		{
+			leases.release(getServerID());
+		}
 	}
 
 	/**
@@ -383,7 +498,10 @@ public abstract class AdempiereServer extends Thread
 		return "Run #" + p_runCount
 				+ " - Last=" + TimeUtil.formatElapsed(m_runLastMS)
 				+ " - Total=" + TimeUtil.formatElapsed(m_runTotalMS)
-				+ " - Next " + TimeUtil.formatElapsed(m_nextWork - System.currentTimeMillis());
+				+ " - Next " + TimeUtil.formatElapsed(m_nextWork - System.currentTimeMillis())
+				+ " - Lag Last=" + TimeUtil.formatElapsed(m_lagLastMS) + ", Max=" + TimeUtil.formatElapsed(m_lagMaxMS)
+				+ " - Skipped=" + m_skippedRunsCount
+				+ " - Missed=" + m_missedRunsCount;
 	}	// getStatistics
 
 	/**
@@ -502,6 +620,22 @@ public abstract class AdempiereServer extends Thread
 		return typeSec * 1000 * frequency;		// ms
 	}	// calculateSleep
 
+	/**
+	 * @return true if the server is started or it's still working after it was stopped
+	 */
+	public final boolean isAlive()
+	{
+		return (!stopRequested && scheduledFuture != null) || working.get();
+	}
+
+	/**
+	 * @return true if the server was asked to stop
+	 */
+	public final boolean isInterrupted()
+	{
+		return stopRequested;
+	}
+
 	/**
 	 * Is Sleeping
 	 *
@@ -509,7 +643,7 @@ public abstract class AdempiereServer extends Thread
 	 */
 	public final boolean isSleeping()
 	{
-		return sleeping.get();
+		return isAlive() && !working.get();
 	}	// isSleeping
 
 	@Override
@@ -518,8 +652,6 @@ public abstract class AdempiereServer extends Thread
 		final boolean sleeping = isSleeping();
 
 		final StringBuilder sb = new StringBuilder(getName())
-				.append(",Prio=").append(getPriority())
-				.append(",").append(getThreadGroup())
 				.append(",Alive=").append(isAlive())
 				.append(",Sleeping=").append(sleeping)
 				.append(",Last=").append(getDateLastRun());
@@ -564,4 +696,24 @@ public abstract class AdempiereServer extends Thread
 	{
 		return new Timestamp(workStartTimeMillis);
 	}
+
+	public final long getLagLastMillis()
+	{
+		return m_lagLastMS;
+	}
+
+	public final long getLagMaxMillis()
+	{
+		return m_lagMaxMS;
+	}
+
+	public final int getSkippedRunsCount()
+	{
+		return m_skippedRunsCount;
+	}
+
+	public final int getMissedRunsCount()
+	{
+		return m_missedRunsCount;
+	}
 }
@@ -20,12 +20,16 @@ import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import org.adempiere.ad.session.ISessionBL;
 import org.adempiere.ad.session.MFSession;
 import org.adempiere.server.rpl.api.IIMPProcessorBL;
 import org.adempiere.server.rpl.api.IIMPProcessorDAO;
 import org.adempiere.server.rpl.interfaces.I_IMP_Processor;
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
 import org.compiere.model.AdempiereProcessor;
 import org.compiere.model.MAlertProcessor;
 import org.compiere.model.MRequestProcessor;
@@ -40,6 +44,9 @@ import de.metas.util.Services;
 
 /**
  * Adempiere Server Manager
+ * <p>
+ * All servers are triggered by one shared scheduler thread. Their work is done on a shared executor which creates threads as needed and reuses them,
+ * so a long running server does not delay the others.
  *
  * @author Jorg Janke
  * @version $Id: AdempiereServerMgr.java,v 1.4 2006/10/09 00:23:26 jjanke Exp $
@@ -82,10 +89,30 @@ public final class AdempiereServerMgr
 		super();
 		startEnvironment();
 		// m_serverMgr.startServers();
+
+		m_scheduler = Executors.newSingleThreadScheduledExecutor(
+				CustomizableThreadFactory.builder()
+						.setThreadNamePrefix("AdempiereServer-scheduler")
+						.setDaemon(true)
+						.build());
+		// a server never works concurrently with itself, so there are at most as many threads as servers
+		m_workExecutor = Executors.newCachedThreadPool(
+				CustomizableThreadFactory.builder()
+						.setThreadNamePrefix("AdempiereServer")
+						.setDaemon(true)
+						.build());
+
+		m_leases = AdempiereServerLeases.newInstanceFromSysConfigOrNull();
 	}	// AdempiereServerMgr
 
 	/** The Servers */
 	private final List<AdempiereServer> m_servers = new ArrayList<>();
+	/** Triggers the runs of all servers */
+	private final ScheduledExecutorService m_scheduler;
+	/** Executes the runs of all servers */
+	private final ExecutorService m_workExecutor;
+	/** Server leases; null if disabled */
+	private final AdempiereServerLeases m_leases;
 	/** Context */
 	private final Properties _ctx = Env.getCtx();
 	/** Start */
@@ -125,8 +152,7 @@ public final class AdempiereServerMgr
 		{
 			MRequestProcessor pModel = requestModels[i];
 			AdempiereServer server = AdempiereServer.create(pModel);
-			server.start();
-			server.setPriority(Thread.NORM_PRIORITY - 2);
+			startServer(server);
 			m_servers.add(server);
 		}
 		// Workflow
@@ -135,8 +161,7 @@ public final class AdempiereServerMgr
 		{
 			MWorkflowProcessor pModel = workflowModels[i];
 			AdempiereServer server = AdempiereServer.create(pModel);
-			server.start();
-			server.setPriority(Thread.NORM_PRIORITY - 2);
+			startServer(server);
 			m_servers.add(server);
 		}
 		// Alert
@@ -145,8 +170,7 @@ public final class AdempiereServerMgr
 		{
 			MAlertProcessor pModel = alertModels[i];
 			AdempiereServer server = AdempiereServer.create(pModel);
-			server.start();
-			server.setPriority(Thread.NORM_PRIORITY - 2);
+			startServer(server);
 			m_servers.add(server);
 		}
 		// Scheduler
@@ -155,8 +179,7 @@ public final class AdempiereServerMgr
 		{
 			MScheduler pModel = schedulerModels[i];
 			AdempiereServer server = AdempiereServer.create(pModel);
-			server.start();
-			server.setPriority(Thread.NORM_PRIORITY - 2);
+			startServer(server);
 			m_servers.add(server);
 		}
 		
@@ -166,8 +189,7 @@ public final class AdempiereServerMgr
 		{
 			final AdempiereProcessor adempiereProcessor = Services.get(IIMPProcessorBL.class).asAdempiereProcessor(importModel);
 			AdempiereServer server = AdempiereServer.create(adempiereProcessor);
-			server.start();
-			server.setPriority(Thread.NORM_PRIORITY - 1);
+			startServer(server);
 			m_servers.add(server);
 		}
 
@@ -194,11 +216,15 @@ public final class AdempiereServerMgr
 			return;
 		}
 		final AdempiereServer server = AdempiereServer.create(pModel);
-		server.start();
-		server.setPriority(Thread.NORM_PRIORITY - 2);
+		startServer(server);
 		m_servers.add(server);
 	}
 
+	private void startServer(final AdempiereServer server)
+	{
+		server.start(m_scheduler, m_workExecutor, m_leases);
+	}
+
 	// metas end
 
 	/**
@@ -209,50 +235,20 @@ public final class AdempiereServerMgr
 	public boolean startAll()
 	{
 		log.info("Starting all servers");
-		AdempiereServer[] servers = getInActive();
-		for (int i = 0; i < servers.length; i++)
+		for (int i = 0; i < m_servers.size(); i++)
 		{
-			AdempiereServer server = servers[i];
+			AdempiereServer server = m_servers.get(i);
 			try
 			{
 				if (server.isAlive())
 				{
 					continue;
 				}
-				
-				// Wait until dead
-				if (server.isInterrupted())
-				{
-					int maxWait = 10;	// 10 iterations = 1 sec
-					while (server.isAlive())
-					{
-						if (maxWait-- == 0)
-						{
-							log.error("Wait timeout for interrupted {}", server);
-							break;
-						}
-						try
-						{
-							Thread.sleep(100);		// 1/10 sec
-						}
-						catch (InterruptedException e)
-						{
-							log.error("Error while sleeping", e);
-						}
-					}
-				}
-				// Do start
-				if (!server.isAlive())
-				{
-					// replace
-					server = AdempiereServer.create(server.getModel());
-					if (server == null)
-						m_servers.remove(i);
-					else
-						m_servers.set(i, server);
-					server.start();
-					server.setPriority(Thread.NORM_PRIORITY - 2);
-				}
+
+				// replace
+				server = AdempiereServer.create(server.getModel());
+				m_servers.set(i, server);
+				startServer(server);
 			}
 			catch (Exception e)
 			{
@@ -263,30 +259,20 @@ public final class AdempiereServerMgr
 		// Final Check
 		int noRunning = 0;
 		int noStopped = 0;
-		for (int i = 0; i < servers.length; i++)
+		for (final AdempiereServer server : getAll())
 		{
-			AdempiereServer server = servers[i];
-			try
+			if (server.isAlive())
 			{
-				if (server.isAlive())
-				{
-					log.info("Alive: {}", server);
-					noRunning++;
-				}
-				else
-				{
-					log.warn("Dead: {}", server);
-					noStopped++;
-				}
+				log.info("Alive: {}", server);
+				noRunning++;
 			}
-			catch (Exception e)
+			else
 			{
-				log.error("Error while checking server status: {}", server, e);
+				log.warn("Dead: {}", server);
 				noStopped++;
 			}
 		}
 		log.debug("All servers started: Running={}, Stopped={}", noRunning, noStopped);
-		AdempiereServerGroup.get().dump();
 		return noStopped == 0;
 	}	// startAll
 
@@ -309,13 +295,8 @@ public final class AdempiereServerMgr
 			// replace
 			int index = m_servers.indexOf(server);
 			server = AdempiereServer.create(server.getModel());
-			if (server == null)
-				m_servers.remove(index);
-			else
-				m_servers.set(index, server);
-			server.start();
-			server.setPriority(Thread.NORM_PRIORITY - 2);
-			Thread.yield();
+			m_servers.set(index, server);
+			startServer(server);
 		}
 		catch (Exception e)
 		{
@@ -323,7 +304,6 @@ public final class AdempiereServerMgr
 			return false;
 		}
 		log.info(server.toString());
-		AdempiereServerGroup.get().dump();
 		return server.isAlive();
 	}	// startIt
 
@@ -334,31 +314,23 @@ public final class AdempiereServerMgr
 	 */
 	public boolean stopAll()
 	{
-		log.info("");
-		AdempiereServer[] servers = getActive();
-		// Interrupt
-		for (int i = 0; i < servers.length; i++)
+		log.info("Stopping all servers");
+		final AdempiereServer[] servers = getActive();
+		for (final AdempiereServer server : servers)
 		{
-			AdempiereServer server = servers[i];
 			try
 			{
-				if (server.isAlive() && !server.isInterrupted())
-				{
-					server.setPriority(Thread.MAX_PRIORITY - 1);
-					server.interrupt();
-				}
+				server.stop();
 			}
 			catch (Exception e)
 			{
-				log.error("(interrupting) - " + server, e);
+				log.error("(stopping) - " + server, e);
 			}
 		}	// for all servers
-		Thread.yield();
 
-		// Wait for death
-		for (int i = 0; i < servers.length; i++)
+		// Wait for the servers which are working right now
+		for (final AdempiereServer server : servers)
 		{
-			AdempiereServer server = servers[i];
 			try
 			{
 				int maxWait = 10;	// 10 iterations = 1 sec
@@ -366,7 +338,7 @@ public final class AdempiereServerMgr
 				{
 					if (maxWait-- == 0)
 					{
-						log.error("Wait timeout for interruped " + server);
+						log.error("Wait timeout for stopped " + server);
 						break;
 					}
 					Thread.sleep(100);		// 1/10
@@ -381,30 +353,20 @@ public final class AdempiereServerMgr
 		// Final Check
 		int noRunning = 0;
 		int noStopped = 0;
-		for (int i = 0; i < servers.length; i++)
+		for (final AdempiereServer server : servers)
 		{
-			AdempiereServer server = servers[i];
-			try
+			if (server.isAlive())
 			{
-				if (server.isAlive())
-				{
-					log.warn("Alive: " + server);
-					noRunning++;
-				}
-				else
-				{
-					log.info("Stopped: " + server);
-					noStopped++;
-				}
+				log.warn("Alive: " + server);
+				noRunning++;
 			}
-			catch (Exception e)
+			else
 			{
-				log.error("(checking) - " + server, e);
-				noRunning++;
+				log.info("Stopped: " + server);
+				noStopped++;
 			}
 		}
 		log.debug("Running=" + noRunning + ", Stopped=" + noStopped);
-		AdempiereServerGroup.get().dump();
 		return noRunning == 0;
 	}	// stopAll
 
@@ -424,8 +386,7 @@ public final class AdempiereServerMgr
 
 		try
 		{
-			server.interrupt();
-			Thread.sleep(10);	// 1/100 sec
+			server.stop();
 		}
 		catch (Exception e)
 		{
@@ -433,7 +394,6 @@ public final class AdempiereServerMgr
 			return false;
 		}
 		log.info(server.toString());
-		AdempiereServerGroup.get().dump();
 
 		// metas us1030 updating status
 		// TODO declare getStatus() and setStatus() AdempiereProcessor
@@ -470,27 +430,6 @@ public final class AdempiereServerMgr
 		return retValue;
 	}	// getActive
 
-	/**
-	 * Get InActive Servers
-	 *
-	 * @return array of inactive servers
-	 */
-	private AdempiereServer[] getInActive()
-	{
-		final List<AdempiereServer> list = new ArrayList<>();
-		for (int i = 0; i < m_servers.size(); i++)
-		{
-			final AdempiereServer server = m_servers.get(i);
-			if (server != null && (!server.isAlive() || !server.isInterrupted()))
-			{
-				list.add(server);
-			}
-		}
-		AdempiereServer[] retValue = new AdempiereServer[list.size()];
-		list.toArray(retValue);
-		return retValue;
-	}	// getInActive
-
 	/**
 	 * Get all Servers
 	 *
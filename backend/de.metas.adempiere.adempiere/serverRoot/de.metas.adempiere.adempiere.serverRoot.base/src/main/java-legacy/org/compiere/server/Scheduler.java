@@ -126,11 +126,6 @@ public class Scheduler extends AdempiereServer
 	/** last outcome; stored in the scheduler log. */
 	private boolean m_success = false;
 
-	//
-	// Cron4J scheduling
-	private it.sauronsoftware.cron4j.Scheduler cronScheduler;
-	private Predictor predictor;
-
 	/**
 	 * Sets AD_Scheduler.Status and save the record
 	 *
@@ -713,47 +708,62 @@ public class Scheduler extends AdempiereServer
 	}
 
 	/**
-	 * This implementation evaluated a cron pattern to do the scheduling. If the model's scheduling type is not "cron",
-	 * then the super classe's scheduling is used instead.
+	 * If the model's scheduling type is "cron", the first run is the next time which matches the cron pattern.
 	 */
 	@Override
-	public void run()
+	protected long computeFirstRunMillis(final long earliestMillis)
 	{
-		if (!X_AD_Scheduler.SCHEDULETYPE_CronSchedulingPattern.equals(m_model.getScheduleType()))
+		if (getCronPatternOrNull() == null)
 		{
-			super.run();
-			return;
+			return super.computeFirstRunMillis(earliestMillis);
 		}
 
-		final String cronPattern = m_model.getCronPattern();
-		if (cronPattern != null && cronPattern.trim().length() > 0 && SchedulingPattern.validate(cronPattern))
+		final long next = computeNextRunMillis(earliestMillis);
+		setDateNextRun(new Timestamp(next));
+		return next;
+	}
+
+	/**
+	 * This implementation evaluates the cron pattern to do the scheduling. If the model's scheduling type is not "cron",
+	 * then the super class's scheduling is used instead.
+	 */
+	@Override
+	protected long computeNextRunMillis(final long afterMillis)
+	{
+		final String cronPattern = getCronPatternOrNull();
+		if (cronPattern == null)
 		{
-			cronScheduler = new it.sauronsoftware.cron4j.Scheduler();
-			cronScheduler.schedule(cronPattern, () -> {
-				runNow();
-				final long next = predictor.nextMatchingTime();
-				setDateNextRun(new Timestamp(next));
-			});
-			predictor = new Predictor(cronPattern);
-			final long next = predictor.nextMatchingTime();
-			setDateNextRun(new Timestamp(next));
-			cronScheduler.start();
-			while (true)
-			{
-				if (!sleep())
-				{
-					cronScheduler.stop();
-					break;
-				}
-				else if (!cronScheduler.isStarted())
-				{
-					break;
-				}
-			}
+			return super.computeNextRunMillis(afterMillis);
 		}
-		else
+
+		return new Predictor(cronPattern, afterMillis).nextMatchingTime();
+	}
+
+	/**
+	 * Cron scheduled runs are always planned by the cron pattern, no matter how long the previous run took.
+	 */
+	@Override
+	protected boolean isFixedRate()
+	{
+		return getCronPatternOrNull() != null || super.isFixedRate();
+	}
+
+	/**
+	 * @return the cron pattern or null if the scheduling type is not "cron" or the pattern is not valid
+	 */
+	private String getCronPatternOrNull()
+	{
+		if (!X_AD_Scheduler.SCHEDULETYPE_CronSchedulingPattern.equals(m_model.getScheduleType()))
 		{
-			super.run();
+			return null;
 		}
+
+		final String cronPattern = m_model.getCronPattern();
+		if (cronPattern == null || cronPattern.trim().isEmpty() || !SchedulingPattern.validate(cronPattern))
+		{
+			return null;
+		}
+
+		return cronPattern;
 	}
 }	// Scheduler
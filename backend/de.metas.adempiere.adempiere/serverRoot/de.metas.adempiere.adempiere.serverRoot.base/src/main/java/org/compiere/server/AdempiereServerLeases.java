@@ -0,0 +1,211 @@
+package org.compiere.server;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.serverRoot.base
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.service.ISysConfigBL;
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.adempiere.util.lang.IAutoCloseable;
+import org.compiere.util.DB;
+import org.slf4j.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import de.metas.logging.LogManager;
+import de.metas.util.Check;
+import de.metas.util.Services;
+
+/**
+ * Database leases of {@link AdempiereServer}s, used to make sure that a server (e.g. an AD_Scheduler) runs on only one node of the cluster.
+ * <p>
+ * The node which holds the lease of a server is the leader for that server. The leader renews the lease on each run, until after its next planned run.
+ * The other nodes are skipping their runs, until the lease expires (e.g. because the leader was stopped), when the first of them acquires the lease.
+ * While a server is working, its lease is also renewed periodically (see {@link #renewPeriodically(String)}), so it does not expire if the work takes longer than the grace period.
+ * <p>
+ * The leases are stored in the <code>AD_Server_Lease</code> table and the expiration is evaluated using the database clock, so the nodes' clocks don't have to be in sync.
+ */
+public class AdempiereServerLeases
+{
+	private static final Logger logger = LogManager.getLogger(AdempiereServerLeases.class);
+
+	private static final String SYSCONFIG_Enabled = "org.compiere.server.AdempiereServerLeases.Enabled";
+	private static final String SYSCONFIG_GraceMillis = "org.compiere.server.AdempiereServerLeases.GraceMillis";
+	private static final int DEFAULT_GraceMillis = 5 * 60 * 1000;
+	private static final long DEFAULT_RenewIntervalMillis = 60 * 1000;
+
+	private static final String SQL_TryAcquire = "INSERT INTO AD_Server_Lease (ServerID, Owner, LeaseUntil, Updated)"
+			+ " VALUES (?, ?, now() + (? * interval '1 millisecond'), now())"
+			+ " ON CONFLICT (ServerID) DO UPDATE SET Owner=EXCLUDED.Owner, LeaseUntil=EXCLUDED.LeaseUntil, Updated=EXCLUDED.Updated"
+			+ " WHERE AD_Server_Lease.Owner=EXCLUDED.Owner OR AD_Server_Lease.LeaseUntil < now()";
+
+	private static final String SQL_Release = "DELETE FROM AD_Server_Lease WHERE ServerID=? AND Owner=?";
+
+	/**
+	 * @return leases or <code>null</code> if leasing is disabled
+	 */
+	public static AdempiereServerLeases newInstanceFromSysConfigOrNull()
+	{
+		final ISysConfigBL sysConfigBL = Services.get(ISysConfigBL.class);
+		if (!sysConfigBL.getBooleanValue(SYSCONFIG_Enabled, true))
+		{
+			logger.info("Server leases are disabled. All servers will run on this node, no matter if they are running on other nodes too.");
+			return null;
+		}
+
+		final int graceMillis = sysConfigBL.getIntValue(SYSCONFIG_GraceMillis, DEFAULT_GraceMillis);
+		return new AdempiereServerLeases(createOwnerId(), graceMillis, DEFAULT_RenewIntervalMillis);
+	}
+
+	private static String createOwnerId()
+	{
+		// e.g. 1234@hostname/5f0c...; the random part makes sure a restarted node is not considered the owner of its old leases
+		return ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+	}
+
+	private final String ownerId;
+	private final long graceMillis;
+	private final long renewIntervalMillis;
+
+	/** renews the leases of the working servers; not the servers' executor, so the renewals are not delayed if all its threads are busy */
+	private final ScheduledExecutorService renewExecutor = Executors.newSingleThreadScheduledExecutor(
+			CustomizableThreadFactory.builder()
+					.setThreadNamePrefix("AdempiereServerLeases-renew")
+					.setDaemon(true)
+					.build());
+
+	@VisibleForTesting
+	AdempiereServerLeases(final String ownerId, final long graceMillis, final long renewIntervalMillis)
+	{
+		this.ownerId = ownerId;
+		this.graceMillis = Math.max(graceMillis, 0);
+		this.renewIntervalMillis = Math.max(renewIntervalMillis, 1);
+
+		logger.info("Created {}", this);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "AdempiereServerLeases[ownerId=" + ownerId + ", graceMillis=" + graceMillis + ", renewIntervalMillis=" + renewIntervalMillis + "]";
+	}
+
+	public String getOwnerId()
+	{
+		return ownerId;
+	}
+
+	/**
+	 * Acquires or renews the lease of given server.
+	 *
+	 * @param leaseMillis for how long the lease is needed; the grace period is added to it
+	 * @return true if this node holds the lease, false if it's hold by another node.
+	 *         If the lease could not be checked because of a database error, true is returned, so the server runs like it did without leases.
+	 */
+	public boolean tryAcquire(final String serverId, final long leaseMillis)
+	{
+		Check.assumeNotEmpty(serverId, "serverId not empty");
+
+		try
+		{
+			final long leaseMillisEffective = Math.max(leaseMillis, 0) + graceMillis;
+			return executeTryAcquire(serverId, leaseMillisEffective);
+		}
+		catch (final Exception ex)
+		{
+			logger.warn("Failed acquiring the lease for {}. Considering it acquired.", serverId, ex);
+			return true;
+		}
+	}
+
+	/**
+	 * Acquires the lease of given server for a run. The lease is as long as a renewal, so to keep it while working, use {@link #renewPeriodically(String)}.
+	 */
+	public boolean tryAcquireForRun(final String serverId)
+	{
+		return tryAcquire(serverId, 2 * renewIntervalMillis);
+	}
+
+	/**
+	 * Renews the lease of given server every few seconds, until the returned closeable is closed. To be used while the server is working.
+	 * <p>
+	 * Each renewal extends the lease by twice the renew interval plus the grace period, so the other nodes won't start the server while it's still working here.
+	 */
+	public IAutoCloseable renewPeriodically(final String serverId)
+	{
+		Check.assumeNotEmpty(serverId, "serverId not empty");
+
+		final ScheduledFuture<?> renewFuture = renewExecutor.scheduleWithFixedDelay(
+				() -> renew(serverId),
+				renewIntervalMillis,
+				renewIntervalMillis,
+				TimeUnit.MILLISECONDS);
+
+		return () -> renewFuture.cancel(false);
+	}
+
+	private void renew(final String serverId)
+	{
+		if (!tryAcquireForRun(serverId))
+		{
+			logger.error("Lost the lease for {} while it's working. Another node might run it at the same time.", serverId);
+		}
+	}
+
+	/**
+	 * @return true if the lease was acquired or renewed
+	 */
+	@VisibleForTesting
+	protected boolean executeTryAcquire(final String serverId, final long leaseMillis)
+	{
+		final int count = DB.executeUpdateEx(SQL_TryAcquire, new Object[] { serverId, ownerId, leaseMillis }, ITrx.TRXNAME_None);
+		return count > 0;
+	}
+
+	/**
+	 * Releases the lease of given server, if it's hold by this node, so another node can take it over without waiting for it to expire.
+	 */
+	public void release(final String serverId)
+	{
+		try
+		{
+			executeRelease(serverId);
+		}
+		catch (final Exception ex)
+		{
+			logger.warn("Failed releasing the lease for {}. Ignored.", serverId, ex);
+		}
+	}
+
+	@VisibleForTesting
+	protected void executeRelease(final String serverId)
+	{
+		DB.executeUpdateEx(SQL_Release, new Object[] { serverId, ownerId }, ITrx.TRXNAME_None);
+	}
+}
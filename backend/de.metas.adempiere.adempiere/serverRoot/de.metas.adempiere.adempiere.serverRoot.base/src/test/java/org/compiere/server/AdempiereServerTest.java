@@ -0,0 +1,467 @@
+package org.compiere.server;
+
+import static org.adempiere.model.InterfaceWrapperHelper.newInstance;
+import static org.adempiere.model.InterfaceWrapperHelper.saveRecord;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.adempiere.test.AdempiereTestHelper;
+import org.compiere.model.AdempiereProcessor;
+import org.compiere.model.AdempiereProcessorLog;
+import org.compiere.model.I_AD_Client;
+import org.compiere.util.Env;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.serverRoot.base
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class AdempiereServerTest
+{
+	private static final long TIMEOUT_MILLIS = 5000;
+
+	private ScheduledExecutorService scheduler;
+	private ExecutorService workExecutor;
+
+	@BeforeEach
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+
+		final I_AD_Client client = newInstance(I_AD_Client.class);
+		saveRecord(client);
+		Env.setContext(Env.getCtx(), Env.CTXNAME_AD_Client_ID, client.getAD_Client_ID());
+
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+		workExecutor = Executors.newCachedThreadPool();
+	}
+
+	@AfterEach
+	public void shutdown()
+	{
+		scheduler.shutdownNow();
+		workExecutor.shutdownNow();
+	}
+
+	@Test
+	public void computeNextRunMillis_notFixedRate()
+	{
+		final TestServer server = new TestServer("server", 100, false, () -> {});
+
+		assertThat(server.computeNextRunMillis(0, 350)).isEqualTo(450);
+		assertThat(server.getMissedRunsCount()).isZero();
+	}
+
+	@Test
+	public void computeNextRunMillis_fixedRate()
+	{
+		final TestServer server = new TestServer("server", 100, true, () -> {});
+
+		assertThat(server.computeNextRunMillis(0, 50)).isEqualTo(100);
+		assertThat(server.getMissedRunsCount()).isZero();
+	}
+
+	@Test
+	public void computeNextRunMillis_fixedRate_countsMissedRuns()
+	{
+		final TestServer server = new TestServer("server", 100, true, () -> {});
+
+		// the runs planned at 100, 200 and 300 were missed
+		assertThat(server.computeNextRunMillis(0, 350)).isEqualTo(400);
+		assertThat(server.getMissedRunsCount()).isEqualTo(3);
+	}
+
+	@Test
+	public void leaseHeldByAnotherNode_skipsRuns()
+	{
+		final TestLeases leases = new TestLeases(1000, true);
+		final AtomicInteger workCount = new AtomicInteger();
+		final TestServer server = new TestServer("server", 10, false, workCount::incrementAndGet);
+
+		server.start(scheduler, workExecutor, leases);
+		awaitUntil(() -> server.getSkippedRunsCount() >= 3);
+		server.stop();
+
+		assertThat(workCount.get()).isZero();
+		assertThat(server.getRunCount()).isZero();
+	}
+
+	@Test
+	public void leaseRenewedWhileWorking()
+	{
+		final long renewIntervalMillis = 10;
+		final TestLeases leases = new TestLeases(renewIntervalMillis, false);
+		final AtomicBoolean renewedWhileWorking = new AtomicBoolean(false);
+		final TestServer server = new TestServer("server", 60 * 1000, false, () -> renewedWhileWorking.set(leases.awaitRenewals()));
+
+		server.start(scheduler, workExecutor, leases);
+		awaitUntil(() -> server.getRunCount() >= 1);
+
+		assertThat(renewedWhileWorking.get()).isTrue();
+
+		// no more renewals after the work is done, and the lease was released
+		sleep(50);
+		final int acquisitionsCount = leases.getAcquisitionsCount();
+		sleep(50);
+		assertThat(leases.getAcquisitionsCount()).isEqualTo(acquisitionsCount);
+		assertThat(leases.getReleasedServerIds()).containsExactly("server");
+
+		server.stop();
+	}
+
+	@Test
+	public void leaseReleasedAfterEachRun()
+	{
+		final TestLeases leases = new TestLeases(1000, false);
+		final TestServer server = new TestServer("server", 10, false, () -> {});
+
+		server.start(scheduler, workExecutor, leases);
+		awaitUntil(() -> server.getRunCount() >= 3);
+		server.stop();
+
+		assertThat(leases.getReleasedServerIds().size()).isGreaterThanOrEqualTo(3);
+	}
+
+	@Test
+	public void runDoneByAnotherNode_continuesWithItsSchedule()
+	{
+		final TestLeases leases = new TestLeases(1000, false);
+		final AtomicInteger workCount = new AtomicInteger();
+		final TestServer server = new TestServer("server", 10, false, workCount::incrementAndGet);
+
+		// another node did the run while we were waiting for the lease, and planned the next one
+		final Timestamp dateNextRunOfOtherNode = new Timestamp(System.currentTimeMillis() + 3600 * 1000);
+		leases.setOnAcquire(() -> server.getModel().setDateNextRun(dateNextRunOfOtherNode));
+
+		server.start(scheduler, workExecutor, leases);
+		awaitUntil(() -> server.getSkippedRunsCount() >= 1);
+		server.stop();
+
+		assertThat(workCount.get()).isZero();
+		assertThat(server.getDateNextRun(false)).isEqualTo(dateNextRunOfOtherNode);
+		assertThat(leases.getReleasedServerIds()).containsExactly("server");
+	}
+
+	@Test
+	public void startAfterStopWhileWorking_cancelsTheStop() throws InterruptedException
+	{
+		final CountDownLatch firstRunStarted = new CountDownLatch(1);
+		final CountDownLatch firstRunMayFinish = new CountDownLatch(1);
+		final AtomicInteger workCount = new AtomicInteger();
+		final TestServer server = new TestServer("server", 10, false, () -> {
+			if (workCount.incrementAndGet() == 1)
+			{
+				firstRunStarted.countDown();
+				await(firstRunMayFinish);
+			}
+		});
+
+		server.start(scheduler, workExecutor, null);
+		assertThat(firstRunStarted.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)).isTrue();
+
+		server.stop();
+		server.start(scheduler, workExecutor, null);
+		assertThat(server.isInterrupted()).isFalse();
+
+		firstRunMayFinish.countDown();
+		awaitUntil(() -> server.getRunCount() >= 3);
+		server.stop();
+	}
+
+	@Test
+	public void longRunningServer_doesNotDelayTheOthers() throws InterruptedException
+	{
+		final CountDownLatch slowServerStarted = new CountDownLatch(1);
+		final CountDownLatch slowServerMayFinish = new CountDownLatch(1);
+		final TestServer slowServer = new TestServer("slow", 10, false, () -> {
+			slowServerStarted.countDown();
+			await(slowServerMayFinish);
+		});
+
+		final CountDownLatch fastServerRuns = new CountDownLatch(3);
+		final TestServer fastServer = new TestServer("fast", 10, false, fastServerRuns::countDown);
+
+		slowServer.start(scheduler, workExecutor, null);
+		assertThat(slowServerStarted.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)).isTrue();
+
+		fastServer.start(scheduler, workExecutor, null);
+		try
+		{
+			assertThat(fastServerRuns.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)).isTrue();
+		}
+		finally
+		{
+			slowServerMayFinish.countDown();
+			fastServer.stop();
+			slowServer.stop();
+		}
+	}
+
+	private static void awaitUntil(final BooleanSupplier condition)
+	{
+		final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while (!condition.getAsBoolean())
+		{
+			assertThat(System.currentTimeMillis()).as("timeout").isLessThan(deadline);
+			sleep(5);
+		}
+	}
+
+	private static void await(final CountDownLatch latch)
+	{
+		try
+		{
+			latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void sleep(final long millis)
+	{
+		try
+		{
+			Thread.sleep(millis);
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static class TestServer extends AdempiereServer
+	{
+		private final long intervalMillis;
+		private final boolean fixedRate;
+		private final Runnable work;
+
+		public TestServer(final String name, final long intervalMillis, final boolean fixedRate, final Runnable work)
+		{
+			super(new TestProcessor(name), 0);
+			this.intervalMillis = intervalMillis;
+			this.fixedRate = fixedRate;
+			this.work = work;
+		}
+
+		@Override
+		protected long computeNextRunMillis(final long afterMillis)
+		{
+			return afterMillis + intervalMillis;
+		}
+
+		@Override
+		protected boolean isFixedRate()
+		{
+			return fixedRate;
+		}
+
+		@Override
+		protected void doWork()
+		{
+			work.run();
+		}
+
+		@Override
+		public String getServerInfo()
+		{
+			return "";
+		}
+	}
+
+	/**
+	 * Leases which are not stored in database. Records the acquisitions; each run acquires the lease once, all other acquisitions are renewals.
+	 */
+	private static class TestLeases extends AdempiereServerLeases
+	{
+		private final boolean heldByAnotherNode;
+		private final AtomicInteger acquisitionsCount = new AtomicInteger();
+		private final CountDownLatch runAndRenewals = new CountDownLatch(4);
+		private final List<String> releasedServerIds = new CopyOnWriteArrayList<>();
+		private volatile Runnable onAcquire = () -> {};
+
+		public TestLeases(final long renewIntervalMillis, final boolean heldByAnotherNode)
+		{
+			super("test", 0, renewIntervalMillis);
+			this.heldByAnotherNode = heldByAnotherNode;
+		}
+
+		public void setOnAcquire(final Runnable onAcquire)
+		{
+			this.onAcquire = onAcquire;
+		}
+
+		@Override
+		protected boolean executeTryAcquire(final String serverId, final long leaseMillis)
+		{
+			acquisitionsCount.incrementAndGet();
+			runAndRenewals.countDown();
+			if (heldByAnotherNode)
+			{
+				return false;
+			}
+
+			onAcquire.run();
+			return true;
+		}
+
+		@Override
+		protected void executeRelease(final String serverId)
+		{
+			releasedServerIds.add(serverId);
+		}
+
+		/** @return true if the lease was acquired for the run and renewed at least 3 times */
+		public boolean awaitRenewals()
+		{
+			try
+			{
+				return runAndRenewals.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+			}
+			catch (final InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+
+		public int getAcquisitionsCount()
+		{
+			return acquisitionsCount.get();
+		}
+
+		public List<String> getReleasedServerIds()
+		{
+			return releasedServerIds;
+		}
+	}
+
+	private static class TestProcessor implements AdempiereProcessor
+	{
+		private final String name;
+		private Timestamp dateNextRun;
+		private Timestamp dateLastRun;
+
+		public TestProcessor(final String name)
+		{
+			this.name = name;
+		}
+
+		@Override
+		public int getAD_Client_ID()
+		{
+			return Env.getAD_Client_ID(getCtx());
+		}
+
+		@Override
+		public String getName()
+		{
+			return name;
+		}
+
+		@Override
+		public String getDescription()
+		{
+			return name;
+		}
+
+		@Override
+		public Properties getCtx()
+		{
+			return Env.getCtx();
+		}
+
+		@Override
+		public String getFrequencyType()
+		{
+			return null;
+		}
+
+		@Override
+		public int getFrequency()
+		{
+			return 0;
+		}
+
+		@Override
+		public String getServerID()
+		{
+			return name;
+		}
+
+		@Override
+		public Timestamp getDateNextRun(final boolean requery)
+		{
+			return dateNextRun;
+		}
+
+		@Override
+		public void setDateNextRun(final Timestamp dateNextWork)
+		{
+			this.dateNextRun = dateNextWork;
+		}
+
+		@Override
+		public Timestamp getDateLastRun()
+		{
+			return dateLastRun;
+		}
+
+		@Override
+		public void setDateLastRun(final Timestamp dateLastRun)
+		{
+			this.dateLastRun = dateLastRun;
+		}
+
+		@Override
+		public boolean saveOutOfTrx()
+		{
+			return true;
+		}
+
+		@Override
+		public AdempiereProcessorLog[] getLogs()
+		{
+			return new AdempiereProcessorLog[] {};
+		}
+
+		@Override
+		public String get_TableName()
+		{
+			return "Test";
+		}
+	}
+}
@@ -135,6 +135,18 @@ public interface IQueueDAO extends ISingletonService
 
 	IQuery<I_C_Queue_WorkPackage> createQuery(Properties ctx, IWorkPackageQuery packageQuery);
 
+	/**
+	 * Retrieves and locks (using {@link de.metas.lock.api.ILockManager}) up to <code>limit</code> work packages matched by given query, in the query's order.
+	 * <p>
+	 * Unlike {@link de.metas.lock.api.ILockManager#retrieveAndLock(IQuery, Class)}, the candidates are selected with <code>FOR UPDATE SKIP LOCKED</code>,
+	 * so concurrent callers get disjoint sets of work packages instead of retrying on each other's.
+	 *
+	 * @param query a query which was created by {@link #createQuery(Properties, IWorkPackageQuery)}
+	 * @return locked work packages; never null, but might be empty
+	 * @see WorkPackagePollingStrategy#SkipLocked
+	 */
+	List<I_C_Queue_WorkPackage> retrieveAndLockWorkPackagesSkipLocked(IQuery<I_C_Queue_WorkPackage> query, int limit);
+
 	/**
 	 * Return the ordering used when the next work package is retrieved from the queue. Can be used where it is required to have the same ordering as the queue.
 	 *
@@ -87,6 +87,17 @@ public interface IWorkPackageQueue
 	 */
 	I_C_Queue_WorkPackage pollAndLock(long timeoutMillis);
 
+	/**
+	 * Retrieves and locks up to <code>maxCount</code> further workpackages which are ready for processing and which are handled by the same <code>C_Queue_PackageProcessor</code> as the given (already locked) one.
+	 * Does not wait if there are none.
+	 * <p>
+	 * Like in {@link #pollAndLock(long)}, each returned workpackage has its own context.
+	 *
+	 * @param workPackage a workpackage which was returned by {@link #pollAndLock(long)}
+	 * @return locked workpackages; never null, but might be empty
+	 */
+	List<I_C_Queue_WorkPackage> pollAndLockCompatible(I_C_Queue_WorkPackage workPackage, int maxCount);
+
 	/**
 	 * Unlocks given package
 	 *
@@ -105,6 +116,15 @@ public interface IWorkPackageQueue
 	 */
 	boolean unlockNoFail(I_C_Queue_WorkPackage workPackage);
 
+	/**
+	 * Unlocks the work packages which were claimed in advance (see {@link de.metas.async.api.WorkPackagePollingStrategy#SkipLocked}) but were not yet returned by {@link #pollAndLock(long)}.
+	 *
+	 * Any unlock exceptions will be logged but not propagated.
+	 *
+	 * @return how many work packages were unlocked
+	 */
+	int unlockClaimedWorkPackagesNoFail();
+
 	/**
 	 * Retrieve the global queue size (i.e. number of unprocessed workpackages). This includes a DB query.
 	 *
@@ -0,0 +1,63 @@
+package de.metas.async.api;
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import javax.annotation.Nullable;
+
+import de.metas.util.Check;
+
+/**
+ * How a {@link IWorkPackageQueue} finds and locks the next work package to be processed.
+ */
+public enum WorkPackagePollingStrategy
+{
+	/**
+	 * Select the next not locked work package and try to insert a <code>T_Lock</code> record for it; retry if another node was faster.
+	 * Idle queues are polled every <code>de.metas.async.PollIntervallMillis</code>.
+	 */
+	TLock,
+
+	/**
+	 * Claim the next work packages using <code>SELECT ... FOR UPDATE SKIP LOCKED</code> (so concurrent pollers never compete for the same rows) and then lock them in <code>T_Lock</code> as usual.
+	 * Idle queues are woken up by the database's <code>NOTIFY</code> when a work package becomes ready for processing.
+	 */
+	SkipLocked;
+
+	public static WorkPackagePollingStrategy ofNullableStringOrDefault(@Nullable final String name, final WorkPackagePollingStrategy defaultStrategy)
+	{
+		if (Check.isEmpty(name, true))
+		{
+			return defaultStrategy;
+		}
+
+		for (final WorkPackagePollingStrategy strategy : values())
+		{
+			if (strategy.name().equalsIgnoreCase(name.trim()))
+			{
+				return strategy;
+			}
+		}
+
+		return defaultStrategy;
+	}
+}
@@ -24,6 +24,7 @@ package de.metas.async.api.impl;
 
 
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -44,6 +45,7 @@ import de.metas.async.model.I_C_Queue_PackageProcessor;
 import de.metas.async.model.I_C_Queue_Processor;
 import de.metas.async.model.I_C_Queue_Processor_Assign;
 import de.metas.async.model.I_C_Queue_WorkPackage;
+import de.metas.lock.api.ILockManager;
 import de.metas.logging.LogManager;
 import de.metas.util.Services;
 import de.metas.util.time.SystemTime;
@@ -200,6 +202,27 @@ public class PlainQueueDAO extends AbstractQueueDAO
 				.setOrderBy(queueOrderByComparator);
 	}
 
+	/**
+	 * There is no <code>SKIP LOCKED</code> in memory, so this implementation locks the work packages one by one.
+	 */
+	@Override
+	public List<I_C_Queue_WorkPackage> retrieveAndLockWorkPackagesSkipLocked(final IQuery<I_C_Queue_WorkPackage> query, final int limit)
+	{
+		final ILockManager lockManager = Services.get(ILockManager.class);
+
+		final List<I_C_Queue_WorkPackage> workPackages = new ArrayList<>();
+		while (workPackages.size() < Math.max(limit, 1))
+		{
+			final I_C_Queue_WorkPackage workPackage = lockManager.retrieveAndLock(query, I_C_Queue_WorkPackage.class);
+			if (workPackage == null)
+			{
+				break;
+			}
+			workPackages.add(workPackage);
+		}
+		return workPackages;
+	}
+
 	private static class QueueFilter implements IQueryFilter<I_C_Queue_WorkPackage>
 	{
 		private final IWorkPackageQuery packageQuery;
@@ -32,9 +32,13 @@ import de.metas.async.model.I_C_Queue_Processor_Assign;
 import de.metas.async.model.I_C_Queue_WorkPackage;
 import de.metas.cache.annotation.CacheCtx;
 import de.metas.cache.annotation.CacheTrx;
+import de.metas.lock.api.ILockManager;
+import de.metas.util.Services;
 import org.adempiere.ad.dao.impl.TypedSqlQuery;
 import org.adempiere.ad.dao.impl.TypedSqlQueryFilter;
 import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.exceptions.DBException;
 import org.adempiere.exceptions.AdempiereException;
 import org.adempiere.model.InterfaceWrapperHelper;
 import org.adempiere.model.PlainContextAware;
@@ -46,6 +50,9 @@ import org.compiere.model.Query;
 import org.compiere.util.DB;
 import org.compiere.util.Env;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -223,4 +230,67 @@ public class QueueDAO extends AbstractQueueDAO
 				.setOrderBy(queueOrderByComparator.getSql());
 
 	}
+
+	@Override
+	public List<I_C_Queue_WorkPackage> retrieveAndLockWorkPackagesSkipLocked(final IQuery<I_C_Queue_WorkPackage> query, final int limit)
+	{
+		final ILockManager lockManager = Services.get(ILockManager.class);
+
+		final String tableName = I_C_Queue_WorkPackage.Table_Name;
+		final String keyColumnNameFQ = tableName + "." + I_C_Queue_WorkPackage.COLUMNNAME_C_Queue_WorkPackage_ID;
+		final TypedSqlQuery<I_C_Queue_WorkPackage> sqlQuery = TypedSqlQuery.cast(query)
+				.addWhereClause(true, lockManager.getNotLockedWhereClause(tableName, keyColumnNameFQ))
+				.setLimit(limit > 0 ? limit : 1);
+		final String sql = sqlQuery.buildSQL("SELECT " + keyColumnNameFQ, null, null, true)
+				+ "\n FOR UPDATE OF " + tableName + " SKIP LOCKED";
+		final List<Object> sqlParams = sqlQuery.getParametersEffective();
+
+		final int adTableId = InterfaceWrapperHelper.getTableId(I_C_Queue_WorkPackage.class);
+
+		//
+		// Select the candidates and lock them while holding their row locks,
+		// so that no other poller can see them in between.
+		// NOTE: the T_Lock records are created out of transaction, so they are already visible to everybody when we release the row locks.
+		final List<Integer> lockedWorkPackageIds = Services.get(ITrxManager.class).callInNewTrx(localTrxName -> {
+			final List<Integer> workPackageIds = new ArrayList<>();
+			PreparedStatement pstmt = null;
+			ResultSet rs = null;
+			try
+			{
+				pstmt = DB.prepareStatement(sql, localTrxName);
+				DB.setParameters(pstmt, sqlParams);
+				rs = pstmt.executeQuery();
+				while (rs.next())
+				{
+					workPackageIds.add(rs.getInt(1));
+				}
+			}
+			catch (final SQLException ex)
+			{
+				throw new DBException(ex, sql, sqlParams);
+			}
+			finally
+			{
+				DB.close(rs, pstmt);
+			}
+
+			final List<Integer> result = new ArrayList<>(workPackageIds.size());
+			for (final int workPackageId : workPackageIds)
+			{
+				// NOTE: locking might still fail if someone locked the work package without going through this method
+				if (lockManager.lock(adTableId, workPackageId))
+				{
+					result.add(workPackageId);
+				}
+			}
+			return result;
+		});
+
+		final List<I_C_Queue_WorkPackage> workPackages = new ArrayList<>(lockedWorkPackageIds.size());
+		for (final int workPackageId : lockedWorkPackageIds)
+		{
+			workPackages.add(InterfaceWrapperHelper.create(sqlQuery.getCtx(), workPackageId, I_C_Queue_WorkPackage.class, ITrx.TRXNAME_None));
+		}
+		return workPackages;
+	}
 }
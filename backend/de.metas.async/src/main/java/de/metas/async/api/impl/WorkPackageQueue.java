@@ -27,6 +27,7 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.Future;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -45,6 +46,8 @@ import org.compiere.util.Env;
 import org.slf4j.Logger;
 import org.slf4j.MDC.MDCCloseable;
 
+import com.google.common.collect.ImmutableList;
+
 import de.metas.async.AsyncBatchId;
 import de.metas.async.Async_Constants;
 import de.metas.async.api.IAsyncBatchBL;
@@ -53,6 +56,7 @@ import de.metas.async.api.IWorkPackageBL;
 import de.metas.async.api.IWorkPackageBlockBuilder;
 import de.metas.async.api.IWorkPackageQueue;
 import de.metas.async.api.IWorkpackageProcessorContextFactory;
+import de.metas.async.api.WorkPackagePollingStrategy;
 import de.metas.async.model.I_C_Async_Batch;
 import de.metas.async.model.I_C_Queue_Block;
 import de.metas.async.model.I_C_Queue_Element;
@@ -85,6 +89,12 @@ public class WorkPackageQueue implements IWorkPackageQueue
 {
 	private final static String SYSCONFIG_POLLINTERVAL = "de.metas.async.PollIntervallMillis";
 
+	/**
+	 * When using {@link WorkPackagePollingStrategy#SkipLocked} and a notification listener is running, an idle queue waits for a notification, but not longer than this.
+	 * We still need to poll from time to time, because e.g. skipped work packages become available again without anybody notifying us.
+	 */
+	private final static String SYSCONFIG_SkipLocked_MaxWaitMillis = "de.metas.async.SkipLocked.MaxWaitMillis";
+
 	private static final transient Logger logger = LogManager.getLogger(WorkPackageQueue.class);
 
 	private final transient IQueueDAO dao;
@@ -97,6 +107,11 @@ public class WorkPackageQueue implements IWorkPackageQueue
 	private final String priorityFrom;
 	private final int skipRetryTimeoutMillis;
 
+	private final WorkPackagePollingStrategy pollingStrategy;
+	private final int claimBatchSize;
+	/** Work packages which were claimed (and locked) by {@link WorkPackagePollingStrategy#SkipLocked}, but not yet returned by {@link #pollAndLock(long)} */
+	private final ConcurrentLinkedDeque<I_C_Queue_WorkPackage> claimedWorkPackages = new ConcurrentLinkedDeque<>();
+
 	/**
 	 * C_Queue_PackageProcessor_ID used for enquing
 	 */
@@ -120,7 +135,9 @@ public class WorkPackageQueue implements IWorkPackageQueue
 			@NonNull final List<Integer> packageProcessorIds,
 			final String enquingPackageProcessorInternalName,
 			final String priorityFrom,
-			final boolean forEnqueing)
+			final boolean forEnqueing,
+			@NonNull final WorkPackagePollingStrategy pollingStrategy,
+			final int claimBatchSize)
 	{
 		Check.assume(!packageProcessorIds.isEmpty(), "packageProcessorIds not empty");
 		// Check.assume(retryTimeoutMillis >= 0, "retryTimeoutMillis={} >= 0", retryTimeoutMillis);
@@ -131,6 +148,8 @@ public class WorkPackageQueue implements IWorkPackageQueue
 		this.packageProcessorIds = Collections.unmodifiableList(new ArrayList<>(packageProcessorIds));
 		this.priorityFrom = priorityFrom;
 		this.skipRetryTimeoutMillis = Async_Constants.DEFAULT_RETRY_TIMEOUT_MILLIS;
+		this.pollingStrategy = pollingStrategy;
+		this.claimBatchSize = claimBatchSize > 0 ? claimBatchSize : 1;
 
 		if (forEnqueing)
 		{
@@ -152,18 +171,39 @@ public class WorkPackageQueue implements IWorkPackageQueue
 				Collections.singletonList(packageProcessorId),
 				enquingPackageProcessorInternalName,
 				null,
-				true);
+				true,
+				WorkPackagePollingStrategy.TLock,
+				1);
 	}
 
 	public static WorkPackageQueue createForQueueProcessing(final Properties ctx,
 			final List<Integer> packageProcessorIds,
 			final String priorityFrom)
 	{
+		return createForQueueProcessing(ctx, packageProcessorIds, priorityFrom, WorkPackagePollingStrategy.TLock, 1);
+	}
+
+	/**
+	 * @param claimBatchSize how many work packages shall be claimed at once when using {@link WorkPackagePollingStrategy#SkipLocked}
+	 */
+	public static WorkPackageQueue createForQueueProcessing(final Properties ctx,
+			final List<Integer> packageProcessorIds,
+			final String priorityFrom,
+			@NonNull final WorkPackagePollingStrategy pollingStrategy,
+			final int claimBatchSize)
+	{
+		if (pollingStrategy == WorkPackagePollingStrategy.SkipLocked)
+		{
+			WorkPackageReadyNotificationListener.get().startIfNeeded();
+		}
+
 		return new WorkPackageQueue(ctx,
 				packageProcessorIds,
 				null, // enquingPackageProcessorInternalName
 				priorityFrom,
-				false);
+				false,
+				pollingStrategy,
+				claimBatchSize);
 	}
 
 	@Override
@@ -174,6 +214,8 @@ public class WorkPackageQueue implements IWorkPackageQueue
 				+ ", priorityFrom=" + priorityFrom
 				+ ", skipRetryTimeoutMillis=" + skipRetryTimeoutMillis
 				+ ", enquingPackageProcessorId=" + enquingPackageProcessorId
+				+ ", pollingStrategy=" + pollingStrategy
+				+ ", claimBatchSize=" + claimBatchSize
 				+ "]";
 	}
 
@@ -218,7 +260,8 @@ public class WorkPackageQueue implements IWorkPackageQueue
 		final IQuery<I_C_Queue_WorkPackage> query = createQuery(workPackageCtx);
 
 		final long startTS = SystemTime.millis();
-		I_C_Queue_WorkPackage workPackage = retrieveAndLock(query);
+		long notificationSequence = WorkPackageReadyNotificationListener.get().getSequence();
+		I_C_Queue_WorkPackage workPackage = retrieveAndLock(query, workPackageCtx);
 		if (timeoutMillis == TIMEOUT_OneTimeOnly && workPackage == null)
 		{
 			// We are running in one time only mode (synchronous mode) and we did not get the package from the first time
@@ -241,12 +284,10 @@ public class WorkPackageQueue implements IWorkPackageQueue
 				}
 			}
 
-			// No workpackages were found. Sleep 1sec and then try again
+			// No workpackages were found. Sleep 1sec (or wait for a notification) and then try again
 			try
 			{
-				// note: we always get the new service, because things might have changed since this method started
-				final int pollIntervalMs = Services.get(ISysConfigBL.class).getIntValue(SYSCONFIG_POLLINTERVAL, 1000);
-				Thread.sleep(pollIntervalMs);
+				waitBeforeNextPoll(notificationSequence);
 			}
 			catch (final InterruptedException e)
 			{
@@ -256,7 +297,8 @@ public class WorkPackageQueue implements IWorkPackageQueue
 
 			// Try fetching the workpackage again
 			logger.debug("Retry retrieving next workpackage");
-			workPackage = retrieveAndLock(query);
+			notificationSequence = WorkPackageReadyNotificationListener.get().getSequence();
+			workPackage = retrieveAndLock(query, workPackageCtx);
 		}
 
 		Check.assumeNotNull(workPackage, "workPackage not null");
@@ -334,9 +376,36 @@ public class WorkPackageQueue implements IWorkPackageQueue
 		Env.setContext(workPackageCtx, Env.CTXNAME_AD_Session_ID, Env.CTXVALUE_AD_SESSION_ID_NONE);
 	}
 
-	private I_C_Queue_WorkPackage retrieveAndLock(final IQuery<I_C_Queue_WorkPackage> query)
+	private void waitBeforeNextPoll(final long notificationSequence) throws InterruptedException
+	{
+		// note: we always get the new service, because things might have changed since this method started
+		final ISysConfigBL sysConfigBL = Services.get(ISysConfigBL.class);
+		final int pollIntervalMs = sysConfigBL.getIntValue(SYSCONFIG_POLLINTERVAL, 1000);
+
+		final WorkPackageReadyNotificationListener notificationListener = WorkPackageReadyNotificationListener.get();
+		if (pollingStrategy == WorkPackagePollingStrategy.SkipLocked && notificationListener.isListening())
+		{
+			final int maxWaitMillis = sysConfigBL.getIntValue(SYSCONFIG_SkipLocked_MaxWaitMillis, 10000);
+			notificationListener.awaitNotification(packageProcessorIds, notificationSequence, Math.max(maxWaitMillis, pollIntervalMs));
+		}
+		else
+		{
+			Thread.sleep(pollIntervalMs);
+		}
+	}
+
+	private I_C_Queue_WorkPackage retrieveAndLock(final IQuery<I_C_Queue_WorkPackage> query, final Properties workPackageCtx)
 	{
-		I_C_Queue_WorkPackage workPackage = Services.get(ILockManager.class).retrieveAndLock(query, I_C_Queue_WorkPackage.class);
+		I_C_Queue_WorkPackage workPackage;
+		if (pollingStrategy == WorkPackagePollingStrategy.SkipLocked)
+		{
+			workPackage = retrieveAndLockSkipLocked(query, workPackageCtx);
+		}
+		else
+		{
+			workPackage = Services.get(ILockManager.class).retrieveAndLock(query, I_C_Queue_WorkPackage.class);
+		}
+
 		if (workPackage != null && !isValid(workPackage))
 		{
 			final I_C_Queue_WorkPackage workpackageToUnlock = workPackage;
@@ -350,6 +419,97 @@ public class WorkPackageQueue implements IWorkPackageQueue
 		return workPackage;
 	}
 
+	private I_C_Queue_WorkPackage retrieveAndLockSkipLocked(final IQuery<I_C_Queue_WorkPackage> query, final Properties workPackageCtx)
+	{
+		final I_C_Queue_WorkPackage alreadyClaimedWorkPackage = claimedWorkPackages.poll();
+		if (alreadyClaimedWorkPackage != null)
+		{
+			// reload it, because each work package needs its own context (see setupWorkpackageContext) and because it might have been waiting for a while
+			return InterfaceWrapperHelper.create(workPackageCtx, alreadyClaimedWorkPackage.getC_Queue_WorkPackage_ID(), I_C_Queue_WorkPackage.class, ITrx.TRXNAME_None);
+		}
+
+		final List<I_C_Queue_WorkPackage> workPackages = dao.retrieveAndLockWorkPackagesSkipLocked(query, claimBatchSize);
+		if (workPackages.isEmpty())
+		{
+			return null;
+		}
+
+		claimedWorkPackages.addAll(workPackages.subList(1, workPackages.size()));
+		return workPackages.get(0);
+	}
+
+	@Override
+	public List<I_C_Queue_WorkPackage> pollAndLockCompatible(@NonNull final I_C_Queue_WorkPackage workPackage, final int maxCount)
+	{
+		if (maxCount <= 0)
+		{
+			return ImmutableList.of();
+		}
+
+		final int packageProcessorId = workPackage.getC_Queue_Block().getC_Queue_PackageProcessor_ID();
+
+		mainLock.lock();
+		try
+		{
+			final IQuery<I_C_Queue_WorkPackage> query = createQuery(Env.newTemporaryCtx(), ImmutableList.of(packageProcessorId));
+
+			final List<I_C_Queue_WorkPackage> lockedWorkPackages;
+			if (pollingStrategy == WorkPackagePollingStrategy.SkipLocked)
+			{
+				lockedWorkPackages = dao.retrieveAndLockWorkPackagesSkipLocked(query, maxCount);
+			}
+			else
+			{
+				lockedWorkPackages = new ArrayList<>();
+				final ILockManager lockManager = Services.get(ILockManager.class);
+				while (lockedWorkPackages.size() < maxCount)
+				{
+					final I_C_Queue_WorkPackage lockedWorkPackage = lockManager.retrieveAndLock(query, I_C_Queue_WorkPackage.class);
+					if (lockedWorkPackage == null)
+					{
+						break;
+					}
+					lockedWorkPackages.add(lockedWorkPackage);
+				}
+			}
+
+			final List<I_C_Queue_WorkPackage> result = new ArrayList<>(lockedWorkPackages.size());
+			for (final I_C_Queue_WorkPackage lockedWorkPackage : lockedWorkPackages)
+			{
+				if (!isValid(lockedWorkPackage))
+				{
+					unlockNoFail(lockedWorkPackage);
+					continue;
+				}
+
+				// each workpackage needs its own context
+				final Properties workPackageCtx = Env.newTemporaryCtx();
+				final I_C_Queue_WorkPackage workPackageWithOwnCtx = InterfaceWrapperHelper.create(workPackageCtx, lockedWorkPackage.getC_Queue_WorkPackage_ID(), I_C_Queue_WorkPackage.class, ITrx.TRXNAME_None);
+				setupWorkpackageContext(workPackageCtx, workPackageWithOwnCtx);
+				result.add(workPackageWithOwnCtx);
+			}
+			return result;
+		}
+		finally
+		{
+			mainLock.unlock();
+		}
+	}
+
+	@Override
+	public int unlockClaimedWorkPackagesNoFail()
+	{
+		int countUnlocked = 0;
+		for (I_C_Queue_WorkPackage workPackage = claimedWorkPackages.poll(); workPackage != null; workPackage = claimedWorkPackages.poll())
+		{
+			if (unlockNoFail(workPackage))
+			{
+				countUnlocked++;
+			}
+		}
+		return countUnlocked;
+	}
+
 	@Override
 	public int size()
 	{
@@ -775,6 +935,11 @@ public class WorkPackageQueue implements IWorkPackageQueue
 	}
 
 	private IQuery<I_C_Queue_WorkPackage> createQuery(final Properties workPackageCtx)
+	{
+		return createQuery(workPackageCtx, packageProcessorIds);
+	}
+
+	private IQuery<I_C_Queue_WorkPackage> createQuery(final Properties workPackageCtx, final List<Integer> packageProcessorIds)
 	{
 		//
 		// Filter out processors which were temporary blacklisted
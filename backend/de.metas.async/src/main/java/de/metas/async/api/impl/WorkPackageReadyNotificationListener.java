@@ -0,0 +1,249 @@
+package de.metas.async.api.impl;
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.compiere.Adempiere;
+import org.compiere.util.DB;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import de.metas.logging.LogManager;
+import de.metas.util.time.SystemTime;
+import lombok.NonNull;
+
+/**
+ * Listens on the database channel {@value #CHANNEL} (see the <code>C_Queue_WorkPackage_NotifyReady</code> trigger),
+ * and wakes up the queues which are waiting for work packages of the notified <code>C_Queue_PackageProcessor_ID</code>.
+ * <p>
+ * The listener runs in one daemon thread on a dedicated connection, which is started on first use.
+ * If listening is not possible (e.g. the connection can't be unwrapped to a {@link PGConnection}), {@link #isListening()} returns false and the queues shall keep on polling.
+ */
+final class WorkPackageReadyNotificationListener
+{
+	private static final Logger logger = LogManager.getLogger(WorkPackageReadyNotificationListener.class);
+
+	static final String CHANNEL = "c_queue_workpackage_ready";
+
+	private static final int NOTIFICATIONS_POLL_TIMEOUT_MILLIS = 5000;
+	private static final int RECONNECT_DELAY_MILLIS = 10000;
+
+	private static final WorkPackageReadyNotificationListener instance = new WorkPackageReadyNotificationListener();
+
+	public static WorkPackageReadyNotificationListener get()
+	{
+		return instance;
+	}
+
+	private final Object monitor = new Object();
+	// NOTE: following fields shall be accessed while holding the monitor
+	private long sequence = 0;
+	private final Map<Integer, Long> lastSequenceByPackageProcessorId = new HashMap<>();
+	private Thread listenerThread;
+	private boolean listening = false;
+
+	@VisibleForTesting
+	WorkPackageReadyNotificationListener()
+	{
+	}
+
+	public void startIfNeeded()
+	{
+		synchronized (monitor)
+		{
+			if (listenerThread != null || Adempiere.isUnitTestMode())
+			{
+				return;
+			}
+
+			listenerThread = new Thread(this::listenLoop, WorkPackageReadyNotificationListener.class.getSimpleName());
+			listenerThread.setDaemon(true);
+			listenerThread.start();
+		}
+	}
+
+	public boolean isListening()
+	{
+		synchronized (monitor)
+		{
+			return listening;
+		}
+	}
+
+	private void setListening(final boolean listening)
+	{
+		synchronized (monitor)
+		{
+			this.listening = listening;
+		}
+	}
+
+	/**
+	 * @return current notifications sequence; to be used as <code>afterSequence</code> parameter of {@link #awaitNotification(Collection, long, long)}
+	 */
+	public long getSequence()
+	{
+		synchronized (monitor)
+		{
+			return sequence;
+		}
+	}
+
+	/**
+	 * Waits until a notification for one of given package processors arrived after <code>afterSequence</code>, but not longer than <code>timeoutMillis</code>.
+	 *
+	 * @return true if notified, false if the timeout passed
+	 */
+	public boolean awaitNotification(
+			@NonNull final Collection<Integer> packageProcessorIds,
+			final long afterSequence,
+			final long timeoutMillis) throws InterruptedException
+	{
+		final long deadline = SystemTime.millis() + timeoutMillis;
+		synchronized (monitor)
+		{
+			while (true)
+			{
+				if (isNotifiedAfter(packageProcessorIds, afterSequence))
+				{
+					return true;
+				}
+
+				final long remainingMillis = deadline - SystemTime.millis();
+				if (remainingMillis <= 0)
+				{
+					return false;
+				}
+
+				monitor.wait(remainingMillis);
+			}
+		}
+	}
+
+	private boolean isNotifiedAfter(final Collection<Integer> packageProcessorIds, final long afterSequence)
+	{
+		// NOTE: called while holding the monitor
+		for (final Integer packageProcessorId : packageProcessorIds)
+		{
+			final Long lastSequence = lastSequenceByPackageProcessorId.get(packageProcessorId);
+			if (lastSequence != null && lastSequence > afterSequence)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@VisibleForTesting
+	void onNotification(final int packageProcessorId)
+	{
+		synchronized (monitor)
+		{
+			sequence++;
+			lastSequenceByPackageProcessorId.put(packageProcessorId, sequence);
+			monitor.notifyAll();
+		}
+	}
+
+	private void listenLoop()
+	{
+		while (!Thread.currentThread().isInterrupted())
+		{
+			Connection conn = null;
+			try
+			{
+				conn = DB.createConnection(true, Connection.TRANSACTION_READ_COMMITTED);
+				if (!conn.isWrapperFor(PGConnection.class))
+				{
+					logger.warn("Connection {} does not support LISTEN/NOTIFY. The work package queues will keep on polling.", conn);
+					return;
+				}
+				final PGConnection pgConn = conn.unwrap(PGConnection.class);
+				listen(conn);
+				setListening(true);
+				logger.info("Listening for ready work packages on channel {}", CHANNEL);
+
+				while (!Thread.currentThread().isInterrupted())
+				{
+					final PGNotification[] notifications = pgConn.getNotifications(NOTIFICATIONS_POLL_TIMEOUT_MILLIS);
+					if (notifications == null)
+					{
+						continue;
+					}
+
+					for (final PGNotification notification : notifications)
+					{
+						onNotification(notification);
+					}
+				}
+			}
+			catch (final Exception ex)
+			{
+				logger.warn("Failed listening on channel {}. Retrying in {}ms", CHANNEL, RECONNECT_DELAY_MILLIS, ex);
+			}
+			finally
+			{
+				setListening(false);
+				DB.close(conn);
+			}
+
+			try
+			{
+				Thread.sleep(RECONNECT_DELAY_MILLIS);
+			}
+			catch (final InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private static void listen(final Connection conn) throws SQLException
+	{
+		try (final Statement stmt = conn.createStatement())
+		{
+			stmt.execute("LISTEN " + CHANNEL);
+		}
+	}
+
+	private void onNotification(final PGNotification notification)
+	{
+		try
+		{
+			onNotification(Integer.parseInt(notification.getParameter().trim()));
+		}
+		catch (final NumberFormatException ex)
+		{
+			logger.warn("Ignored invalid notification payload: {}", notification.getParameter());
+		}
+	}
+}
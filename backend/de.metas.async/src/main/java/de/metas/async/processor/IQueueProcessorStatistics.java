@@ -40,4 +40,28 @@ public interface IQueueProcessorStatistics
 	long getQueueSize();
 
 	long getCountSkipped();
+
+	/**
+	 * @return how many batches of workpackages were processed (see {@link de.metas.async.spi.IWorkpackageProcessor2#getMaxWorkpackagesPerBatch()}); only tracked on queue processor level
+	 */
+	default long getCountBatches()
+	{
+		return 0;
+	}
+
+	/**
+	 * @return how many workpackages were processed as part of a batch; only tracked on queue processor level
+	 */
+	default long getCountBatchedWorkpackages()
+	{
+		return 0;
+	}
+
+	/**
+	 * @return how many batched workpackages failed and were rolled back to their savepoint (or failed together with their batch's transaction); only tracked on queue processor level
+	 */
+	default long getCountBatchRollbacks()
+	{
+		return 0;
+	}
 }
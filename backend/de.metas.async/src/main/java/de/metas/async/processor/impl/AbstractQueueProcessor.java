@@ -22,6 +22,8 @@ package de.metas.async.processor.impl;
  * #L%
  */
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 import org.adempiere.exceptions.AdempiereException;
@@ -70,7 +72,7 @@ public abstract class AbstractQueueProcessor implements IQueueProcessor
 
 	protected abstract boolean isRunning();
 
-	protected abstract void executeTask(WorkpackageProcessorTask task);
+	protected abstract void executeTask(Runnable task);
 
 	@Override
 	public IWorkPackageQueue getQueue()
@@ -190,12 +192,34 @@ public abstract class AbstractQueueProcessor implements IQueueProcessor
 				return false;
 			}
 		}
+		final List<I_C_Queue_WorkPackage> workPackages = new ArrayList<>();
+		workPackages.add(workPackage);
 		boolean success = false;
 		try
 		{
 			final IWorkpackageProcessor workPackageProcessor = getWorkpackageProcessor(workPackage);
 			final WorkpackageProcessorTask task = new WorkpackageProcessorTask(this, workPackageProcessor, workPackage, logsRepository);
-			executeTask(task);
+
+			final int maxWorkpackagesPerBatch = task.getMaxWorkpackagesPerBatch();
+			if (maxWorkpackagesPerBatch > 1)
+			{
+				workPackages.addAll(queue.pollAndLockCompatible(workPackage, maxWorkpackagesPerBatch - 1));
+			}
+
+			if (workPackages.size() > 1)
+			{
+				final List<WorkpackageProcessorTask> tasks = new ArrayList<>(workPackages.size());
+				tasks.add(task);
+				for (final I_C_Queue_WorkPackage additionalWorkPackage : workPackages.subList(1, workPackages.size()))
+				{
+					tasks.add(new WorkpackageProcessorTask(this, getWorkpackageProcessor(additionalWorkPackage), additionalWorkPackage, logsRepository));
+				}
+				executeTask(new WorkpackagesBatchProcessorTask(this, tasks));
+			}
+			else
+			{
+				executeTask(task);
+			}
 			success = true;
 			return true;
 		}
@@ -203,14 +227,28 @@ public abstract class AbstractQueueProcessor implements IQueueProcessor
 		{
 			if (!success)
 			{
-				logger.info("Submitting for processing next workpackage failed. Trying to unlock {}.", workPackage);
-				queue.unlockNoFail(workPackage);
+				for (final I_C_Queue_WorkPackage workPackageToUnlock : workPackages)
+				{
+					logger.info("Submitting for processing next workpackage failed. Trying to unlock {}.", workPackageToUnlock);
+					queue.unlockNoFail(workPackageToUnlock);
 
-				getEventDispatcher().unregisterListeners(workPackage.getC_Queue_WorkPackage_ID());
+					getEventDispatcher().unregisterListeners(workPackageToUnlock.getC_Queue_WorkPackage_ID());
+				}
 			}
 		}
 	}
 
+	/**
+	 * Called by {@link WorkpackagesBatchProcessorTask} after a batch was processed, additionally to {@link #notifyWorkpackageProcessed(I_C_Queue_WorkPackage, IWorkpackageProcessor)} which is called for each workpackage.
+	 */
+	void notifyBatchProcessed(final int workpackagesCount, final int rolledBackWorkpackagesCount)
+	{
+		synchronized (statistics)
+		{
+			statistics.incrementBatchCounters(workpackagesCount, rolledBackWorkpackagesCount);
+		}
+	}
+
 	@Override
 	public IQueueProcessorStatistics getStatisticsSnapshot()
 	{
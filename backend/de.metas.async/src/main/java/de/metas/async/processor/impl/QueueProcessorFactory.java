@@ -24,15 +24,24 @@ import org.compiere.SpringContextHolder;
  * #L%
  */
 
+import org.adempiere.service.ISysConfigBL;
+import org.adempiere.util.concurrent.ExecutorType;
+
 import de.metas.async.api.IWorkPackageQueue;
 import de.metas.async.api.IWorkpackageLogsRepository;
 import de.metas.async.model.I_C_Queue_Processor;
 import de.metas.async.processor.IQueueProcessor;
 import de.metas.async.processor.IQueueProcessorEventDispatcher;
 import de.metas.async.processor.IQueueProcessorFactory;
+import de.metas.util.Services;
 
 public class QueueProcessorFactory implements IQueueProcessorFactory
 {
+	/**
+	 * The {@link ExecutorType} of the queue processors' worker threads. Can be overridden for one queue processor by appending <code>.</code> and the <code>C_Queue_Processor.Name</code>.
+	 */
+	private static final String SYSCONFIG_ExecutorType = "de.metas.async.ExecutorType";
+
 	private IWorkpackageLogsRepository getLogsRepository()
 	{
 		return SpringContextHolder.instance.getBean(IWorkpackageLogsRepository.class);
@@ -49,7 +58,17 @@ public class QueueProcessorFactory implements IQueueProcessorFactory
 	public IQueueProcessor createAsynchronousQueueProcessor(final I_C_Queue_Processor config, final IWorkPackageQueue queue)
 	{
 		final IWorkpackageLogsRepository logsRepository = getLogsRepository();
-		return new ThreadPoolQueueProcessor(config, queue, logsRepository);
+		return new ThreadPoolQueueProcessor(config, queue, logsRepository, getExecutorType(config));
+	}
+
+	private static ExecutorType getExecutorType(final I_C_Queue_Processor config)
+	{
+		final ISysConfigBL sysConfigBL = Services.get(ISysConfigBL.class);
+
+		final String defaultExecutorType = sysConfigBL.getValue(SYSCONFIG_ExecutorType, ExecutorType.PlatformThreadPool.name());
+		return ExecutorType.ofNullableStringOrDefault(
+				sysConfigBL.getValue(SYSCONFIG_ExecutorType + "." + config.getName(), defaultExecutorType),
+				ExecutorType.PlatformThreadPool);
 	}
 
 	private IQueueProcessorEventDispatcher queueProcessorEventDispatcher = new DefaultQueueProcessorEventDispatcher();
@@ -33,6 +33,9 @@ final class QueueProcessorStatistics implements IMutableQueueProcessorStatistics
 	private long countErrors;
 	private long countSkipped;
 	private long queueSize;
+	private long countBatches;
+	private long countBatchedWorkpackages;
+	private long countBatchRollbacks;
 
 	public QueueProcessorStatistics()
 	{
@@ -41,6 +44,9 @@ final class QueueProcessorStatistics implements IMutableQueueProcessorStatistics
 		countErrors = 0;
 		countSkipped = 0;
 		queueSize = 0;
+		countBatches = 0;
+		countBatchedWorkpackages = 0;
+		countBatchRollbacks = 0;
 	}
 
 	private QueueProcessorStatistics(final QueueProcessorStatistics from)
@@ -50,6 +56,9 @@ final class QueueProcessorStatistics implements IMutableQueueProcessorStatistics
 		countProcessed = from.countProcessed;
 		countSkipped = from.countSkipped;
 		queueSize = from.queueSize;
+		countBatches = from.countBatches;
+		countBatchedWorkpackages = from.countBatchedWorkpackages;
+		countBatchRollbacks = from.countBatchRollbacks;
 	}
 
 	@Override
@@ -124,4 +133,28 @@ final class QueueProcessorStatistics implements IMutableQueueProcessorStatistics
 		countSkipped++;
 	}
 
+	@Override
+	public long getCountBatches()
+	{
+		return countBatches;
+	}
+
+	@Override
+	public long getCountBatchedWorkpackages()
+	{
+		return countBatchedWorkpackages;
+	}
+
+	@Override
+	public long getCountBatchRollbacks()
+	{
+		return countBatchRollbacks;
+	}
+
+	public void incrementBatchCounters(final int workpackagesCount, final int rolledBackWorkpackagesCount)
+	{
+		countBatches++;
+		countBatchedWorkpackages += workpackagesCount;
+		countBatchRollbacks += rolledBackWorkpackagesCount;
+	}
 }
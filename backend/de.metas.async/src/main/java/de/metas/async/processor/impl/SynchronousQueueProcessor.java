@@ -51,7 +51,7 @@ class SynchronousQueueProcessor extends AbstractQueueProcessor
 	}
 
 	@Override
-	protected void executeTask(final WorkpackageProcessorTask task)
+	protected void executeTask(final Runnable task)
 	{
 		task.run();
 	}
@@ -33,6 +33,8 @@ import java.util.concurrent.locks.ReentrantLock;
 
 import org.adempiere.util.concurrent.BlockingExecutorWrapper;
 import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.adempiere.util.concurrent.ExecutorType;
+import org.adempiere.util.concurrent.VirtualThreads;
 import org.slf4j.Logger;
 
 import com.google.common.base.MoreObjects;
@@ -57,7 +59,8 @@ class ThreadPoolQueueProcessor extends AbstractQueueProcessor
 	public ThreadPoolQueueProcessor(
 			final I_C_Queue_Processor config,
 			final IWorkPackageQueue queue,
-			final IWorkpackageLogsRepository logsRepository)
+			final IWorkpackageLogsRepository logsRepository,
+			@NonNull final ExecutorType executorType)
 	{
 		super(queue, logsRepository);
 
@@ -65,6 +68,21 @@ class ThreadPoolQueueProcessor extends AbstractQueueProcessor
 
 		//
 		// Create the tasks executor
+		if (ExecutorType.VirtualThreads.equals(executorType))
+		{
+			// each task runs in its own (virtual) thread; the semaphore of BlockingExecutorWrapper limits them to PoolSize,
+			// so we don't open more database connections than with the platform thread pool
+			this.executor = BlockingExecutorWrapper.builder()
+					.delegate(VirtualThreads.newThreadPerTaskExecutor("async-Worker-" + name))
+					.loggerToUse(loggerForExecutor)
+					.poolSize(config.getPoolSize())
+					.build();
+			if (!VirtualThreads.isSupported())
+			{
+				logger.warn("Virtual threads are not supported by this JVM; {} will start a new platform thread for each workpackage", name);
+			}
+		}
+		else
 		{
 			final CustomizableThreadFactory threadFactory = CustomizableThreadFactory.builder()
 					.setThreadNamePrefix("async-Worker-" + name)
@@ -130,7 +148,7 @@ class ThreadPoolQueueProcessor extends AbstractQueueProcessor
 	}
 
 	@Override
-	protected void executeTask(@NonNull final WorkpackageProcessorTask task)
+	protected void executeTask(@NonNull final Runnable task)
 	{
 		logger.debug("Going to submit task={} to executor={}", task, executor);
 		executor.execute(task);
@@ -176,6 +194,12 @@ class ThreadPoolQueueProcessor extends AbstractQueueProcessor
 		}
 
 		executor.shutdownNow();
+
+		final int countUnlocked = getQueue().unlockClaimedWorkPackagesNoFail();
+		if (countUnlocked > 0)
+		{
+			logger.info("shutdown - Unlocked {} claimed but not processed workpackages", countUnlocked);
+		}
 		logger.info("Shutdown finished");
 
 		running.set(false);
@@ -28,9 +28,11 @@ import java.util.List;
 import java.util.Properties;
 
 import org.adempiere.model.InterfaceWrapperHelper;
+import org.adempiere.service.ISysConfigBL;
 
 import de.metas.async.api.IQueueDAO;
 import de.metas.async.api.IWorkPackageQueue;
+import de.metas.async.api.WorkPackagePollingStrategy;
 import de.metas.async.api.impl.WorkPackageQueue;
 import de.metas.async.model.I_C_Queue_PackageProcessor;
 import de.metas.async.model.I_C_Queue_Processor;
@@ -41,6 +43,17 @@ import de.metas.util.Services;
 
 public class WorkPackageQueueFactory implements IWorkPackageQueueFactory
 {
+	/**
+	 * The {@link WorkPackagePollingStrategy} to be used. Can be overridden for one queue processor by appending <code>.</code> and the <code>C_Queue_Processor.Name</code>.
+	 */
+	private static final String SYSCONFIG_PollingStrategy = "de.metas.async.PollingStrategy";
+
+	/**
+	 * How many work packages shall be claimed at once when using {@link WorkPackagePollingStrategy#SkipLocked}.
+	 * Can be overridden for one queue processor by appending <code>.</code> and the <code>C_Queue_Processor.Name</code>.
+	 */
+	private static final String SYSCONFIG_SkipLocked_ClaimBatchSize = "de.metas.async.SkipLocked.ClaimBatchSize";
+
 	@Override
 	public IWorkPackageQueue getQueueForPackageProcessing(final I_C_Queue_Processor processor)
 	{
@@ -55,7 +68,18 @@ public class WorkPackageQueueFactory implements IWorkPackageQueueFactory
 		final Properties ctx = InterfaceWrapperHelper.getCtx(processor);
 		final String priorityFrom = processor.getPriority();
 
-		return WorkPackageQueue.createForQueueProcessing(ctx, packageProcessorIds, priorityFrom);
+		final ISysConfigBL sysConfigBL = Services.get(ISysConfigBL.class);
+		final String processorSuffix = "." + processor.getName();
+
+		final String defaultPollingStrategy = sysConfigBL.getValue(SYSCONFIG_PollingStrategy, WorkPackagePollingStrategy.TLock.name());
+		final WorkPackagePollingStrategy pollingStrategy = WorkPackagePollingStrategy.ofNullableStringOrDefault(
+				sysConfigBL.getValue(SYSCONFIG_PollingStrategy + processorSuffix, defaultPollingStrategy),
+				WorkPackagePollingStrategy.TLock);
+
+		final int defaultClaimBatchSize = sysConfigBL.getIntValue(SYSCONFIG_SkipLocked_ClaimBatchSize, 1);
+		final int claimBatchSize = sysConfigBL.getIntValue(SYSCONFIG_SkipLocked_ClaimBatchSize + processorSuffix, defaultClaimBatchSize);
+
+		return WorkPackageQueue.createForQueueProcessing(ctx, packageProcessorIds, priorityFrom, pollingStrategy, claimBatchSize);
 	}
 
 	@Override
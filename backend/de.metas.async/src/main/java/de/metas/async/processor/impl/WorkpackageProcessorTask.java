@@ -166,7 +166,7 @@ class WorkpackageProcessorTask implements Runnable
 	private void run0()
 	{
 		final Properties processingCtx = createProcessingCtx();
-		final WorkpackageLoggable loggable = createLoggable(workPackage);
+		final WorkpackageLoggable loggable = createLoggable();
 
 		boolean finallyReleaseElementLockIfAny = true; // task 08999: only release the lock if there is no skip request.
 
@@ -210,25 +210,101 @@ class WorkpackageProcessorTask implements Runnable
 
 			//
 			// Mark as processed if success
-			if (Result.SUCCESS.equals(resultRef.getValue()))
-			{
-				// only mark the package as processed, when the processor indicates that it has been processed
-				markProcessed(workPackage);
+			markProcessedIfSuccess(resultRef.getValue());
+		}
+		catch (final Throwable ex)
+		{
+			finallyReleaseElementLockIfAny = handleProcessingException(ex, loggable);
+		}
+		finally
+		{
+			afterWorkpackageProcessed(finallyReleaseElementLockIfAny);
+			loggable.flush();
+		}
+	}
 
-				//
-				// create notification record if needed
-				iAsyncBatchBL.createNotificationRecord(workPackage);
+	/**
+	 * Processes the workpackage in the current thread inherited transaction. Used when the workpackage is processed as part of a {@link WorkpackagesBatchProcessorTask}.
+	 * <p>
+	 * NOTE: the workpackage is not marked as processed here, because the transaction was not yet committed. The caller is responsible to call {@link #completeBatchedProcessing(Throwable, WorkpackageLoggable)} afterwards.
+	 */
+	void processInBatchTransaction(@NonNull final WorkpackageLoggable loggable)
+	{
+		try (final IAutoCloseable contextRestorer = Env.switchContext(createProcessingCtx());
+				final IAutoCloseable loggableRestorer = Loggables.temporarySetLoggable(loggable);
+				final MDCCloseable workPackageMDC = TableRecordMDC.putTableRecordReference(workPackage);
+				final MDCCloseable queueProcessorMDC = MDC.putCloseable("queueProcessor.name", queueProcessor.getName()))
+		{
+			markStartProcessing(workPackage);
 
-				// increase processed counter
-				iAsyncBatchBL.increaseProcessed(workPackage);
+			final Result result = processWorkpackage(ITrx.TRXNAME_ThreadInherited);
+			if (!Result.SUCCESS.equals(result))
+			{
+				throw new IllegalStateException("Result " + result + " not supported for workPackage=" + workPackage);
+			}
+		}
+	}
+
+	/**
+	 * Marks the workpackage as processed, skipped or error after the batch transaction was committed, releases the locks and notifies the queue processor.
+	 *
+	 * @param processingException the exception which made this workpackage's changes to be rolled back (or the whole batch transaction to fail); <code>null</code> if processing was successful
+	 */
+	void completeBatchedProcessing(@Nullable final Throwable processingException, @NonNull final WorkpackageLoggable loggable)
+	{
+		boolean finallyReleaseElementLockIfAny = true; // task 08999: only release the lock if there is no skip request.
+		try
+		{
+			if (processingException != null)
+			{
+				finallyReleaseElementLockIfAny = handleProcessingException(processingException, loggable);
 			}
 			else
 			{
-				throw new IllegalStateException("Result " + resultRef.getValue() + " not supported for workPackage=" + workPackage);
+				markProcessedIfSuccess(Result.SUCCESS);
 			}
 		}
-		catch (final DBDeadLockDetectedException e)
+		catch (final Throwable ex)
+		{
+			finallyReleaseElementLockIfAny = handleProcessingException(ex, loggable);
+		}
+		finally
+		{
+			afterWorkpackageProcessed(finallyReleaseElementLockIfAny);
+			loggable.flush();
+		}
+	}
+
+	private void markProcessedIfSuccess(final Result result)
+	{
+		if (Result.SUCCESS.equals(result))
+		{
+			// only mark the package as processed, when the processor indicates that it has been processed
+			markProcessed(workPackage);
+
+			//
+			// create notification record if needed
+			iAsyncBatchBL.createNotificationRecord(workPackage);
+
+			// increase processed counter
+			iAsyncBatchBL.increaseProcessed(workPackage);
+		}
+		else
+		{
+			throw new IllegalStateException("Result " + result + " not supported for workPackage=" + workPackage);
+		}
+	}
+
+	/**
+	 * Marks the workpackage as skipped or error, depending on given exception.
+	 *
+	 * @return true if the workpackage elements lock (if any) shall be released
+	 */
+	private boolean handleProcessingException(@NonNull final Throwable ex, @NonNull final WorkpackageLoggable loggable)
+	{
+		if (ex instanceof DBDeadLockDetectedException)
 		{
+			final DBDeadLockDetectedException e = (DBDeadLockDetectedException)ex;
 			if (retryOnDeadLock)
 			{
 				// task 08999: if there is a deadlock, retry in five seconds
@@ -238,35 +314,58 @@ class WorkpackageProcessorTask implements Runnable
 				loggable.addLog(msg);
 
 				final WorkpackageSkipRequestException skipRequest = WorkpackageSkipRequestException.createWithTimeoutAndThrowable(msg, retryms, e);
-				finallyReleaseElementLockIfAny = false; // task 08999: don't release the lock yet, because we are going to retry later
 				markSkipped(workPackage, skipRequest);
+				return false; // task 08999: don't release the lock yet, because we are going to retry later
 			}
 			else
 			{
 				markError(workPackage, e);
+				return true;
 			}
 		}
-		catch (final Throwable ex)
+
+		final IWorkpackageSkipRequest skipRequest = getWorkpackageSkipRequest(ex);
+		if (skipRequest != null)
 		{
-			final IWorkpackageSkipRequest skipRequest = getWorkpackageSkipRequest(ex);
-			if (skipRequest != null)
-			{
-				finallyReleaseElementLockIfAny = false; // task 08999: don't release the lock yet, because we are going to retry later
-				markSkipped(workPackage, skipRequest);
-			}
-			else
-			{
-				markError(workPackage, AdempiereException.wrapIfNeeded(ex));
-			}
+			markSkipped(workPackage, skipRequest);
+			return false; // task 08999: don't release the lock yet, because we are going to retry later
 		}
-		finally
+		else
 		{
-			afterWorkpackageProcessed(finallyReleaseElementLockIfAny);
-			loggable.flush();
+			markError(workPackage, AdempiereException.wrapIfNeeded(ex));
+			return true;
 		}
 	}
 
-	private WorkpackageLoggable createLoggable(@NonNull final I_C_Queue_WorkPackage workPackage)
+	I_C_Queue_WorkPackage getWorkPackage()
+	{
+		return workPackage;
+	}
+
+	IQueueProcessor getQueueProcessor()
+	{
+		return queueProcessor;
+	}
+
+	/**
+	 * @return how many workpackages of this task's processor may be processed together in one transaction; 1 means no batching
+	 * @see IWorkpackageProcessor2#getMaxWorkpackagesPerBatch()
+	 */
+	int getMaxWorkpackagesPerBatch()
+	{
+		if (!workPackageProcessorWrapped.isRunInTransaction())
+		{
+			return 1;
+		}
+		return Math.max(workPackageProcessorWrapped.getMaxWorkpackagesPerBatch(), 1);
+	}
+
+	String getTrxNamePrefix()
+	{
+		return trxNamePrefix;
+	}
+
+	WorkpackageLoggable createLoggable()
 	{
 		final UserId userId = UserId.ofRepoIdOrNull(workPackage.getAD_User_ID()); // NOTE: in junit tests this is -1/null when it's not saved
 
@@ -0,0 +1,153 @@
+package de.metas.async.processor.impl;
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.ad.trx.api.ITrxRunConfig;
+import org.adempiere.ad.trx.api.ITrxRunConfig.OnRunnableFail;
+import org.adempiere.ad.trx.api.ITrxRunConfig.OnRunnableSuccess;
+import org.adempiere.ad.trx.api.ITrxRunConfig.TrxPropagation;
+import org.adempiere.ad.trx.api.ITrxSavepoint;
+import org.adempiere.ad.trx.api.OnTrxMissingPolicy;
+import org.compiere.SpringContextHolder;
+import org.compiere.util.TrxRunnable;
+import org.slf4j.Logger;
+
+import com.google.common.collect.ImmutableList;
+
+import de.metas.logging.LogManager;
+import de.metas.monitoring.adapter.NoopPerformanceMonitoringService;
+import de.metas.monitoring.adapter.PerformanceMonitoringService;
+import de.metas.monitoring.adapter.PerformanceMonitoringService.TransactionMetadata;
+import de.metas.monitoring.adapter.PerformanceMonitoringService.Type;
+import de.metas.util.Check;
+import de.metas.util.Services;
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * Processes several workpackages of the same workpackage processor in one transaction, one after the other.
+ * <p>
+ * Each workpackage is processed in its own savepoint. If a workpackage fails, only its changes are rolled back and the other workpackages of the batch are still committed.
+ * After the transaction was committed (or failed), each workpackage is marked as processed, skipped or error and unlocked, just like when it's processed by a {@link WorkpackageProcessorTask}.
+ * <p>
+ * NOTE: the transaction listeners which were registered by a failed workpackage are not removed when rolling back to its savepoint.
+ *
+ * @see de.metas.async.spi.IWorkpackageProcessor2#getMaxWorkpackagesPerBatch()
+ */
+@ToString(of = "tasks")
+class WorkpackagesBatchProcessorTask implements Runnable
+{
+	private static final transient Logger logger = LogManager.getLogger(WorkpackagesBatchProcessorTask.class);
+
+	private final AbstractQueueProcessor queueProcessor;
+	private final ImmutableList<WorkpackageProcessorTask> tasks;
+
+	public WorkpackagesBatchProcessorTask(
+			@NonNull final AbstractQueueProcessor queueProcessor,
+			@NonNull final List<WorkpackageProcessorTask> tasks)
+	{
+		Check.assumeNotEmpty(tasks, "tasks is not empty");
+
+		this.queueProcessor = queueProcessor;
+		this.tasks = ImmutableList.copyOf(tasks);
+	}
+
+	@Override
+	public void run()
+	{
+		final PerformanceMonitoringService service = SpringContextHolder.instance.getBeanOr(
+				PerformanceMonitoringService.class,
+				NoopPerformanceMonitoringService.INSTANCE);
+
+		service.monitorTransaction(
+				() -> run0(),
+				TransactionMetadata.builder()
+						.type(Type.ASYNC_WORKPACKAGE)
+						.name("Workpackage-Processor - " + queueProcessor.getName())
+						.label("de.metas.async.queueProcessor.name", queueProcessor.getName())
+						.label("de.metas.async.C_Queue_WorkPackage_ID", Integer.toString(tasks.get(0).getWorkPackage().getC_Queue_WorkPackage_ID()))
+						.label("de.metas.async.batchSize", Integer.toString(tasks.size()))
+						.build());
+	}
+
+	private void run0()
+	{
+		final Map<WorkpackageProcessorTask, WorkpackageLoggable> loggables = new IdentityHashMap<>();
+		for (final WorkpackageProcessorTask task : tasks)
+		{
+			loggables.put(task, task.createLoggable());
+		}
+
+		final Map<WorkpackageProcessorTask, Throwable> failures = new IdentityHashMap<>();
+
+		final ITrxManager trxManager = Services.get(ITrxManager.class);
+		final ITrxRunConfig trxRunConfig = trxManager.newTrxRunConfigBuilder()
+				.setTrxPropagation(TrxPropagation.REQUIRES_NEW).setOnRunnableSuccess(OnRunnableSuccess.COMMIT).setOnRunnableFail(OnRunnableFail.ROLLBACK)
+				.build();
+		try
+		{
+			trxManager.run(
+					tasks.get(0).getTrxNamePrefix(),
+					trxRunConfig,
+					(TrxRunnable)localTrxName -> {
+						final ITrx trx = trxManager.get(localTrxName, OnTrxMissingPolicy.Fail);
+						for (final WorkpackageProcessorTask task : tasks)
+						{
+							final ITrxSavepoint savepoint = trx.createTrxSavepoint(null);
+							try
+							{
+								task.processInBatchTransaction(loggables.get(task));
+								trx.releaseSavepoint(savepoint);
+							}
+							catch (final Throwable ex)
+							{
+								failures.put(task, ex);
+								trx.rollback(savepoint);
+							}
+						}
+					});
+		}
+		catch (final Throwable ex)
+		{
+			// the batch transaction failed, so also the changes of the workpackages which were processed successfully (or not at all) are lost
+			logger.warn("Failed processing the batch of {} workpackages", tasks.size(), ex);
+			for (final WorkpackageProcessorTask task : tasks)
+			{
+				failures.putIfAbsent(task, ex);
+			}
+		}
+
+		for (final WorkpackageProcessorTask task : tasks)
+		{
+			task.completeBatchedProcessing(failures.get(task), loggables.get(task));
+		}
+
+		queueProcessor.notifyBatchProcessed(tasks.size(), failures.size());
+	}
+}
@@ -88,4 +88,18 @@ public interface IWorkpackageProcessor2 extends IWorkpackageProcessor
 	Optional<ILock> getElementsLock();
 
 	ILatchStragegy getLatchStrategy();
+
+	/**
+	 * Allows the queue processor to claim up to this many workpackages of this processor at once and to process them one after the other, in the same transaction.
+	 * Each workpackage is processed in its own savepoint, so a failing workpackage only rolls back its own changes.
+	 * <p>
+	 * Consider returning more than one for processors with tiny workpackages, where the per-workpackage transaction and locking overhead dominates.
+	 * Note that the batching is used only if {@link #isRunInTransaction()} is <code>true</code>.
+	 *
+	 * @return max number of workpackages per batch; 1 means no batching
+	 */
+	default int getMaxWorkpackagesPerBatch()
+	{
+		return 1;
+	}
 }
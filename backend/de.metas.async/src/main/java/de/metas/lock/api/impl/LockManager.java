@@ -25,24 +25,48 @@ package de.metas.lock.api.impl;
 
 import org.adempiere.ad.dao.IQueryBuilder;
 import org.adempiere.ad.dao.IQueryFilter;
+import org.adempiere.service.ISysConfigBL;
 import org.compiere.model.IQuery;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+
 import de.metas.lock.api.ILock;
 import de.metas.lock.api.ILockCommand;
 import de.metas.lock.api.ILockManager;
 import de.metas.lock.api.IUnlockCommand;
 import de.metas.lock.api.LockOwner;
 import de.metas.lock.spi.ILockDatabase;
+import de.metas.lock.spi.impl.AdvisoryLockDatabase;
 import de.metas.lock.spi.impl.SqlLockDatabase;
 import de.metas.util.Check;
+import de.metas.util.Services;
 
 public class LockManager implements ILockManager
 {
-	private final ILockDatabase lockDatabase = new SqlLockDatabase();
+	/**
+	 * Which {@link ILockDatabase} shall be used: <code>T_Lock</code> (default, see {@link SqlLockDatabase}) or <code>AdvisoryLocks</code> (see {@link AdvisoryLockDatabase}).
+	 * All nodes which are working on the same database must use the same value, so it's read only once.
+	 * Note that SQL which checks <code>T_Lock</code> directly does not see advisory locks; see {@link AdvisoryLockDatabase}.
+	 */
+	private static final String SYSCONFIG_LockDatabase = "de.metas.lock.LockDatabase";
+	private static final String LOCKDATABASE_AdvisoryLocks = "AdvisoryLocks";
+
+	private final Supplier<ILockDatabase> lockDatabaseSupplier = Suppliers.memoize(LockManager::createLockDatabase);
+
+	private static ILockDatabase createLockDatabase()
+	{
+		final String lockDatabaseType = Services.get(ISysConfigBL.class).getValue(SYSCONFIG_LockDatabase, "T_Lock");
+		if (LOCKDATABASE_AdvisoryLocks.equalsIgnoreCase(lockDatabaseType.trim()))
+		{
+			return new AdvisoryLockDatabase();
+		}
+		return new SqlLockDatabase();
+	}
 
 	public ILockDatabase getLockDatabase()
 	{
-		return lockDatabase;
+		return lockDatabaseSupplier.get();
 	}
 
 	@Override
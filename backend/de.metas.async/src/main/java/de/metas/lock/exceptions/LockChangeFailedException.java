@@ -41,6 +41,11 @@ public class LockChangeFailedException extends LockException
 	 */
 	private static final long serialVersionUID = -6916683766355333023L;
 
+	public LockChangeFailedException(final String message)
+	{
+		super(message);
+	}
+
 	public LockChangeFailedException(final String message, final Throwable cause)
 	{
 		super(message, cause);
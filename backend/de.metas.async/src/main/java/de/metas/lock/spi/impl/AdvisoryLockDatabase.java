@@ -0,0 +1,902 @@
+package de.metas.lock.spi.impl;
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+import org.adempiere.ad.dao.IQueryFilter;
+import org.adempiere.ad.dao.ISqlQueryFilter;
+import org.adempiere.ad.table.api.IADTableDAO;
+import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.model.InterfaceWrapperHelper;
+import org.adempiere.util.concurrent.CloseableReentrantLock;
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.adempiere.util.lang.impl.TableRecordReference;
+import org.compiere.util.DB;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+import de.metas.lock.api.ILock;
+import de.metas.lock.api.ILockCommand;
+import de.metas.lock.api.IUnlockCommand;
+import de.metas.lock.api.LockOwner;
+import de.metas.lock.exceptions.LockChangeFailedException;
+import de.metas.lock.exceptions.LockFailedException;
+import de.metas.lock.model.I_T_Lock;
+import de.metas.lock.spi.ILockDatabase;
+import de.metas.process.PInstanceId;
+import de.metas.util.Check;
+import de.metas.util.Services;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * {@link ILockDatabase} implementation which uses PostgreSQL session level advisory locks instead of <code>T_Lock</code> records.
+ * <p>
+ * Each locked record is one advisory lock with the key (<code>AD_Table_ID</code>, <code>Record_ID</code>), so locking and unlocking does not create dead tuples
+ * and the "not locked" where clauses are checking <code>pg_locks</code> instead of a <code>NOT EXISTS</code> subquery on a table.
+ * Locks which were acquired with {@link ILockCommand.AllowAdditionalLocks#FOR_DIFFERENT_OWNERS} are shared advisory locks, all others are exclusive ones.
+ * <p>
+ * The database does not know lock owners, so they are kept in an in-memory index of this JVM. That means:
+ * <ul>
+ * <li>everything which is filtering by a particular {@link LockOwner} (incl. {@link LockOwner#NONE}) only sees the advisory locks which were acquired by this JVM.
+ * <li>"is locked by anybody" checks are also seeing the advisory locks of the other JVMs.
+ * <li>if this JVM dies, its advisory locks are released by the database right away, so there are no stale locks to be cleaned up.
+ * </ul>
+ * <p>
+ * That's why locks which are not {@link ILockCommand#isAutoCleanup() auto cleanup} are stored in <code>T_Lock</code>, like {@link SqlLockDatabase} does.
+ * Those locks shall outlive this JVM and might be released or changed by another node, e.g. the elements lock of an async workpackage
+ * is acquired by the node which enqueued the workpackage and released by the node which processed it.
+ * A record is locked either by advisory locks or in <code>T_Lock</code>, never by both: the <code>T_Lock</code> records are inserted
+ * while holding the record's exclusive advisory lock, and after acquiring an advisory lock we check that there is no <code>T_Lock</code> record.
+ * All checks and where clauses are considering both.
+ * <p>
+ * All advisory locks are held by one dedicated database session (see {@link AdvisoryLockSession}), which is validated every {@value #SESSION_VALIDATION_INTERVAL_SECONDS} seconds.
+ * If it broke, the locks are acquired again; the ones which were locked by another node meanwhile are lost.
+ * Like the in-memory index, that session is guarded by one lock, so the lock and unlock commands of this JVM are executed one after the other.
+ * Acquiring advisory locks needs two database roundtrips (lock and <code>T_Lock</code> check), also for many records.
+ * <p>
+ * <b>Important:</b> SQL which checks <code>T_Lock</code> directly does not see the advisory locks, i.e. it considers the records which are locked with auto cleanup as not locked.
+ * Don't use this implementation if your processes depend on such SQL for auto cleanup locks.
+ * <p>
+ * All JVMs which are working on the same database must use the same lock database implementation.
+ * Transaction level advisory locks are not used, because our locks are acquired out of transaction and are usually released by another transaction or thread.
+ * The advisory locks are using the two <code>integer</code> keys form, so other code which uses advisory locks shall use the single <code>bigint</code> key form.
+ *
+ * @see SqlLockDatabase
+ */
+public class AdvisoryLockDatabase extends SqlLockDatabase
+{
+	/** Matches the advisory locks of this database which were acquired using the two <code>integer</code> keys form, in <code>pg_locks zz</code> */
+	private static final String SQL_AdvisoryLocksWhereClause = "zz.locktype='advisory' AND zz.objsubid=2 AND zz.granted"
+			+ " AND zz.database=(SELECT d.oid FROM pg_database d WHERE d.datname=current_database())";
+
+	private final CloseableReentrantLock mainLock = new CloseableReentrantLock();
+	// NOTE: following fields shall be accessed only while holding the mainLock
+	private final Map<LockKey, RecordLocks> locks = new HashMap<>();
+	private final Map<LockOwner, Set<LockKey>> keysByOwner = new HashMap<>();
+
+	private final AdvisoryLockSession session = new AdvisoryLockSession(this::reacquireAllLocks);
+
+	private static final int SESSION_VALIDATION_INTERVAL_SECONDS = 10;
+
+	public AdvisoryLockDatabase()
+	{
+		final ScheduledExecutorService sessionValidationExecutor = Executors.newSingleThreadScheduledExecutor(
+				CustomizableThreadFactory.builder()
+						.setDaemon(true)
+						.setThreadNamePrefix("advisory-locks-session-validation")
+						.build());
+		sessionValidationExecutor.scheduleWithFixedDelay(
+				this::validateSession,
+				SESSION_VALIDATION_INTERVAL_SECONDS,
+				SESSION_VALIDATION_INTERVAL_SECONDS,
+				TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Makes sure that we notice a broken session and re-acquire our locks, also if there are no lock requests.
+	 */
+	private void validateSession()
+	{
+		// NOTE: we need the mainLock, because the session might call reacquireAllLocks
+		try (final CloseableReentrantLock l = mainLock.open())
+		{
+			session.validate();
+		}
+		catch (final Exception ex)
+		{
+			logger.warn("Failed validating the advisory locks session. Will retry.", ex);
+		}
+	}
+
+	private static LockKey createKeyForRecord(final TableRecordReference record)
+	{
+		return LockKey.of(record.getAD_Table_ID(), record.getRecord_ID());
+	}
+
+	@Override
+	public boolean isLocked(final int adTableId, final int recordId, final LockOwner lockOwner)
+	{
+		Check.assume(adTableId > 0, "asTableId > 0");
+
+		if (recordId < 0)
+		{
+			return false;
+		}
+
+		final LockKey key = LockKey.of(adTableId, recordId);
+		try (final CloseableReentrantLock l = mainLock.open())
+		{
+			final RecordLocks recordLocks = locks.get(key);
+			if (recordLocks != null && recordLocks.isLockedBy(lockOwner))
+			{
+				return true;
+			}
+		}
+
+		if (super.isLocked(adTableId, recordId, lockOwner))
+		{
+			return true;
+		}
+
+		// Advisory locks of a particular owner are only known by us
+		if (lockOwner != null && !lockOwner.isAnyOwner())
+		{
+			return false;
+		}
+
+		final String sql = "SELECT COUNT(1) FROM pg_locks zz WHERE " + SQL_AdvisoryLocksWhereClause
+				+ " AND zz.classid=" + adTableId + "::oid"
+				+ " AND zz.objid=" + recordId + "::oid";
+		return DB.getSQLValueEx(ITrx.TRXNAME_None, sql) > 0;
+	}
+
+	@Override
+	protected boolean lockRecord(final ILockCommand lockCommand, final TableRecordReference record)
+	{
+		Check.assumeNotNull(record, "record not null");
+
+		final int adTableId = record.getAD_Table_ID();
+		Check.assume(adTableId > 0, "adTableId > 0");
+
+		final int recordId = record.getRecord_ID();
+		if (recordId < 0)
+		{
+			return false;
+		}
+
+		final boolean failIfAlreadyLocked = lockCommand.isFailIfAlreadyLocked();
+		final int countLocked;
+		if (lockCommand.isAutoCleanup())
+		{
+			countLocked = lockRecords(lockCommand, adTableId, ImmutableList.of(recordId), failIfAlreadyLocked);
+		}
+		else
+		{
+			countLocked = lockRecordsInTLock(lockCommand, adTableId, ImmutableList.of(recordId), failIfAlreadyLocked,
+					recordIdsGuarded -> !recordIdsGuarded.isEmpty() && super.lockRecord(lockCommand, record) ? 1 : 0);
+		}
+		if (countLocked <= 0 && failIfAlreadyLocked)
+		{
+			throw new LockFailedException("Record was already locked: " + record)
+					.setLockCommand(lockCommand)
+					.setRecordToLock(record);
+		}
+
+		return countLocked > 0;
+	}
+
+	@Override
+	protected int lockBySelection(final ILockCommand lockCommand)
+	{
+		final int adTableId = lockCommand.getSelectionToLock_AD_Table_ID();
+		Check.assume(adTableId > 0, "adTableId > 0");
+
+		final PInstanceId pinstanceId = lockCommand.getSelectionToLock_AD_PInstance_ID();
+		Check.assumeNotNull(pinstanceId, "pinstanceId not null");
+
+		final List<Integer> recordIds = retrieveSelectionRecordIds(adTableId, pinstanceId);
+		return lockSelectedRecords(lockCommand, adTableId, recordIds);
+	}
+
+	@Override
+	protected int lockByFilters(final ILockCommand lockCommand)
+	{
+		final IQueryFilter<?> selectionToLockFilters = lockCommand.getSelectionToLock_Filters();
+		if (!(selectionToLockFilters instanceof ISqlQueryFilter))
+		{
+			Check.errorIf(true, "Currently we just support ISqlQueryFilters. This filter is not supported: {}", selectionToLockFilters);
+		}
+
+		final int adTableId = lockCommand.getSelectionToLock_AD_Table_ID();
+		final String tableName = Services.get(IADTableDAO.class).retrieveTableName(adTableId);
+		final ISqlQueryFilter sqlFilter = ISqlQueryFilter.cast(selectionToLockFilters);
+
+		final String sql = "SELECT " + tableName + "_ID FROM " + tableName + " WHERE (" + sqlFilter.getSql() + ")";
+		final List<Integer> recordIds = DB.retrieveRowsOutOfTrx(sql, sqlFilter.getSqlParams(null), rs -> rs.getInt(1));
+
+		return lockSelectedRecords(lockCommand, adTableId, recordIds);
+	}
+
+	/**
+	 * Like {@link SqlLockDatabase}, the records of a selection are locked all or nothing.
+	 */
+	private int lockSelectedRecords(final ILockCommand lockCommand, final int adTableId, final List<Integer> recordIds)
+	{
+		final LockOwner lockOwner = lockCommand.getOwner();
+		assertValidLockOwner(lockOwner);
+
+		if (!lockCommand.isAutoCleanup())
+		{
+			return lockRecordsInTLock(lockCommand, adTableId, recordIds, true,
+					recordIdsGuarded -> insertTLockRecords(lockCommand, adTableId, recordIdsGuarded));
+		}
+
+		final int countLocked = lockRecords(lockCommand, adTableId, recordIds, true);
+		if (countLocked <= 0 && lockCommand.isFailIfNothingLocked())
+		{
+			throw new LockFailedException("Nothing locked for selection");
+		}
+
+		return countLocked;
+	}
+
+	/**
+	 * @param allOrNothing if true and not all records could be locked, nothing is locked and a {@link LockFailedException} is thrown
+	 * @return how many records were locked
+	 */
+	private int lockRecords(
+			@NonNull final ILockCommand lockCommand,
+			final int adTableId,
+			@NonNull final Collection<Integer> recordIds,
+			final boolean allOrNothing)
+	{
+		final LockOwner lockOwner = lockCommand.getOwner();
+		assertValidLockOwner(lockOwner);
+
+		final LockInfo lockInfo = new LockInfo(lockOwner, lockCommand.isAutoCleanup(), isAllowMultipleOwners(lockCommand.getAllowAdditionalLocks()));
+
+		try (final CloseableReentrantLock l = mainLock.open())
+		{
+			//
+			// Check our own locks first; the database would grant us all advisory locks we already have
+			final List<Integer> recordIdsToLockInDatabase = new ArrayList<>();
+			final List<Integer> recordIdsToAddOwner = new ArrayList<>();
+			for (final Integer recordId : recordIds)
+			{
+				final RecordLocks recordLocks = locks.get(LockKey.of(adTableId, recordId));
+				if (recordLocks == null)
+				{
+					recordIdsToLockInDatabase.add(recordId);
+				}
+				else if (recordLocks.canAddLock(lockInfo))
+				{
+					recordIdsToAddOwner.add(recordId);
+				}
+				else if (allOrNothing)
+				{
+					throw new LockFailedException("Some of the records were already locked")
+							.setLockCommand(lockCommand)
+							.setRecordToLock(TableRecordReference.of(adTableId, recordId));
+				}
+			}
+
+			//
+			// Acquire the advisory locks
+			final Set<Integer> recordIdsLockedInDatabase = tryLockAdvisory(adTableId, recordIdsToLockInDatabase, lockInfo.isAllowMultipleOwners());
+			if (allOrNothing && recordIdsLockedInDatabase.size() < recordIdsToLockInDatabase.size())
+			{
+				session.unlock(adTableId, recordIdsLockedInDatabase, lockInfo.isAllowMultipleOwners());
+				throw new LockFailedException("Some of the records were already locked by another node")
+						.setLockCommand(lockCommand);
+			}
+
+			//
+			// Register them
+			for (final Integer recordId : recordIdsLockedInDatabase)
+			{
+				final LockKey key = LockKey.of(adTableId, recordId);
+				locks.put(key, new RecordLocks(lockInfo.isAllowMultipleOwners()));
+				addLock(key, lockInfo);
+			}
+			for (final Integer recordId : recordIdsToAddOwner)
+			{
+				addLock(LockKey.of(adTableId, recordId), lockInfo);
+			}
+
+			return recordIdsLockedInDatabase.size() + recordIdsToAddOwner.size();
+		}
+	}
+
+	/**
+	 * Acquires the advisory locks of given records, except for those which are locked in <code>T_Lock</code>.
+	 *
+	 * @return the record IDs which were locked
+	 */
+	private Set<Integer> tryLockAdvisory(final int adTableId, final Collection<Integer> recordIds, final boolean shared)
+	{
+		final Set<Integer> recordIdsLocked = session.tryLock(adTableId, recordIds, shared);
+
+		// NOTE: checking after acquiring the advisory locks, because the T_Lock records are only inserted while holding them
+		final Set<Integer> recordIdsLockedInTLock = retrieveRecordIdsLockedInTLock(adTableId, recordIdsLocked);
+		if (recordIdsLockedInTLock.isEmpty())
+		{
+			return recordIdsLocked;
+		}
+
+		session.unlock(adTableId, recordIdsLockedInTLock, shared);
+		return ImmutableSet.copyOf(Sets.difference(recordIdsLocked, recordIdsLockedInTLock));
+	}
+
+	private static Set<Integer> retrieveRecordIdsLockedInTLock(final int adTableId, final Collection<Integer> recordIds)
+	{
+		if (recordIds.isEmpty())
+		{
+			return ImmutableSet.of();
+		}
+
+		final String sql = "SELECT DISTINCT " + I_T_Lock.COLUMNNAME_Record_ID + " FROM " + I_T_Lock.Table_Name
+				+ " WHERE " + I_T_Lock.COLUMNNAME_AD_Table_ID + "=" + adTableId
+				+ " AND " + I_T_Lock.COLUMNNAME_Record_ID + " = ANY(" + toSqlIntegerArray(recordIds) + ")";
+		return ImmutableSet.copyOf(DB.retrieveRowsOutOfTrx(sql, null, rs -> rs.getInt(1)));
+	}
+
+	private static String toSqlIntegerArray(final Collection<Integer> recordIds)
+	{
+		return "'{" + recordIds.stream().map(String::valueOf).collect(Collectors.joining(",")) + "}'::integer[]";
+	}
+
+	/**
+	 * Locks given records in <code>T_Lock</code>, for the locks which shall outlive this JVM.
+	 * <p>
+	 * The <code>T_Lock</code> records are inserted while holding the exclusive advisory locks of those records,
+	 * so nobody can acquire an advisory lock for them meanwhile. The advisory locks are released right after.
+	 *
+	 * @param allOrNothing if true and not all records could be guarded, nothing is locked and a {@link LockFailedException} is thrown
+	 * @param insertTLockRecords inserts the <code>T_Lock</code> records for the given (guarded) record IDs and returns how many records were locked
+	 * @return how many records were locked
+	 */
+	private int lockRecordsInTLock(
+			@NonNull final ILockCommand lockCommand,
+			final int adTableId,
+			@NonNull final Collection<Integer> recordIds,
+			final boolean allOrNothing,
+			@NonNull final ToIntFunction<Set<Integer>> insertTLockRecords)
+	{
+		try (final CloseableReentrantLock l = mainLock.open())
+		{
+			// The database would grant us the advisory locks we already have, so those records need to be checked by us
+			final List<Integer> recordIdsToGuard = new ArrayList<>();
+			for (final Integer recordId : recordIds)
+			{
+				if (!locks.containsKey(LockKey.of(adTableId, recordId)))
+				{
+					recordIdsToGuard.add(recordId);
+				}
+				else if (allOrNothing)
+				{
+					throw new LockFailedException("Some of the records were already locked")
+							.setLockCommand(lockCommand)
+							.setRecordToLock(TableRecordReference.of(adTableId, recordId));
+				}
+			}
+
+			final Set<Integer> recordIdsGuarded = session.tryLock(adTableId, recordIdsToGuard, false);
+			try
+			{
+				if (allOrNothing && recordIdsGuarded.size() < recordIdsToGuard.size())
+				{
+					throw new LockFailedException("Some of the records were already locked by another node")
+							.setLockCommand(lockCommand);
+				}
+
+				return insertTLockRecords.applyAsInt(recordIdsGuarded);
+			}
+			finally
+			{
+				session.unlock(adTableId, recordIdsGuarded, false);
+			}
+		}
+	}
+
+	private int insertTLockRecords(final ILockCommand lockCommand, final int adTableId, final Set<Integer> recordIds)
+	{
+		final List<Object> sqlParams = Arrays.asList(
+				adTableId,
+				lockCommand.getOwner().getOwnerName(),
+				lockCommand.isAutoCleanup(),
+				isAllowMultipleOwners(lockCommand.getAllowAdditionalLocks()));
+		final String sql = "INSERT INTO " + I_T_Lock.Table_Name + " ("
+				+ I_T_Lock.COLUMNNAME_AD_Table_ID
+				+ ", " + I_T_Lock.COLUMNNAME_Record_ID
+				+ ", " + I_T_Lock.COLUMNNAME_Owner
+				+ ", " + I_T_Lock.COLUMNNAME_IsAutoCleanup
+				+ ", " + I_T_Lock.COLUMNNAME_IsAllowMultipleOwners
+				+ ")"
+				+ " SELECT ?, k, ?, ?, ? FROM unnest(" + toSqlIntegerArray(recordIds) + ") k";
+
+		return performLockSQLInsert(lockCommand, sqlParams, sql);
+	}
+
+	private void addLock(final LockKey key, final LockInfo lockInfo)
+	{
+		locks.get(key).addLock(lockInfo);
+		keysByOwner.computeIfAbsent(lockInfo.getLockOwner(), owner -> new HashSet<>()).add(key);
+	}
+
+	private void removeOwnerKey(final LockOwner lockOwner, final LockKey key)
+	{
+		final Set<LockKey> keys = keysByOwner.get(lockOwner);
+		if (keys == null)
+		{
+			return;
+		}
+
+		keys.remove(key);
+		if (keys.isEmpty())
+		{
+			keysByOwner.remove(lockOwner);
+		}
+	}
+
+	@Override
+	protected boolean changeLockRecord(final ILockCommand lockCommand, final TableRecordReference record)
+	{
+		final LockOwner ownerNew = lockCommand.getOwner();
+		assertValidLockOwner(ownerNew);
+
+		final ILock parentLock = lockCommand.getParentLock();
+		final LockOwner ownerCurrent = parentLock.getOwner();
+
+		final LockKey key = createKeyForRecord(record);
+		try (final CloseableReentrantLock l = mainLock.open())
+		{
+			final RecordLocks recordLocks = locks.get(key);
+			if (recordLocks == null || !recordLocks.isLockedBy(ownerCurrent))
+			{
+				// not locked by our advisory locks, so it might be locked in T_Lock
+				return super.changeLockRecord(lockCommand, record);
+			}
+
+			if (!lockCommand.isAutoCleanup())
+			{
+				// The new lock shall outlive this JVM, so it's moved to T_Lock.
+				// NOTE: we are still holding the advisory lock, so nobody else can lock the record meanwhile
+				if (!super.lockRecord(lockCommand, record))
+				{
+					return false;
+				}
+				unlockKeys(ownerCurrent, ImmutableList.of(key));
+				return true;
+			}
+
+			final LockInfo lockInfoNew = new LockInfo(ownerNew, lockCommand.isAutoCleanup(), isAllowMultipleOwners(lockCommand.getAllowAdditionalLocks()));
+			final List<LockInfo> lockInfosRemoved = recordLocks.removeLocks(ownerCurrent);
+			if (lockInfosRemoved.isEmpty())
+			{
+				return false;
+			}
+			lockInfosRemoved.forEach(lockInfo -> removeOwnerKey(lockInfo.getLockOwner(), key));
+
+			if (!recordLocks.canAddLock(lockInfoNew))
+			{
+				lockInfosRemoved.forEach(lockInfo -> addLock(key, lockInfo));
+				throw new LockChangeFailedException("Record is already locked by " + ownerNew)
+						.setLockCommand(lockCommand)
+						.setLock(parentLock)
+						.setRecord(record)
+						.setParameter("Owner (old)", ownerCurrent)
+						.setParameter("Owner (new)", ownerNew);
+			}
+			addLock(key, lockInfoNew);
+			return true;
+		}
+	}
+
+	@Override
+	protected boolean unlockRecord(final IUnlockCommand unlockCommand, final TableRecordReference record)
+	{
+		final LockKey key = createKeyForRecord(record);
+		if (unlockKeys(unlockCommand.getOwner(), ImmutableList.of(key)) > 0)
+		{
+			return true;
+		}
+
+		return super.unlockRecord(unlockCommand, record);
+	}
+
+	@Override
+	protected int unlockBySelection(final IUnlockCommand unlockCommand)
+	{
+		final int adTableId = unlockCommand.getSelectionToUnlock_AD_Table_ID();
+		final List<LockKey> keys = retrieveSelectionRecordIds(adTableId, unlockCommand.getSelectionToUnlock_AD_PInstance_ID())
+				.stream()
+				.map(recordId -> LockKey.of(adTableId, recordId))
+				.collect(ImmutableList.toImmutableList());
+
+		return unlockKeys(unlockCommand.getOwner(), keys) + super.unlockBySelection(unlockCommand);
+	}
+
+	@Override
+	protected int unlockByOwner(final IUnlockCommand unlockCommand)
+	{
+		final LockOwner lockOwner = unlockCommand.getOwner();
+		assertValidLockOwner(lockOwner);
+
+		final int countUnlocked;
+		try (final CloseableReentrantLock l = mainLock.open())
+		{
+			final Set<LockKey> keys = keysByOwner.get(lockOwner);
+			countUnlocked = keys != null ? unlockKeys(lockOwner, ImmutableList.copyOf(keys)) : 0;
+		}
+
+		return countUnlocked + super.unlockByOwner(unlockCommand);
+	}
+
+	/**
+	 * Removes the locks of given owner for given keys and releases the advisory locks which are no longer needed.
+	 *
+	 * @return how many records were unlocked
+	 */
+	private int unlockKeys(@NonNull final LockOwner lockOwner, @NonNull final Collection<LockKey> keys)
+	{
+		try (final CloseableReentrantLock l = mainLock.open())
+		{
+			int countUnlocked = 0;
+			final List<LockKey> keysToUnlockInDatabase = new ArrayList<>();
+			for (final LockKey key : keys)
+			{
+				final RecordLocks recordLocks = locks.get(key);
+				if (recordLocks == null)
+				{
+					continue;
+				}
+
+				final List<LockInfo> lockInfosRemoved = recordLocks.removeLocks(lockOwner);
+				if (lockInfosRemoved.isEmpty())
+				{
+					continue;
+				}
+				lockInfosRemoved.forEach(lockInfo -> removeOwnerKey(lockInfo.getLockOwner(), key));
+				countUnlocked++;
+
+				if (!recordLocks.hasLocks())
+				{
+					keysToUnlockInDatabase.add(key);
+				}
+			}
+
+			releaseAdvisoryLocks(keysToUnlockInDatabase);
+
+			return countUnlocked;
+		}
+	}
+
+	/** Removes given keys from our index and releases their advisory locks */
+	private void releaseAdvisoryLocks(final List<LockKey> keys)
+	{
+		final Map<RecordLocksGroup, List<Integer>> recordIdsByGroup = new LinkedHashMap<>();
+		for (final LockKey key : keys)
+		{
+			final RecordLocks recordLocks = locks.remove(key);
+			recordIdsByGroup.computeIfAbsent(RecordLocksGroup.of(key.getAdTableId(), recordLocks.isShared()), group -> new ArrayList<>())
+					.add(key.getRecordId());
+		}
+
+		recordIdsByGroup.forEach((group, recordIds) -> {
+			final Set<Integer> recordIdsUnlocked = session.unlock(group.getAdTableId(), recordIds, group.isShared());
+			if (recordIdsUnlocked.size() != recordIds.size())
+			{
+				logger.warn("Some of the advisory locks for AD_Table_ID={} were not held anymore: {}", group.getAdTableId(), recordIds);
+			}
+		});
+	}
+
+	/**
+	 * Called after the advisory locks session was reconnected, i.e. after the database released all our advisory locks.
+	 * The records which can't be locked again (because meanwhile another node locked them, maybe in <code>T_Lock</code>) are removed from our index.
+	 */
+	private void reacquireAllLocks(final AdvisoryLockSession session)
+	{
+		try (final CloseableReentrantLock l = mainLock.open())
+		{
+			final Map<RecordLocksGroup, List<Integer>> recordIdsByGroup = locks.entrySet()
+					.stream()
+					.collect(Collectors.groupingBy(
+							entry -> RecordLocksGroup.of(entry.getKey().getAdTableId(), entry.getValue().isShared()),
+							Collectors.mapping(entry -> entry.getKey().getRecordId(), Collectors.toList())));
+
+			recordIdsByGroup.forEach((group, recordIds) -> {
+				final Set<Integer> recordIdsLocked = tryLockAdvisory(group.getAdTableId(), recordIds, group.isShared());
+				for (final Integer recordId : recordIds)
+				{
+					if (recordIdsLocked.contains(recordId))
+					{
+						continue;
+					}
+
+					final LockKey key = LockKey.of(group.getAdTableId(), recordId);
+					final RecordLocks recordLocks = locks.remove(key);
+					recordLocks.removeLocks(LockOwner.ANY).forEach(lockInfo -> removeOwnerKey(lockInfo.getLockOwner(), key));
+					logger.error("Lost the lock for {} because it was locked by another node while we were disconnected", key);
+				}
+			});
+		}
+	}
+
+	private static List<Integer> retrieveSelectionRecordIds(final int adTableId, @NonNull final PInstanceId pinstanceId)
+	{
+		Check.assume(adTableId > 0, "adTableId > 0");
+
+		final String sql = "SELECT T_Selection_ID FROM T_Selection WHERE AD_PInstance_ID=?";
+		return DB.retrieveRowsOutOfTrx(sql, ImmutableList.<Object> of(pinstanceId), rs -> rs.getInt(1));
+	}
+
+	@Override
+	public String getNotLockedWhereClause(final String tableName, final String joinColumnNameFQ)
+	{
+		Check.assumeNotEmpty(tableName, "tableName not empty");
+		final int adTableId = Services.get(IADTableDAO.class).retrieveTableId(tableName);
+		Check.assume(adTableId > 0, "Table {} exists", tableName);
+
+		Check.assumeNotEmpty(joinColumnNameFQ, "joinColumnNameFQ not empty");
+
+		// NOTE: NOT IN allows postgres to evaluate the pg_locks subquery only once (hashed subplan)
+		return "(" + joinColumnNameFQ + " NOT IN (" + createLockedRecordIdsSql(adTableId) + ")"
+				+ " AND " + super.getNotLockedWhereClause(tableName, joinColumnNameFQ) + ")";
+	}
+
+	private static String createLockedRecordIdsSql(final int adTableId)
+	{
+		return "SELECT zz.objid::integer FROM pg_locks zz WHERE " + SQL_AdvisoryLocksWhereClause + " AND zz.classid=" + adTableId + "::oid";
+	}
+
+	@Override
+	protected String getLockedWhereClauseAllowNullLock(final Class<?> modelClass, final String joinColumnNameFQ, final LockOwner lockOwner)
+	{
+		Check.assumeNotNull(modelClass, "modelClass not null");
+		final int adTableId = InterfaceWrapperHelper.getTableId(modelClass);
+		Check.assume(adTableId > 0, "Table {} exists", modelClass);
+
+		Check.assumeNotEmpty(joinColumnNameFQ, "joinColumnNameFQ not empty");
+
+		final String lockedInTLockWhereClause = super.getLockedWhereClauseAllowNullLock(modelClass, joinColumnNameFQ, lockOwner);
+		if (lockOwner == null || lockOwner.isAnyOwner())
+		{
+			return "(" + joinColumnNameFQ + " IN (" + createLockedRecordIdsSql(adTableId) + ")"
+					+ " OR " + lockedInTLockWhereClause + ")";
+		}
+
+		// Advisory locks of a particular owner are only known by us
+		assertValidLockOwner(lockOwner);
+		final Set<Integer> recordIds = getLockedRecordIds(adTableId, lockOwner);
+		if (recordIds.isEmpty())
+		{
+			return lockedInTLockWhereClause;
+		}
+
+		return "(" + joinColumnNameFQ + " = ANY(" + toSqlIntegerArray(recordIds) + ")"
+				+ " OR " + lockedInTLockWhereClause + ")";
+	}
+
+	private Set<Integer> getLockedRecordIds(final int adTableId, final LockOwner lockOwner)
+	{
+		try (final CloseableReentrantLock l = mainLock.open())
+		{
+			final Set<LockKey> keys = keysByOwner.get(lockOwner);
+			if (keys == null)
+			{
+				return ImmutableSet.of();
+			}
+
+			return keys.stream()
+					.filter(key -> key.getAdTableId() == adTableId)
+					.map(LockKey::getRecordId)
+					.collect(ImmutableSet.toImmutableSet());
+		}
+	}
+
+	@Override
+	public ILock retrieveLockForOwner(@NonNull final LockOwner lockOwner)
+	{
+		Check.assumeNotNull(lockOwner.isRealOwner(), "Lock owner shall be real owner but it was {}", lockOwner);
+
+		try (final CloseableReentrantLock l = mainLock.open())
+		{
+			final Set<LockKey> keys = keysByOwner.get(lockOwner);
+			if (keys != null && !keys.isEmpty())
+			{
+				final Set<Boolean> autoCleanups = keys.stream()
+						.map(key -> locks.get(key).getLock(lockOwner).isAutoCleanup())
+						.collect(ImmutableSet.toImmutableSet());
+				Check.assume(autoCleanups.size() == 1, "More than one lock found for owner");
+
+				return newLock(lockOwner, autoCleanups.iterator().next(), keys.size());
+			}
+		}
+
+		// Not locked by our advisory locks, so it might be locked in T_Lock, maybe by another node
+		return super.retrieveLockForOwner(lockOwner);
+	}
+
+	@Override
+	public int removeAutoCleanupLocks()
+	{
+		int countLocksReleased = 0;
+		try (final CloseableReentrantLock l = mainLock.open())
+		{
+			final List<LockKey> keysToUnlockInDatabase = new ArrayList<>();
+			for (final Map.Entry<LockKey, RecordLocks> entry : locks.entrySet())
+			{
+				final LockKey key = entry.getKey();
+				final RecordLocks recordLocks = entry.getValue();
+
+				final List<LockInfo> lockInfosRemoved = recordLocks.removeAutoCleanupLocks();
+				lockInfosRemoved.forEach(lockInfo -> removeOwnerKey(lockInfo.getLockOwner(), key));
+				countLocksReleased += lockInfosRemoved.size();
+
+				if (!recordLocks.hasLocks())
+				{
+					keysToUnlockInDatabase.add(key);
+				}
+			}
+
+			releaseAdvisoryLocks(keysToUnlockInDatabase);
+
+			if (countLocksReleased > 0)
+			{
+				logger.info("Released {} locks which were flagged with IsAutoCleanup=true", countLocksReleased);
+			}
+		}
+
+		return countLocksReleased + super.removeAutoCleanupLocks();
+	}
+
+	@Value(staticConstructor = "of")
+	private static class LockKey
+	{
+		int adTableId;
+		int recordId;
+	}
+
+	@Value(staticConstructor = "of")
+	private static class RecordLocksGroup
+	{
+		int adTableId;
+		boolean shared;
+	}
+
+	@Value
+	private static class LockInfo
+	{
+		LockOwner lockOwner;
+		boolean autoCleanup;
+		boolean allowMultipleOwners;
+	}
+
+	/** The locks of one record, by owner */
+	private static final class RecordLocks
+	{
+		/** true if we acquired a shared advisory lock */
+		private final boolean shared;
+		private final Map<LockOwner, LockInfo> locksByOwner = new LinkedHashMap<>();
+
+		private RecordLocks(final boolean shared)
+		{
+			this.shared = shared;
+		}
+
+		public boolean isShared()
+		{
+			return shared;
+		}
+
+		public boolean hasLocks()
+		{
+			return !locksByOwner.isEmpty();
+		}
+
+		public LockInfo getLock(final LockOwner lockOwner)
+		{
+			return locksByOwner.get(lockOwner);
+		}
+
+		public boolean isLockedBy(final LockOwner lockOwner)
+		{
+			if (lockOwner == null || lockOwner.isAnyOwner())
+			{
+				return hasLocks();
+			}
+			return locksByOwner.containsKey(lockOwner);
+		}
+
+		/** Same rules as the <code>T_Lock</code> unique indexes: one lock per owner, and several owners only if all of them allow it */
+		public boolean canAddLock(final LockInfo lockInfo)
+		{
+			if (locksByOwner.isEmpty())
+			{
+				return true;
+			}
+			if (locksByOwner.containsKey(lockInfo.getLockOwner()))
+			{
+				return false;
+			}
+
+			return shared
+					&& lockInfo.isAllowMultipleOwners()
+					&& locksByOwner.values().stream().allMatch(LockInfo::isAllowMultipleOwners);
+		}
+
+		public void addLock(final LockInfo lockInfo)
+		{
+			locksByOwner.put(lockInfo.getLockOwner(), lockInfo);
+		}
+
+		/** @return the removed locks */
+		public List<LockInfo> removeLocks(@NonNull final LockOwner lockOwner)
+		{
+			if (lockOwner.isAnyOwner())
+			{
+				final List<LockInfo> removed = ImmutableList.copyOf(locksByOwner.values());
+				locksByOwner.clear();
+				return removed;
+			}
+
+			final LockInfo removed = locksByOwner.remove(lockOwner);
+			return removed != null ? ImmutableList.of(removed) : ImmutableList.of();
+		}
+
+		/** @return the removed locks */
+		public List<LockInfo> removeAutoCleanupLocks()
+		{
+			final List<LockInfo> removed = new ArrayList<>();
+			for (final Iterator<LockInfo> it = locksByOwner.values().iterator(); it.hasNext();)
+			{
+				final LockInfo lockInfo = it.next();
+				if (lockInfo.isAutoCleanup())
+				{
+					removed.add(lockInfo);
+					it.remove();
+				}
+			}
+			return removed;
+		}
+	}
+}
@@ -0,0 +1,232 @@
+package de.metas.lock.spi.impl;
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.compiere.db.CConnection;
+import org.compiere.util.DB;
+import org.slf4j.Logger;
+
+import com.google.common.collect.ImmutableSet;
+
+import de.metas.lock.exceptions.LockFailedException;
+import de.metas.lock.exceptions.UnlockFailedException;
+import de.metas.logging.LogManager;
+import lombok.NonNull;
+
+/**
+ * The database session which holds all advisory locks of {@link AdvisoryLockDatabase} for this JVM.
+ * <p>
+ * Session level advisory locks are released only by the session which acquired them, so we use one dedicated, auto-commit connection for all of them.
+ * That connection is not taken from the connection pool, because the pool might close or recycle it (e.g. c3p0's <code>unreturnedConnectionTimeout</code>),
+ * which would silently release all our locks.
+ * <p>
+ * If the connection breaks, the database releases all its locks. In that case we reconnect and the <code>onReconnect</code> callback shall acquire them again.
+ * A broken connection is detected on the next lock request or by {@link #validate()}, which shall be called periodically.
+ * As long as we can't reconnect, all lock requests are failing.
+ */
+final class AdvisoryLockSession
+{
+	private static final Logger logger = LogManager.getLogger(AdvisoryLockSession.class);
+
+	private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+	private final Consumer<AdvisoryLockSession> onReconnect;
+
+	// NOTE: following fields shall be accessed only while holding this instance's monitor
+	private Connection connection;
+	private boolean locksLost = false;
+
+	AdvisoryLockSession(@NonNull final Consumer<AdvisoryLockSession> onReconnect)
+	{
+		this.onReconnect = onReconnect;
+	}
+
+	/**
+	 * Tries to acquire the advisory locks (<code>adTableId</code>, <code>recordId</code>) without waiting.
+	 *
+	 * @param shared if true, shared advisory locks are acquired, which are not conflicting with other shared locks
+	 * @return the record IDs which were locked
+	 */
+	public synchronized Set<Integer> tryLock(final int adTableId, @NonNull final Collection<Integer> recordIds, final boolean shared)
+	{
+		if (recordIds.isEmpty())
+		{
+			return ImmutableSet.of();
+		}
+
+		final String sql = "SELECT k FROM unnest(?::integer[]) k WHERE " + (shared ? "pg_try_advisory_lock_shared" : "pg_try_advisory_lock") + "(?::integer, k)";
+		try
+		{
+			return executeAndReturnKeys(sql, adTableId, recordIds);
+		}
+		catch (final SQLException ex)
+		{
+			// we don't know which locks were acquired, so let's start over with a new session
+			discardConnectionAndReconnect();
+			throw new LockFailedException("Failed acquiring advisory locks for AD_Table_ID=" + adTableId, ex)
+					.setSql(sql, new Object[] { recordIds, adTableId });
+		}
+	}
+
+	/**
+	 * Checks if the connection is still alive. If not, we reconnect and the locks are acquired again.
+	 */
+	public synchronized void validate()
+	{
+		if (connection == null)
+		{
+			if (locksLost)
+			{
+				discardConnectionAndReconnect();
+			}
+			return;
+		}
+
+		boolean valid;
+		try
+		{
+			valid = connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+		}
+		catch (final SQLException ex)
+		{
+			valid = false;
+		}
+
+		if (!valid)
+		{
+			logger.error("The advisory locks session is broken, so the database released all our advisory locks. Reconnecting.");
+			discardConnectionAndReconnect();
+		}
+	}
+
+	/**
+	 * @return the record IDs which were unlocked
+	 */
+	public synchronized Set<Integer> unlock(final int adTableId, @NonNull final Collection<Integer> recordIds, final boolean shared)
+	{
+		if (recordIds.isEmpty())
+		{
+			return ImmutableSet.of();
+		}
+
+		final String sql = "SELECT k FROM unnest(?::integer[]) k WHERE " + (shared ? "pg_advisory_unlock_shared" : "pg_advisory_unlock") + "(?::integer, k)";
+		try
+		{
+			return executeAndReturnKeys(sql, adTableId, recordIds);
+		}
+		catch (final SQLException ex)
+		{
+			// closing the connection releases the locks anyways; only the ones we still want are re-acquired on reconnect
+			discardConnectionAndReconnect();
+			throw new UnlockFailedException("Failed releasing advisory locks for AD_Table_ID=" + adTableId, ex)
+					.setSql(sql, new Object[] { recordIds, adTableId });
+		}
+	}
+
+	private Set<Integer> executeAndReturnKeys(final String sql, final int adTableId, final Collection<Integer> recordIds) throws SQLException
+	{
+		final Connection connection = getConnection();
+		final Array recordIdsArray = connection.createArrayOf("int4", recordIds.toArray());
+
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try
+		{
+			pstmt = connection.prepareStatement(sql);
+			pstmt.setArray(1, recordIdsArray);
+			pstmt.setInt(2, adTableId);
+			rs = pstmt.executeQuery();
+
+			final ImmutableSet.Builder<Integer> keys = ImmutableSet.builder();
+			while (rs.next())
+			{
+				keys.add(rs.getInt(1));
+			}
+			return keys.build();
+		}
+		finally
+		{
+			DB.close(rs, pstmt);
+		}
+	}
+
+	private Connection getConnection() throws SQLException
+	{
+		if (connection != null)
+		{
+			return connection;
+		}
+
+		connection = createConnection();
+		if (locksLost)
+		{
+			locksLost = false;
+			logger.warn("Reconnected the advisory locks session; acquiring the locks again");
+			onReconnect.accept(this);
+		}
+
+		return connection;
+	}
+
+	private static Connection createConnection() throws SQLException
+	{
+		final CConnection cc = CConnection.get();
+		final Connection connection = cc.getDatabase().getDriverConnection(cc.getConnectionURL(), cc.getDbUid(), cc.getDbPwd());
+		try
+		{
+			connection.setAutoCommit(true);
+			connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+			return connection;
+		}
+		catch (final SQLException ex)
+		{
+			DB.close(connection);
+			throw ex;
+		}
+	}
+
+	private void discardConnectionAndReconnect()
+	{
+		DB.close(connection);
+		connection = null;
+		locksLost = true;
+
+		try
+		{
+			getConnection();
+		}
+		catch (final Exception ex)
+		{
+			logger.warn("Failed reconnecting the advisory locks session. Will retry on next lock request.", ex);
+		}
+	}
+}
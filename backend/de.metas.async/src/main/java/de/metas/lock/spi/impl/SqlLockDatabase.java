@@ -451,7 +451,7 @@ public class SqlLockDatabase extends AbstractLockDatabase
 	}
 
 	@Override
-	public final String getNotLockedWhereClause(final String tableName, final String joinColumnNameFQ)
+	public String getNotLockedWhereClause(final String tableName, final String joinColumnNameFQ)
 	{
 		final List<Object> sqlParams = null; // no params
 		final StringBuilder whereClause = new StringBuilder();
@@ -525,7 +525,7 @@ public class SqlLockDatabase extends AbstractLockDatabase
 	}
 
 	@Override
-	public final ILock retrieveLockForOwner(@NonNull final LockOwner lockOwner)
+	public ILock retrieveLockForOwner(@NonNull final LockOwner lockOwner)
 	{
 		Check.assumeNotNull(lockOwner.isRealOwner(), "Lock owner shall be real owner but it was {}", lockOwner);
 
@@ -0,0 +1,27 @@
+-- Notify the listening async queue processors (see de.metas.async.api.impl.WorkPackageReadyNotificationListener) when a work package becomes ready for processing.
+-- The payload is the C_Queue_PackageProcessor_ID; note that postgres delivers identical notifications of the same transaction only once.
+CREATE OR REPLACE FUNCTION "de.metas.async".C_Queue_WorkPackage_NotifyReady_tgfn()
+RETURNS trigger AS
+$BODY$
+DECLARE
+	v_C_Queue_PackageProcessor_ID numeric;
+BEGIN
+	SELECT b.C_Queue_PackageProcessor_ID INTO v_C_Queue_PackageProcessor_ID
+	FROM C_Queue_Block b
+	WHERE b.C_Queue_Block_ID=NEW.C_Queue_Block_ID;
+
+	IF v_C_Queue_PackageProcessor_ID IS NOT NULL THEN
+		PERFORM pg_notify('c_queue_workpackage_ready', v_C_Queue_PackageProcessor_ID::text);
+	END IF;
+
+	RETURN NULL;
+END;
+$BODY$
+LANGUAGE plpgsql VOLATILE;
+
+DROP TRIGGER IF EXISTS C_Queue_WorkPackage_NotifyReady_tg ON C_Queue_WorkPackage;
+CREATE TRIGGER C_Queue_WorkPackage_NotifyReady_tg
+AFTER INSERT OR UPDATE OF IsReadyForProcessing, IsError ON C_Queue_WorkPackage
+FOR EACH ROW
+WHEN (NEW.IsReadyForProcessing='Y' AND NEW.Processed='N' AND NEW.IsError='N' AND NEW.IsActive='Y')
+EXECUTE PROCEDURE "de.metas.async".C_Queue_WorkPackage_NotifyReady_tgfn();
@@ -0,0 +1,80 @@
+package de.metas.async.api.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+class WorkPackageReadyNotificationListenerTest
+{
+	@Test
+	void awaitNotification_timeout() throws Exception
+	{
+		final WorkPackageReadyNotificationListener listener = new WorkPackageReadyNotificationListener();
+		final long sequence = listener.getSequence();
+
+		listener.onNotification(2);
+
+		assertThat(listener.awaitNotification(ImmutableList.of(1), sequence, 10)).isFalse();
+	}
+
+	@Test
+	void awaitNotification_alreadyNotified() throws Exception
+	{
+		final WorkPackageReadyNotificationListener listener = new WorkPackageReadyNotificationListener();
+		final long sequence = listener.getSequence();
+
+		listener.onNotification(1);
+
+		assertThat(listener.awaitNotification(ImmutableList.of(1, 3), sequence, 10)).isTrue();
+		assertThat(listener.awaitNotification(ImmutableList.of(1, 3), listener.getSequence(), 10)).isFalse();
+	}
+
+	@Test
+	void awaitNotification_wokenUp() throws Exception
+	{
+		final WorkPackageReadyNotificationListener listener = new WorkPackageReadyNotificationListener();
+		final long sequence = listener.getSequence();
+
+		final CompletableFuture<Boolean> notified = CompletableFuture.supplyAsync(() -> {
+			try
+			{
+				return listener.awaitNotification(ImmutableList.of(1), sequence, 60000);
+			}
+			catch (final InterruptedException e)
+			{
+				return false;
+			}
+		});
+
+		listener.onNotification(1);
+
+		assertThat(notified.get(10, TimeUnit.SECONDS)).isTrue();
+	}
+}
@@ -24,8 +24,10 @@ import static org.assertj.core.api.Assertions.assertThat;
  * #L%
  */
 
+import java.util.ArrayList;
 import java.util.List;
 
+import org.adempiere.exceptions.AdempiereException;
 import org.adempiere.model.InterfaceWrapperHelper;
 import org.adempiere.util.reflect.TestingClassInstanceProvider;
 import org.junit.Assert;
@@ -39,10 +41,12 @@ import de.metas.async.model.I_C_Queue_Processor;
 import de.metas.async.model.I_C_Queue_WorkPackage;
 import de.metas.async.model.X_C_Queue_WorkPackage;
 import de.metas.async.processor.IQueueProcessor;
+import de.metas.async.processor.IQueueProcessorStatistics;
 import de.metas.async.processor.IWorkPackageQueueFactory;
 import de.metas.async.processor.IWorkpackageProcessorFactory;
 import de.metas.async.spi.IWorkpackageProcessor;
 import de.metas.async.spi.IWorkpackageProcessor.Result;
+import de.metas.async.spi.WorkpackageProcessorAdapter;
 import de.metas.lock.api.ILockManager;
 import de.metas.util.Services;
 
@@ -202,6 +206,64 @@ public class SynchronousQueueProcessorTest extends QueueProcessorTestBase
 
 	}
 
+	/**
+	 * Class for test_ProcessInBatches().
+	 */
+	public static class BatchingWorkpackageProcessor extends WorkpackageProcessorAdapter
+	{
+		private static final List<Integer> processedWorkpackageIds = new ArrayList<>();
+		private static int failingWorkpackageId = -1;
+
+		@Override
+		public Result processWorkPackage(final I_C_Queue_WorkPackage workpackage, final String localTrxName)
+		{
+			if (workpackage.getC_Queue_WorkPackage_ID() == failingWorkpackageId)
+			{
+				throw new AdempiereException("test error");
+			}
+			processedWorkpackageIds.add(workpackage.getC_Queue_WorkPackage_ID());
+			return Result.SUCCESS;
+		}
+
+		@Override
+		public int getMaxWorkpackagesPerBatch()
+		{
+			return 5;
+		}
+	}
+
+	@Test
+	public void test_ProcessInBatches()
+	{
+		helper.createPackageProcessor(ctx, BatchingWorkpackageProcessor.class);
+		final IWorkPackageQueue workpackageQueue = Services.get(IWorkPackageQueueFactory.class).getQueueForEnqueuing(ctx, BatchingWorkpackageProcessor.class);
+		final List<I_C_Queue_WorkPackage> workpackages = helper.createAndEnqueueWorkpackages(workpackageQueue, 12, true); // markReadyForProcessing=true
+
+		BatchingWorkpackageProcessor.processedWorkpackageIds.clear();
+		BatchingWorkpackageProcessor.failingWorkpackageId = workpackages.get(3).getC_Queue_WorkPackage_ID();
+
+		final SynchronousQueueProcessor processor = newSynchronousQueueProcessor(workpackageQueue);
+		processor.run();
+		processor.shutdown();
+
+		assertThat(BatchingWorkpackageProcessor.processedWorkpackageIds).hasSize(11);
+		for (final I_C_Queue_WorkPackage workpackage : workpackages)
+		{
+			InterfaceWrapperHelper.refresh(workpackage);
+			final boolean failing = workpackage.getC_Queue_WorkPackage_ID() == BatchingWorkpackageProcessor.failingWorkpackageId;
+			assertThat(workpackage.isError()).as("IsError of %s", workpackage).isEqualTo(failing);
+			assertThat(workpackage.isProcessed()).as("Processed of %s", workpackage).isEqualTo(!failing);
+		}
+		helper.assertNothingLocked();
+
+		final IQueueProcessorStatistics statistics = processor.getStatisticsSnapshot();
+		assertThat(statistics.getCountBatches()).isEqualTo(3); // 5 + 5 + 2 workpackages
+		assertThat(statistics.getCountBatchedWorkpackages()).isEqualTo(12);
+		assertThat(statistics.getCountBatchRollbacks()).isEqualTo(1);
+		assertThat(statistics.getCountAll()).isEqualTo(12);
+		assertThat(statistics.getCountErrors()).isEqualTo(1);
+	}
+
 	private SynchronousQueueProcessor newSynchronousQueueProcessor(final IWorkPackageQueue workpackageQueueForProcessing)
 	{
 		return new SynchronousQueueProcessor(workpackageQueueForProcessing, NOPWorkpackageLogsRepository.instance);
@@ -0,0 +1,181 @@
+package de.metas.lock.spi.impl;
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.model.InterfaceWrapperHelper;
+import org.adempiere.util.lang.impl.TableRecordReference;
+import org.compiere.Adempiere.RunMode;
+import org.compiere.util.DB;
+import org.compiere.util.Env;
+import org.junit.Ignore;
+
+import com.google.common.base.Stopwatch;
+
+import de.metas.async.model.I_C_Queue_WorkPackage;
+import de.metas.lock.api.ILock;
+import de.metas.lock.api.ILockCommand;
+import de.metas.lock.api.ILockManager;
+import de.metas.lock.api.LockOwner;
+import de.metas.lock.api.impl.LockManager;
+import de.metas.lock.spi.ILockDatabase;
+import de.metas.util.Check;
+
+/**
+ * Database coupled benchmark which compares the {@link SqlLockDatabase} (<code>T_Lock</code>) with the {@link AdvisoryLockDatabase}.
+ * <p>
+ * For each implementation, we measure:
+ * <ul>
+ * <li>locking and unlocking records one by one, from several threads (like the async queue processors do)
+ * <li>locking many records for one owner and unlocking them by owner
+ * <li>a query which is filtering the not locked records, while those records are locked
+ * </ul>
+ * Run it as a java application.
+ */
+@Ignore
+// requires database connection
+public class AdvisoryLockDatabase_DBTest
+{
+	private static final int THREADS = 8;
+	private static final int RECORDS_PER_THREAD = 5000;
+	private static final int RECORDS_PER_OWNER = 20000;
+
+	public static void main(final String[] args) throws Exception
+	{
+		final AdvisoryLockDatabase_DBTest test = new AdvisoryLockDatabase_DBTest();
+		test.setupAdempiere();
+
+		final int adTableId = InterfaceWrapperHelper.getTableId(I_C_Queue_WorkPackage.class);
+
+		for (final ILockDatabase lockDatabase : new ILockDatabase[] { new SqlLockDatabase(), new AdvisoryLockDatabase() })
+		{
+			final ILockManager lockManager = new LockManager()
+			{
+				@Override
+				public ILockDatabase getLockDatabase()
+				{
+					return lockDatabase;
+				}
+			};
+
+			// warm up
+			test.lockAndUnlockOneByOne(lockManager, adTableId, 100);
+
+			final Stopwatch oneByOne = test.lockAndUnlockOneByOne(lockManager, adTableId, RECORDS_PER_THREAD);
+			final Stopwatch[] byOwner = test.lockAndUnlockByOwner(lockManager, lockDatabase, adTableId, RECORDS_PER_OWNER);
+
+			System.out.println(lockDatabase.getClass().getSimpleName() + ":");
+			System.out.println("lock+unlock " + THREADS + "x" + RECORDS_PER_THREAD + " records one by one: " + oneByOne);
+			System.out.println("lock " + RECORDS_PER_OWNER + " records for one owner: " + byOwner[0]);
+			System.out.println("not locked query while they are locked: " + byOwner[1]);
+			System.out.println("unlock by owner: " + byOwner[2]);
+		}
+	}
+
+	private void setupAdempiere()
+	{
+		//
+		// Use hardcoded default PropertyFile if none found
+		if (Check.isEmpty(System.getProperty("PropertyFile"), true))
+		{
+			final String propertyFile = new File(".").getAbsolutePath()
+					+ File.separator + ".." + File.separator + ".."
+					+ File.separator + "de.metas.endcustomer."
+					+ File.separator + "Adempiere.properties_" + System.getProperty("user.name");
+			System.out.println("Set default PropertyFile=" + propertyFile);
+			System.setProperty("PropertyFile", propertyFile);
+		}
+
+		Env.getSingleAdempiereInstance(null).startup(RunMode.SWING_CLIENT);
+	}
+
+	private Stopwatch lockAndUnlockOneByOne(final ILockManager lockManager, final int adTableId, final int recordsPerThread) throws Exception
+	{
+		final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try
+		{
+			final Stopwatch stopwatch = Stopwatch.createStarted();
+
+			final List<Future<?>> futures = new ArrayList<>();
+			for (int thread = 0; thread < THREADS; thread++)
+			{
+				final int firstRecordId = 1_000_000_000 + thread * recordsPerThread;
+				futures.add(executor.submit(() -> {
+					for (int recordId = firstRecordId; recordId < firstRecordId + recordsPerThread; recordId++)
+					{
+						final ILock lock = lockManager.lock()
+								.setOwner(LockOwner.NONE)
+								.setFailIfAlreadyLocked(true)
+								.setRecordByTableRecordId(adTableId, recordId)
+								.acquire();
+						lock.unlockAll();
+					}
+				}));
+			}
+			for (final Future<?> future : futures)
+			{
+				future.get();
+			}
+
+			return stopwatch.stop();
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	/** @return the stopwatches for locking, querying and unlocking */
+	private Stopwatch[] lockAndUnlockByOwner(final ILockManager lockManager, final ILockDatabase lockDatabase, final int adTableId, final int recordsCount)
+	{
+		final ILockCommand lockCommand = lockManager.lock()
+				.setOwner(LockOwner.newOwner(getClass().getSimpleName()));
+		for (int recordId = 1; recordId <= recordsCount; recordId++)
+		{
+			lockCommand.addRecord(TableRecordReference.of(adTableId, recordId));
+		}
+
+		final Stopwatch lockStopwatch = Stopwatch.createStarted();
+		final ILock lock = lockCommand.acquire();
+		lockStopwatch.stop();
+
+		final Stopwatch queryStopwatch = Stopwatch.createStarted();
+		final String sql = "SELECT COUNT(1) FROM " + I_C_Queue_WorkPackage.Table_Name
+				+ " WHERE " + lockDatabase.getNotLockedWhereClause(I_C_Queue_WorkPackage.Table_Name, I_C_Queue_WorkPackage.Table_Name + "." + I_C_Queue_WorkPackage.COLUMNNAME_C_Queue_WorkPackage_ID);
+		DB.getSQLValueEx(ITrx.TRXNAME_None, sql);
+		queryStopwatch.stop();
+
+		final Stopwatch unlockStopwatch = Stopwatch.createStarted();
+		lock.unlockAll();
+		unlockStopwatch.stop();
+
+		return new Stopwatch[] { lockStopwatch, queryStopwatch, unlockStopwatch };
+	}
+}
@@ -0,0 +1,198 @@
+package de.metas.lock.spi.impl;
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.File;
+import java.util.UUID;
+
+import org.adempiere.model.InterfaceWrapperHelper;
+import org.adempiere.util.lang.impl.TableRecordReference;
+import org.compiere.Adempiere.RunMode;
+import org.compiere.util.Env;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import de.metas.async.model.I_C_Queue_WorkPackage;
+import de.metas.lock.api.ILock;
+import de.metas.lock.api.ILockManager;
+import de.metas.lock.api.LockOwner;
+import de.metas.lock.api.impl.LockManager;
+import de.metas.lock.exceptions.LockFailedException;
+import de.metas.lock.spi.ILockDatabase;
+import de.metas.util.Check;
+
+/**
+ * Database coupled test which makes sure that a lock can be handed over from one {@link AdvisoryLockDatabase} to another,
+ * like the elements lock of an async workpackage, which is acquired by the node which enqueued the workpackage and released by the node which processed it.
+ * <p>
+ * Each {@link AdvisoryLockDatabase} instance has its own advisory locks session, so the two instances are behaving like two nodes.
+ */
+@Ignore
+// requires database connection
+public class AdvisoryLockDatabase_HandOver_DBTest
+{
+	private static final int RECORD_ID_1 = 1_900_000_001;
+	private static final int RECORD_ID_2 = 1_900_000_002;
+
+	private int adTableId;
+	private ILockManager node1;
+	private ILockManager node2;
+
+	public static void main(final String[] args)
+	{
+		final AdvisoryLockDatabase_HandOver_DBTest test = new AdvisoryLockDatabase_HandOver_DBTest();
+		test.setupAdempiere();
+
+		test.init();
+		test.lockIsReleasedByOtherNode();
+		test.init();
+		test.splitLockIsReleasedByOtherNode();
+		test.init();
+		test.recordIsNotLockedTwice();
+	}
+
+	private void setupAdempiere()
+	{
+		//
+		// Use hardcoded default PropertyFile if none found
+		if (Check.isEmpty(System.getProperty("PropertyFile"), true))
+		{
+			final String propertyFile = new File(".").getAbsolutePath()
+					+ File.separator + ".." + File.separator + ".."
+					+ File.separator + "de.metas.endcustomer."
+					+ File.separator + "Adempiere.properties_" + System.getProperty("user.name");
+			System.out.println("Set default PropertyFile=" + propertyFile);
+			System.setProperty("PropertyFile", propertyFile);
+		}
+
+		Env.getSingleAdempiereInstance(null).startup(RunMode.SWING_CLIENT);
+	}
+
+	@Before
+	public void init()
+	{
+		adTableId = InterfaceWrapperHelper.getTableId(I_C_Queue_WorkPackage.class);
+		node1 = newLockManager(new AdvisoryLockDatabase());
+		node2 = newLockManager(new AdvisoryLockDatabase());
+	}
+
+	private static ILockManager newLockManager(final ILockDatabase lockDatabase)
+	{
+		return new LockManager()
+		{
+			@Override
+			public ILockDatabase getLockDatabase()
+			{
+				return lockDatabase;
+			}
+		};
+	}
+
+	private static LockOwner newLockOwner()
+	{
+		return LockOwner.newOwner("HandOver_" + UUID.randomUUID());
+	}
+
+	@Test
+	public void lockIsReleasedByOtherNode()
+	{
+		final LockOwner lockOwner = newLockOwner();
+		node1.lock()
+				.setOwner(lockOwner)
+				.setAutoCleanup(false)
+				.setRecordByTableRecordId(adTableId, RECORD_ID_1)
+				.acquire();
+		assertThat(node1.isLocked(adTableId, RECORD_ID_1)).isTrue();
+		assertThat(node2.isLocked(adTableId, RECORD_ID_1)).isTrue();
+
+		final ILock lock = node2.getExistingLockForOwner(lockOwner);
+		assertThat(lock.getCountLocked()).isEqualTo(1);
+		lock.close();
+
+		assertThat(node1.isLocked(adTableId, RECORD_ID_1)).isFalse();
+		assertThat(node2.isLocked(adTableId, RECORD_ID_1)).isFalse();
+	}
+
+	@Test
+	public void splitLockIsReleasedByOtherNode()
+	{
+		final ILock mainLock = node1.lock()
+				.setOwner(newLockOwner())
+				.addRecord(TableRecordReference.of(adTableId, RECORD_ID_1))
+				.addRecord(TableRecordReference.of(adTableId, RECORD_ID_2))
+				.acquire();
+
+		// like an async workpackage's elements lock
+		final LockOwner elementsLockOwner = newLockOwner();
+		mainLock.split()
+				.setOwner(elementsLockOwner)
+				.setAutoCleanup(false)
+				.setRecordByTableRecordId(adTableId, RECORD_ID_1)
+				.acquire();
+		assertThat(mainLock.getCountLocked()).isEqualTo(1);
+		assertThat(node2.isLocked(I_C_Queue_WorkPackage.class, RECORD_ID_1, elementsLockOwner)).isTrue();
+
+		node2.getExistingLockForOwner(elementsLockOwner).close();
+		assertThat(node1.isLocked(adTableId, RECORD_ID_1)).isFalse();
+		assertThat(node1.isLocked(adTableId, RECORD_ID_2)).isTrue();
+
+		mainLock.close();
+		assertThat(node2.isLocked(adTableId, RECORD_ID_2)).isFalse();
+	}
+
+	@Test
+	public void recordIsNotLockedTwice()
+	{
+		final ILock handedOverLock = node1.lock()
+				.setOwner(newLockOwner())
+				.setAutoCleanup(false)
+				.setRecordByTableRecordId(adTableId, RECORD_ID_1)
+				.acquire();
+		assertThatThrownBy(() -> node2.lock()
+				.setOwner(newLockOwner())
+				.setFailIfAlreadyLocked(true)
+				.setRecordByTableRecordId(adTableId, RECORD_ID_1)
+				.acquire())
+						.isInstanceOf(LockFailedException.class);
+		handedOverLock.close();
+
+		final ILock advisoryLock = node1.lock()
+				.setOwner(newLockOwner())
+				.setRecordByTableRecordId(adTableId, RECORD_ID_1)
+				.acquire();
+		assertThatThrownBy(() -> node2.lock()
+				.setOwner(newLockOwner())
+				.setAutoCleanup(false)
+				.setFailIfAlreadyLocked(true)
+				.setRecordByTableRecordId(adTableId, RECORD_ID_1)
+				.acquire())
+						.isInstanceOf(LockFailedException.class);
+		advisoryLock.close();
+
+		assertThat(node2.isLocked(adTableId, RECORD_ID_1)).isFalse();
+	}
+}
@@ -58,7 +58,7 @@ final class BPartnerCompositeCacheByLookupKey
 				.additionalTableNameToResetFor(I_C_BPartner_Location.Table_Name)
 				.cacheMapType(CacheMapType.LRU)
 				.initialCapacity(100)
-				.invalidationKeysMapper(cacheIndex::computeCachingKeys)
+				.invalidationKeysMapper(cacheIndex)
 				.removalListener(cacheIndex::remove)
 				.additionListener(cacheIndex::add)
 				.build();
@@ -67,7 +67,7 @@ final class DataEntryRecordCache
 				.tableName(I_DataEntry_Record.Table_Name)
 				.cacheMapType(CacheMapType.LRU)
 				.initialCapacity(cacheCapacity)
-				.invalidationKeysMapper(cacheIndex::computeCachingKeys)
+				.invalidationKeysMapper(cacheIndex)
 				.removalListener(cacheIndex::remove)
 				.additionListener(cacheIndex::add)
 				.build();
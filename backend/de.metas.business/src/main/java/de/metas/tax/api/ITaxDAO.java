@@ -90,6 +90,11 @@ public interface ITaxDAO extends ISingletonService
 
 	Optional<TaxCategoryId> getTaxCategoryIdByName(@NonNull String name);
 
+	/**
+	 * @return index of all active taxes; it's cached and invalidated when a <code>C_Tax</code> record changes
+	 */
+	TaxRulesIndex getTaxRulesIndex();
+
 	@Builder
 	@Value
 	public static class TaxCategoryQuery
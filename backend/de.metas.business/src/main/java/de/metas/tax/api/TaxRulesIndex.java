@@ -0,0 +1,245 @@
+package de.metas.tax.api;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import de.metas.location.CountryId;
+import de.metas.organization.OrgId;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/*
+ * #%L
+ * de.metas.business
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Immutable in-memory index of the active <code>C_Tax</code> records, used to determine the tax without querying the database.
+ * <p>
+ * The taxes are grouped by tax category, country from and country to. Inside a group, they are sorted the same way as the <code>C_Tax</code> query from
+ * {@link ITaxBL#retrieveTaxIdForCategory(java.util.Properties, CountryId, OrgId, org.compiere.model.I_C_BPartner_Location, java.sql.Timestamp, TaxCategoryId, boolean, boolean)}
+ * used to sort them (AD_Org_ID DESC, ValidFrom DESC), so the first matching tax of a group is the one which the query would have returned.
+ *
+ * @see ITaxDAO#getTaxRulesIndex()
+ */
+public final class TaxRulesIndex
+{
+	public static TaxRulesIndex of(@NonNull final Collection<TaxRule> taxRules)
+	{
+		return new TaxRulesIndex(taxRules);
+	}
+
+	@Value
+	@Builder
+	public static class TaxRule
+	{
+		@NonNull
+		TaxId taxId;
+		@NonNull
+		OrgId orgId;
+		@Nullable
+		TaxCategoryId taxCategoryId;
+		@Nullable
+		CountryId countryFromId;
+		/** null means "any country" */
+		@Nullable
+		CountryId countryToId;
+		@NonNull
+		Instant validFrom;
+
+		boolean salesTax;
+		boolean purchaseTax;
+		boolean toEULocation;
+		boolean requiresTaxCertificate;
+
+		private boolean matches(@NonNull final TaxRuleQuery query)
+		{
+			if (validFrom.isAfter(query.getDate()))
+			{
+				return false;
+			}
+			if (query.isSoTrx() ? !salesTax : !purchaseTax)
+			{
+				return false;
+			}
+			if (query.getOrgId() != null && !orgId.isAny() && !orgId.equals(query.getOrgId()))
+			{
+				return false;
+			}
+
+			if (query.isToSameCountry())
+			{
+				// tax category, country from and country to were already matched by the group key
+				return true;
+			}
+			else if (query.isToEULocation())
+			{
+				return toEULocation && requiresTaxCertificate == query.isHasTaxCertificate();
+			}
+			else
+			{
+				return !toEULocation;
+			}
+		}
+	}
+
+	@Value
+	@Builder
+	public static class TaxRuleQuery
+	{
+		@Nullable
+		TaxCategoryId taxCategoryId;
+		@Nullable
+		CountryId countryFromId;
+		@NonNull
+		CountryId countryToId;
+		/** if null, the taxes of all orgs are matching */
+		@Nullable
+		OrgId orgId;
+		@NonNull
+		Instant date;
+		boolean soTrx;
+		boolean toEULocation;
+		boolean hasTaxCertificate;
+
+		public boolean isToSameCountry()
+		{
+			return countryToId.equals(countryFromId);
+		}
+	}
+
+	@Value
+	private static class GroupKey
+	{
+		int taxCategoryId;
+		int countryFromId;
+		int countryToId;
+
+		static GroupKey of(@NonNull final TaxRule taxRule)
+		{
+			return new GroupKey(
+					TaxCategoryId.toRepoId(taxRule.getTaxCategoryId()),
+					CountryId.toRepoId(taxRule.getCountryFromId()),
+					CountryId.toRepoId(taxRule.getCountryToId()));
+		}
+	}
+
+	/** same order as in the SQL query: AD_Org_ID DESC, ValidFrom DESC; C_Tax_ID makes it deterministic */
+	private static final Comparator<TaxRule> ORDER = Comparator.<TaxRule> comparingInt(taxRule -> taxRule.getOrgId().getRepoId()).reversed()
+			.thenComparing(Comparator.comparing(TaxRule::getValidFrom).reversed())
+			.thenComparingInt(taxRule -> taxRule.getTaxId().getRepoId());
+
+	private final ImmutableMap<GroupKey, ImmutableList<TaxRule>> taxRulesByGroupKey;
+	private final int size;
+
+	private TaxRulesIndex(@NonNull final Collection<TaxRule> taxRules)
+	{
+		final Map<GroupKey, List<TaxRule>> taxRulesByGroupKey = new HashMap<>();
+		for (final TaxRule taxRule : taxRules)
+		{
+			taxRulesByGroupKey.computeIfAbsent(GroupKey.of(taxRule), k -> new ArrayList<>()).add(taxRule);
+		}
+
+		final ImmutableMap.Builder<GroupKey, ImmutableList<TaxRule>> builder = ImmutableMap.builder();
+		taxRulesByGroupKey.forEach((groupKey, groupTaxRules) -> builder.put(groupKey, ImmutableList.sortedCopyOf(ORDER, groupTaxRules)));
+		this.taxRulesByGroupKey = builder.build();
+		this.size = taxRules.size();
+	}
+
+	@Override
+	public String toString()
+	{
+		return MoreObjects.toStringHelper(this)
+				.add("groups", taxRulesByGroupKey.size())
+				.add("size", size)
+				.toString();
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * @return the tax which matches the given query or null. If a tax for the given country to and one for "any country" are matching,
+	 *         the one with the more specific org is returned; if both have the same org, the one for the given country is returned.
+	 */
+	@Nullable
+	public TaxId findTaxIdOrNull(@NonNull final TaxRuleQuery query)
+	{
+		final int taxCategoryRepoId = TaxCategoryId.toRepoId(query.getTaxCategoryId());
+		final int countryFromRepoId = CountryId.toRepoId(query.getCountryFromId());
+
+		final TaxRule toCountryTaxRule = findFirstMatching(new GroupKey(taxCategoryRepoId, countryFromRepoId, query.getCountryToId().getRepoId()), query);
+		if (query.isToSameCountry())
+		{
+			return toCountryTaxRule != null ? toCountryTaxRule.getTaxId() : null;
+		}
+
+		final TaxRule anyCountryTaxRule = findFirstMatching(new GroupKey(taxCategoryRepoId, countryFromRepoId, CountryId.toRepoId(null)), query);
+		if (toCountryTaxRule == null)
+		{
+			return anyCountryTaxRule != null ? anyCountryTaxRule.getTaxId() : null;
+		}
+		else if (anyCountryTaxRule == null)
+		{
+			return toCountryTaxRule.getTaxId();
+		}
+		else
+		{
+			// AD_Org_ID DESC first, then To_Country_ID (NULLS LAST)
+			return anyCountryTaxRule.getOrgId().getRepoId() > toCountryTaxRule.getOrgId().getRepoId()
+					? anyCountryTaxRule.getTaxId()
+					: toCountryTaxRule.getTaxId();
+		}
+	}
+
+	@Nullable
+	private TaxRule findFirstMatching(@NonNull final GroupKey groupKey, @NonNull final TaxRuleQuery query)
+	{
+		final ImmutableList<TaxRule> taxRules = taxRulesByGroupKey.get(groupKey);
+		if (taxRules == null)
+		{
+			return null;
+		}
+
+		for (final TaxRule taxRule : taxRules)
+		{
+			if (taxRule.matches(query))
+			{
+				return taxRule;
+			}
+		}
+
+		return null;
+	}
+}
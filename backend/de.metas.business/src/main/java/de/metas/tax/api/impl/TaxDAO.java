@@ -43,15 +43,22 @@ import org.compiere.model.IQuery;
 import org.compiere.model.I_C_Tax;
 import org.compiere.model.I_C_TaxCategory;
 import org.compiere.model.Query;
+import org.compiere.model.X_C_Tax;
+
+import com.google.common.collect.ImmutableList;
 
 import de.metas.bpartner.BPartnerId;
+import de.metas.cache.CCache;
 import de.metas.cache.annotation.CacheCtx;
 import de.metas.i18n.ITranslatableString;
 import de.metas.i18n.TranslatableStrings;
+import de.metas.location.CountryId;
 import de.metas.organization.OrgId;
 import de.metas.tax.api.ITaxDAO;
 import de.metas.tax.api.TaxCategoryId;
 import de.metas.tax.api.TaxId;
+import de.metas.tax.api.TaxRulesIndex;
+import de.metas.tax.api.TaxRulesIndex.TaxRule;
 import de.metas.tax.model.I_C_VAT_SmallBusiness;
 import de.metas.util.Check;
 import de.metas.util.Services;
@@ -62,6 +69,11 @@ public class TaxDAO implements ITaxDAO
 
 	private final IQueryBL queryBL = Services.get(IQueryBL.class);
 
+	private final CCache<Integer, TaxRulesIndex> taxRulesIndexCache = CCache.<Integer, TaxRulesIndex> builder()
+			.tableName(I_C_Tax.Table_Name)
+			.initialCapacity(1)
+			.build();
+
 	@Override
 	public I_C_Tax getTaxById(final int taxRepoId)
 	{
@@ -213,4 +225,40 @@ public class TaxDAO implements ITaxDAO
 
 		return Optional.ofNullable(taxCategoryId);
 	}
+
+	@Override
+	public TaxRulesIndex getTaxRulesIndex()
+	{
+		return taxRulesIndexCache.getOrLoad(0, this::retrieveTaxRulesIndex);
+	}
+
+	private TaxRulesIndex retrieveTaxRulesIndex()
+	{
+		final List<TaxRule> taxRules = queryBL.createQueryBuilderOutOfTrx(I_C_Tax.class)
+				.addOnlyActiveRecordsFilter()
+				.create()
+				.stream()
+				.map(TaxDAO::toTaxRule)
+				.collect(ImmutableList.toImmutableList());
+
+		return TaxRulesIndex.of(taxRules);
+	}
+
+	private static TaxRule toTaxRule(@NonNull final I_C_Tax record)
+	{
+		final String soPoType = record.getSOPOType();
+
+		return TaxRule.builder()
+				.taxId(TaxId.ofRepoId(record.getC_Tax_ID()))
+				.orgId(OrgId.ofRepoIdOrAny(record.getAD_Org_ID()))
+				.taxCategoryId(TaxCategoryId.ofRepoIdOrNull(record.getC_TaxCategory_ID()))
+				.countryFromId(CountryId.ofRepoIdOrNull(record.getC_Country_ID()))
+				.countryToId(CountryId.ofRepoIdOrNull(record.getTo_Country_ID()))
+				.validFrom(record.getValidFrom().toInstant())
+				.salesTax(X_C_Tax.SOPOTYPE_Both.equals(soPoType) || X_C_Tax.SOPOTYPE_SalesTax.equals(soPoType))
+				.purchaseTax(X_C_Tax.SOPOTYPE_Both.equals(soPoType) || X_C_Tax.SOPOTYPE_PurchaseTax.equals(soPoType))
+				.toEULocation(record.isToEULocation())
+				.requiresTaxCertificate(record.isRequiresTaxCertificate())
+				.build();
+	}
 }
@@ -0,0 +1,226 @@
+package de.metas.tax.api;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.metas.location.CountryId;
+import de.metas.organization.OrgId;
+import de.metas.tax.api.TaxRulesIndex.TaxRule;
+import de.metas.tax.api.TaxRulesIndex.TaxRuleQuery;
+
+/*
+ * #%L
+ * de.metas.business
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Resolves the taxes of {@value #COUNT_ORDER_LINES} random order lines using {@link TaxRulesIndex}, compared with a linear scan which is doing what the former
+ * <code>C_Tax</code> query was doing (filter, then order by AD_Org_ID DESC, To_Country_ID NULLS LAST, ValidFrom DESC and take the first).
+ * <p>
+ * The results of both are compared, so this is also a sanity check of the index.
+ */
+@Ignore
+public class TaxRulesIndexBenchmark
+{
+	private static final Logger logger = LoggerFactory.getLogger(TaxRulesIndexBenchmark.class);
+
+	private static final int COUNT_ORDER_LINES = 100_000;
+	private static final int COUNT_TAX_CATEGORIES = 6;
+	private static final int COUNT_COUNTRIES = 40;
+	/** countries 1..COUNT_EU_COUNTRIES are considered EU countries */
+	private static final int COUNT_EU_COUNTRIES = 27;
+	private static final int COUNT_FROM_COUNTRIES = 4;
+	private static final OrgId ORG1 = OrgId.ofRepoId(1000000);
+	private static final OrgId ORG2 = OrgId.ofRepoId(1000001);
+
+	public static void main(final String[] args)
+	{
+		new TaxRulesIndexBenchmark().run();
+	}
+
+	@Test
+	public void run()
+	{
+		final List<TaxRule> taxRules = createTaxRules();
+		final TaxRulesIndex index = TaxRulesIndex.of(taxRules);
+		logger.info("Created {}", index);
+
+		final List<TaxRuleQuery> orderLines = createOrderLineQueries();
+
+		// warm up
+		resolveUsingIndex(index, orderLines);
+		resolveLinear(taxRules, orderLines.subList(0, 1000));
+
+		final long indexStartNanos = System.nanoTime();
+		final List<TaxId> indexResults = resolveUsingIndex(index, orderLines);
+		final long indexNanos = System.nanoTime() - indexStartNanos;
+		logger.info("Index: {} order lines in {}ms => {}ns/line", orderLines.size(), indexNanos / 1_000_000, indexNanos / orderLines.size());
+
+		final long linearStartNanos = System.nanoTime();
+		final List<TaxId> linearResults = resolveLinear(taxRules, orderLines);
+		final long linearNanos = System.nanoTime() - linearStartNanos;
+		logger.info("Linear scan: {} order lines in {}ms => {}ns/line", orderLines.size(), linearNanos / 1_000_000, linearNanos / orderLines.size());
+
+		for (int i = 0; i < orderLines.size(); i++)
+		{
+			if (!Objects.equals(indexResults.get(i), linearResults.get(i)))
+			{
+				throw new IllegalStateException("Expected " + linearResults.get(i) + " but got " + indexResults.get(i) + " for " + orderLines.get(i));
+			}
+		}
+	}
+
+	private static List<TaxRule> createTaxRules()
+	{
+		final Random random = new Random(42);
+		final List<TaxRule> taxRules = new ArrayList<>();
+		for (int taxCategory = 1; taxCategory <= COUNT_TAX_CATEGORIES; taxCategory++)
+		{
+			for (int countryFrom = 1; countryFrom <= COUNT_FROM_COUNTRIES; countryFrom++)
+			{
+				for (int year = 2007; year <= 2020; year += 3)
+				{
+					final Instant validFrom = LocalDate.of(year, 1, 1).atStartOfDay().toInstant(ZoneOffset.UTC);
+
+					taxRules.add(taxRule(taxRules.size() + 1, taxCategory, countryFrom, countryFrom, validFrom, random).build());
+					taxRules.add(taxRule(taxRules.size() + 1, taxCategory, countryFrom, null, validFrom, random).toEULocation(true).requiresTaxCertificate(true).build());
+					taxRules.add(taxRule(taxRules.size() + 1, taxCategory, countryFrom, null, validFrom, random).toEULocation(true).requiresTaxCertificate(false).build());
+					taxRules.add(taxRule(taxRules.size() + 1, taxCategory, countryFrom, null, validFrom, random).toEULocation(false).build());
+
+					// some country specific deviations
+					final int countryTo = random.nextInt(COUNT_COUNTRIES) + 1;
+					taxRules.add(taxRule(taxRules.size() + 1, taxCategory, countryFrom, countryTo, validFrom, random)
+							.toEULocation(countryTo <= COUNT_EU_COUNTRIES)
+							.requiresTaxCertificate(random.nextBoolean())
+							.build());
+				}
+			}
+		}
+		return taxRules;
+	}
+
+	private static TaxRule.TaxRuleBuilder taxRule(
+			final int taxId,
+			final int taxCategory,
+			final int countryFrom,
+			final Integer countryTo,
+			final Instant validFrom,
+			final Random random)
+	{
+		final int soPoType = random.nextInt(4); // mostly "both"
+		final int org = random.nextInt(5); // mostly "any org"
+		return TaxRule.builder()
+				.taxId(TaxId.ofRepoId(taxId))
+				.orgId(org == 0 ? ORG1 : (org == 1 ? ORG2 : OrgId.ANY))
+				.taxCategoryId(TaxCategoryId.ofRepoId(taxCategory))
+				.countryFromId(CountryId.ofRepoId(countryFrom))
+				.countryToId(countryTo != null ? CountryId.ofRepoId(countryTo) : null)
+				.validFrom(validFrom)
+				.salesTax(soPoType != 1)
+				.purchaseTax(soPoType != 2);
+	}
+
+	private static List<TaxRuleQuery> createOrderLineQueries()
+	{
+		final Random random = new Random(1);
+		final List<TaxRuleQuery> orderLines = new ArrayList<>(COUNT_ORDER_LINES);
+		for (int i = 0; i < COUNT_ORDER_LINES; i++)
+		{
+			final int countryTo = random.nextInt(COUNT_COUNTRIES) + 1;
+			orderLines.add(TaxRuleQuery.builder()
+					.taxCategoryId(TaxCategoryId.ofRepoId(random.nextInt(COUNT_TAX_CATEGORIES) + 1))
+					.countryFromId(CountryId.ofRepoId(random.nextInt(COUNT_FROM_COUNTRIES) + 1))
+					.countryToId(CountryId.ofRepoId(countryTo))
+					.orgId(random.nextBoolean() ? ORG1 : ORG2)
+					.date(LocalDate.of(2006 + random.nextInt(16), 1 + random.nextInt(12), 1).atStartOfDay().toInstant(ZoneOffset.UTC))
+					.soTrx(random.nextInt(4) != 0)
+					.toEULocation(countryTo <= COUNT_EU_COUNTRIES)
+					.hasTaxCertificate(random.nextBoolean())
+					.build());
+		}
+		return orderLines;
+	}
+
+	private static List<TaxId> resolveUsingIndex(final TaxRulesIndex index, final List<TaxRuleQuery> orderLines)
+	{
+		final List<TaxId> result = new ArrayList<>(orderLines.size());
+		for (final TaxRuleQuery orderLine : orderLines)
+		{
+			result.add(index.findTaxIdOrNull(orderLine));
+		}
+		return result;
+	}
+
+	private static List<TaxId> resolveLinear(final List<TaxRule> taxRules, final List<TaxRuleQuery> orderLines)
+	{
+		final List<TaxId> result = new ArrayList<>(orderLines.size());
+		for (final TaxRuleQuery orderLine : orderLines)
+		{
+			result.add(resolveLinear(taxRules, orderLine));
+		}
+		return result;
+	}
+
+	private static TaxId resolveLinear(final List<TaxRule> taxRules, final TaxRuleQuery query)
+	{
+		return taxRules.stream()
+				.filter(taxRule -> !taxRule.getValidFrom().isAfter(query.getDate()))
+				.filter(taxRule -> Objects.equals(taxRule.getCountryFromId(), query.getCountryFromId()))
+				.filter(taxRule -> Objects.equals(taxRule.getTaxCategoryId(), query.getTaxCategoryId()))
+				.filter(taxRule -> {
+					if (query.isToSameCountry())
+					{
+						return query.getCountryToId().equals(taxRule.getCountryToId());
+					}
+					else if (taxRule.getCountryToId() != null && !taxRule.getCountryToId().equals(query.getCountryToId()))
+					{
+						return false;
+					}
+					else if (query.isToEULocation())
+					{
+						return taxRule.isToEULocation() && taxRule.isRequiresTaxCertificate() == query.isHasTaxCertificate();
+					}
+					else
+					{
+						return !taxRule.isToEULocation();
+					}
+				})
+				.filter(taxRule -> query.isSoTrx() ? taxRule.isSalesTax() : taxRule.isPurchaseTax())
+				.filter(taxRule -> taxRule.getOrgId().isAny() || taxRule.getOrgId().equals(query.getOrgId()))
+				.sorted(Comparator.<TaxRule> comparingInt(taxRule -> taxRule.getOrgId().getRepoId()).reversed()
+						.thenComparing(taxRule -> taxRule.getCountryToId() == null ? Integer.MAX_VALUE : taxRule.getCountryToId().getRepoId())
+						.thenComparing(Comparator.comparing(TaxRule::getValidFrom).reversed())
+						.thenComparingInt(taxRule -> taxRule.getTaxId().getRepoId()))
+				.map(TaxRule::getTaxId)
+				.findFirst()
+				.orElse(null);
+	}
+}
@@ -0,0 +1,158 @@
+package de.metas.tax.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.metas.location.CountryId;
+import de.metas.organization.OrgId;
+import de.metas.tax.api.TaxRulesIndex.TaxRule;
+import de.metas.tax.api.TaxRulesIndex.TaxRuleQuery;
+
+/*
+ * #%L
+ * de.metas.business
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class TaxRulesIndexTest
+{
+	private static final TaxCategoryId TAX_CATEGORY = TaxCategoryId.ofRepoId(1000000);
+	private static final CountryId DE = CountryId.ofRepoId(101);
+	private static final CountryId AT = CountryId.ofRepoId(102);
+	private static final CountryId US = CountryId.ofRepoId(100);
+	private static final OrgId ORG = OrgId.ofRepoId(1000000);
+
+	private List<TaxRule> taxRules;
+
+	@BeforeEach
+	public void beforeEach()
+	{
+		taxRules = new ArrayList<>();
+	}
+
+	private TaxRule.TaxRuleBuilder taxRule(final int taxId)
+	{
+		return TaxRule.builder()
+				.taxId(TaxId.ofRepoId(taxId))
+				.orgId(OrgId.ANY)
+				.taxCategoryId(TAX_CATEGORY)
+				.countryFromId(DE)
+				.validFrom(instant(2000, 1, 1))
+				.salesTax(true)
+				.purchaseTax(true);
+	}
+
+	private void add(final TaxRule.TaxRuleBuilder taxRule)
+	{
+		taxRules.add(taxRule.build());
+	}
+
+	private static Instant instant(final int year, final int month, final int day)
+	{
+		return LocalDate.of(year, month, day).atStartOfDay().toInstant(ZoneOffset.UTC);
+	}
+
+	private static TaxRuleQuery.TaxRuleQueryBuilder query(final CountryId countryToId)
+	{
+		return TaxRuleQuery.builder()
+				.taxCategoryId(TAX_CATEGORY)
+				.countryFromId(DE)
+				.countryToId(countryToId)
+				.orgId(ORG)
+				.date(instant(2020, 6, 1))
+				.soTrx(true);
+	}
+
+	private TaxId find(final TaxRuleQuery.TaxRuleQueryBuilder query)
+	{
+		return TaxRulesIndex.of(taxRules).findTaxIdOrNull(query.build());
+	}
+
+	@Test
+	public void sameCountry_mostRecentValidFromWins()
+	{
+		add(taxRule(1).countryToId(DE).validFrom(instant(2007, 1, 1)));
+		add(taxRule(2).countryToId(DE).validFrom(instant(2020, 7, 1)));
+		add(taxRule(3).countryToId(DE).validFrom(instant(2020, 1, 1)));
+		add(taxRule(4).countryToId(null).validFrom(instant(2020, 5, 1)));
+
+		assertThat(find(query(DE))).isEqualTo(TaxId.ofRepoId(3));
+	}
+
+	@Test
+	public void orgSpecificTaxIsPreferred()
+	{
+		add(taxRule(1).countryToId(DE).validFrom(instant(2020, 1, 1)));
+		add(taxRule(2).countryToId(DE).orgId(ORG).validFrom(instant(2007, 1, 1)));
+
+		assertThat(find(query(DE))).isEqualTo(TaxId.ofRepoId(2));
+		assertThat(find(query(DE).orgId(OrgId.ofRepoId(1000001)))).isEqualTo(TaxId.ofRepoId(1));
+	}
+
+	@Test
+	public void toEULocation_matchesTaxCertificate()
+	{
+		add(taxRule(1).countryToId(null).toEULocation(true).requiresTaxCertificate(true));
+		add(taxRule(2).countryToId(null).toEULocation(true).requiresTaxCertificate(false));
+		add(taxRule(3).countryToId(null).toEULocation(false));
+
+		assertThat(find(query(AT).toEULocation(true).hasTaxCertificate(true))).isEqualTo(TaxId.ofRepoId(1));
+		assertThat(find(query(AT).toEULocation(true).hasTaxCertificate(false))).isEqualTo(TaxId.ofRepoId(2));
+		assertThat(find(query(US).toEULocation(false))).isEqualTo(TaxId.ofRepoId(3));
+	}
+
+	@Test
+	public void countrySpecificTaxIsPreferredToAnyCountry_unlessOrgIsMoreSpecific()
+	{
+		add(taxRule(1).countryToId(null).toEULocation(true));
+		add(taxRule(2).countryToId(AT).toEULocation(true));
+		assertThat(find(query(AT).toEULocation(true))).isEqualTo(TaxId.ofRepoId(2));
+
+		add(taxRule(3).countryToId(null).toEULocation(true).orgId(ORG));
+		assertThat(find(query(AT).toEULocation(true))).isEqualTo(TaxId.ofRepoId(3));
+	}
+
+	@Test
+	public void soPoType()
+	{
+		add(taxRule(1).countryToId(DE).salesTax(false).purchaseTax(true));
+		add(taxRule(2).countryToId(DE).salesTax(true).purchaseTax(false).validFrom(instant(1999, 1, 1)));
+
+		assertThat(find(query(DE).soTrx(false))).isEqualTo(TaxId.ofRepoId(1));
+		assertThat(find(query(DE).soTrx(true))).isEqualTo(TaxId.ofRepoId(2));
+	}
+
+	@Test
+	public void noMatch()
+	{
+		add(taxRule(1).countryToId(DE).validFrom(instant(2021, 1, 1)));
+		add(taxRule(2).countryToId(DE).taxCategoryId(TaxCategoryId.ofRepoId(1000001)));
+
+		assertThat(find(query(DE))).isNull();
+		assertThat(find(query(AT))).isNull();
+	}
+}
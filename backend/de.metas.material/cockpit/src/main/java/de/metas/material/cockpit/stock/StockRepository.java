@@ -19,7 +19,10 @@ import org.compiere.model.I_AD_Table;
 import org.compiere.util.DB;
 import org.springframework.stereotype.Service;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 
 import de.metas.material.cockpit.model.I_MD_Stock;
 import de.metas.material.cockpit.model.I_MD_Stock_WarehouseAndProduct_v;
@@ -58,6 +61,8 @@ import lombok.NonNull;
 @Service
 public class StockRepository
 {
+	@VisibleForTesting
+	static final int SNAPSHOT_MAX_PRODUCTS_PER_QUERY = 10000;
 
 	public BigDecimal getQtyOnHandForProductAndWarehouseIds(
 			@NonNull final ProductId productId,
@@ -236,6 +241,67 @@ public class StockRepository
 				.map(this::recordToStockDataItem);
 	}
 
+	/**
+	 * Loads the stock of all products and warehouses of the given multi query in one streaming query, instead of one sub query per {@link StockDataQuery}.
+	 * <p>
+	 * Note that unlike {@link #streamStockDataItems(StockDataMultiQuery)}, the result also contains all storage attributes keys
+	 * and the warehouses of the other queries, so the caller needs to match the items against its queries.
+	 * <p>
+	 * Please use this stream within a try-with-resources statement, because it's supposed to do cleanup.
+	 */
+	public Stream<StockDataItem> streamStockDataItemsSnapshot(@NonNull final StockDataMultiQuery multiQuery)
+	{
+		return streamStockDataItemsSnapshot(multiQuery, SNAPSHOT_MAX_PRODUCTS_PER_QUERY);
+	}
+
+	@VisibleForTesting
+	Stream<StockDataItem> streamStockDataItemsSnapshot(
+			@NonNull final StockDataMultiQuery multiQuery,
+			final int maxProductsPerQuery)
+	{
+		final ImmutableList<StockDataQuery> queries = multiQuery.getStockDataQueries();
+		if (queries.isEmpty())
+		{
+			return Stream.empty();
+		}
+
+		final ImmutableSet<ProductId> productIds = queries.stream()
+				.map(StockDataQuery::getProductId)
+				.collect(ImmutableSet.toImmutableSet());
+
+		// empty means "all warehouses"
+		final boolean allWarehouses = queries.stream().anyMatch(query -> query.getWarehouseIds().isEmpty());
+		final ImmutableSet<WarehouseId> warehouseIds = allWarehouses
+				? ImmutableSet.of()
+				: queries.stream()
+						.flatMap(query -> query.getWarehouseIds().stream())
+						.collect(ImmutableSet.toImmutableSet());
+
+		// usually one query; chunk only to stay below the JDBC driver's limit of bind parameters
+		return Lists.partition(productIds.asList(), maxProductsPerQuery)
+				.stream()
+				.flatMap(productIdsChunk -> streamStockDataItemsSnapshot(productIdsChunk, warehouseIds));
+	}
+
+	private Stream<StockDataItem> streamStockDataItemsSnapshot(
+			@NonNull final List<ProductId> productIds,
+			@NonNull final Set<WarehouseId> warehouseIds)
+	{
+		final IQueryBuilder<I_MD_Stock> queryBuilder = Services.get(IQueryBL.class)
+				.createQueryBuilder(I_MD_Stock.class)
+				.addInArrayFilter(I_MD_Stock.COLUMN_M_Product_ID, productIds);
+		if (!warehouseIds.isEmpty())
+		{
+			queryBuilder.addInArrayFilter(I_MD_Stock.COLUMN_M_Warehouse_ID, warehouseIds);
+		}
+
+		return queryBuilder
+				.create()
+				.setOption(IQuery.OPTION_ReturnReadOnlyRecords, true)
+				.streamUsingCursor(I_MD_Stock.class)
+				.map(this::recordToStockDataItem);
+	}
+
 	private IQuery<I_MD_Stock> createStockDataItemQuery(@NonNull final StockDataQuery query)
 	{
 		final IQueryBL queryBL = Services.get(IQueryBL.class);
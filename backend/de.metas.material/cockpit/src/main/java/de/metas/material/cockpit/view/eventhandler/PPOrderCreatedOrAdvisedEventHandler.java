@@ -98,8 +98,7 @@ public class PPOrderCreatedOrAdvisedEventHandler implements MaterialEventHandler
 			requests.add(request);
 		}
 
-		requests.build()
-				.forEach(request -> dataUpdateRequestHandler.handleDataUpdateRequest(request));
+		dataUpdateRequestHandler.handleDataUpdateRequests(requests.build());
 	}
 
 }
@@ -4,17 +4,50 @@ import static de.metas.util.NumberUtils.stripTrailingDecimalZeros;
 import static org.adempiere.model.InterfaceWrapperHelper.newInstance;
 import static org.adempiere.model.InterfaceWrapperHelper.save;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import javax.annotation.PreDestroy;
+
+import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.compiere.Adempiere;
 import org.compiere.model.IQuery;
+import org.compiere.util.DB;
+import org.compiere.util.Env;
 import org.compiere.util.TimeUtil;
+import org.slf4j.Logger;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ComparisonChain;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Striped;
 
 import de.metas.Profiles;
+import de.metas.cache.CacheMgt;
+import de.metas.cache.model.CacheInvalidateMultiRequest;
+import de.metas.logging.LogManager;
 import de.metas.material.cockpit.model.I_MD_Cockpit;
 import de.metas.material.cockpit.view.MainDataRecordIdentifier;
+import de.metas.util.Services;
 import lombok.NonNull;
+import lombok.Value;
 
 /*
  * #%L
@@ -42,14 +75,364 @@ import lombok.NonNull;
 @Profile(Profiles.PROFILE_App) // the event handler is also just on this profile
 public class MainDataRequestHandler
 {
+	private static final Logger logger = LogManager.getLogger(MainDataRequestHandler.class);
+
+	/** max number of rows per {@code INSERT .. ON CONFLICT} statement */
+	@VisibleForTesting
+	static final int UPSERT_BATCH_SIZE = 500;
+
+	/** how long the committed requests are collected before they are upserted, so that the requests of a burst of events are merged */
+	@VisibleForTesting
+	static final long FLUSH_DELAY_MILLIS = 200;
+
+	private static final String SQL_UPSERT_INSERT_INTO = "INSERT INTO " + I_MD_Cockpit.Table_Name + " ("
+			+ I_MD_Cockpit.COLUMNNAME_MD_Cockpit_ID
+			+ ", " + I_MD_Cockpit.COLUMNNAME_AD_Client_ID
+			+ ", " + I_MD_Cockpit.COLUMNNAME_AD_Org_ID
+			+ ", " + I_MD_Cockpit.COLUMNNAME_IsActive
+			+ ", " + I_MD_Cockpit.COLUMNNAME_Created
+			+ ", " + I_MD_Cockpit.COLUMNNAME_CreatedBy
+			+ ", " + I_MD_Cockpit.COLUMNNAME_Updated
+			+ ", " + I_MD_Cockpit.COLUMNNAME_UpdatedBy
+			+ ", " + I_MD_Cockpit.COLUMNNAME_M_Product_ID
+			+ ", " + I_MD_Cockpit.COLUMNNAME_AttributesKey
+			+ ", " + I_MD_Cockpit.COLUMNNAME_DateGeneral
+			+ ", " + I_MD_Cockpit.COLUMNNAME_PP_Plant_ID
+			+ ", " + I_MD_Cockpit.COLUMNNAME_QtyMaterialentnahme
+			+ ", " + I_MD_Cockpit.COLUMNNAME_QtyOnHandCount
+			+ ", " + I_MD_Cockpit.COLUMNNAME_PMM_QtyPromised_OnDate
+			+ ", " + I_MD_Cockpit.COLUMNNAME_QtyStockChange
+			+ ", " + I_MD_Cockpit.COLUMNNAME_QtyReserved_Purchase
+			+ ", " + I_MD_Cockpit.COLUMNNAME_QtyReserved_Sale
+			+ ", " + I_MD_Cockpit.COLUMNNAME_QtyRequiredForProduction
+			+ ", " + I_MD_Cockpit.COLUMNNAME_QtyOnHandEstimate
+			+ ", " + I_MD_Cockpit.COLUMNNAME_QtyAvailableToPromiseEstimate
+			+ ") VALUES ";
+
+	/** Note: the conflict target is the md_cockpit_uc unique index */
+	private static final String SQL_UPSERT_ON_CONFLICT = " ON CONFLICT (DateGeneral, M_Product_ID, AttributesKey, COALESCE(PP_Plant_ID, 0)) DO UPDATE SET "
+			+ sqlAddExcluded(I_MD_Cockpit.COLUMNNAME_QtyMaterialentnahme)
+			+ ", " + sqlAddExcluded(I_MD_Cockpit.COLUMNNAME_QtyOnHandCount)
+			+ ", " + sqlAddExcluded(I_MD_Cockpit.COLUMNNAME_PMM_QtyPromised_OnDate)
+			+ ", " + sqlAddExcluded(I_MD_Cockpit.COLUMNNAME_QtyStockChange)
+			+ ", " + sqlAddExcluded(I_MD_Cockpit.COLUMNNAME_QtyReserved_Purchase)
+			+ ", " + sqlAddExcluded(I_MD_Cockpit.COLUMNNAME_QtyReserved_Sale)
+			+ ", " + sqlAddExcluded(I_MD_Cockpit.COLUMNNAME_QtyRequiredForProduction)
+			// the estimates are computed from the new quantities, like in updateDataRecordWithRequestQtys
+			+ ", " + I_MD_Cockpit.COLUMNNAME_QtyOnHandEstimate + "=" + sqlQtyOnHandEstimate()
+			+ ", " + I_MD_Cockpit.COLUMNNAME_QtyAvailableToPromiseEstimate + "=" + sqlQtyOnHandEstimate()
+			+ " + " + sqlNewQty(I_MD_Cockpit.COLUMNNAME_QtyReserved_Purchase)
+			+ " - " + sqlNewQty(I_MD_Cockpit.COLUMNNAME_QtyReserved_Sale)
+			+ ", " + I_MD_Cockpit.COLUMNNAME_Updated + "=EXCLUDED." + I_MD_Cockpit.COLUMNNAME_Updated
+			+ ", " + I_MD_Cockpit.COLUMNNAME_UpdatedBy + "=EXCLUDED." + I_MD_Cockpit.COLUMNNAME_UpdatedBy
+			+ " RETURNING " + I_MD_Cockpit.COLUMNNAME_MD_Cockpit_ID;
+
+	/**
+	 * Identifies one MD_Cockpit record, like the md_cockpit_uc unique index.
+	 * <p>
+	 * Note: we can't use {@link MainDataRecordIdentifier} for that, because its product descriptor might be a {@link de.metas.material.event.commons.MaterialDescriptor}, which has more properties.
+	 */
+	@Value
+	private static class RecordKey implements Comparable<RecordKey>
+	{
+		static RecordKey of(@NonNull final MainDataRecordIdentifier identifier)
+		{
+			return new RecordKey(
+					identifier.getProductDescriptor().getProductId(),
+					identifier.getProductDescriptor().getStorageAttributesKey().getAsString(),
+					identifier.getDate(),
+					Math.max(identifier.getPlantId(), 0));
+		}
+
+		int productId;
+		String attributesKey;
+		Instant date;
+		int plantId;
+
+		/** same order in which the rows are upserted, so that concurrent upserts lock the MD_Cockpit rows in the same order */
+		@Override
+		public int compareTo(@NonNull final RecordKey other)
+		{
+			return ComparisonChain.start()
+					.compare(productId, other.productId)
+					.compare(attributesKey, other.attributesKey)
+					.compare(date, other.date)
+					.compare(plantId, other.plantId)
+					.result();
+		}
+	}
+
+	/** the client, org and user with which the MD_Cockpit records are upserted */
+	@Value
+	private static class UpsertContext
+	{
+		static UpsertContext of(@NonNull final Properties ctx)
+		{
+			return new UpsertContext(Env.getAD_Client_ID(ctx), Env.getAD_Org_ID(ctx), Env.getAD_User_ID(ctx));
+		}
+
+		int adClientId;
+		int adOrgId;
+		int adUserId;
+	}
+
+	/** used when updating the records one by one, to make sure that two threads don't create the same MD_Cockpit record */
+	private final Striped<Lock> recordLocks = Striped.lock(64);
+
+	/** committed requests which were not yet upserted */
+	private final Map<UpsertContext, List<UpdateMainDataRequest>> buffer = new HashMap<>();
+	private ScheduledFuture<?> scheduledFlush; // guarded by buffer
+
+	private final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor(
+			CustomizableThreadFactory.builder()
+					.setDaemon(true)
+					.setThreadNamePrefix("material-cockpit-MD_Cockpit-upsert")
+					.build());
+
 	public void handleDataUpdateRequest(@NonNull final UpdateMainDataRequest dataUpdateRequest)
 	{
-		synchronized (MainDataRequestHandler.class)
+		handleDataUpdateRequests(ImmutableList.of(dataUpdateRequest));
+	}
+
+	/**
+	 * Adds the quantities of the given requests to the respective MD_Cockpit records.
+	 * <p>
+	 * The requests are collected after the current transaction was committed and are upserted {@value #FLUSH_DELAY_MILLIS}ms later,
+	 * together with the requests of all the other transactions that were committed in the meantime.
+	 * Our event handlers call this method once per event, each in its own transaction, so this is where the requests of a burst of events are merged.
+	 * <p>
+	 * The requests with the same identifier are coalesced into one, then all records are created or updated using {@code INSERT .. ON CONFLICT DO UPDATE} statements,
+	 * which add the quantities to the current ones inside the database. So there is no need to synchronize concurrent updates, not even if they run on different nodes.
+	 */
+	public void handleDataUpdateRequests(@NonNull final Collection<UpdateMainDataRequest> dataUpdateRequests)
+	{
+		if (dataUpdateRequests.isEmpty())
+		{
+			return;
+		}
+
+		if (Adempiere.isUnitTestMode())
+		{
+			// the in-memory database of the unit tests does not support ON CONFLICT
+			coalesce(dataUpdateRequests).forEach(this::updateDataRecord);
+			return;
+		}
+
+		final UpsertContext upsertContext = UpsertContext.of(Env.getCtx());
+		final ImmutableList<UpdateMainDataRequest> requests = ImmutableList.copyOf(dataUpdateRequests);
+		Services.get(ITrxManager.class).runAfterCommit(() -> addToBuffer(upsertContext, requests));
+	}
+
+	private void addToBuffer(
+			@NonNull final UpsertContext upsertContext,
+			@NonNull final List<UpdateMainDataRequest> requests)
+	{
+		synchronized (buffer)
+		{
+			buffer.computeIfAbsent(upsertContext, k -> new ArrayList<>()).addAll(requests);
+			if (scheduledFlush != null)
+			{
+				return;
+			}
+
+			if (!flushExecutor.isShutdown())
+			{
+				scheduledFlush = flushExecutor.schedule(this::flush, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+				return;
+			}
+		}
+
+		// we are shutting down; don't lose the requests
+		flush();
+	}
+
+	/**
+	 * Upserts the requests that are still buffered.
+	 */
+	@PreDestroy
+	public void shutdown()
+	{
+		flushExecutor.shutdown();
+		flush();
+	}
+
+	private synchronized void flush()
+	{
+		final Map<UpsertContext, List<UpdateMainDataRequest>> requestsToFlush;
+		synchronized (buffer)
+		{
+			requestsToFlush = new HashMap<>(buffer);
+			buffer.clear();
+			scheduledFlush = null;
+		}
+
+		requestsToFlush.forEach(this::upsertDataRecords);
+	}
+
+	private void upsertDataRecords(
+			@NonNull final UpsertContext upsertContext,
+			@NonNull final List<UpdateMainDataRequest> dataUpdateRequests)
+	{
+		for (final List<UpdateMainDataRequest> batch : Lists.partition(coalesce(dataUpdateRequests), UPSERT_BATCH_SIZE))
+		{
+			try
+			{
+				upsertDataRecordsBatch(upsertContext, batch);
+			}
+			catch (final RuntimeException ex)
+			{
+				if (flushExecutor.isShutdown())
+				{
+					logger.error("Failed upserting {} MD_Cockpit records while shutting down: {}", batch.size(), batch, ex);
+					continue;
+				}
+
+				// the requests were already committed, so we must not lose them; retry with the next flush
+				logger.error("Failed upserting {} MD_Cockpit records. Retrying in {}ms", batch.size(), FLUSH_DELAY_MILLIS, ex);
+				addToBuffer(upsertContext, batch);
+			}
+		}
+	}
+
+	/**
+	 * @return one request per identifier, with the sum of the given requests' quantities; the result is sorted by identifier
+	 */
+	@VisibleForTesting
+	static List<UpdateMainDataRequest> coalesce(@NonNull final Collection<UpdateMainDataRequest> dataUpdateRequests)
+	{
+		if (dataUpdateRequests.size() <= 1)
+		{
+			return ImmutableList.copyOf(dataUpdateRequests);
+		}
+
+		final TreeMap<RecordKey, UpdateMainDataRequest> requestsByKey = new TreeMap<>();
+		for (final UpdateMainDataRequest request : dataUpdateRequests)
+		{
+			requestsByKey.merge(RecordKey.of(request.getIdentifier()), request, UpdateMainDataRequest::add);
+		}
+
+		return ImmutableList.copyOf(requestsByKey.values());
+	}
+
+	private void updateDataRecord(@NonNull final UpdateMainDataRequest dataUpdateRequest)
+	{
+		final Lock lock = recordLocks.get(RecordKey.of(dataUpdateRequest.getIdentifier()));
+		lock.lock();
+		try
 		{
 			final I_MD_Cockpit dataRecord = retrieveOrCreateDataRecord(dataUpdateRequest.getIdentifier());
 			updateDataRecordWithRequestQtys(dataRecord, dataUpdateRequest);
 			save(dataRecord);
 		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Note: the upsert bypasses the model save path, so we need to fire the cache invalidation ourselves.
+	 * E.g. the material cockpit views are refreshed when MD_Cockpit is invalidated.
+	 * <p>
+	 * The statement runs out of transaction, because the requests were already committed; each statement is atomic on its own.
+	 */
+	private static void upsertDataRecordsBatch(
+			@NonNull final UpsertContext upsertContext,
+			@NonNull final List<UpdateMainDataRequest> dataUpdateRequests)
+	{
+		final List<Object> sqlParams = new ArrayList<>(dataUpdateRequests.size() * 17);
+		final String sql = createUpsertSql(
+				dataUpdateRequests,
+				DB.TO_TABLESEQUENCE_NEXTVAL(I_MD_Cockpit.Table_Name),
+				upsertContext.getAdClientId(),
+				upsertContext.getAdOrgId(),
+				upsertContext.getAdUserId(),
+				sqlParams);
+
+		final List<Integer> upsertedRecordIds = DB.retrieveRowsOutOfTrx(sql, sqlParams, rs -> rs.getInt(1));
+		if (upsertedRecordIds.isEmpty())
+		{
+			return;
+		}
+
+		CacheMgt.get().resetLocalNowAndBroadcastOnTrxCommit(
+				ITrx.TRXNAME_None,
+				CacheInvalidateMultiRequest.fromTableNameAndRecordIds(I_MD_Cockpit.Table_Name, upsertedRecordIds));
+	}
+
+	/**
+	 * @param sqlNextId SQL expression for the next MD_Cockpit_ID
+	 * @param sqlParams the SQL parameters are added to this list
+	 * @return the {@code INSERT .. ON CONFLICT DO UPDATE .. RETURNING MD_Cockpit_ID} statement for the given requests
+	 */
+	@VisibleForTesting
+	static String createUpsertSql(
+			@NonNull final List<UpdateMainDataRequest> dataUpdateRequests,
+			@NonNull final String sqlNextId,
+			final int adClientId,
+			final int adOrgId,
+			final int adUserId,
+			@NonNull final List<Object> sqlParams)
+	{
+		final String sqlValues = "(" + sqlNextId + ", ?, ?, 'Y', now(), ?, now(), ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+		final StringBuilder sql = new StringBuilder(SQL_UPSERT_INSERT_INTO);
+		boolean firstRow = true;
+		for (final UpdateMainDataRequest request : dataUpdateRequests)
+		{
+			if (!firstRow)
+			{
+				sql.append(",");
+			}
+			firstRow = false;
+			sql.append(sqlValues);
+
+			final MainDataRecordIdentifier identifier = request.getIdentifier();
+			final BigDecimal qtyOnHandEstimate = request.getCountedQty()
+					.add(request.getOnHandQtyChange())
+					.subtract(request.getDirectMovementQty());
+			final BigDecimal qtyAvailableToPromiseEstimate = qtyOnHandEstimate
+					.add(request.getReservedPurchaseQty())
+					.subtract(request.getReservedSalesQty());
+
+			sqlParams.add(adClientId);
+			sqlParams.add(adOrgId);
+			sqlParams.add(adUserId);
+			sqlParams.add(adUserId);
+			sqlParams.add(identifier.getProductDescriptor().getProductId());
+			sqlParams.add(identifier.getProductDescriptor().getStorageAttributesKey().getAsString());
+			sqlParams.add(TimeUtil.asTimestamp(identifier.getDate()));
+			sqlParams.add(identifier.getPlantId() > 0 ? identifier.getPlantId() : null);
+			sqlParams.add(stripTrailingDecimalZeros(request.getDirectMovementQty()));
+			sqlParams.add(stripTrailingDecimalZeros(request.getCountedQty()));
+			sqlParams.add(stripTrailingDecimalZeros(request.getOfferedQty()));
+			sqlParams.add(stripTrailingDecimalZeros(request.getOnHandQtyChange()));
+			sqlParams.add(stripTrailingDecimalZeros(request.getReservedPurchaseQty()));
+			sqlParams.add(stripTrailingDecimalZeros(request.getReservedSalesQty()));
+			sqlParams.add(stripTrailingDecimalZeros(request.getRequiredForProductionQty()));
+			sqlParams.add(stripTrailingDecimalZeros(qtyOnHandEstimate));
+			sqlParams.add(stripTrailingDecimalZeros(qtyAvailableToPromiseEstimate));
+		}
+		sql.append(SQL_UPSERT_ON_CONFLICT);
+
+		return sql.toString();
+	}
+
+	private static String sqlNewQty(final String columnName)
+	{
+		return "(COALESCE(" + I_MD_Cockpit.Table_Name + "." + columnName + ", 0) + EXCLUDED." + columnName + ")";
+	}
+
+	private static String sqlAddExcluded(final String columnName)
+	{
+		return columnName + "=" + sqlNewQty(columnName);
+	}
+
+	private static String sqlQtyOnHandEstimate()
+	{
+		return "(" + sqlNewQty(I_MD_Cockpit.COLUMNNAME_QtyOnHandCount)
+				+ " + " + sqlNewQty(I_MD_Cockpit.COLUMNNAME_QtyStockChange)
+				+ " - " + sqlNewQty(I_MD_Cockpit.COLUMNNAME_QtyMaterialentnahme) + ")";
 	}
 
 	@VisibleForTesting
@@ -69,4 +69,24 @@ public class UpdateMainDataRequest
 
 	@Default
 	BigDecimal requiredForProductionQty = BigDecimal.ZERO;
+
+	/**
+	 * @return a request with this request's identifier and the sum of this request's and the given request's quantities.
+	 *         The caller needs to make sure that both requests are about the same MD_Cockpit record.
+	 */
+	public UpdateMainDataRequest add(@NonNull final UpdateMainDataRequest other)
+	{
+		return UpdateMainDataRequest.builder()
+				.identifier(identifier)
+				.countedQty(countedQty.add(other.countedQty))
+				.onHandQtyChange(onHandQtyChange.add(other.onHandQtyChange))
+				.directMovementQty(directMovementQty.add(other.directMovementQty))
+				.orderedSalesQty(orderedSalesQty.add(other.orderedSalesQty))
+				.reservedSalesQty(reservedSalesQty.add(other.reservedSalesQty))
+				.orderedPurchaseQty(orderedPurchaseQty.add(other.orderedPurchaseQty))
+				.reservedPurchaseQty(reservedPurchaseQty.add(other.reservedPurchaseQty))
+				.offeredQty(offeredQty.add(other.offeredQty))
+				.requiredForProductionQty(requiredForProductionQty.add(other.requiredForProductionQty))
+				.build();
+	}
 }
@@ -0,0 +1,195 @@
+package de.metas.material.cockpit.stock;
+
+import static org.adempiere.model.InterfaceWrapperHelper.newInstance;
+import static org.adempiere.model.InterfaceWrapperHelper.saveRecord;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.adempiere.test.AdempiereTestHelper;
+import org.adempiere.warehouse.WarehouseId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.metas.material.cockpit.model.I_MD_Stock;
+import de.metas.material.event.commons.AttributesKey;
+import de.metas.product.ProductId;
+
+/*
+ * #%L
+ * metasfresh-material-cockpit
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class StockRepositoryTest
+{
+	private static final ProductId PRODUCT_1 = ProductId.ofRepoId(1);
+	private static final ProductId PRODUCT_2 = ProductId.ofRepoId(2);
+	private static final ProductId PRODUCT_3 = ProductId.ofRepoId(3);
+	private static final ProductId PRODUCT_OTHER = ProductId.ofRepoId(99);
+
+	private static final WarehouseId WAREHOUSE_1 = WarehouseId.ofRepoId(11);
+	private static final WarehouseId WAREHOUSE_2 = WarehouseId.ofRepoId(12);
+	private static final WarehouseId WAREHOUSE_3 = WarehouseId.ofRepoId(13);
+
+	private static final AttributesKey ATTRIBUTES_KEY_1 = AttributesKey.ofAttributeValueIds(101);
+	private static final AttributesKey ATTRIBUTES_KEY_2 = AttributesKey.ofAttributeValueIds(102);
+
+	private StockRepository stockRepository;
+
+	@BeforeEach
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+
+		stockRepository = new StockRepository();
+	}
+
+	private static StockDataItem createStock(
+			final ProductId productId,
+			final WarehouseId warehouseId,
+			final AttributesKey attributesKey,
+			final int qtyOnHand)
+	{
+		final I_MD_Stock record = newInstance(I_MD_Stock.class);
+		record.setM_Product_ID(productId.getRepoId());
+		record.setM_Warehouse_ID(warehouseId.getRepoId());
+		record.setAttributesKey(attributesKey.getAsString());
+		record.setQtyOnHand(BigDecimal.valueOf(qtyOnHand));
+		saveRecord(record);
+
+		return StockDataItem.builder()
+				.productId(productId)
+				.warehouseId(warehouseId)
+				.storageAttributesKey(attributesKey)
+				.qtyOnHand(BigDecimal.valueOf(qtyOnHand))
+				.build();
+	}
+
+	private static StockDataQuery query(final ProductId productId, final WarehouseId... warehouseIds)
+	{
+		return StockDataQuery.builder()
+				.productId(productId)
+				.warehouseIds(Stream.of(warehouseIds).collect(Collectors.toList()))
+				.build();
+	}
+
+	private static StockDataMultiQuery multiQuery(final StockDataQuery... queries)
+	{
+		return StockDataMultiQuery.builder()
+				.stockDataQueries(Stream.of(queries).collect(Collectors.toList()))
+				.build();
+	}
+
+	private static List<StockDataItem> toList(final Stream<StockDataItem> stream)
+	{
+		try (final Stream<StockDataItem> streamToClose = stream)
+		{
+			return streamToClose.collect(Collectors.toList());
+		}
+	}
+
+	@Test
+	public void maxProductsPerQuery()
+	{
+		assertThat(StockRepository.SNAPSHOT_MAX_PRODUCTS_PER_QUERY).isEqualTo(10000);
+	}
+
+	@Test
+	public void snapshot_noQueries()
+	{
+		createStock(PRODUCT_1, WAREHOUSE_1, ATTRIBUTES_KEY_1, 10);
+
+		assertThat(toList(stockRepository.streamStockDataItemsSnapshot(multiQuery()))).isEmpty();
+	}
+
+	@Test
+	public void snapshot_containsAllAttributesKeys()
+	{
+		final StockDataItem stock1 = createStock(PRODUCT_1, WAREHOUSE_1, ATTRIBUTES_KEY_1, 10);
+		final StockDataItem stock2 = createStock(PRODUCT_1, WAREHOUSE_1, ATTRIBUTES_KEY_2, 20);
+		createStock(PRODUCT_OTHER, WAREHOUSE_1, ATTRIBUTES_KEY_1, 30);
+
+		final StockDataQuery query = query(PRODUCT_1, WAREHOUSE_1).toBuilder()
+				.storageAttributesKey(ATTRIBUTES_KEY_1)
+				.build();
+
+		// the attributes keys are matched by the caller
+		assertThat(toList(stockRepository.streamStockDataItemsSnapshot(multiQuery(query))))
+				.containsExactly(stock1, stock2);
+	}
+
+	@Test
+	public void snapshot_unionOfWarehouses()
+	{
+		final StockDataItem stock1 = createStock(PRODUCT_1, WAREHOUSE_1, ATTRIBUTES_KEY_1, 10);
+		final StockDataItem stock2 = createStock(PRODUCT_1, WAREHOUSE_2, ATTRIBUTES_KEY_1, 20);
+		createStock(PRODUCT_1, WAREHOUSE_3, ATTRIBUTES_KEY_1, 30);
+		final StockDataItem stock4 = createStock(PRODUCT_2, WAREHOUSE_1, ATTRIBUTES_KEY_1, 40);
+
+		// the warehouses are not paired with the products; the caller matches them
+		assertThat(toList(stockRepository.streamStockDataItemsSnapshot(multiQuery(
+				query(PRODUCT_1, WAREHOUSE_1),
+				query(PRODUCT_2, WAREHOUSE_2)))))
+						.containsExactly(stock1, stock2, stock4);
+	}
+
+	@Test
+	public void snapshot_allWarehousesIfOneQueryHasNoWarehouses()
+	{
+		final StockDataItem stock1 = createStock(PRODUCT_1, WAREHOUSE_1, ATTRIBUTES_KEY_1, 10);
+		final StockDataItem stock2 = createStock(PRODUCT_1, WAREHOUSE_3, ATTRIBUTES_KEY_1, 20);
+		final StockDataItem stock3 = createStock(PRODUCT_2, WAREHOUSE_3, ATTRIBUTES_KEY_1, 30);
+		createStock(PRODUCT_OTHER, WAREHOUSE_1, ATTRIBUTES_KEY_1, 40);
+
+		assertThat(toList(stockRepository.streamStockDataItemsSnapshot(multiQuery(
+				query(PRODUCT_1, WAREHOUSE_1),
+				query(PRODUCT_2)))))
+						.containsExactly(stock1, stock2, stock3);
+	}
+
+	@Test
+	public void snapshot_chunkedByProducts()
+	{
+		final StockDataItem stock1 = createStock(PRODUCT_1, WAREHOUSE_1, ATTRIBUTES_KEY_1, 10);
+		final StockDataItem stock2 = createStock(PRODUCT_2, WAREHOUSE_1, ATTRIBUTES_KEY_1, 20);
+		final StockDataItem stock3 = createStock(PRODUCT_3, WAREHOUSE_1, ATTRIBUTES_KEY_1, 30);
+		final StockDataItem stock4 = createStock(PRODUCT_1, WAREHOUSE_1, ATTRIBUTES_KEY_2, 40);
+
+		final StockDataMultiQuery multiQuery = multiQuery(
+				query(PRODUCT_3, WAREHOUSE_1),
+				query(PRODUCT_1, WAREHOUSE_1),
+				query(PRODUCT_2, WAREHOUSE_1));
+
+		// one query: the rows come in the order they were created
+		assertThat(toList(stockRepository.streamStockDataItemsSnapshot(multiQuery)))
+				.containsExactly(stock1, stock2, stock3, stock4);
+
+		// chunks [PRODUCT_3, PRODUCT_1] and [PRODUCT_2]: the rows come chunk after chunk, none is lost or loaded twice
+		assertThat(toList(stockRepository.streamStockDataItemsSnapshot(multiQuery, 2)))
+				.containsExactly(stock1, stock3, stock4, stock2);
+
+		// one chunk per product
+		assertThat(toList(stockRepository.streamStockDataItemsSnapshot(multiQuery, 1)))
+				.containsExactly(stock3, stock1, stock4, stock2);
+	}
+}
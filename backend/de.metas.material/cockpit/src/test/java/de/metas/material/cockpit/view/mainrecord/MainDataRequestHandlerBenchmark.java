@@ -0,0 +1,126 @@
+package de.metas.material.cockpit.view.mainrecord;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+
+import de.metas.material.cockpit.view.MainDataRecordIdentifier;
+import de.metas.material.event.commons.ProductDescriptor;
+
+/*
+ * #%L
+ * metasfresh-material-cockpit
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Simulates a burst of {@value #COUNT_EVENTS} stock/transaction events, of which {@value #EVENTS_PER_BATCH} are committed within one
+ * {@link MainDataRequestHandler#FLUSH_DELAY_MILLIS} interval and are therefore upserted together,
+ * and measures how fast {@link MainDataRequestHandler#coalesce(java.util.Collection)} is and how many MD_Cockpit rows and SQL statements remain.
+ * <p>
+ * Note: the updates themselves are not executed, because that needs a real database.
+ * Before, each event was one {@code SELECT} plus one {@code INSERT} or {@code UPDATE}, executed while holding a JVM wide lock.
+ */
+@Disabled
+public class MainDataRequestHandlerBenchmark
+{
+	private static final Logger logger = LoggerFactory.getLogger(MainDataRequestHandlerBenchmark.class);
+
+	private static final int COUNT_EVENTS = 100_000;
+	private static final int EVENTS_PER_BATCH = 1_000;
+	private static final int COUNT_PRODUCTS = 500;
+	private static final int COUNT_DAYS = 10;
+
+	public static void main(final String[] args)
+	{
+		new MainDataRequestHandlerBenchmark().run();
+	}
+
+	@Test
+	public void run()
+	{
+		final List<UpdateMainDataRequest> events = createEvents();
+
+		// warm up
+		coalesceInBatches(events);
+
+		final long startNanos = System.nanoTime();
+		final int[] counts = coalesceInBatches(events);
+		final long durationNanos = System.nanoTime() - startNanos;
+
+		final int countRows = counts[0];
+		final int countStatements = counts[1];
+		logger.info("Coalesced {} events in {}ms ({} events/s) => {} MD_Cockpit row updates in {} statements (was: {} statements)",
+				COUNT_EVENTS,
+				durationNanos / 1_000_000,
+				COUNT_EVENTS * 1_000_000_000L / Math.max(durationNanos, 1),
+				countRows,
+				countStatements,
+				COUNT_EVENTS * 2);
+	}
+
+	/**
+	 * @return number of rows and number of upsert statements
+	 */
+	private static int[] coalesceInBatches(final List<UpdateMainDataRequest> events)
+	{
+		int countRows = 0;
+		int countStatements = 0;
+		for (final List<UpdateMainDataRequest> batch : Lists.partition(events, EVENTS_PER_BATCH))
+		{
+			final List<UpdateMainDataRequest> coalesced = MainDataRequestHandler.coalesce(batch);
+			countRows += coalesced.size();
+			countStatements += (coalesced.size() + MainDataRequestHandler.UPSERT_BATCH_SIZE - 1) / MainDataRequestHandler.UPSERT_BATCH_SIZE;
+		}
+		return new int[] { countRows, countStatements };
+	}
+
+	private static List<UpdateMainDataRequest> createEvents()
+	{
+		final Random random = new Random(42);
+		final Instant today = Instant.now().truncatedTo(ChronoUnit.DAYS);
+
+		final List<UpdateMainDataRequest> events = new ArrayList<>(COUNT_EVENTS);
+		for (int i = 0; i < COUNT_EVENTS; i++)
+		{
+			// a few products are getting most of the events
+			final int productId = 1 + (int)(COUNT_PRODUCTS * Math.pow(random.nextDouble(), 3));
+			final MainDataRecordIdentifier identifier = MainDataRecordIdentifier.builder()
+					.productDescriptor(ProductDescriptor.completeForProductIdAndEmptyAttribute(productId))
+					.date(today.plus(random.nextInt(COUNT_DAYS), ChronoUnit.DAYS))
+					.build();
+
+			final BigDecimal qty = BigDecimal.valueOf(random.nextInt(100) - 50);
+			events.add(random.nextBoolean()
+					? UpdateMainDataRequest.builder().identifier(identifier).onHandQtyChange(qty).build()
+					: UpdateMainDataRequest.builder().identifier(identifier).reservedSalesQty(qty).build());
+		}
+		return events;
+	}
+}
@@ -4,12 +4,18 @@ import static org.adempiere.model.InterfaceWrapperHelper.isNew;
 import static org.adempiere.model.InterfaceWrapperHelper.saveRecord;
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.adempiere.test.AdempiereTestHelper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.google.common.collect.ImmutableList;
+
 import de.metas.material.cockpit.model.I_MD_Cockpit;
 import de.metas.material.cockpit.view.MainDataRecordIdentifier;
 import de.metas.material.event.commons.ProductDescriptor;
@@ -63,4 +69,98 @@ public class MainDataRequestHandlerTest
 		assertThat(isNew(result2)).isFalse();
 		assertThat(result2.getMD_Cockpit_ID()).isEqualTo(result.getMD_Cockpit_ID());
 	}
+
+	private static MainDataRecordIdentifier identifier(final int productId)
+	{
+		return MainDataRecordIdentifier.builder()
+				.date(NOW)
+				.productDescriptor(ProductDescriptor.completeForProductIdAndEmptyAttribute(productId))
+				.build();
+	}
+
+	@Test
+	public void coalesce()
+	{
+		final List<UpdateMainDataRequest> result = MainDataRequestHandler.coalesce(ImmutableList.of(
+				UpdateMainDataRequest.builder().identifier(identifier(31)).onHandQtyChange(new BigDecimal("5")).build(),
+				UpdateMainDataRequest.builder().identifier(identifier(30)).reservedSalesQty(new BigDecimal("2")).build(),
+				UpdateMainDataRequest.builder().identifier(identifier(31)).onHandQtyChange(new BigDecimal("-1")).reservedSalesQty(BigDecimal.ONE).build()));
+
+		assertThat(result).hasSize(2);
+
+		assertThat(result.get(0).getIdentifier()).isEqualTo(identifier(30));
+		assertThat(result.get(0).getReservedSalesQty()).isEqualByComparingTo("2");
+
+		assertThat(result.get(1).getIdentifier()).isEqualTo(identifier(31));
+		assertThat(result.get(1).getOnHandQtyChange()).isEqualByComparingTo("4");
+		assertThat(result.get(1).getReservedSalesQty()).isEqualByComparingTo("1");
+	}
+
+	@Test
+	public void handleDataUpdateRequests()
+	{
+		final MainDataRequestHandler handler = new MainDataRequestHandler();
+		handler.handleDataUpdateRequests(ImmutableList.of(
+				UpdateMainDataRequest.builder().identifier(identifier(30)).onHandQtyChange(new BigDecimal("10")).build(),
+				UpdateMainDataRequest.builder().identifier(identifier(30)).reservedSalesQty(new BigDecimal("3")).build()));
+		handler.handleDataUpdateRequest(UpdateMainDataRequest.builder().identifier(identifier(30)).reservedPurchaseQty(new BigDecimal("4")).build());
+
+		final I_MD_Cockpit dataRecord = MainDataRequestHandler.retrieveOrCreateDataRecord(identifier(30));
+		assertThat(isNew(dataRecord)).isFalse();
+		assertThat(dataRecord.getQtyStockChange()).isEqualByComparingTo("10");
+		assertThat(dataRecord.getQtyReserved_Sale()).isEqualByComparingTo("3");
+		assertThat(dataRecord.getQtyReserved_Purchase()).isEqualByComparingTo("4");
+		assertThat(dataRecord.getQtyOnHandEstimate()).isEqualByComparingTo("10");
+		assertThat(dataRecord.getQtyAvailableToPromiseEstimate()).isEqualByComparingTo("11");
+	}
+
+	@Test
+	public void createUpsertSql()
+	{
+		final List<Object> sqlParams = new ArrayList<>();
+		final String sql = MainDataRequestHandler.createUpsertSql(
+				ImmutableList.of(
+						UpdateMainDataRequest.builder().identifier(identifier(30)).countedQty(new BigDecimal("10")).onHandQtyChange(new BigDecimal("2.50")).reservedSalesQty(new BigDecimal("3")).build(),
+						UpdateMainDataRequest.builder().identifier(identifier(31)).reservedPurchaseQty(new BigDecimal("4")).build()),
+				"nextval('md_cockpit_seq')",
+				1, // AD_Client_ID
+				2, // AD_Org_ID
+				100, // AD_User_ID
+				sqlParams);
+
+		final String sqlValues = "(nextval('md_cockpit_seq'), ?, ?, 'Y', now(), ?, now(), ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+		assertThat(sql)
+				.startsWith("INSERT INTO MD_Cockpit (MD_Cockpit_ID, AD_Client_ID, AD_Org_ID, IsActive, Created, CreatedBy, Updated, UpdatedBy, M_Product_ID, AttributesKey, DateGeneral, PP_Plant_ID, ")
+				.contains(") VALUES " + sqlValues + "," + sqlValues + " ON CONFLICT (DateGeneral, M_Product_ID, AttributesKey, COALESCE(PP_Plant_ID, 0)) DO UPDATE SET ")
+				// the deltas are added to the stored quantities
+				.contains("QtyReserved_Sale=(COALESCE(MD_Cockpit.QtyReserved_Sale, 0) + EXCLUDED.QtyReserved_Sale)")
+				// the estimates are computed from the new quantities
+				.contains("QtyOnHandEstimate=((COALESCE(MD_Cockpit.QtyOnHandCount, 0) + EXCLUDED.QtyOnHandCount)"
+						+ " + (COALESCE(MD_Cockpit.QtyStockChange, 0) + EXCLUDED.QtyStockChange)"
+						+ " - (COALESCE(MD_Cockpit.QtyMaterialentnahme, 0) + EXCLUDED.QtyMaterialentnahme))")
+				.endsWith("UpdatedBy=EXCLUDED.UpdatedBy RETURNING MD_Cockpit_ID");
+
+		assertThat(sqlParams).hasSize(2 * 17);
+
+		final List<Object> firstRowParams = sqlParams.subList(0, 17);
+		assertThat(firstRowParams.subList(0, 6)).containsExactly(1, 2, 100, 100, 30, identifier(30).getProductDescriptor().getStorageAttributesKey().getAsString());
+		assertThat(firstRowParams.get(6)).isEqualTo(Timestamp.from(NOW));
+		assertThat(firstRowParams.get(7)).as("PP_Plant_ID").isNull();
+		assertThat(firstRowParams.subList(8, 17))
+				.usingElementComparator((o1, o2) -> ((BigDecimal)o1).compareTo((BigDecimal)o2))
+				.containsExactly(
+						BigDecimal.ZERO, // QtyMaterialentnahme
+						new BigDecimal("10"), // QtyOnHandCount
+						BigDecimal.ZERO, // PMM_QtyPromised_OnDate
+						new BigDecimal("2.5"), // QtyStockChange
+						BigDecimal.ZERO, // QtyReserved_Purchase
+						new BigDecimal("3"), // QtyReserved_Sale
+						BigDecimal.ZERO, // QtyRequiredForProduction
+						new BigDecimal("12.5"), // QtyOnHandEstimate
+						new BigDecimal("9.5")); // QtyAvailableToPromiseEstimate
+
+		final List<Object> secondRowParams = sqlParams.subList(17, 34);
+		assertThat(secondRowParams.get(4)).isEqualTo(31);
+		assertThat((BigDecimal)secondRowParams.get(16)).as("QtyAvailableToPromiseEstimate").isEqualByComparingTo("4");
+	}
 }
@@ -175,7 +175,15 @@ public class CandidateRepositoryRetrieval
 		return subType;
 	}
 
-	private CandidateBuilder createAndInitializeBuilder(@NonNull final I_MD_Candidate candidateRecord)
+	/**
+	 * Like {@link #fromCandidateRecord(I_MD_Candidate)}, but only from the candidate record itself, so no details are loaded.
+	 */
+	static Candidate fromCandidateRecordWithoutDetails(@NonNull final I_MD_Candidate candidateRecord)
+	{
+		return createAndInitializeBuilder(candidateRecord).build();
+	}
+
+	private static CandidateBuilder createAndInitializeBuilder(@NonNull final I_MD_Candidate candidateRecord)
 	{
 		final Timestamp dateProjected = Preconditions.checkNotNull(candidateRecord.getDateProjected(),
 				"Given parameter candidateRecord needs to have a not-null dateProjected; candidateRecord=%s",
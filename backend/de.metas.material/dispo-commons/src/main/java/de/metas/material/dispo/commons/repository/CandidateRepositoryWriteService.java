@@ -11,30 +11,39 @@ import static org.adempiere.model.InterfaceWrapperHelper.save;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Objects;
+import java.util.Properties;
 
 import javax.annotation.Nullable;
 
 import org.adempiere.ad.dao.ICompositeQueryFilter;
+import org.adempiere.ad.dao.ICompositeQueryUpdaterExecutor;
 import org.adempiere.ad.dao.IQueryBL;
+import org.adempiere.ad.dao.ISqlQueryUpdater;
 import org.adempiere.warehouse.WarehouseId;
 import org.compiere.util.TimeUtil;
 import org.springframework.stereotype.Service;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 
 import de.metas.bpartner.BPartnerId;
 import de.metas.document.engine.DocStatus;
 import de.metas.material.dispo.commons.candidate.Candidate;
 import de.metas.material.dispo.commons.candidate.CandidateId;
+import de.metas.material.dispo.commons.candidate.CandidateType;
 import de.metas.material.dispo.commons.candidate.IdConstants;
 import de.metas.material.dispo.commons.candidate.TransactionDetail;
 import de.metas.material.dispo.commons.candidate.businesscase.DemandDetail;
 import de.metas.material.dispo.commons.candidate.businesscase.DistributionDetail;
 import de.metas.material.dispo.commons.candidate.businesscase.ProductionDetail;
 import de.metas.material.dispo.commons.candidate.businesscase.PurchaseDetail;
+import de.metas.material.dispo.commons.repository.atp.AvailableToPromiseInMemoryEngine;
 import de.metas.material.dispo.commons.repository.query.CandidatesQuery;
+import de.metas.material.dispo.commons.repository.query.MaterialDescriptorQuery;
 import de.metas.material.dispo.commons.repository.repohelpers.PurchaseDetailRepoHelper;
 import de.metas.material.dispo.commons.repository.repohelpers.RepositoryCommons;
 import de.metas.material.dispo.model.I_MD_Candidate;
@@ -80,6 +89,13 @@ import lombok.Value;
 @Service
 public class CandidateRepositoryWriteService
 {
+	private final AvailableToPromiseInMemoryEngine availableToPromiseInMemoryEngine;
+
+	public CandidateRepositoryWriteService(@NonNull final AvailableToPromiseInMemoryEngine availableToPromiseInMemoryEngine)
+	{
+		this.availableToPromiseInMemoryEngine = availableToPromiseInMemoryEngine;
+	}
+
 	/**
 	 * Stores the given {@code candidate}.
 	 * If there is already an existing candidate in the store, it is loaded, its fields are updated and the result is saved.<br>
@@ -119,6 +135,84 @@ public class CandidateRepositoryWriteService
 		return addOrUpdate(query, candidate, false);
 	}
 
+	/**
+	 * Adds the given {@code qtyDelta} to the quantity of all candidates which match the given {@code query}, using one SQL {@code UPDATE .. RETURNING} and without loading the candidates beforehand.
+	 * The query needs to be restricted to one product.
+	 * Note that unlike {@link #updateCandidateById(Candidate)}, this method only updates the candidate records themselves and not their details.
+	 * The candidates' {@code MD_Candidate_Status} is recomputed from the new quantity, like {@link #updateCandidateById(Candidate)} would do it.
+	 *
+	 * @param groupId if not null, it's also set to all matching candidates
+	 * @return the updated candidates (without their details), ordered by date and seqNo
+	 */
+	public List<Candidate> addToQtyAndSetGroupId(
+			@NonNull final CandidatesQuery query,
+			@NonNull final BigDecimal qtyDelta,
+			@Nullable final MaterialDispoGroupId groupId)
+	{
+		final MaterialDescriptorQuery materialDescriptorQuery = Check.assumeNotNull(query.getMaterialDescriptorQuery(), "query has a materialDescriptorQuery; query={}", query);
+		final int productId = Check.assumeGreaterThanZero(materialDescriptorQuery.getProductId(), "productId");
+
+		final ICompositeQueryUpdaterExecutor<I_MD_Candidate> updater = RepositoryCommons
+				.mkQueryBuilder(query)
+				.create()
+				.updateDirectly()
+				.addQueryUpdater(new AddToQtyQueryUpdater(qtyDelta));
+		if (groupId != null)
+		{
+			updater.addSetColumnValue(I_MD_Candidate.COLUMNNAME_MD_Candidate_GroupId, groupId.toInt());
+		}
+
+		final List<Candidate> updatedCandidates = updater.executeAndReturnUpdated()
+				.stream()
+				.map(CandidateRepositoryRetrieval::fromCandidateRecordWithoutDetails)
+				.sorted(Comparator.comparing(Candidate::getDate)
+						.thenComparingInt(Candidate::getSeqNo)
+						.thenComparingInt(candidate -> candidate.getId().getRepoId()))
+				.collect(ImmutableList.toImmutableList());
+		if (!updatedCandidates.isEmpty() && (query.getType() == null || query.getType() == CandidateType.STOCK))
+		{
+			availableToPromiseInMemoryEngine.onStockCandidatesChanged(productId);
+		}
+
+		return updatedCandidates;
+	}
+
+	/**
+	 * Adds a delta to {@code Qty} and updates {@code MD_Candidate_Status} accordingly, see {@link #updateCandidateRecordFromCandidate(I_MD_Candidate, Candidate, boolean)}.
+	 */
+	private static class AddToQtyQueryUpdater implements ISqlQueryUpdater<I_MD_Candidate>
+	{
+		private final BigDecimal qtyDelta;
+
+		private AddToQtyQueryUpdater(@NonNull final BigDecimal qtyDelta)
+		{
+			this.qtyDelta = qtyDelta;
+		}
+
+		@Override
+		public String getSql(final Properties ctx, final List<Object> params)
+		{
+			// NOTE: the right hand sides are evaluated using the old Qty
+			params.add(qtyDelta);
+			params.add(qtyDelta);
+			params.add(X_MD_Candidate.MD_CANDIDATE_STATUS_Processed);
+			params.add(X_MD_Candidate.MD_CANDIDATE_STATUS_Planned);
+			return I_MD_Candidate.COLUMNNAME_Qty + "=" + I_MD_Candidate.COLUMNNAME_Qty + " + ?"
+					+ ", " + I_MD_Candidate.COLUMNNAME_MD_Candidate_Status + "=(CASE WHEN COALESCE(" + I_MD_Candidate.COLUMNNAME_QtyFulfilled + ", 0) >= " + I_MD_Candidate.COLUMNNAME_Qty + " + ? THEN ? ELSE ? END)";
+		}
+
+		@Override
+		public boolean update(final I_MD_Candidate candidateRecord)
+		{
+			final BigDecimal newQty = candidateRecord.getQty().add(qtyDelta);
+			candidateRecord.setQty(newQty);
+			candidateRecord.setMD_Candidate_Status(candidateRecord.getQtyFulfilled().compareTo(newQty) >= 0
+					? X_MD_Candidate.MD_CANDIDATE_STATUS_Processed
+					: X_MD_Candidate.MD_CANDIDATE_STATUS_Planned);
+			return MODEL_UPDATED;
+		}
+	}
+
 	@Value
 	@Builder
 	public static class SaveResult
@@ -272,6 +366,8 @@ public class CandidateRepositoryWriteService
 
 		addOrReplaceTransactionDetail(candidate, synchedRecord);
 
+		fireStockCandidateChanged(synchedRecord);
+
 		final Candidate savedCandidate = createNewCandidateWithIdsFromRecord(candidate, synchedRecord);
 
 		// add a log message to be shown in the event log
@@ -663,9 +759,19 @@ public class CandidateRepositoryWriteService
 				candidateRecord.getQty());
 
 		deleteRecord(candidateRecord);
+		fireStockCandidateChanged(candidateRecord);
+
 		return deleteResult;
 	}
 
+	private void fireStockCandidateChanged(@NonNull final I_MD_Candidate candidateRecord)
+	{
+		if (X_MD_Candidate.MD_CANDIDATE_TYPE_STOCK.equals(candidateRecord.getMD_Candidate_Type()))
+		{
+			availableToPromiseInMemoryEngine.onStockCandidatesChanged(candidateRecord.getM_Product_ID());
+		}
+	}
+
 	@Value
 	public static class DeleteResult
 	{
@@ -0,0 +1,392 @@
+package de.metas.material.dispo.commons.repository.atp;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import javax.annotation.Nullable;
+
+import org.adempiere.ad.dao.IQueryBL;
+import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.ad.trx.api.OnTrxMissingPolicy;
+import org.adempiere.service.ISysConfigBL;
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.adempiere.warehouse.WarehouseId;
+import org.compiere.util.Env;
+import org.compiere.util.TimeUtil;
+import org.slf4j.Logger;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+import de.metas.bpartner.BPartnerId;
+import de.metas.logging.LogManager;
+import de.metas.material.dispo.model.I_MD_Candidate;
+import de.metas.material.dispo.model.X_MD_Candidate;
+import de.metas.material.event.PostMaterialEventService;
+import de.metas.material.event.commons.AttributesKey;
+import de.metas.material.event.commons.EventDescriptor;
+import de.metas.material.event.stock.StockCandidatesChangedEvent;
+import de.metas.util.Services;
+import lombok.NonNull;
+import lombok.Value;
+
+/*
+ * #%L
+ * metasfresh-material-dispo-commons
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Optional in-memory alternative to the {@code de_metas_material.retrieve_atp_at_date} SQL function, used by {@link AvailableToPromiseRepository}.
+ * <p>
+ * Keeps the active stock candidates of each product as {@link AvailableToPromiseTimeSeries} (one per warehouse, customer and storage attributes key).
+ * When the application is ready, all of them are loaded in parallel. Until then, and if the loading failed, the ATP is retrieved from database as before.
+ * <p>
+ * The material dispo's event handlers (invoked by {@code MetasfreshEventListener}) are changing the stock candidates through {@code CandidateRepositoryWriteService},
+ * which calls {@link #onStockCandidatesChanged(int)}. After the transaction is committed, the product's time series are dropped and reloaded on next lookup,
+ * and a {@link StockCandidatesChangedEvent} is posted, so that the other nodes (e.g. the webui nodes, which are retrieving the ATP for the purchase planning)
+ * are dropping them too (see {@link AvailableToPromiseInMemoryEngineEventHandler}).
+ * While a transaction has uncommitted stock changes of a product, that transaction's lookups of the product are also retrieved from database.
+ * <p>
+ * Enabled with the AD_SysConfig {@value #SYSCONFIG_Enabled}.
+ */
+@Service
+public class AvailableToPromiseInMemoryEngine
+{
+	private static final Logger logger = LogManager.getLogger(AvailableToPromiseInMemoryEngine.class);
+
+	private static final String SYSCONFIG_Enabled = "de.metas.material.dispo.commons.repository.atp.AvailableToPromiseInMemoryEngine.Enabled";
+	private static final String SYSCONFIG_RebuildThreads = "de.metas.material.dispo.commons.repository.atp.AvailableToPromiseInMemoryEngine.RebuildThreads";
+
+	private static final String TRX_PROPERTY_ChangedProductIds = AvailableToPromiseInMemoryEngine.class.getName() + ".ChangedProductIds";
+
+	/** time series by product ID; products which are missing are loaded on demand */
+	private final ConcurrentHashMap<Integer, Supplier<ImmutableList<AvailableToPromiseTimeSeries>>> timeSeriesByProductId = new ConcurrentHashMap<>();
+	private final Set<Integer> productIdsInvalidatedWhileRebuilding = ConcurrentHashMap.newKeySet();
+	private volatile boolean enabled = false;
+	private volatile boolean rebuilding = false;
+	private volatile boolean ready = false;
+
+	private final PostMaterialEventService postMaterialEventService;
+
+	public AvailableToPromiseInMemoryEngine(@NonNull final PostMaterialEventService postMaterialEventService)
+	{
+		this.postMaterialEventService = postMaterialEventService;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void onApplicationReady()
+	{
+		final ISysConfigBL sysConfigBL = Services.get(ISysConfigBL.class);
+		if (!sysConfigBL.getBooleanValue(SYSCONFIG_Enabled, false))
+		{
+			logger.info("In-memory ATP engine is disabled. The ATP is retrieved from database.");
+			return;
+		}
+
+		final int threads = sysConfigBL.getIntValue(SYSCONFIG_RebuildThreads, 0);
+		final int threadsEffective = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+		// don't block the application startup
+		CustomizableThreadFactory.builder()
+				.setDaemon(true)
+				.setThreadNamePrefix("material-dispo-ATP-rebuild")
+				.build()
+				.newThread(() -> rebuild(threadsEffective))
+				.start();
+	}
+
+	public boolean isReady()
+	{
+		return ready;
+	}
+
+	/**
+	 * Loads the stock candidates of all products, using one query per chunk of products, on the given number of threads.
+	 */
+	@VisibleForTesting
+	synchronized void rebuild(final int threads)
+	{
+		final Stopwatch stopwatch = Stopwatch.createStarted();
+
+		enabled = true;
+		ready = false;
+		rebuilding = true;
+		productIdsInvalidatedWhileRebuilding.clear();
+		timeSeriesByProductId.clear();
+		try
+		{
+			final List<Integer> productIds = retrieveStockProductIds();
+			final int chunkSize = Math.max(1, productIds.size() / (threads * 4) + 1);
+
+			final ExecutorService executor = Executors.newFixedThreadPool(
+					threads,
+					CustomizableThreadFactory.builder()
+							.setDaemon(true)
+							.setThreadNamePrefix("material-dispo-ATP-rebuild-worker")
+							.build());
+			try
+			{
+				final CompletableFuture<?>[] futures = Lists.partition(productIds, chunkSize)
+						.stream()
+						.map(productIdsChunk -> CompletableFuture.runAsync(() -> loadAndPut(productIdsChunk), executor))
+						.toArray(CompletableFuture[]::new);
+
+				CompletableFuture.allOf(futures).join();
+			}
+			finally
+			{
+				executor.shutdown();
+			}
+
+			// those might have been loaded before their changes were committed
+			productIdsInvalidatedWhileRebuilding.forEach(timeSeriesByProductId::remove);
+
+			ready = true;
+			logger.info("In-memory ATP engine rebuilt in {}: products={}, threads={}", stopwatch, productIds.size(), threads);
+		}
+		catch (final RuntimeException ex)
+		{
+			timeSeriesByProductId.clear();
+			logger.warn("Failed rebuilding the in-memory ATP engine after {}. The ATP is retrieved from database.", stopwatch, ex);
+		}
+		finally
+		{
+			rebuilding = false;
+			productIdsInvalidatedWhileRebuilding.clear();
+		}
+	}
+
+	private void loadAndPut(@NonNull final List<Integer> productIds)
+	{
+		final ImmutableListMultimap<Integer, AvailableToPromiseTimeSeries> loadedTimeSeries = loadTimeSeries(productIds);
+		for (final Integer productId : productIds)
+		{
+			timeSeriesByProductId.put(productId, Suppliers.ofInstance(loadedTimeSeries.get(productId)));
+		}
+	}
+
+	private static List<Integer> retrieveStockProductIds()
+	{
+		return Services.get(IQueryBL.class)
+				.createQueryBuilderOutOfTrx(I_MD_Candidate.class)
+				.addOnlyActiveRecordsFilter()
+				.addEqualsFilter(I_MD_Candidate.COLUMNNAME_MD_Candidate_Type, X_MD_Candidate.MD_CANDIDATE_TYPE_STOCK)
+				.create()
+				.listDistinct(I_MD_Candidate.COLUMNNAME_M_Product_ID, Integer.class);
+	}
+
+	private static ImmutableListMultimap<Integer, AvailableToPromiseTimeSeries> loadTimeSeries(@NonNull final Collection<Integer> productIds)
+	{
+		final Map<TimeSeriesKey, AvailableToPromiseTimeSeries.Builder> builders = new HashMap<>();
+
+		try (final Stream<I_MD_Candidate> stockRecords = Services.get(IQueryBL.class)
+				.createQueryBuilderOutOfTrx(I_MD_Candidate.class)
+				.addOnlyActiveRecordsFilter()
+				.addEqualsFilter(I_MD_Candidate.COLUMNNAME_MD_Candidate_Type, X_MD_Candidate.MD_CANDIDATE_TYPE_STOCK)
+				.addInArrayFilter(I_MD_Candidate.COLUMNNAME_M_Product_ID, productIds)
+				// same order as the index md_candidate_stock_v_perf, but ascending
+				.orderBy(I_MD_Candidate.COLUMNNAME_M_Product_ID)
+				.orderBy(I_MD_Candidate.COLUMNNAME_M_Warehouse_ID)
+				.orderBy(I_MD_Candidate.COLUMNNAME_C_BPartner_Customer_ID)
+				.orderBy(I_MD_Candidate.COLUMNNAME_StorageAttributesKey)
+				.orderBy(I_MD_Candidate.COLUMNNAME_DateProjected)
+				.orderBy(I_MD_Candidate.COLUMNNAME_SeqNo)
+				.create()
+				.streamUsingCursor(I_MD_Candidate.class))
+		{
+			stockRecords.forEach(stockRecord -> builders
+					.computeIfAbsent(TimeSeriesKey.of(stockRecord), AvailableToPromiseInMemoryEngine::newTimeSeriesBuilder)
+					.add(TimeUtil.asInstant(stockRecord.getDateProjected()), stockRecord.getSeqNo(), stockRecord.getQty()));
+		}
+
+		final ImmutableListMultimap.Builder<Integer, AvailableToPromiseTimeSeries> result = ImmutableListMultimap.builder();
+		builders.forEach((key, builder) -> result.put(key.getProductId(), builder.build()));
+		return result.build();
+	}
+
+	private static AvailableToPromiseTimeSeries.Builder newTimeSeriesBuilder(@NonNull final TimeSeriesKey key)
+	{
+		return AvailableToPromiseTimeSeries.builder(
+				key.getProductId(),
+				WarehouseId.ofRepoId(key.getWarehouseId()),
+				BPartnerId.ofRepoIdOrNull(key.getCustomerId()),
+				AttributesKey.ofString(key.getStorageAttributesKey()));
+	}
+
+	/**
+	 * @return the ATP records matching the given query, like {@code de_metas_material.retrieve_atp_at_date} would return them (unsorted),
+	 *         or {@code null} if the ATP has to be retrieved from database
+	 */
+	@Nullable
+	public ImmutableList<AddToResultGroupRequest> retrieveAvailableStockOrNull(@NonNull final AvailableToPromiseMultiQuery multiQuery)
+	{
+		if (!ready)
+		{
+			return null;
+		}
+
+		final Set<Integer> productIdsChangedInTrx = getProductIdsChangedInCurrentTrx();
+
+		final Set<AddToResultGroupRequest> result = new HashSet<>(); // same as "UNION DISTINCT"
+		for (final AvailableToPromiseQuery query : multiQuery.getQueries())
+		{
+			final Instant date = query.getDate().toInstant();
+			for (final Integer productId : query.getProductIds())
+			{
+				if (productIdsChangedInTrx.contains(productId))
+				{
+					return null;
+				}
+
+				for (final AvailableToPromiseTimeSeries timeSeries : getTimeSeries(productId))
+				{
+					if (!timeSeries.isMatching(query))
+					{
+						continue;
+					}
+
+					final AddToResultGroupRequest request = timeSeries.getAtDateOrNull(date);
+					if (request != null)
+					{
+						result.add(request);
+					}
+				}
+			}
+		}
+
+		return ImmutableList.copyOf(result);
+	}
+
+	private ImmutableList<AvailableToPromiseTimeSeries> getTimeSeries(final int productId)
+	{
+		return timeSeriesByProductId
+				.computeIfAbsent(productId, k -> Suppliers.memoize(() -> loadTimeSeries(ImmutableList.of(productId)).get(productId)))
+				.get();
+	}
+
+	/**
+	 * To be called when stock candidates of the given product were created, changed or deleted in the current transaction.
+	 */
+	public void onStockCandidatesChanged(final int productId)
+	{
+		if (!enabled)
+		{
+			return;
+		}
+
+		final ITrxManager trxManager = Services.get(ITrxManager.class);
+		final ITrx trx = trxManager.getThreadInheritedTrx(OnTrxMissingPolicy.ReturnTrxNone);
+		if (trxManager.isNull(trx))
+		{
+			invalidateAndNotifyOtherNodes(ImmutableSet.of(productId));
+			return;
+		}
+
+		trx.<Set<Integer>> getPropertyAndProcessAfterCommit(
+				TRX_PROPERTY_ChangedProductIds,
+				HashSet::new,
+				this::invalidateAndNotifyOtherNodes)
+				.add(productId);
+	}
+
+	/**
+	 * To be called when stock candidates of the given products were changed by any node, or are about to be changed.
+	 * The products' time series are dropped right away.
+	 */
+	public void onStockCandidatesChangedEvent(@NonNull final Collection<Integer> productIds)
+	{
+		if (!enabled)
+		{
+			return;
+		}
+
+		productIds.forEach(this::invalidate);
+	}
+
+	private void invalidateAndNotifyOtherNodes(@NonNull final Set<Integer> productIds)
+	{
+		productIds.forEach(this::invalidate);
+
+		postMaterialEventService.postEventNow(StockCandidatesChangedEvent.builder()
+				.eventDescriptor(EventDescriptor.ofClientAndOrg(Env.getClientId(), Env.getOrgId()))
+				.productIds(productIds)
+				.build());
+	}
+
+	private Set<Integer> getProductIdsChangedInCurrentTrx()
+	{
+		final ITrxManager trxManager = Services.get(ITrxManager.class);
+		final ITrx trx = trxManager.getThreadInheritedTrx(OnTrxMissingPolicy.ReturnTrxNone);
+		if (trxManager.isNull(trx))
+		{
+			return ImmutableSet.of();
+		}
+
+		final Set<Integer> productIds = trx.getProperty(TRX_PROPERTY_ChangedProductIds);
+		return productIds != null ? productIds : ImmutableSet.of();
+	}
+
+	private void invalidate(final int productId)
+	{
+		if (rebuilding)
+		{
+			productIdsInvalidatedWhileRebuilding.add(productId);
+		}
+		timeSeriesByProductId.remove(productId);
+	}
+
+	@Value
+	private static class TimeSeriesKey
+	{
+		int productId;
+		int warehouseId;
+		int customerId;
+		String storageAttributesKey;
+
+		static TimeSeriesKey of(@NonNull final I_MD_Candidate stockRecord)
+		{
+			return new TimeSeriesKey(
+					stockRecord.getM_Product_ID(),
+					stockRecord.getM_Warehouse_ID(),
+					stockRecord.getC_BPartner_Customer_ID(),
+					stockRecord.getStorageAttributesKey());
+		}
+	}
+}
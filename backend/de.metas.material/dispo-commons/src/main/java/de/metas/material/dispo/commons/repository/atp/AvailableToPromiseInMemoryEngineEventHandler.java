@@ -0,0 +1,85 @@
+package de.metas.material.dispo.commons.repository.atp;
+
+import java.util.Collection;
+
+import org.springframework.stereotype.Service;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import de.metas.material.event.MaterialEvent;
+import de.metas.material.event.MaterialEventHandler;
+import de.metas.material.event.stock.StockCandidatesChangedEvent;
+import de.metas.material.event.stock.StockChangedEvent;
+import de.metas.material.event.transactions.AbstractTransactionEvent;
+import de.metas.material.event.transactions.TransactionCreatedEvent;
+import de.metas.material.event.transactions.TransactionDeletedEvent;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-material-dispo-commons
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Keeps the {@link AvailableToPromiseInMemoryEngine} of every node current, also on the nodes which don't run the material dispo.
+ * <p>
+ * Transactions and stock changes are going to change the stock candidates of their product, so the product's time series are dropped already when those events arrive.
+ * The {@link StockCandidatesChangedEvent} is posted after the material dispo committed the changed stock candidates, so the time series which were reloaded meanwhile are dropped once more.
+ */
+@Service
+public class AvailableToPromiseInMemoryEngineEventHandler implements MaterialEventHandler<MaterialEvent>
+{
+	private final AvailableToPromiseInMemoryEngine availableToPromiseInMemoryEngine;
+
+	public AvailableToPromiseInMemoryEngineEventHandler(@NonNull final AvailableToPromiseInMemoryEngine availableToPromiseInMemoryEngine)
+	{
+		this.availableToPromiseInMemoryEngine = availableToPromiseInMemoryEngine;
+	}
+
+	@Override
+	public Collection<Class<? extends MaterialEvent>> getHandeledEventType()
+	{
+		return ImmutableList.of(
+				StockCandidatesChangedEvent.class,
+				TransactionCreatedEvent.class,
+				TransactionDeletedEvent.class,
+				StockChangedEvent.class);
+	}
+
+	@Override
+	public void handleEvent(@NonNull final MaterialEvent event)
+	{
+		if (event instanceof StockCandidatesChangedEvent)
+		{
+			availableToPromiseInMemoryEngine.onStockCandidatesChangedEvent(((StockCandidatesChangedEvent)event).getProductIds());
+		}
+		else if (event instanceof AbstractTransactionEvent)
+		{
+			final int productId = ((AbstractTransactionEvent)event).getMaterialDescriptor().getProductId();
+			availableToPromiseInMemoryEngine.onStockCandidatesChangedEvent(ImmutableSet.of(productId));
+		}
+		else if (event instanceof StockChangedEvent)
+		{
+			final int productId = ((StockChangedEvent)event).getProductId();
+			availableToPromiseInMemoryEngine.onStockCandidatesChangedEvent(ImmutableSet.of(productId));
+		}
+	}
+}
@@ -4,7 +4,6 @@ import java.math.BigDecimal;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
-import java.util.function.Function;
 
 import org.adempiere.service.ISysConfigBL;
 import org.adempiere.warehouse.WarehouseId;
@@ -53,6 +52,13 @@ public class AvailableToPromiseRepository
 {
 	private static final String SYSCONFIG_ATP_ATTRIBUTES_KEYS = "de.metas.ui.web.window.descriptor.sql.ProductLookupDescriptor.ATP.AttributesKeys";
 
+	private final AvailableToPromiseInMemoryEngine inMemoryEngine;
+
+	public AvailableToPromiseRepository(@NonNull final AvailableToPromiseInMemoryEngine inMemoryEngine)
+	{
+		this.inMemoryEngine = inMemoryEngine;
+	}
+
 	@NonNull
 	public BigDecimal retrieveAvailableStockQtySum(@NonNull final AvailableToPromiseMultiQuery multiQuery)
 	{
@@ -75,32 +81,18 @@ public class AvailableToPromiseRepository
 				? AvailableToPromiseResultBuilder.createEmptyWithPredefinedBuckets(multiQuery)
 				: AvailableToPromiseResultBuilder.createEmpty();
 
-		final IQuery<I_MD_Candidate_ATP_QueryResult> dbQuery = createDBQueryForMaterialQueryOrNull(multiQuery);
-		if (dbQuery == null)
-		{
-			return result.build();
-		}
-
-		final Function<I_MD_Candidate_ATP_QueryResult, Boolean> compareByWhetherRecordHasBPartnerId = record -> record.getC_BPartner_Customer_ID() > 0;
-
-		final List<I_MD_Candidate_ATP_QueryResult> atpRecords = dbQuery.list()
+		final ImmutableList<AddToResultGroupRequest> requests = retrieveAddToResultGroupRequests(multiQuery)
 				.stream()
 				// records with dedicated bPartnerId first
 				// latest date first
 				// biggest seqNo first
 				.sorted(Comparator
-						.comparing(compareByWhetherRecordHasBPartnerId)
-						.thenComparing(I_MD_Candidate_ATP_QueryResult::getDateProjected)
-						.thenComparing(I_MD_Candidate_ATP_QueryResult::getSeqNo) // if dateProjected is equal, then SeqNo makes the difference
+						.comparing((AddToResultGroupRequest request) -> request.getBpartner().isSpecificBPartner())
+						.thenComparing(AddToResultGroupRequest::getDate)
+						.thenComparing(AddToResultGroupRequest::getSeqNo) // if date is equal, then SeqNo makes the difference
 						.reversed())
 				.collect(ImmutableList.toImmutableList());
 
-		// note: this is a dedicated step in order to ease debugging (i.e. have a chance to take a look at the atpRecords)
-		final ImmutableList<AddToResultGroupRequest> requests = atpRecords
-				.stream()
-				.map(AvailableToPromiseRepository::createAddToResultGroupRequest)
-				.collect(ImmutableList.toImmutableList());
-
 		for (final AddToResultGroupRequest request : requests)
 		{
 			if (addToPredefinedBuckets)
@@ -116,6 +108,29 @@ public class AvailableToPromiseRepository
 		return result.build();
 	}
 
+	private List<AddToResultGroupRequest> retrieveAddToResultGroupRequests(@NonNull final AvailableToPromiseMultiQuery multiQuery)
+	{
+		final List<AddToResultGroupRequest> requestsFromInMemoryEngine = inMemoryEngine.retrieveAvailableStockOrNull(multiQuery);
+		if (requestsFromInMemoryEngine != null)
+		{
+			return requestsFromInMemoryEngine;
+		}
+
+		final IQuery<I_MD_Candidate_ATP_QueryResult> dbQuery = createDBQueryForMaterialQueryOrNull(multiQuery);
+		if (dbQuery == null)
+		{
+			return ImmutableList.of();
+		}
+
+		// note: this is a dedicated step in order to ease debugging (i.e. have a chance to take a look at the atpRecords)
+		final List<I_MD_Candidate_ATP_QueryResult> atpRecords = dbQuery.list();
+
+		return atpRecords
+				.stream()
+				.map(AvailableToPromiseRepository::createAddToResultGroupRequest)
+				.collect(ImmutableList.toImmutableList());
+	}
+
 	public AvailableToPromiseResult retrieveAvailableStock(@NonNull AvailableToPromiseQuery query)
 	{
 		return retrieveAvailableStock(AvailableToPromiseMultiQuery.of(query));
@@ -0,0 +1,276 @@
+package de.metas.material.dispo.commons.repository.atp;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import javax.annotation.Nullable;
+
+import org.adempiere.warehouse.WarehouseId;
+
+import com.google.common.base.MoreObjects;
+
+import de.metas.bpartner.BPartnerId;
+import de.metas.material.commons.attributes.AttributesKeyPattern;
+import de.metas.material.event.commons.AttributesKey;
+import lombok.Getter;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-material-dispo-commons
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Immutable time series of the stock candidates of one product, warehouse, customer and storage attributes key, sorted by DateProjected and SeqNo.
+ * <p>
+ * A stock candidate's qty is the ATP at its date, so the ATP at a given date is the qty of the last stock candidate at or before that date.
+ * That's the same what the SQL function {@code de_metas_material.retrieve_atp_at_date} returns for the group.
+ */
+final class AvailableToPromiseTimeSeries
+{
+	public static Builder builder(
+			final int productId,
+			@NonNull final WarehouseId warehouseId,
+			@Nullable final BPartnerId customerId,
+			@NonNull final AttributesKey storageAttributesKey)
+	{
+		return new Builder(productId, warehouseId, customerId, storageAttributesKey);
+	}
+
+	@Getter
+	private final int productId;
+	@Getter
+	private final WarehouseId warehouseId;
+	@Nullable
+	private final BPartnerId customerId;
+	@Getter
+	private final AttributesKey storageAttributesKey;
+	private final BPartnerClassifier bpartner;
+
+	/** sorted ascending; for the same date, the {@link #seqNos} are sorted ascending */
+	private final long[] dateMillis;
+	private final int[] seqNos;
+	private final BigDecimal[] qtys;
+
+	private AvailableToPromiseTimeSeries(@NonNull final Builder builder)
+	{
+		productId = builder.productId;
+		warehouseId = builder.warehouseId;
+		customerId = builder.customerId;
+		storageAttributesKey = builder.storageAttributesKey;
+		bpartner = BPartnerClassifier.specificOrAny(customerId); // records that have no bPartner-ID are applicable to any bpartner
+
+		final int size = builder.size;
+		if (builder.isSorted())
+		{
+			// usually the case, because the stock candidates are loaded ordered by DateProjected and SeqNo
+			dateMillis = Arrays.copyOf(builder.dateMillis, size);
+			seqNos = Arrays.copyOf(builder.seqNos, size);
+			qtys = Arrays.copyOf(builder.qtys, size);
+		}
+		else
+		{
+			final int[] sortedPositions = IntStream.range(0, size)
+					.boxed()
+					.sorted(Comparator.<Integer> comparingLong(i -> builder.dateMillis[i]).thenComparingInt(i -> builder.seqNos[i]))
+					.mapToInt(Integer::intValue)
+					.toArray();
+
+			dateMillis = new long[size];
+			seqNos = new int[size];
+			qtys = new BigDecimal[size];
+			for (int i = 0; i < size; i++)
+			{
+				final int position = sortedPositions[i];
+				dateMillis[i] = builder.dateMillis[position];
+				seqNos[i] = builder.seqNos[position];
+				qtys[i] = builder.qtys[position];
+			}
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return MoreObjects.toStringHelper(this)
+				.add("productId", productId)
+				.add("warehouseId", warehouseId)
+				.add("customerId", customerId)
+				.add("storageAttributesKey", storageAttributesKey)
+				.add("size", size())
+				.toString();
+	}
+
+	public int size()
+	{
+		return dateMillis.length;
+	}
+
+	/**
+	 * @return true if this time series is matched by the given query's warehouses, customer and storage attributes key patterns. The date and the products are not checked.
+	 */
+	public boolean isMatching(@NonNull final AvailableToPromiseQuery query)
+	{
+		if (!query.getWarehouseIds().isEmpty() && !query.getWarehouseIds().contains(warehouseId))
+		{
+			return false;
+		}
+
+		final BPartnerClassifier queryBPartner = query.getBpartner();
+		if (queryBPartner.isNone() && customerId != null)
+		{
+			return false;
+		}
+		if (queryBPartner.isSpecificBPartner() && customerId != null && !customerId.equals(queryBPartner.getBpartnerId()))
+		{
+			return false;
+		}
+
+		return isMatchingAny(query.getStorageAttributesKeyPatterns());
+	}
+
+	private boolean isMatchingAny(@NonNull final List<AttributesKeyPattern> storageAttributesKeyPatterns)
+	{
+		// same as AttributesKeyQueryHelper.createFilter(...)
+		if (storageAttributesKeyPatterns.isEmpty()
+				|| storageAttributesKeyPatterns.contains(AttributesKeyPattern.ALL)
+				|| storageAttributesKeyPatterns.contains(AttributesKeyPattern.OTHER))
+		{
+			return true;
+		}
+
+		for (final AttributesKeyPattern storageAttributesKeyPattern : storageAttributesKeyPatterns)
+		{
+			if (storageAttributesKeyPattern.matches(storageAttributesKey))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the ATP of the last stock candidate at or before the given date, or {@code null} if there is none
+	 */
+	@Nullable
+	public AddToResultGroupRequest getAtDateOrNull(@NonNull final Instant date)
+	{
+		final int index = indexOfLastAtOrBefore(date.toEpochMilli());
+		if (index < 0)
+		{
+			return null;
+		}
+
+		return AddToResultGroupRequest.builder()
+				.productId(productId)
+				.bpartner(bpartner)
+				.warehouseId(warehouseId)
+				.storageAttributesKey(storageAttributesKey)
+				.qty(qtys[index])
+				.date(Instant.ofEpochMilli(dateMillis[index]))
+				.seqNo(seqNos[index])
+				.build();
+	}
+
+	private int indexOfLastAtOrBefore(final long millis)
+	{
+		int low = 0;
+		int high = dateMillis.length - 1;
+		int result = -1;
+		while (low <= high)
+		{
+			final int mid = (low + high) >>> 1;
+			if (dateMillis[mid] <= millis)
+			{
+				result = mid;
+				low = mid + 1;
+			}
+			else
+			{
+				high = mid - 1;
+			}
+		}
+		return result;
+	}
+
+	public static final class Builder
+	{
+		private final int productId;
+		private final WarehouseId warehouseId;
+		private final BPartnerId customerId;
+		private final AttributesKey storageAttributesKey;
+
+		private long[] dateMillis = new long[8];
+		private int[] seqNos = new int[8];
+		private BigDecimal[] qtys = new BigDecimal[8];
+		private int size = 0;
+
+		private Builder(
+				final int productId,
+				@NonNull final WarehouseId warehouseId,
+				@Nullable final BPartnerId customerId,
+				@NonNull final AttributesKey storageAttributesKey)
+		{
+			this.productId = productId;
+			this.warehouseId = warehouseId;
+			this.customerId = customerId;
+			this.storageAttributesKey = storageAttributesKey;
+		}
+
+		public Builder add(@NonNull final Instant date, final int seqNo, @NonNull final BigDecimal qty)
+		{
+			if (size >= dateMillis.length)
+			{
+				final int newLength = dateMillis.length * 2;
+				dateMillis = Arrays.copyOf(dateMillis, newLength);
+				seqNos = Arrays.copyOf(seqNos, newLength);
+				qtys = Arrays.copyOf(qtys, newLength);
+			}
+
+			dateMillis[size] = date.toEpochMilli();
+			seqNos[size] = seqNo;
+			qtys[size] = qty;
+			size++;
+			return this;
+		}
+
+		private boolean isSorted()
+		{
+			for (int i = 1; i < size; i++)
+			{
+				if (dateMillis[i - 1] > dateMillis[i]
+						|| dateMillis[i - 1] == dateMillis[i] && seqNos[i - 1] > seqNos[i])
+				{
+					return false;
+				}
+			}
+			return true;
+		}
+
+		public AvailableToPromiseTimeSeries build()
+		{
+			return new AvailableToPromiseTimeSeries(this);
+		}
+	}
+}
@@ -28,6 +28,7 @@ import org.compiere.util.TimeUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
 
 import de.metas.document.engine.DocStatus;
 import de.metas.material.dispo.commons.RepositoryTestHelper;
@@ -39,6 +40,7 @@ import de.metas.material.dispo.commons.candidate.businesscase.DemandDetail;
 import de.metas.material.dispo.commons.candidate.businesscase.DistributionDetail;
 import de.metas.material.dispo.commons.candidate.businesscase.ProductionDetail;
 import de.metas.material.dispo.commons.candidate.businesscase.PurchaseDetail;
+import de.metas.material.dispo.commons.repository.atp.AvailableToPromiseInMemoryEngine;
 import de.metas.material.dispo.commons.repository.query.CandidatesQuery;
 import de.metas.material.dispo.commons.repository.query.DemandDetailsQuery;
 import de.metas.material.dispo.commons.repository.query.DistributionDetailsQuery;
@@ -51,6 +53,7 @@ import de.metas.material.dispo.model.I_MD_Candidate_Prod_Detail;
 import de.metas.material.dispo.model.I_MD_Candidate_Purchase_Detail;
 import de.metas.material.dispo.model.I_MD_Candidate_Transaction_Detail;
 import de.metas.material.dispo.model.X_MD_Candidate;
+import de.metas.material.event.PostMaterialEventService;
 import de.metas.material.event.commons.MaterialDescriptor;
 import de.metas.util.time.SystemTime;
 
@@ -90,7 +93,7 @@ public class CandiateRepositoryRetrievalTests
 
 		candidateRepositoryRetrieval = new CandidateRepositoryRetrieval();
 
-		repositoryTestHelper = new RepositoryTestHelper(new CandidateRepositoryWriteService());
+		repositoryTestHelper = new RepositoryTestHelper(new CandidateRepositoryWriteService(new AvailableToPromiseInMemoryEngine(Mockito.mock(PostMaterialEventService.class))));
 	}
 
 	@Test
@@ -27,6 +27,7 @@ import org.adempiere.test.AdempiereTestWatcher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
 
 import de.metas.document.engine.DocStatus;
 import de.metas.material.dispo.commons.DispoTestUtils;
@@ -39,6 +40,7 @@ import de.metas.material.dispo.commons.candidate.businesscase.DemandDetail;
 import de.metas.material.dispo.commons.candidate.businesscase.DistributionDetail;
 import de.metas.material.dispo.commons.candidate.businesscase.Flag;
 import de.metas.material.dispo.commons.candidate.businesscase.ProductionDetail;
+import de.metas.material.dispo.commons.repository.atp.AvailableToPromiseInMemoryEngine;
 import de.metas.material.dispo.commons.repository.query.CandidatesQuery;
 import de.metas.material.dispo.model.I_MD_Candidate;
 import de.metas.material.dispo.model.I_MD_Candidate_Demand_Detail;
@@ -46,6 +48,7 @@ import de.metas.material.dispo.model.I_MD_Candidate_Dist_Detail;
 import de.metas.material.dispo.model.I_MD_Candidate_Prod_Detail;
 import de.metas.material.dispo.model.I_MD_Candidate_Transaction_Detail;
 import de.metas.material.dispo.model.X_MD_Candidate;
+import de.metas.material.event.PostMaterialEventService;
 import de.metas.material.event.commons.AttributesKey;
 import de.metas.material.event.commons.MaterialDescriptor;
 import de.metas.organization.ClientAndOrgId;
@@ -86,7 +89,7 @@ public class CandidateRepositoryWriteServiceTests
 	{
 		AdempiereTestHelper.get().init();
 
-		candidateRepositoryWriteService = new CandidateRepositoryWriteService();
+		candidateRepositoryWriteService = new CandidateRepositoryWriteService(new AvailableToPromiseInMemoryEngine(Mockito.mock(PostMaterialEventService.class)));
 
 		repositoryTestHelper = new RepositoryTestHelper(candidateRepositoryWriteService);
 	}
@@ -214,6 +217,31 @@ public class CandidateRepositoryWriteServiceTests
 		assertThat(stockAfterReplacement).containsOnly(replacementCandidate, repositoryTestHelper.laterStockCandidate);
 	}
 
+	@Test
+	public void addToQtyAndSetGroupId_updatesStatus()
+	{
+		final I_MD_Candidate laterStockRecord = load(repositoryTestHelper.laterStockCandidate.getId().getRepoId(), I_MD_Candidate.class);
+		laterStockRecord.setQtyFulfilled(new BigDecimal("5"));
+		save(laterStockRecord);
+
+		final List<Candidate> updatedCandidates = candidateRepositoryWriteService.addToQtyAndSetGroupId(
+				repositoryTestHelper.mkQueryForStockFromDate(AFTER_NOW),
+				new BigDecimal("-5"),
+				null);
+
+		assertThat(updatedCandidates).hasSize(1);
+		assertThat(updatedCandidates.get(0).getId()).isEqualTo(repositoryTestHelper.laterStockCandidate.getId());
+		assertThat(updatedCandidates.get(0).getQuantity()).isEqualByComparingTo("5");
+
+		final I_MD_Candidate updatedLaterStockRecord = load(repositoryTestHelper.laterStockCandidate.getId().getRepoId(), I_MD_Candidate.class);
+		assertThat(updatedLaterStockRecord.getQty()).isEqualByComparingTo("5");
+		assertThat(updatedLaterStockRecord.getMD_Candidate_Status()).isEqualTo(X_MD_Candidate.MD_CANDIDATE_STATUS_Processed);
+
+		final I_MD_Candidate stockRecord = load(repositoryTestHelper.stockCandidate.getId().getRepoId(), I_MD_Candidate.class);
+		assertThat(stockRecord.getQty()).isEqualByComparingTo("11");
+		assertThat(stockRecord.getMD_Candidate_Status()).isEqualTo(X_MD_Candidate.MD_CANDIDATE_STATUS_Planned);
+	}
+
 	/**
 	 * Verifies that {@link ProductionDetail} data is also persisted
 	 */
@@ -0,0 +1,189 @@
+package de.metas.material.dispo.commons.repository.atp;
+
+import static org.adempiere.model.InterfaceWrapperHelper.newInstance;
+import static org.adempiere.model.InterfaceWrapperHelper.saveRecord;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import org.adempiere.test.AdempiereTestHelper;
+import org.adempiere.warehouse.WarehouseId;
+import org.compiere.util.TimeUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import de.metas.bpartner.BPartnerId;
+import de.metas.material.dispo.model.I_MD_Candidate;
+import de.metas.material.dispo.model.X_MD_Candidate;
+import de.metas.material.event.PostMaterialEventService;
+import de.metas.material.event.commons.AttributesKey;
+import de.metas.material.event.commons.EventDescriptor;
+import de.metas.material.event.stock.StockCandidatesChangedEvent;
+
+/*
+ * #%L
+ * metasfresh-material-dispo-commons
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class AvailableToPromiseInMemoryEngineTest
+{
+	private static final int PRODUCT_ID = 10;
+	private static final WarehouseId WAREHOUSE_ID = WarehouseId.ofRepoId(1);
+	private static final BPartnerId BPARTNER_ID = BPartnerId.ofRepoId(20);
+	private static final AttributesKey STORAGE_ATTRIBUTES_KEY = AttributesKey.ofString("1");
+
+	private final Instant t1 = Instant.parse("2020-03-01T10:00:00.00Z");
+	private final Instant t2 = t1.plus(1, ChronoUnit.HOURS);
+	private final Instant t3 = t1.plus(2, ChronoUnit.HOURS);
+
+	private PostMaterialEventService postMaterialEventService;
+	private AvailableToPromiseInMemoryEngine engine;
+
+	@BeforeEach
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+
+		postMaterialEventService = Mockito.mock(PostMaterialEventService.class);
+		engine = new AvailableToPromiseInMemoryEngine(postMaterialEventService);
+	}
+
+	private void createStockRecord(@Nullable final BPartnerId customerId, final Instant date, final int seqNo, final String qty)
+	{
+		final I_MD_Candidate stockRecord = newInstance(I_MD_Candidate.class);
+		stockRecord.setIsActive(true);
+		stockRecord.setMD_Candidate_Type(X_MD_Candidate.MD_CANDIDATE_TYPE_STOCK);
+		stockRecord.setM_Product_ID(PRODUCT_ID);
+		stockRecord.setM_Warehouse_ID(WAREHOUSE_ID.getRepoId());
+		stockRecord.setC_BPartner_Customer_ID(BPartnerId.toRepoId(customerId));
+		stockRecord.setStorageAttributesKey(STORAGE_ATTRIBUTES_KEY.getAsString());
+		stockRecord.setDateProjected(TimeUtil.asTimestamp(date));
+		stockRecord.setSeqNo(seqNo);
+		stockRecord.setQty(new BigDecimal(qty));
+		saveRecord(stockRecord);
+	}
+
+	private List<AddToResultGroupRequest> retrieve(final Instant date, final BPartnerClassifier bpartner)
+	{
+		final AvailableToPromiseQuery query = AvailableToPromiseQuery.builder()
+				.productId(PRODUCT_ID)
+				.warehouseId(WAREHOUSE_ID)
+				.date(date.atZone(ZoneId.of("UTC")))
+				.bpartner(bpartner)
+				.build();
+
+		return engine.retrieveAvailableStockOrNull(AvailableToPromiseMultiQuery.of(query));
+	}
+
+	@Test
+	public void notReady()
+	{
+		createStockRecord(null, t1, 1, "10");
+
+		assertThat(engine.isReady()).isFalse();
+		assertThat(retrieve(t1, BPartnerClassifier.any())).isNull();
+	}
+
+	@Test
+	public void lastStockCandidateAtOrBeforeDate()
+	{
+		createStockRecord(null, t1, 1, "10");
+		createStockRecord(null, t2, 3, "5");
+		createStockRecord(null, t2, 2, "7");
+		createStockRecord(null, t3, 4, "12");
+		engine.rebuild(2);
+
+		assertThat(retrieve(t1.minusSeconds(1), BPartnerClassifier.none())).isEmpty();
+
+		final List<AddToResultGroupRequest> atT1 = retrieve(t1, BPartnerClassifier.none());
+		assertThat(atT1).hasSize(1);
+		assertThat(atT1.get(0).getQty()).isEqualByComparingTo("10");
+
+		// same date => biggest seqNo wins
+		final List<AddToResultGroupRequest> betweenT2AndT3 = retrieve(t2.plusSeconds(60), BPartnerClassifier.none());
+		assertThat(betweenT2AndT3).hasSize(1);
+		assertThat(betweenT2AndT3.get(0).getQty()).isEqualByComparingTo("5");
+		assertThat(betweenT2AndT3.get(0).getSeqNo()).isEqualTo(3);
+		assertThat(betweenT2AndT3.get(0).getDate()).isEqualTo(t2);
+
+		final List<AddToResultGroupRequest> afterT3 = retrieve(t3.plus(10, ChronoUnit.DAYS), BPartnerClassifier.none());
+		assertThat(afterT3).extracting(AddToResultGroupRequest::getQty).containsExactly(new BigDecimal("12"));
+	}
+
+	@Test
+	public void bpartner()
+	{
+		createStockRecord(null, t1, 1, "10");
+		createStockRecord(BPARTNER_ID, t1, 2, "3");
+		engine.rebuild(1);
+
+		assertThat(retrieve(t2, BPartnerClassifier.none())).extracting(AddToResultGroupRequest::getSeqNo).containsExactlyInAnyOrder(1);
+		assertThat(retrieve(t2, BPartnerClassifier.any())).extracting(AddToResultGroupRequest::getSeqNo).containsExactlyInAnyOrder(1, 2);
+		assertThat(retrieve(t2, BPartnerClassifier.specific(BPARTNER_ID))).extracting(AddToResultGroupRequest::getSeqNo).containsExactlyInAnyOrder(1, 2);
+		assertThat(retrieve(t2, BPartnerClassifier.specific(BPartnerId.ofRepoId(30)))).extracting(AddToResultGroupRequest::getSeqNo).containsExactlyInAnyOrder(1);
+
+		// records without bpartner are applicable to any bpartner
+		final AddToResultGroupRequest request = retrieve(t2, BPartnerClassifier.none()).get(0);
+		assertThat(request.getBpartner().isAny()).isTrue();
+	}
+
+	@Test
+	public void reloadedAfterChange()
+	{
+		createStockRecord(null, t1, 1, "10");
+		engine.rebuild(1);
+		assertThat(retrieve(t3, BPartnerClassifier.none())).extracting(AddToResultGroupRequest::getSeqNo).containsExactly(1);
+
+		createStockRecord(null, t2, 2, "8");
+		assertThat(retrieve(t3, BPartnerClassifier.none())).extracting(AddToResultGroupRequest::getSeqNo).containsExactly(1); // not yet notified
+
+		engine.onStockCandidatesChanged(PRODUCT_ID); // not in a transaction => invalidated right away
+		assertThat(retrieve(t3, BPartnerClassifier.none())).extracting(AddToResultGroupRequest::getSeqNo).containsExactly(2);
+
+		final ArgumentCaptor<StockCandidatesChangedEvent> eventCaptor = ArgumentCaptor.forClass(StockCandidatesChangedEvent.class);
+		Mockito.verify(postMaterialEventService).postEventNow(eventCaptor.capture());
+		assertThat(eventCaptor.getValue().getProductIds()).containsExactly(PRODUCT_ID);
+	}
+
+	@Test
+	public void reloadedAfterChangeOnOtherNode()
+	{
+		createStockRecord(null, t1, 1, "10");
+		engine.rebuild(1);
+		assertThat(retrieve(t3, BPartnerClassifier.none())).extracting(AddToResultGroupRequest::getSeqNo).containsExactly(1);
+
+		createStockRecord(null, t2, 2, "8");
+		new AvailableToPromiseInMemoryEngineEventHandler(engine).handleEvent(StockCandidatesChangedEvent.builder()
+				.eventDescriptor(EventDescriptor.ofClientAndOrg(1, 2))
+				.productId(PRODUCT_ID)
+				.build());
+		assertThat(retrieve(t3, BPartnerClassifier.none())).extracting(AddToResultGroupRequest::getSeqNo).containsExactly(2);
+
+		Mockito.verify(postMaterialEventService, Mockito.never()).postEventNow(Mockito.any());
+	}
+}
@@ -20,6 +20,7 @@ import org.compiere.util.TimeUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
 
 import de.metas.bpartner.BPartnerId;
 import de.metas.material.commons.attributes.AttributesKeyPattern;
@@ -29,6 +30,7 @@ import de.metas.material.dispo.model.I_MD_Candidate;
 import de.metas.material.dispo.model.I_MD_Candidate_ATP_QueryResult;
 import de.metas.material.dispo.model.X_MD_Candidate;
 import de.metas.material.event.EventTestHelper;
+import de.metas.material.event.PostMaterialEventService;
 import de.metas.material.event.commons.AttributesKey;
 import de.metas.material.event.commons.MaterialDescriptor;
 import de.metas.material.event.commons.ProductDescriptor;
@@ -69,7 +71,7 @@ public class AvailableToPromiseRepositoryTest
 	{
 		AdempiereTestHelper.get().init();
 
-		availableToPromiseRepository = new AvailableToPromiseRepository();
+		availableToPromiseRepository = new AvailableToPromiseRepository(new AvailableToPromiseInMemoryEngine(Mockito.mock(PostMaterialEventService.class)));
 	}
 
 	/**
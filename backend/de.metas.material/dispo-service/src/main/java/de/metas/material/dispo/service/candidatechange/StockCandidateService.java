@@ -11,6 +11,9 @@ import org.compiere.util.TimeUtil;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+
 import de.metas.Profiles;
 import de.metas.material.dispo.commons.candidate.Candidate;
 import de.metas.material.dispo.commons.candidate.CandidateId;
@@ -163,15 +166,15 @@ public class StockCandidateService
 	}
 
 	/**
-	 * Selects all stock candidates which have the same product and locator but a later timestamp than the one from the given {@code materialDescriptor}.
-	 * Iterate them and add the given {@code delta} to their quantity.
+	 * Selects all stock candidates which have the same product and locator but a later timestamp than the one from the given {@code stockWithDelta}
+	 * and adds the respective delta to their quantity.
 	 * <p>
+	 * The quantities are updated directly in database, using one SQL {@code UPDATE .. RETURNING} per date range, instead of loading and saving each stock candidate.
 	 *
-	 * @param materialDescriptor the product to match against
-	 * @param groupId the groupId to set to every stock record that we matched
-	 * @param delta the quantity (positive or negative) to add to every stock record that we matched
+	 * @param stockWithDelta the stock candidate that was changed, together with the quantity delta and (if the date was moved) the previous date
+	 * @return the updated stock candidates, ordered by date and seqNo; they can be used to notify about the changed quantities
 	 */
-	public void applyDeltaToMatchingLaterStockCandidates(
+	public List<Candidate> applyDeltaToMatchingLaterStockCandidates(
 			@NonNull final SaveResult stockWithDelta)
 	{
 		final CandidatesQuery query = createStockQueryBetweenDates(stockWithDelta);
@@ -197,18 +200,12 @@ public class StockCandidateService
 			deltaAfterRangeEnd = null;
 		}
 
-		final List<Candidate> candidatesToUpdateWithinRange = candidateRepositoryRetrieval.retrieveOrderedByDateAndSeqNo(query);
-		for (final Candidate candidate : candidatesToUpdateWithinRange)
-		{
-			final BigDecimal newQty = candidate.getQuantity().add(deltaUntilRangeEnd);
+		final MaterialDispoGroupId groupId = stockWithDelta.getCandidate().getGroupId();
 
-			candidateRepositoryWriteService.updateCandidateById(candidate
-					.withQuantity(newQty)
-					.withGroupId(stockWithDelta.getCandidate().getGroupId()));
-		}
+		final List<Candidate> updatedWithinRange = candidateRepositoryWriteService.addToQtyAndSetGroupId(query, deltaUntilRangeEnd, groupId);
 		if (deltaAfterRangeEnd == null || deltaAfterRangeEnd.signum() == 0)
 		{
-			return; // we are done
+			return updatedWithinRange; // we are done
 		}
 
 		final MaterialDescriptorQuery materialDescriptorQuery = query.getMaterialDescriptorQuery();
@@ -217,15 +214,12 @@ public class StockCandidateService
 				.timeRangeEnd(null)
 				.build();
 		final CandidatesQuery queryAfterRange = query.withMaterialDescriptorQuery(materialDescriptToQueryAfterRange);
-		final List<Candidate> candidatesToUpdateAfterRange = candidateRepositoryRetrieval.retrieveOrderedByDateAndSeqNo(queryAfterRange);
-		for (final Candidate candidate : candidatesToUpdateAfterRange)
-		{
-			final BigDecimal newQty = candidate.getQuantity().add(deltaAfterRangeEnd);
 
-			candidateRepositoryWriteService.updateCandidateById(candidate
-					.withQuantity(newQty)
-					.withGroupId(stockWithDelta.getCandidate().getGroupId()));
-		}
+		final List<Candidate> updatedAfterRange = candidateRepositoryWriteService.addToQtyAndSetGroupId(queryAfterRange, deltaAfterRangeEnd, groupId);
+		return ImmutableList.<Candidate> builder()
+				.addAll(updatedWithinRange)
+				.addAll(updatedAfterRange)
+				.build();
 	}
 
 	private CandidatesQuery createStockQueryUntilDate(
@@ -249,7 +243,8 @@ public class StockCandidateService
 				.build();
 	}
 
-	private CandidatesQuery createStockQueryBetweenDates(
+	@VisibleForTesting
+	CandidatesQuery createStockQueryBetweenDates(
 			@NonNull final SaveResult saveResult)
 	{
 		final DateAndSeqNo rangeStart = DateAndSeqNo
@@ -50,6 +50,7 @@ import de.metas.material.dispo.commons.repository.CandidateRepositoryWriteServic
 import de.metas.material.dispo.commons.repository.CandidateRepositoryWriteService.SaveResult;
 import de.metas.material.dispo.commons.repository.DateAndSeqNo;
 import de.metas.material.dispo.commons.repository.DateAndSeqNo.Operator;
+import de.metas.material.dispo.commons.repository.atp.AvailableToPromiseInMemoryEngine;
 import de.metas.material.dispo.commons.repository.atp.AvailableToPromiseRepository;
 import de.metas.material.dispo.commons.repository.query.CandidatesQuery;
 import de.metas.material.dispo.commons.repository.query.MaterialDescriptorQuery;
@@ -115,7 +116,7 @@ public class CandidateChangeHandlerTests
 		AdempiereTestHelper.get().init();
 
 		candidateRepositoryRetrieval = new CandidateRepositoryRetrieval();
-		candidateRepositoryCommands = new CandidateRepositoryWriteService();
+		candidateRepositoryCommands = new CandidateRepositoryWriteService(new AvailableToPromiseInMemoryEngine(Mockito.mock(PostMaterialEventService.class)));
 
 		final PostMaterialEventService postMaterialEventService = Mockito.mock(PostMaterialEventService.class);
 
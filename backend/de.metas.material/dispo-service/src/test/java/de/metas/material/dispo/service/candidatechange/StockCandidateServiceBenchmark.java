@@ -0,0 +1,173 @@
+package de.metas.material.dispo.service.candidatechange;
+
+import static de.metas.material.event.EventTestHelper.CLIENT_AND_ORG_ID;
+import static de.metas.material.event.EventTestHelper.WAREHOUSE_ID;
+import static de.metas.material.event.EventTestHelper.createProductDescriptorWithOffSet;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.adempiere.test.AdempiereTestHelper;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.metas.material.dispo.commons.candidate.Candidate;
+import de.metas.material.dispo.commons.candidate.CandidateType;
+import de.metas.material.dispo.commons.repository.CandidateRepositoryRetrieval;
+import de.metas.material.dispo.commons.repository.CandidateRepositoryWriteService;
+import de.metas.material.dispo.commons.repository.CandidateRepositoryWriteService.SaveResult;
+import de.metas.material.dispo.commons.repository.atp.AvailableToPromiseInMemoryEngine;
+import de.metas.material.event.PostMaterialEventService;
+import de.metas.material.event.commons.MaterialDescriptor;
+
+/*
+ * #%L
+ * metasfresh-manufacturing-dispo
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Creates {@value #COUNT_PRODUCTS} products with {@value #COUNT_STOCK_CANDIDATES_PER_PRODUCT} stock candidates each (one per hour)
+ * and applies {@value #COUNT_CHANGES} quantity changes to early stock candidates, each of them cascading to the later stock candidates of the same product.
+ * <p>
+ * The changes are applied both the old way (load and save each later stock candidate) and using {@link StockCandidateService#applyDeltaToMatchingLaterStockCandidates(SaveResult)}.
+ * <p>
+ * Note: this is running against the in-memory test database, where a direct update is also executed record by record.
+ * The interesting number is the count of SQL statements which would be executed against a real database.
+ */
+@Disabled
+public class StockCandidateServiceBenchmark
+{
+	private static final Logger logger = LoggerFactory.getLogger(StockCandidateServiceBenchmark.class);
+
+	private static final int COUNT_PRODUCTS = 20;
+	private static final int COUNT_STOCK_CANDIDATES_PER_PRODUCT = 500;
+	private static final int COUNT_CHANGES = 50;
+
+	/** one {@code SELECT} for the candidate itself and one for its details, one {@code UPDATE} and one {@code SELECT} for the seqNo fallback */
+	private static final int STATEMENTS_PER_CANDIDATE_UPDATED_BY_ID = 4;
+
+	public static void main(final String[] args)
+	{
+		new StockCandidateServiceBenchmark().run();
+	}
+
+	private StockCandidateService stockCandidateService;
+	private CandidateRepositoryRetrieval candidateRepositoryRetrieval;
+	private CandidateRepositoryWriteService candidateRepositoryWriteService;
+
+	@Test
+	public void run()
+	{
+		{
+			final List<SaveResult> changes = init();
+			final long startNanos = System.nanoTime();
+			int countUpdated = 0;
+			for (final SaveResult change : changes)
+			{
+				countUpdated += applyDeltaOneByOne(change);
+			}
+			final long durationNanos = System.nanoTime() - startNanos;
+			logger.info("One by one: updated {} stock candidates in {}ms, using ~{} SQL statements",
+					countUpdated,
+					durationNanos / 1_000_000,
+					changes.size() + countUpdated * STATEMENTS_PER_CANDIDATE_UPDATED_BY_ID);
+		}
+
+		{
+			final List<SaveResult> changes = init();
+			final long startNanos = System.nanoTime();
+			int countUpdated = 0;
+			for (final SaveResult change : changes)
+			{
+				countUpdated += stockCandidateService.applyDeltaToMatchingLaterStockCandidates(change).size();
+			}
+			final long durationNanos = System.nanoTime() - startNanos;
+			logger.info("Set based: updated {} stock candidates in {}ms, using ~{} SQL statements",
+					countUpdated,
+					durationNanos / 1_000_000,
+					changes.size() * 2);
+		}
+	}
+
+	/**
+	 * @return the quantity changes to apply
+	 */
+	private List<SaveResult> init()
+	{
+		AdempiereTestHelper.get().init();
+
+		candidateRepositoryRetrieval = new CandidateRepositoryRetrieval();
+		candidateRepositoryWriteService = new CandidateRepositoryWriteService(new AvailableToPromiseInMemoryEngine(Mockito.mock(PostMaterialEventService.class)));
+		stockCandidateService = new StockCandidateService(candidateRepositoryRetrieval, candidateRepositoryWriteService);
+
+		final Instant start = Instant.parse("2020-01-01T00:00:00.00Z");
+		final List<SaveResult> changes = new ArrayList<>(COUNT_CHANGES);
+		for (int product = 0; product < COUNT_PRODUCTS; product++)
+		{
+			for (int i = 0; i < COUNT_STOCK_CANDIDATES_PER_PRODUCT; i++)
+			{
+				final MaterialDescriptor materialDescriptor = MaterialDescriptor.builder()
+						.productDescriptor(createProductDescriptorWithOffSet(product))
+						.warehouseId(WAREHOUSE_ID)
+						.quantity(BigDecimal.valueOf(100 + i))
+						.date(start.plus(i, ChronoUnit.HOURS))
+						.build();
+
+				final Candidate stockCandidate = Candidate.builder()
+						.type(CandidateType.STOCK)
+						.clientAndOrgId(CLIENT_AND_ORG_ID)
+						.materialDescriptor(materialDescriptor)
+						.build();
+				final Candidate savedStockCandidate = candidateRepositoryWriteService.addOrUpdateOverwriteStoredSeqNo(stockCandidate).getCandidate();
+
+				// change the first stock candidates of each product, so (almost) all the product's stock candidates are updated
+				if (i < COUNT_CHANGES / COUNT_PRODUCTS)
+				{
+					changes.add(SaveResult.builder()
+							.candidate(savedStockCandidate.withQuantity(BigDecimal.ONE))
+							.build());
+				}
+			}
+		}
+		return changes;
+	}
+
+	/**
+	 * How the stock candidates were updated before {@link StockCandidateService#applyDeltaToMatchingLaterStockCandidates(SaveResult)} used a direct update.
+	 */
+	private int applyDeltaOneByOne(final SaveResult stockWithDelta)
+	{
+		int countUpdated = 0;
+		for (final Candidate candidate : candidateRepositoryRetrieval.retrieveOrderedByDateAndSeqNo(stockCandidateService.createStockQueryBetweenDates(stockWithDelta)))
+		{
+			candidateRepositoryWriteService.updateCandidateById(candidate
+					.withQuantity(candidate.getQuantity().add(stockWithDelta.getQtyDelta()))
+					.withGroupId(stockWithDelta.getCandidate().getGroupId()));
+			countUpdated++;
+		}
+		return countUpdated;
+	}
+}
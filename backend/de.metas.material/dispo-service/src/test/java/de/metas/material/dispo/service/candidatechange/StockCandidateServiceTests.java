@@ -26,6 +26,7 @@ import org.compiere.util.TimeUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
 
 import de.metas.material.dispo.commons.DispoTestUtils;
 import de.metas.material.dispo.commons.candidate.Candidate;
@@ -36,7 +37,9 @@ import de.metas.material.dispo.commons.repository.CandidateRepositoryRetrieval;
 import de.metas.material.dispo.commons.repository.CandidateRepositoryWriteService;
 import de.metas.material.dispo.commons.repository.CandidateRepositoryWriteService.SaveResult;
 import de.metas.material.dispo.commons.repository.DateAndSeqNo;
+import de.metas.material.dispo.commons.repository.atp.AvailableToPromiseInMemoryEngine;
 import de.metas.material.dispo.model.I_MD_Candidate;
+import de.metas.material.event.PostMaterialEventService;
 import de.metas.material.event.commons.MaterialDescriptor;
 import lombok.NonNull;
 
@@ -86,7 +89,7 @@ public class StockCandidateServiceTests
 
 		final CandidateRepositoryRetrieval candidateRepository = new CandidateRepositoryRetrieval();
 
-		candidateRepositoryWriteService = new CandidateRepositoryWriteService();
+		candidateRepositoryWriteService = new CandidateRepositoryWriteService(new AvailableToPromiseInMemoryEngine(Mockito.mock(PostMaterialEventService.class)));
 		stockCandidateService = new StockCandidateService(
 				candidateRepository,
 				candidateRepositoryWriteService);
@@ -407,9 +410,12 @@ public class StockCandidateServiceTests
 				.build();
 
 		// invoke the method under test
-		stockCandidateService
+		final List<Candidate> updatedCandidates = stockCandidateService
 				.applyDeltaToMatchingLaterStockCandidates(appliedSaveResult);
 
+		assertThat(updatedCandidates).extracting(Candidate::getDate).containsExactly(t3, t4);
+		assertThat(updatedCandidates).extracting(Candidate::getQuantity).usingElementComparator(BigDecimal::compareTo).containsExactly(new BigDecimal("7"), new BigDecimal("9"));
+
 		// expecting (t1 => 10), (t3 => 7), (t4 => 9), (t5 => 6), (t6 => 11)
 		final List<I_MD_Candidate> records = DispoTestUtils.sortByDateProjected(DispoTestUtils.filter(CandidateType.STOCK));
 		assertThat(records).hasSize(5);
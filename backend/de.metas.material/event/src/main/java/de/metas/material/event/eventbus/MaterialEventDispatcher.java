@@ -0,0 +1,610 @@
+package de.metas.material.event.eventbus;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import javax.annotation.Nullable;
+
+import org.adempiere.service.ISysConfigBL;
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.compiere.Adempiere;
+import org.compiere.SpringContextHolder;
+import org.slf4j.Logger;
+import org.slf4j.MDC.MDCCloseable;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+
+import de.metas.event.Event;
+import de.metas.event.impl.EventMDC;
+import de.metas.event.log.EventLogEntryCollector;
+import de.metas.event.log.EventLogUserService;
+import de.metas.logging.LogManager;
+import de.metas.material.event.MaterialEvent;
+import de.metas.material.event.attributes.AttributesChangedEvent;
+import de.metas.material.event.procurement.AbstractPurchaseOfferEvent;
+import de.metas.material.event.purchase.PurchaseCandidateEvent;
+import de.metas.material.event.receiptschedule.AbstractReceiptScheduleEvent;
+import de.metas.material.event.shipmentschedule.AbstractShipmentScheduleEvent;
+import de.metas.material.event.stock.StockChangedEvent;
+import de.metas.material.event.stockestimate.AbstractStockEstimateEvent;
+import de.metas.material.event.transactions.AbstractTransactionEvent;
+import de.metas.util.Services;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/*
+ * #%L
+ * metasfresh-material-event
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Dispatches the received material events to a given processor, using a number of worker lanes.
+ * <p>
+ * Events which are about one product (e.g. shipment schedule and transaction events) are partitioned by their product ID,
+ * so the events of one product are processed in the order they were received, while the events of different products are processed in parallel.
+ * Events which can be about many products (e.g. PP_Order events) are processed as barriers: all events received before are processed first,
+ * then the barrier event is processed alone, then the events received after it.
+ * <p>
+ * Each lane has a bounded queue. If it's full, {@link #dispatch(MaterialEvent)} blocks the thread that delivers the events,
+ * so the event bus does not take events faster than they can be processed.
+ * Events which are dispatched by the lanes' own threads (i.e. events posted by a handler after its trx was committed) are never blocked, to avoid deadlocks.
+ * <p>
+ * The event bus sets up the thread-local {@link EventLogEntryCollector} only on the delivering thread,
+ * so each lane sets it up again for the events it processes and stores an error entry if the processing fails, like the event bus does.
+ * <p>
+ * {@link #shutdown()} stops accepting events and waits until the lanes processed all queued events.
+ * Events which are dispatched after that are processed directly by the delivering thread.
+ * <p>
+ * With one lane (the default, see {@value #SYSCONFIG_Lanes}), the events are processed directly by the delivering thread, like it was done before.
+ */
+public final class MaterialEventDispatcher
+{
+	private static final Logger logger = LogManager.getLogger(MaterialEventDispatcher.class);
+
+	@VisibleForTesting
+	static final String SYSCONFIG_Lanes = "de.metas.material.event.eventbus.MaterialEventDispatcher.Lanes";
+	private static final String SYSCONFIG_LaneCapacity = "de.metas.material.event.eventbus.MaterialEventDispatcher.LaneCapacity";
+	private static final String SYSCONFIG_LagWarningMillis = "de.metas.material.event.eventbus.MaterialEventDispatcher.LagWarningMillis";
+	private static final int DEFAULT_LaneCapacity = 1000;
+	private static final int DEFAULT_LagWarningMillis = 60 * 1000;
+	private static final long SHUTDOWN_TIMEOUT_MILLIS = 5 * 60 * 1000;
+
+	private static final ThreadLocal<Lane> currentLane = new ThreadLocal<>();
+
+	/**
+	 * @param listenerClass the class to be recorded in the event log if the processing of an event fails on one of the lanes
+	 */
+	public static MaterialEventDispatcher newInstanceFromSysConfig(
+			@NonNull final Class<?> listenerClass,
+			@NonNull final Consumer<MaterialEvent> processor)
+	{
+		final ISysConfigBL sysConfigBL = Services.get(ISysConfigBL.class);
+		return new MaterialEventDispatcher(
+				listenerClass,
+				processor,
+				sysConfigBL.getIntValue(SYSCONFIG_Lanes, 1),
+				sysConfigBL.getIntValue(SYSCONFIG_LaneCapacity, DEFAULT_LaneCapacity),
+				sysConfigBL.getIntValue(SYSCONFIG_LagWarningMillis, DEFAULT_LagWarningMillis));
+	}
+
+	private final Class<?> listenerClass;
+	private final Consumer<MaterialEvent> processor;
+	/** empty if the events are processed directly */
+	private final ImmutableList<Lane> lanes;
+	private final int laneCapacity;
+	private final long lagWarningMillis;
+
+	/** makes sure the barrier events have the same order in all lanes */
+	private final Object enqueueLock = new Object();
+	/** guarded by {@link #enqueueLock} */
+	private boolean shutdown = false;
+	private final CountDownLatch lanesTerminated = new CountDownLatch(1);
+
+	@VisibleForTesting
+	MaterialEventDispatcher(
+			@NonNull final Class<?> listenerClass,
+			@NonNull final Consumer<MaterialEvent> processor,
+			final int lanesCount,
+			final int laneCapacity,
+			final long lagWarningMillis)
+	{
+		this.listenerClass = listenerClass;
+		this.processor = processor;
+		this.laneCapacity = Math.max(laneCapacity, 1);
+		this.lagWarningMillis = lagWarningMillis;
+
+		final ImmutableList.Builder<Lane> lanes = ImmutableList.builder();
+		if (lanesCount > 1)
+		{
+			for (int laneIndex = 0; laneIndex < lanesCount; laneIndex++)
+			{
+				lanes.add(new Lane(laneIndex));
+			}
+		}
+		this.lanes = lanes.build();
+		this.lanes.forEach(Lane::start);
+
+		logger.info("Created {}", this);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "MaterialEventDispatcher[lanes=" + lanes.size() + ", laneCapacity=" + laneCapacity + "]";
+	}
+
+	/**
+	 * @param event the event bus event from which the given {@code materialEvent} was extracted. Needed to set up the event log on the lanes.
+	 */
+	public void dispatch(
+			@NonNull final Event event,
+			@NonNull final MaterialEvent materialEvent)
+	{
+		if (lanes.isEmpty())
+		{
+			processor.accept(materialEvent);
+			return;
+		}
+
+		final int productId = extractProductId(materialEvent);
+		final List<Lane> targetLanes = productId > 0
+				? ImmutableList.of(lanes.get(productId % lanes.size()))
+				: lanes;
+
+		if (currentLane.get() == null)
+		{
+			targetLanes.forEach(Lane::awaitCapacity);
+		}
+
+		synchronized (enqueueLock)
+		{
+			if (!shutdown)
+			{
+				if (targetLanes.size() == 1)
+				{
+					targetLanes.get(0).enqueue(new LaneTask(event, materialEvent, null));
+				}
+				else
+				{
+					final Barrier barrier = new Barrier(targetLanes.size());
+					targetLanes.forEach(lane -> lane.enqueue(new LaneTask(event, materialEvent, barrier)));
+				}
+				return;
+			}
+		}
+
+		// we are shut down; wait until the lanes are drained, so the events of one product are still processed in order.
+		// if this is one of the lanes' threads, it's draining right now and we can't wait for it.
+		if (currentLane.get() == null)
+		{
+			awaitLanesTerminated();
+		}
+		logger.info("Dispatcher was shut down; processing {} directly", materialEvent);
+		processor.accept(materialEvent);
+	}
+
+	/**
+	 * @return the ID of the one product the given event is about, or {@code -1} if it can be about more products
+	 */
+	@VisibleForTesting
+	static int extractProductId(@NonNull final MaterialEvent event)
+	{
+		if (event instanceof AbstractShipmentScheduleEvent)
+		{
+			return ((AbstractShipmentScheduleEvent)event).getMaterialDescriptor().getProductId();
+		}
+		else if (event instanceof AbstractReceiptScheduleEvent)
+		{
+			return ((AbstractReceiptScheduleEvent)event).getMaterialDescriptor().getProductId();
+		}
+		else if (event instanceof AbstractTransactionEvent)
+		{
+			return ((AbstractTransactionEvent)event).getMaterialDescriptor().getProductId();
+		}
+		else if (event instanceof AbstractStockEstimateEvent)
+		{
+			return ((AbstractStockEstimateEvent)event).getProductDescriptor().getProductId();
+		}
+		else if (event instanceof AbstractPurchaseOfferEvent)
+		{
+			return ((AbstractPurchaseOfferEvent)event).getProductDescriptor().getProductId();
+		}
+		else if (event instanceof PurchaseCandidateEvent)
+		{
+			return ((PurchaseCandidateEvent)event).getPurchaseMaterialDescriptor().getProductId();
+		}
+		else if (event instanceof StockChangedEvent)
+		{
+			return ((StockChangedEvent)event).getProductId();
+		}
+		else if (event instanceof AttributesChangedEvent)
+		{
+			return ((AttributesChangedEvent)event).getProductId();
+		}
+		else
+		{
+			return -1;
+		}
+	}
+
+	public ImmutableList<LaneStats> getLaneStats()
+	{
+		return lanes.stream()
+				.map(Lane::getStats)
+				.collect(ImmutableList.toImmutableList());
+	}
+
+	/**
+	 * Stops accepting new events and waits until the lanes processed the events which are already queued.
+	 */
+	public void shutdown()
+	{
+		synchronized (enqueueLock)
+		{
+			if (shutdown)
+			{
+				return;
+			}
+			shutdown = true;
+		}
+
+		try
+		{
+			lanes.forEach(Lane::shutdown);
+
+			final long deadlineMillis = System.currentTimeMillis() + SHUTDOWN_TIMEOUT_MILLIS;
+			for (final Lane lane : lanes)
+			{
+				lane.awaitTermination(deadlineMillis);
+			}
+			logger.info("Shut down {}", this);
+		}
+		finally
+		{
+			lanesTerminated.countDown();
+		}
+	}
+
+	private void awaitLanesTerminated()
+	{
+		try
+		{
+			lanesTerminated.await();
+		}
+		catch (final InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Value
+	@Builder
+	public static class LaneStats
+	{
+		int laneIndex;
+		int queueSize;
+		/** how long the oldest queued event is waiting */
+		long currentLagMillis;
+		/** the max time an event waited until its processing started */
+		long maxLagMillis;
+		long processedCount;
+	}
+
+	/**
+	 * Makes the lanes wait for each other when they reach a barrier event. The event is processed by the first lane.
+	 */
+	private static final class Barrier
+	{
+		private final CountDownLatch lanesArrived;
+		private final CountDownLatch processed = new CountDownLatch(1);
+
+		private Barrier(final int lanesCount)
+		{
+			lanesArrived = new CountDownLatch(lanesCount);
+		}
+	}
+
+	@Value
+	private static class LaneTask
+	{
+		Event event;
+		MaterialEvent materialEvent;
+		@Nullable
+		Barrier barrier;
+		long enqueuedMillis = System.currentTimeMillis();
+	}
+
+	private final class Lane
+	{
+		private final int laneIndex;
+		private final Thread thread;
+
+		private final ReentrantLock lock = new ReentrantLock();
+		private final Condition notEmpty = lock.newCondition();
+		private final Condition notFull = lock.newCondition();
+		private final ArrayDeque<LaneTask> queue = new ArrayDeque<>();
+		private boolean shutdown = false;
+
+		private long processedCount = 0;
+		private long maxLagMillis = 0;
+		private long lastLagWarningMillis = 0;
+
+		private Lane(final int laneIndex)
+		{
+			this.laneIndex = laneIndex;
+			this.thread = CustomizableThreadFactory.builder()
+					.setDaemon(true)
+					.setThreadNamePrefix("material-event-lane-" + laneIndex)
+					.build()
+					.newThread(this::run);
+		}
+
+		private void start()
+		{
+			thread.start();
+		}
+
+		private void shutdown()
+		{
+			lock.lock();
+			try
+			{
+				shutdown = true;
+				notEmpty.signalAll();
+				notFull.signalAll();
+			}
+			finally
+			{
+				lock.unlock();
+			}
+		}
+
+		private void awaitTermination(final long deadlineMillis)
+		{
+			try
+			{
+				thread.join(Math.max(deadlineMillis - System.currentTimeMillis(), 1));
+			}
+			catch (final InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+			}
+
+			if (thread.isAlive())
+			{
+				logger.error("Material event lane {} did not finish its queued events in time; {} events were not processed", laneIndex, getStats().getQueueSize());
+			}
+		}
+
+		/**
+		 * Back-pressure: waits until the queue is not full.
+		 */
+		private void awaitCapacity()
+		{
+			lock.lock();
+			try
+			{
+				while (queue.size() >= laneCapacity && !shutdown)
+				{
+					notFull.awaitUninterruptibly();
+				}
+			}
+			finally
+			{
+				lock.unlock();
+			}
+		}
+
+		private void enqueue(@NonNull final LaneTask task)
+		{
+			lock.lock();
+			try
+			{
+				queue.addLast(task);
+				notEmpty.signal();
+			}
+			finally
+			{
+				lock.unlock();
+			}
+		}
+
+		private LaneTask takeOrNull() throws InterruptedException
+		{
+			lock.lock();
+			try
+			{
+				while (queue.isEmpty() && !shutdown)
+				{
+					notEmpty.await();
+				}
+				if (queue.isEmpty())
+				{
+					return null; // shut down and drained
+				}
+
+				final LaneTask task = queue.removeFirst();
+				notFull.signalAll();
+
+				final long nowMillis = System.currentTimeMillis();
+				final long lagMillis = nowMillis - task.getEnqueuedMillis();
+				maxLagMillis = Math.max(maxLagMillis, lagMillis);
+				if (lagMillis > lagWarningMillis && nowMillis - lastLagWarningMillis > lagWarningMillis)
+				{
+					lastLagWarningMillis = nowMillis;
+					logger.warn("Material event lane {} is lagging {}ms behind; queueSize={}", laneIndex, lagMillis, queue.size());
+				}
+
+				return task;
+			}
+			finally
+			{
+				lock.unlock();
+			}
+		}
+
+		private void run()
+		{
+			currentLane.set(this);
+			try
+			{
+				while (true)
+				{
+					final LaneTask task = takeOrNull();
+					if (task == null)
+					{
+						return;
+					}
+
+					process(task);
+				}
+			}
+			catch (final InterruptedException ex)
+			{
+				logger.warn("Material event lane {} was interrupted. Stopping it.", laneIndex, ex);
+				Thread.currentThread().interrupt();
+			}
+			finally
+			{
+				currentLane.remove();
+			}
+		}
+
+		private void process(@NonNull final LaneTask task) throws InterruptedException
+		{
+			final Barrier barrier = task.getBarrier();
+			if (barrier == null)
+			{
+				processNow(task);
+			}
+			else
+			{
+				barrier.lanesArrived.countDown();
+				if (laneIndex == 0)
+				{
+					try
+					{
+						barrier.lanesArrived.await();
+						processNow(task);
+					}
+					finally
+					{
+						barrier.processed.countDown();
+					}
+				}
+				else
+				{
+					barrier.processed.await();
+				}
+			}
+
+			lock.lock();
+			try
+			{
+				processedCount++;
+			}
+			finally
+			{
+				lock.unlock();
+			}
+		}
+
+		/**
+		 * Sets up the event log like {@code EventBus.invokeEventListenerWithLogging} does on the delivering thread.
+		 */
+		private void processNow(@NonNull final LaneTask task)
+		{
+			final Event event = task.getEvent();
+			try (final MDCCloseable eventMDC = EventMDC.putEvent(event))
+			{
+				final EventLogEntryCollector collector = event.isWasLogged()
+						? EventLogEntryCollector.createThreadLocalForEvent(event)
+						: null;
+				try
+				{
+					processor.accept(task.getMaterialEvent());
+				}
+				catch (final RuntimeException ex)
+				{
+					// same as the event bus does when a listener fails; the lane shall continue with the next event
+					logProcessingError(task, ex, collector != null);
+				}
+				finally
+				{
+					if (collector != null)
+					{
+						collector.close();
+					}
+				}
+			}
+		}
+
+		private void logProcessingError(
+				@NonNull final LaneTask task,
+				@NonNull final RuntimeException ex,
+				final boolean storeInEventLog)
+		{
+			if (!storeInEventLog || Adempiere.isUnitTestMode())
+			{
+				logger.warn("Got exception while processing {} in lane {}", task.getMaterialEvent(), laneIndex, ex);
+				return;
+			}
+
+			try
+			{
+				final EventLogUserService eventLogUserService = SpringContextHolder.instance.getBean(EventLogUserService.class);
+				eventLogUserService
+						.newErrorLogEntry(listenerClass, ex)
+						.createAndStore();
+			}
+			catch (final RuntimeException logEx)
+			{
+				logger.error("Failed processing {} in lane {} and failed storing the error in the event log", task.getMaterialEvent(), laneIndex, ex);
+				logger.error("Error while storing the event log entry", logEx);
+			}
+		}
+
+		private LaneStats getStats()
+		{
+			lock.lock();
+			try
+			{
+				final LaneTask oldestTask = queue.peekFirst();
+				return LaneStats.builder()
+						.laneIndex(laneIndex)
+						.queueSize(queue.size())
+						.currentLagMillis(oldestTask != null ? System.currentTimeMillis() - oldestTask.getEnqueuedMillis() : 0)
+						.maxLagMillis(maxLagMillis)
+						.processedCount(processedCount)
+						.build();
+			}
+			finally
+			{
+				lock.unlock();
+			}
+		}
+	}
+}
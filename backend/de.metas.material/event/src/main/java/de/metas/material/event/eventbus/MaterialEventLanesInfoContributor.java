@@ -0,0 +1,69 @@
+package de.metas.material.event.eventbus;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.stereotype.Component;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+
+import de.metas.material.event.eventbus.MaterialEventDispatcher.LaneStats;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-material-event
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Adds the lag and throughput of the {@link MetasfreshEventListener}'s worker lanes to the actuator's {@code info} endpoint.
+ */
+@Component
+public class MaterialEventLanesInfoContributor implements InfoContributor
+{
+	private final MetasfreshEventListener metasfreshEventListener;
+
+	public MaterialEventLanesInfoContributor(@NonNull final MetasfreshEventListener metasfreshEventListener)
+	{
+		this.metasfreshEventListener = metasfreshEventListener;
+	}
+
+	@Override
+	public void contribute(@NonNull final Info.Builder builder)
+	{
+		builder.withDetail("materialEventLanes", toDetails(metasfreshEventListener.getLaneStats()));
+	}
+
+	@VisibleForTesting
+	static Map<String, Object> toDetails(@NonNull final List<LaneStats> lanes)
+	{
+		return ImmutableMap.<String, Object> builder()
+				.put("lanesCount", lanes.size())
+				.put("queueSize", lanes.stream().mapToInt(LaneStats::getQueueSize).sum())
+				.put("currentLagMillis", lanes.stream().mapToLong(LaneStats::getCurrentLagMillis).max().orElse(0))
+				.put("maxLagMillis", lanes.stream().mapToLong(LaneStats::getMaxLagMillis).max().orElse(0))
+				.put("processedCount", lanes.stream().mapToLong(LaneStats::getProcessedCount).sum())
+				.put("lanes", lanes)
+				.build();
+	}
+}
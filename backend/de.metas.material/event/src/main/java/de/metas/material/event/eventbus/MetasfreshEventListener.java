@@ -2,6 +2,8 @@ package de.metas.material.event.eventbus;
 
 import java.util.Properties;
 
+import javax.annotation.PreDestroy;
+
 import org.adempiere.ad.trx.api.ITrxManager;
 import org.adempiere.util.lang.IAutoCloseable;
 import org.compiere.Adempiere;
@@ -12,12 +14,15 @@ import org.slf4j.MDC.MDCCloseable;
 import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Service;
 
+import com.google.common.collect.ImmutableList;
+
 import de.metas.event.Event;
 import de.metas.event.IEventBus;
 import de.metas.event.IEventListener;
 import de.metas.logging.LogManager;
 import de.metas.material.event.MaterialEvent;
 import de.metas.material.event.MaterialEventHandlerRegistry;
+import de.metas.material.event.eventbus.MaterialEventDispatcher.LaneStats;
 import de.metas.util.Services;
 import lombok.NonNull;
 
@@ -55,34 +60,15 @@ public class MetasfreshEventListener
 
 	private final MaterialEventConverter materialEventConverter;
 
+	private final MaterialEventDispatcher dispatcher;
+
 	private final IEventListener internalListener = new IEventListener()
 	{
 		@Override
 		public void onEvent(@NonNull final IEventBus eventBus, @NonNull final Event event)
 		{
 			final MaterialEvent lightWeightEvent = materialEventConverter.toMaterialEvent(event);
-			try (final MDCCloseable eventMDC = MDC.putCloseable("MaterialEventClass", lightWeightEvent.getClass().getName()))
-			{
-				logger.info("Received MaterialEvent={}", lightWeightEvent);
-
-				// make sure that every record we create has the correct AD_Client_ID and AD_Org_ID
-				final Properties temporaryCtx = Env.copyCtx(Env.getCtx());
-
-				Env.setClientId(temporaryCtx, lightWeightEvent.getEventDescriptor().getClientId());
-				Env.setOrgId(temporaryCtx, lightWeightEvent.getEventDescriptor().getOrgId());
-
-				try (final IAutoCloseable ctx = Env.switchContext(temporaryCtx))
-				{
-					invokeListenerInTrx(lightWeightEvent);
-				}
-			}
-		}
-
-		private void invokeListenerInTrx(@NonNull final MaterialEvent materialEvent)
-		{
-			Services.get(ITrxManager.class).runInNewTrx(() -> {
-				materialEventHandlerRegistry.onEvent(materialEvent);
-			});
+			dispatcher.dispatch(event, lightWeightEvent);
 		}
 
 		@Override
@@ -100,7 +86,56 @@ public class MetasfreshEventListener
 		this.materialEventConverter = materialEventConverter;
 		this.materialEventHandlerRegistry = materialEventHandlerRegistry;
 		this.metasfreshEventBusService = metasfreshEventBusService;
+		this.dispatcher = MaterialEventDispatcher.newInstanceFromSysConfig(internalListener.getClass(), this::processEvent);
 
 		this.metasfreshEventBusService.subscribe(internalListener);
 	}
+
+	/**
+	 * The event bus considers the events which are still queued in the dispatcher's lanes as delivered,
+	 * so we need to process them before shutting down. Otherwise they would be lost.
+	 * Events which are still delivered after this are processed directly by the delivering thread.
+	 */
+	@PreDestroy
+	public void shutdown()
+	{
+		dispatcher.shutdown();
+	}
+
+	/**
+	 * @return the lag and throughput of each worker lane; empty if the events are processed sequentially. Also see {@link MaterialEventLanesInfoContributor}.
+	 */
+	public ImmutableList<LaneStats> getLaneStats()
+	{
+		return dispatcher.getLaneStats();
+	}
+
+	/**
+	 * Invoked by the {@link MaterialEventDispatcher}, possibly on one of its lanes' threads.
+	 */
+	private void processEvent(@NonNull final MaterialEvent materialEvent)
+	{
+		try (final MDCCloseable eventMDC = MDC.putCloseable("MaterialEventClass", materialEvent.getClass().getName()))
+		{
+			logger.info("Received MaterialEvent={}", materialEvent);
+
+			// make sure that every record we create has the correct AD_Client_ID and AD_Org_ID
+			final Properties temporaryCtx = Env.copyCtx(Env.getCtx());
+
+			Env.setClientId(temporaryCtx, materialEvent.getEventDescriptor().getClientId());
+			Env.setOrgId(temporaryCtx, materialEvent.getEventDescriptor().getOrgId());
+
+			try (final IAutoCloseable ctx = Env.switchContext(temporaryCtx))
+			{
+				invokeListenerInTrx(materialEvent);
+			}
+		}
+	}
+
+	private void invokeListenerInTrx(@NonNull final MaterialEvent materialEvent)
+	{
+		Services.get(ITrxManager.class).runInNewTrx(() -> {
+			materialEventHandlerRegistry.onEvent(materialEvent);
+		});
+	}
 }
@@ -0,0 +1,63 @@
+package de.metas.material.event.stock;
+
+import java.util.Collection;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableSet;
+
+import de.metas.material.event.MaterialEvent;
+import de.metas.material.event.commons.EventDescriptor;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Singular;
+import lombok.Value;
+
+/*
+ * #%L
+ * metasfresh-material-event
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Posted after a transaction that created, changed or deleted {@code MD_Candidate} records of type {@code STOCK} was committed.
+ */
+@Value
+@JsonAutoDetect(fieldVisibility = Visibility.ANY, getterVisibility = Visibility.NONE, isGetterVisibility = Visibility.NONE, setterVisibility = Visibility.NONE)
+public class StockCandidatesChangedEvent implements MaterialEvent
+{
+	public static final String TYPE = "StockCandidatesChangedEvent";
+
+	EventDescriptor eventDescriptor;
+
+	/** {@code M_Product_ID}s of the changed stock candidates */
+	ImmutableSet<Integer> productIds;
+
+	@JsonCreator
+	@Builder
+	public StockCandidatesChangedEvent(
+			@JsonProperty("eventDescriptor") @NonNull final EventDescriptor eventDescriptor,
+			@JsonProperty("productIds") @Singular final Collection<Integer> productIds)
+	{
+		this.eventDescriptor = eventDescriptor;
+		this.productIds = ImmutableSet.copyOf(productIds);
+	}
+}
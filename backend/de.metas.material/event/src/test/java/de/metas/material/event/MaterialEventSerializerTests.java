@@ -66,6 +66,7 @@ import de.metas.material.event.shipmentschedule.ShipmentScheduleCreatedEvent.Shi
 import de.metas.material.event.shipmentschedule.ShipmentScheduleDeletedEvent;
 import de.metas.material.event.shipmentschedule.ShipmentScheduleUpdatedEvent;
 import de.metas.material.event.stock.ResetStockPInstanceId;
+import de.metas.material.event.stock.StockCandidatesChangedEvent;
 import de.metas.material.event.stock.StockChangedEvent;
 import de.metas.material.event.stock.StockChangedEvent.StockChangeDetails;
 import de.metas.material.event.stockestimate.StockEstimateCreatedEvent;
@@ -588,6 +589,17 @@ public class MaterialEventSerializerTests
 		assertEventEqualAfterSerializeDeserialize(stockChangedEvent);
 	}
 
+	@Test
+	public void stockCandidatesChangedEvent()
+	{
+		final StockCandidatesChangedEvent stockCandidatesChangedEvent = StockCandidatesChangedEvent.builder()
+				.eventDescriptor(createEventDescriptor())
+				.productId(10)
+				.productId(20)
+				.build();
+		assertEventEqualAfterSerializeDeserialize(stockCandidatesChangedEvent);
+	}
+
 	private static OrderLineDescriptor createOrderLineDescriptor()
 	{
 		return OrderLineDescriptor.builder()
@@ -0,0 +1,201 @@
+package de.metas.material.event.eventbus;
+
+import static de.metas.material.event.EventTestHelper.CLIENT_AND_ORG_ID;
+import static de.metas.material.event.EventTestHelper.NOW;
+import static de.metas.material.event.EventTestHelper.createProductDescriptorWithProductId;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import de.metas.event.Event;
+import de.metas.material.event.MaterialEvent;
+import de.metas.material.event.commons.EventDescriptor;
+import de.metas.material.event.pporder.PPOrderDeletedEvent;
+import de.metas.material.event.stockestimate.StockEstimateCreatedEvent;
+
+/*
+ * #%L
+ * metasfresh-material-event
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class MaterialEventDispatcherTest
+{
+	private static MaterialEvent productEvent(final int productId, final int seqNo)
+	{
+		return StockEstimateCreatedEvent.builder()
+				.eventDescriptor(EventDescriptor.ofClientAndOrg(CLIENT_AND_ORG_ID))
+				.productDescriptor(createProductDescriptorWithProductId(productId))
+				.date(NOW)
+				.plantId(1)
+				.quantity(BigDecimal.valueOf(seqNo))
+				.build();
+	}
+
+	private static MaterialEvent barrierEvent(final int seqNo)
+	{
+		return PPOrderDeletedEvent.builder()
+				.eventDescriptor(EventDescriptor.ofClientAndOrg(CLIENT_AND_ORG_ID))
+				.ppOrderId(seqNo)
+				.build();
+	}
+
+	private static void dispatch(final MaterialEventDispatcher dispatcher, final MaterialEvent materialEvent)
+	{
+		dispatcher.dispatch(Event.builder().build(), materialEvent);
+	}
+
+	private static int extractSeqNo(final MaterialEvent event)
+	{
+		return event instanceof PPOrderDeletedEvent
+				? ((PPOrderDeletedEvent)event).getPpOrderId()
+				: ((StockEstimateCreatedEvent)event).getQuantity().intValue();
+	}
+
+	@Test
+	public void extractProductId()
+	{
+		assertThat(MaterialEventDispatcher.extractProductId(productEvent(24, 1))).isEqualTo(24);
+		assertThat(MaterialEventDispatcher.extractProductId(barrierEvent(1))).isEqualTo(-1);
+	}
+
+	@Test
+	public void oneLane_processedByDeliveringThread()
+	{
+		final List<Thread> threads = new ArrayList<>();
+		final MaterialEventDispatcher dispatcher = new MaterialEventDispatcher(getClass(), event -> threads.add(Thread.currentThread()), 1, 10, 1000);
+
+		dispatch(dispatcher, productEvent(24, 1));
+		dispatch(dispatcher, barrierEvent(2));
+
+		assertThat(threads).containsExactly(Thread.currentThread(), Thread.currentThread());
+		assertThat(dispatcher.getLaneStats()).isEmpty();
+	}
+
+	@Test
+	public void orderedPerProduct_and_barriers() throws InterruptedException
+	{
+		final int eventsCount = 500;
+		final List<Integer> processedSeqNos = Collections.synchronizedList(new ArrayList<>());
+		final List<MaterialEvent> processedEvents = Collections.synchronizedList(new ArrayList<>());
+		final CountDownLatch allProcessed = new CountDownLatch(eventsCount);
+
+		final MaterialEventDispatcher dispatcher = new MaterialEventDispatcher(
+				getClass(),
+				event -> {
+					processedSeqNos.add(extractSeqNo(event));
+					processedEvents.add(event);
+					allProcessed.countDown();
+				},
+				4, // lanes
+				10, // lane capacity, so the back-pressure is exercised too
+				1000);
+		try
+		{
+			for (int seqNo = 1; seqNo <= eventsCount; seqNo++)
+			{
+				final MaterialEvent event = seqNo % 50 == 0 ? barrierEvent(seqNo) : productEvent(seqNo % 7 + 1, seqNo);
+				dispatch(dispatcher, event);
+			}
+
+			assertThat(allProcessed.await(30, TimeUnit.SECONDS)).isTrue();
+		}
+		finally
+		{
+			dispatcher.shutdown();
+		}
+
+		assertThat(processedSeqNos).hasSize(eventsCount).doesNotHaveDuplicates();
+
+		// events of the same product are processed in the order they were dispatched
+		for (int productId = 1; productId <= 7; productId++)
+		{
+			final int currentProductId = productId;
+			final List<Integer> seqNosOfProduct = new ArrayList<>();
+			processedEvents.stream()
+					.filter(event -> MaterialEventDispatcher.extractProductId(event) == currentProductId)
+					.forEach(event -> seqNosOfProduct.add(extractSeqNo(event)));
+
+			assertThat(seqNosOfProduct).isSorted();
+		}
+
+		// barrier events are processed after all events dispatched before them and before all events dispatched after them
+		for (int i = 0; i < processedSeqNos.size(); i++)
+		{
+			final int seqNo = processedSeqNos.get(i);
+			if (seqNo % 50 == 0)
+			{
+				assertThat(processedSeqNos.subList(0, i)).allMatch(before -> before < seqNo);
+				assertThat(processedSeqNos.subList(i + 1, processedSeqNos.size())).allMatch(after -> after > seqNo);
+			}
+		}
+	}
+
+	@Test
+	public void shutdown_processesQueuedEvents()
+	{
+		final int eventsCount = 50;
+		final List<Integer> processedSeqNos = Collections.synchronizedList(new ArrayList<>());
+
+		final MaterialEventDispatcher dispatcher = new MaterialEventDispatcher(
+				getClass(),
+				event -> {
+					sleepMillis(5);
+					processedSeqNos.add(extractSeqNo(event));
+				},
+				2, // lanes
+				eventsCount, // lane capacity
+				1000);
+
+		for (int seqNo = 1; seqNo <= eventsCount; seqNo++)
+		{
+			dispatch(dispatcher, productEvent(seqNo % 3 + 1, seqNo));
+		}
+		dispatcher.shutdown();
+
+		assertThat(processedSeqNos).hasSize(eventsCount);
+
+		// events dispatched after the shutdown are processed by the delivering thread
+		final List<Thread> threads = new ArrayList<>();
+		final MaterialEventDispatcher dispatcher2 = new MaterialEventDispatcher(getClass(), event -> threads.add(Thread.currentThread()), 2, 10, 1000);
+		dispatcher2.shutdown();
+		dispatch(dispatcher2, productEvent(24, 1));
+
+		assertThat(threads).containsExactly(Thread.currentThread());
+	}
+
+	private static void sleepMillis(final long millis)
+	{
+		try
+		{
+			Thread.sleep(millis);
+		}
+		catch (final InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+}
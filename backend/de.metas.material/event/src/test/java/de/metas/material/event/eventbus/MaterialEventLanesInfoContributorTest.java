@@ -0,0 +1,66 @@
+package de.metas.material.event.eventbus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.metas.material.event.eventbus.MaterialEventDispatcher.LaneStats;
+
+/*
+ * #%L
+ * metasfresh-material-event
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class MaterialEventLanesInfoContributorTest
+{
+	@Test
+	public void sequential()
+	{
+		final Map<String, Object> details = MaterialEventLanesInfoContributor.toDetails(ImmutableList.of());
+
+		assertThat(details)
+				.containsEntry("lanesCount", 0)
+				.containsEntry("queueSize", 0)
+				.containsEntry("currentLagMillis", 0L)
+				.containsEntry("maxLagMillis", 0L)
+				.containsEntry("processedCount", 0L);
+	}
+
+	@Test
+	public void aggregatedOverLanes()
+	{
+		final LaneStats lane0 = LaneStats.builder().laneIndex(0).queueSize(3).currentLagMillis(50).maxLagMillis(200).processedCount(10).build();
+		final LaneStats lane1 = LaneStats.builder().laneIndex(1).queueSize(1).currentLagMillis(80).maxLagMillis(100).processedCount(5).build();
+
+		final Map<String, Object> details = MaterialEventLanesInfoContributor.toDetails(ImmutableList.of(lane0, lane1));
+
+		assertThat(details)
+				.containsEntry("lanesCount", 2)
+				.containsEntry("queueSize", 4)
+				.containsEntry("currentLagMillis", 80L)
+				.containsEntry("maxLagMillis", 200L)
+				.containsEntry("processedCount", 15L)
+				.containsEntry("lanes", ImmutableList.of(lane0, lane1));
+	}
+}
@@ -0,0 +1,167 @@
+package de.metas.material.event.eventbus;
+
+import static de.metas.material.event.EventTestHelper.CLIENT_AND_ORG_ID;
+import static de.metas.material.event.EventTestHelper.NOW;
+import static de.metas.material.event.EventTestHelper.createProductDescriptorWithProductId;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.adempiere.service.ClientId;
+import org.adempiere.service.ISysConfigBL;
+import org.adempiere.test.AdempiereTestHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.metas.event.Event;
+import de.metas.event.IEventBusFactory;
+import de.metas.event.Topic;
+import de.metas.event.Type;
+import de.metas.event.impl.PlainEventBusFactory;
+import de.metas.event.log.EventLogUserService;
+import de.metas.material.event.MaterialEvent;
+import de.metas.material.event.MaterialEventHandler;
+import de.metas.material.event.MaterialEventHandlerRegistry;
+import de.metas.material.event.commons.EventDescriptor;
+import de.metas.material.event.stockestimate.StockEstimateCreatedEvent;
+import de.metas.organization.OrgId;
+import de.metas.util.Services;
+
+/*
+ * #%L
+ * metasfresh-material-event
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class MetasfreshEventListenerTest
+{
+	private static final int EVENTS_COUNT = 20;
+
+	private final List<Thread> handlerThreads = new CopyOnWriteArrayList<>();
+	private final CountDownLatch allHandled = new CountDownLatch(EVENTS_COUNT);
+
+	private IEventBusFactory eventBusFactory;
+	private MaterialEventConverter materialEventConverter;
+	private MetasfreshEventListener metasfreshEventListener;
+
+	@BeforeEach
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+		Services.get(ISysConfigBL.class).setValue(MaterialEventDispatcher.SYSCONFIG_Lanes, 2, ClientId.SYSTEM, OrgId.ANY);
+
+		eventBusFactory = PlainEventBusFactory.newInstance();
+		materialEventConverter = new MaterialEventConverter();
+
+		final MaterialEventHandler<StockEstimateCreatedEvent> handler = new MaterialEventHandler<StockEstimateCreatedEvent>()
+		{
+			@Override
+			public Collection<Class<? extends StockEstimateCreatedEvent>> getHandeledEventType()
+			{
+				return ImmutableList.of(StockEstimateCreatedEvent.class);
+			}
+
+			@Override
+			public void handleEvent(final StockEstimateCreatedEvent event)
+			{
+				handlerThreads.add(Thread.currentThread());
+				allHandled.countDown();
+			}
+		};
+
+		@SuppressWarnings("rawtypes")
+		final Optional<Collection<MaterialEventHandler>> handlers = Optional.of(ImmutableList.of(handler));
+
+		metasfreshEventListener = new MetasfreshEventListener(
+				new MaterialEventHandlerRegistry(handlers, new EventLogUserService()),
+				MetasfreshEventBusService.createLocalServiceThatIsReadyToUse(materialEventConverter, eventBusFactory),
+				materialEventConverter);
+	}
+
+	@AfterEach
+	public void shutdown()
+	{
+		metasfreshEventListener.shutdown();
+	}
+
+	/**
+	 * Material events are logged, so the handlers expect a thread-local event log collector also when they are invoked on one of the lanes.
+	 */
+	@Test
+	public void loggedEvents_handledOnLanes() throws InterruptedException
+	{
+		for (int productId = 1; productId <= EVENTS_COUNT; productId++)
+		{
+			postLoggedEvent(productEvent(productId));
+		}
+
+		assertThat(allHandled.await(30, TimeUnit.SECONDS)).isTrue();
+		assertThat(handlerThreads)
+				.hasSize(EVENTS_COUNT)
+				.doesNotContain(Thread.currentThread());
+		assertThat(metasfreshEventListener.getLaneStats())
+				.hasSize(2)
+				.allSatisfy(laneStats -> assertThat(laneStats.getProcessedCount()).isPositive());
+	}
+
+	@Test
+	public void shutdown_processesQueuedEvents()
+	{
+		for (int productId = 1; productId <= EVENTS_COUNT; productId++)
+		{
+			postLoggedEvent(productEvent(productId));
+		}
+
+		metasfreshEventListener.shutdown();
+
+		assertThat(allHandled.getCount()).isZero();
+		assertThat(handlerThreads).hasSize(EVENTS_COUNT);
+	}
+
+	/**
+	 * Posts the event the way {@code EventBus.postEvent} does after it stored the event in the event log.
+	 */
+	private void postLoggedEvent(final MaterialEvent materialEvent)
+	{
+		final Event event = materialEventConverter.fromMaterialEvent(materialEvent).withStatusWasLogged();
+
+		final Topic topic = Topic.builder().name("de.metas.material").type(Type.LOCAL).build();
+		eventBusFactory.getEventBus(topic).postEvent(event);
+	}
+
+	private static MaterialEvent productEvent(final int productId)
+	{
+		return StockEstimateCreatedEvent.builder()
+				.eventDescriptor(EventDescriptor.ofClientAndOrg(CLIENT_AND_ORG_ID))
+				.productDescriptor(createProductDescriptorWithProductId(productId))
+				.date(NOW)
+				.plantId(1)
+				.quantity(BigDecimal.TEN)
+				.build();
+	}
+}
@@ -57,6 +57,7 @@ import org.slf4j.MDC.MDCCloseable;
 import org.springframework.stereotype.Service;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
@@ -206,8 +207,9 @@ public class ShipmentScheduleUpdater implements IShipmentScheduleUpdater
 				loggable.addLog("ShipmentScheduleUpdater - created {} missing candidates", shipmentSchedulesNewIds.size());
 			}
 
+			final Stopwatch stopwatch = Stopwatch.createStarted();
 			final List<OlAndSched> olsAndScheds = shipmentSchedulePA.retrieveInvalid(selectionId);
-			loggable.addLog("Found {} invalid shipment schedules and tagged them with {}", olsAndScheds.size(), selectionId);
+			loggable.addLog("Found {} invalid shipment schedules and tagged them with {} in {}", olsAndScheds.size(), selectionId, stopwatch);
 
 			invalidatePickingBOMProducts(olsAndScheds, selectionId);
 
@@ -216,7 +218,7 @@ public class ShipmentScheduleUpdater implements IShipmentScheduleUpdater
 			// cleanup the marker/pointer tables
 			invalidSchedulesRepo.deleteRecomputeMarkersOutOfTrx(selectionId);
 
-			logger.debug("Done");
+			loggable.addLog("ShipmentScheduleUpdater - Done with {} shipment schedules in {}", olsAndScheds.size(), stopwatch);
 			return olsAndScheds.size();
 		}
 		finally
@@ -266,6 +268,9 @@ public class ShipmentScheduleUpdater implements IShipmentScheduleUpdater
 			return;
 		}
 
+		final ILoggable loggable = Loggables.withLogger(logger, Level.DEBUG);
+		final Stopwatch stopwatch = Stopwatch.createStarted();
+
 		//
 		// Briefly update our shipment schedules:
 		// * set BPartnerAddress_Override if was not set before
@@ -288,10 +293,14 @@ public class ShipmentScheduleUpdater implements IShipmentScheduleUpdater
 			}
 		}
 
+		loggable.addLog("ShipmentScheduleUpdater - Prepared {} shipment schedules in {}", olsAndScheds.size(), stopwatch);
+
 		final ShipmentSchedulesDuringUpdate firstRun = generate_FirstRun(ctx, olsAndScheds);
 		firstRun.updateCompleteStatusAndSetQtyToZeroWhereNeeded();
 
+		stopwatch.reset().start();
 		applyCandidateProcessors(ctx, firstRun);
+		loggable.addLog("ShipmentScheduleUpdater - Applied candidate processors in {}", stopwatch);
 
 		// evaluate the processor's result: lines that have been discarded won't
 		// be delivered and won't be validated in the second run.
@@ -314,6 +323,7 @@ public class ShipmentScheduleUpdater implements IShipmentScheduleUpdater
 		final IShipmentSchedulesDuringUpdate secondRun = generate_SecondRun(ctx, olsAndScheds, firstRun);
 
 		// finally update the shipment schedule entries
+		stopwatch.reset().start();
 		for (final OlAndSched olAndSched : olsAndScheds)
 		{
 			final I_M_ShipmentSchedule sched = olAndSched.getSched();
@@ -420,6 +430,7 @@ public class ShipmentScheduleUpdater implements IShipmentScheduleUpdater
 
 			shipmentSchedulePA.save(sched);
 		}
+		loggable.addLog("ShipmentScheduleUpdater - Updated {} shipment schedules in {}", olsAndScheds.size(), stopwatch);
 	}
 
 	ShipmentSchedulesDuringUpdate generate_FirstRun(
@@ -429,7 +440,7 @@ public class ShipmentScheduleUpdater implements IShipmentScheduleUpdater
 		try (final MDCCloseable mdcClosable = ShipmentSchedulesMDC.putShipmentScheduleUpdateRunNo(1))
 		{
 			final ShipmentSchedulesDuringUpdate firstRun = new ShipmentSchedulesDuringUpdate();
-			return generate(ctx, lines, firstRun);
+			return generate(ctx, lines, firstRun, 1);
 		}
 	}
 
@@ -440,19 +451,25 @@ public class ShipmentScheduleUpdater implements IShipmentScheduleUpdater
 	{
 		try (final MDCCloseable mdcClosable = ShipmentSchedulesMDC.putShipmentScheduleUpdateRunNo(2))
 		{
-			return generate(ctx, lines, firstRun);
+			return generate(ctx, lines, firstRun, 2);
 		}
 	}
 
 	private ShipmentSchedulesDuringUpdate generate(
 			@NonNull final Properties ctx,
 			@NonNull final List<OlAndSched> lines,
-			@NonNull final ShipmentSchedulesDuringUpdate candidates)
+			@NonNull final ShipmentSchedulesDuringUpdate candidates,
+			final int runNo)
 	{
+		final ILoggable loggable = Loggables.withLogger(logger, Level.DEBUG);
+		final Stopwatch stopwatch = Stopwatch.createStarted();
+
 		//
 		// Load QtyOnHand in scope for our lines
 		// i.e. iterate all lines to cache the required storage info and to subtract the quantities that can't be allocated from the storage allocation.
 		final ShipmentScheduleQtyOnHandStorage qtyOnHands = shipmentScheduleQtyOnHandStorageFactory.ofOlAndScheds(lines);
+		loggable.addLog("ShipmentScheduleUpdater - Run {}: loaded the qty on hand storage in {}", runNo, stopwatch);
+		stopwatch.reset().start();
 
 		//
 		// Iterate and try to allocate the QtyOnHand
@@ -588,6 +605,8 @@ public class ShipmentScheduleUpdater implements IShipmentScheduleUpdater
 				}
 			}
 		}
+
+		loggable.addLog("ShipmentScheduleUpdater - Run {}: allocated the qty on hand to {} shipment schedules in {}", runNo, lines.size(), stopwatch);
 		return candidates;
 	} // generate
 
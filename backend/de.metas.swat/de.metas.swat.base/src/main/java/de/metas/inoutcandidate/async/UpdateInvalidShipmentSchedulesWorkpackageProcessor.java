@@ -78,6 +78,15 @@ public class UpdateInvalidShipmentSchedulesWorkpackageProcessor extends Workpack
 	// services
 	private final transient IShipmentScheduleUpdater shipmentScheduleUpdater = Services.get(IShipmentScheduleUpdater.class);
 
+	/**
+	 * The workpackages of this processor are tiny (each one updates all invalid shipment schedules), so let the queue process more of them in one transaction.
+	 */
+	@Override
+	public int getMaxWorkpackagesPerBatch()
+	{
+		return 10;
+	}
+
 	@Override
 	public Result processWorkPackage(@NonNull final I_C_Queue_WorkPackage workpackage, final String localTrxName_NOTUSED)
 	{
@@ -906,11 +906,11 @@ public class InvoiceCandDAO implements IInvoiceCandDAO
 				// Execute query:
 				// NOTE (task 03968): performance tweak that is necessary when updating around 70.000 candidates at once:
 				// don't use a 'guaranteed' iterator; *we don't need it* and selecting/ordering joining between
-				// C_Invoice_Candidate and T_Query_Selection is a performance-killer (at least on our 32bit instance)
+				// C_Invoice_Candidate and T_Query_Selection is a performance-killer (at least on our 32bit instance).
+				// Also don't page with LIMIT/OFFSET, but fetch the candidates from one cursor; the caller closes the iterator.
 				.create()
-				.setOption(IQuery.OPTION_GuaranteedIteratorRequired, false)
-				.setOption(IQuery.OPTION_IteratorBufferSize, 500)
-				.iterate(I_C_Invoice_Candidate.class);
+				.setOption(IQuery.OPTION_CursorFetchSize, 500)
+				.iterateUsingCursor(I_C_Invoice_Candidate.class);
 	}
 
 	@Override
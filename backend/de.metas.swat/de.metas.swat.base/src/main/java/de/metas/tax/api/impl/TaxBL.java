@@ -29,19 +29,15 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
-import java.util.Objects;
 import java.util.Properties;
 
 import org.adempiere.ad.dao.IQueryBL;
-import org.adempiere.ad.dao.IQueryBuilder;
-import org.adempiere.ad.dao.impl.CompareQueryFilter.Operator;
 import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.exceptions.AdempiereException;
 import org.adempiere.exceptions.DBException;
 import org.adempiere.model.InterfaceWrapperHelper;
 import org.adempiere.warehouse.WarehouseId;
 import org.adempiere.warehouse.api.IWarehouseBL;
-import org.compiere.model.IQuery;
 import org.compiere.model.I_C_BPartner;
 import org.compiere.model.I_C_BPartner_Location;
 import org.compiere.model.I_C_Country;
@@ -49,7 +45,6 @@ import org.compiere.model.I_C_Location;
 import org.compiere.model.I_C_Tax;
 import org.compiere.model.I_C_TaxCategory;
 import org.compiere.model.MBPartnerLocation;
-import org.compiere.model.X_C_Tax;
 import org.compiere.model.X_C_TaxCategory;
 import org.compiere.util.DB;
 import org.compiere.util.Env;
@@ -68,7 +63,9 @@ import de.metas.organization.OrgId;
 import de.metas.product.ProductId;
 import de.metas.tax.api.ITaxDAO;
 import de.metas.tax.api.TaxCategoryId;
+import de.metas.tax.api.TaxId;
 import de.metas.tax.api.TaxNotFoundException;
+import de.metas.tax.api.TaxRulesIndex.TaxRuleQuery;
 import de.metas.util.Check;
 import de.metas.util.Services;
 import de.metas.util.StringUtils;
@@ -184,71 +181,20 @@ public class TaxBL implements de.metas.tax.api.ITaxBL
 				countryTo.getCountryCode(),
 				date);
 
-		final boolean toSameCountry = Objects.equals(countryToId, countryFromId);
-
-		final IQueryBuilder<I_C_Tax> queryBuilder = Services.get(IQueryBL.class)
-				.createQueryBuilder(I_C_Tax.class, ctx, ITrx.TRXNAME_None)
-				.addCompareFilter(I_C_Tax.COLUMNNAME_ValidFrom, Operator.LESS_OR_EQUAL, date)
-				.addOnlyActiveRecordsFilter();
-
-		if (countryFromId != null)
-		{
-			queryBuilder.addEqualsFilter(I_C_Tax.COLUMNNAME_C_Country_ID, countryFromId);
-		}
-		else
-		{
-			queryBuilder.addEqualsFilter(I_C_Tax.COLUMNNAME_C_Country_ID, null);
-		}
-
-		queryBuilder.addEqualsFilter(I_C_Tax.COLUMNNAME_C_TaxCategory_ID, taxCategoryId);
-
-		if (toSameCountry)
-		{
-			queryBuilder.addEqualsFilter(I_C_Tax.COLUMNNAME_To_Country_ID, countryToId);
-		}
-		else if (toEULocation)
-		{
-			queryBuilder.addInArrayFilter(I_C_Tax.COLUMNNAME_To_Country_ID, countryToId, null);
-			queryBuilder.addEqualsFilter(I_C_Tax.COLUMNNAME_IsToEULocation, true);
-
-			if (hasTaxCertificate)
-			{
-				queryBuilder.addEqualsFilter(I_C_Tax.COLUMNNAME_RequiresTaxCertificate, true);
-			}
-			else
-			{
-				queryBuilder.addEqualsFilter(I_C_Tax.COLUMNNAME_RequiresTaxCertificate, false);
-			}
-		}
-		else
-		{
-			queryBuilder.addInArrayFilter(I_C_Tax.COLUMNNAME_To_Country_ID, countryToId, null);
-			queryBuilder.addEqualsFilter(I_C_Tax.COLUMNNAME_IsToEULocation, false);
-		}
-
-		if (isSOTrx)
-		{
-			queryBuilder.addInArrayFilter(I_C_Tax.COLUMNNAME_SOPOType, X_C_Tax.SOPOTYPE_Both, X_C_Tax.SOPOTYPE_SalesTax);
-		}
-		else
-		{
-			queryBuilder.addInArrayFilter(I_C_Tax.COLUMNNAME_SOPOType, X_C_Tax.SOPOTYPE_Both, X_C_Tax.SOPOTYPE_PurchaseTax);
-		}
-
-		if (orgId != null)
-		{
-			queryBuilder.addInArrayFilter(I_C_Tax.COLUMNNAME_AD_Org_ID, orgId, OrgId.ANY);
-		}
-
-		final IQuery<I_C_Tax> query = queryBuilder
-				.orderBy()
-				.addColumnDescending(I_C_Tax.COLUMNNAME_AD_Org_ID)
-				.addColumn(I_C_Tax.COLUMNNAME_To_Country_ID)
-				.addColumnDescending(I_C_Tax.COLUMNNAME_ValidFrom)
-				.endOrderBy()
-				.create();
-		final int taxId = query.firstId();
-		if (taxId <= 0)
+		final TaxRuleQuery query = TaxRuleQuery.builder()
+				.taxCategoryId(taxCategoryId)
+				.countryFromId(countryFromId)
+				.countryToId(countryToId)
+				.orgId(orgId)
+				.date(date.toInstant())
+				.soTrx(isSOTrx)
+				.toEULocation(toEULocation)
+				.hasTaxCertificate(hasTaxCertificate)
+				.build();
+
+		// NOTE: using the in-memory index instead of querying C_Tax, because this method is called for each order/invoice line
+		final TaxId taxId = Services.get(ITaxDAO.class).getTaxRulesIndex().findTaxIdOrNull(query);
+		if (taxId == null)
 		{
 			TaxNotFoundException.builder()
 					.orgId(orgId)
@@ -263,7 +209,7 @@ public class TaxBL implements de.metas.tax.api.ITaxBL
 			return -1;
 		}
 
-		return taxId;
+		return taxId.getRepoId();
 	}
 
 	private int getGermanTax(final Properties ctx,
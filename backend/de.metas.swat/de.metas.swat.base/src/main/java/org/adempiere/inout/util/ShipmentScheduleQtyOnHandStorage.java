@@ -2,7 +2,6 @@ package org.adempiere.inout.util;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,10 +19,13 @@ import org.eevolution.api.IPPOrderBL;
 import org.slf4j.MDC.MDCCloseable;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Stopwatch;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Multimaps;
 
 import de.metas.inoutcandidate.api.IShipmentScheduleEffectiveBL;
 import de.metas.inoutcandidate.model.I_M_ShipmentSchedule;
@@ -37,6 +39,7 @@ import de.metas.material.planning.pporder.PPOrderId;
 import de.metas.material.planning.pporder.impl.QtyCalculationsBOM;
 import de.metas.material.planning.pporder.impl.QtyCalculationsBOMLine;
 import de.metas.product.ProductId;
+import de.metas.util.Loggables;
 import de.metas.util.Services;
 import lombok.NonNull;
 import lombok.ToString;
@@ -54,6 +57,7 @@ public class ShipmentScheduleQtyOnHandStorage
 	private final IPPOrderBL ppOrdersBL = Services.get(IPPOrderBL.class);
 
 	private final ImmutableList<ShipmentScheduleAvailableStockDetail> stockDetails;
+	private final ImmutableListMultimap<ProductId, ShipmentScheduleAvailableStockDetail> stockDetailsByProductId;
 	private final Map<ArrayKey, StockDataQuery> cachedMaterialQueries = new HashMap<>();
 	private final Map<PPOrderId, Optional<QtyCalculationsBOM>> cachedPickingBOMs = new HashMap<>();
 
@@ -62,12 +66,14 @@ public class ShipmentScheduleQtyOnHandStorage
 			@NonNull final StockRepository stockRepository)
 	{
 		this.stockDetails = toStockDetails(shipmentSchedules, stockRepository);
+		this.stockDetailsByProductId = Multimaps.index(stockDetails, ShipmentScheduleAvailableStockDetail::getProductId);
 	}
 
 	@VisibleForTesting
 	ShipmentScheduleQtyOnHandStorage(@NonNull final List<ShipmentScheduleAvailableStockDetail> stockDetails)
 	{
 		this.stockDetails = ImmutableList.copyOf(stockDetails);
+		this.stockDetailsByProductId = Multimaps.index(this.stockDetails, ShipmentScheduleAvailableStockDetail::getProductId);
 	}
 
 	private final ImmutableList<ShipmentScheduleAvailableStockDetail> toStockDetails(
@@ -78,17 +84,26 @@ public class ShipmentScheduleQtyOnHandStorage
 		{
 			return ImmutableList.of();
 		}
+		final Stopwatch stopwatch = Stopwatch.createStarted();
 		final StockDataMultiQuery multiQuery = toMultiQueryOrNull(shipmentSchedules);
 		if (multiQuery == null)
 		{
 			return ImmutableList.of();
 		}
+		final String queriesDuration = stopwatch.toString();
 
-		final List<StockDataItem> stockResult = stockRepository
-				.streamStockDataItems(multiQuery)
-				.collect(ImmutableList.toImmutableList());
+		// load all stock rows of the products and warehouses in one go; the rows are matched against the queries in memory
+		final ImmutableList<ShipmentScheduleAvailableStockDetail> stockDetails;
+		try (final Stream<StockDataItem> stockResult = stockRepository.streamStockDataItemsSnapshot(multiQuery))
+		{
+			stockDetails = stockResult
+					.map(ShipmentScheduleQtyOnHandStorage::toStockDetail)
+					.collect(ImmutableList.toImmutableList());
+		}
 
-		return toStockDetails(stockResult);
+		Loggables.addLog("ShipmentScheduleQtyOnHandStorage - Loaded {} stock rows for {} shipment schedules ({} stock queries) in {} (computing the stock queries took {})",
+				stockDetails.size(), shipmentSchedules.size(), multiQuery.getStockDataQueries().size(), stopwatch, queriesDuration);
+		return stockDetails;
 	}
 
 	private StockDataMultiQuery toMultiQueryOrNull(@NonNull final List<I_M_ShipmentSchedule> shipmentSchedules)
@@ -189,14 +204,6 @@ public class ShipmentScheduleQtyOnHandStorage
 				: Optional.empty();
 	}
 
-	private static final ImmutableList<ShipmentScheduleAvailableStockDetail> toStockDetails(final Collection<StockDataItem> result)
-	{
-		return result
-				.stream()
-				.map(ShipmentScheduleQtyOnHandStorage::toStockDetail)
-				.collect(ImmutableList.toImmutableList());
-	}
-
 	private static ShipmentScheduleAvailableStockDetail toStockDetail(@NonNull final StockDataItem result)
 	{
 		return ShipmentScheduleAvailableStockDetail.builder()
@@ -283,7 +290,8 @@ public class ShipmentScheduleQtyOnHandStorage
 
 	private ImmutableList<ShipmentScheduleAvailableStockDetail> getStockDetailsMatching(@NonNull final StockDataQuery query)
 	{
-		return stockDetails
+		return stockDetailsByProductId
+				.get(query.getProductId())
 				.stream()
 				.filter(stockDetail -> matching(query, stockDetail))
 				.collect(ImmutableList.toImmutableList());
@@ -0,0 +1,258 @@
+package org.adempiere.inout.util;
+
+import static org.adempiere.model.InterfaceWrapperHelper.getTableId;
+import static org.adempiere.model.InterfaceWrapperHelper.newInstance;
+import static org.adempiere.model.InterfaceWrapperHelper.saveRecord;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.adempiere.test.AdempiereTestHelper;
+import org.adempiere.warehouse.WarehouseId;
+import org.compiere.model.I_C_OrderLine;
+import org.compiere.model.I_M_Warehouse;
+import org.compiere.model.I_M_Warehouse_PickingGroup;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.metas.inoutcandidate.model.I_M_ShipmentSchedule;
+import de.metas.material.cockpit.model.I_MD_Stock;
+import de.metas.material.cockpit.stock.StockDataItem;
+import de.metas.material.cockpit.stock.StockDataMultiQuery;
+import de.metas.material.cockpit.stock.StockRepository;
+import de.metas.material.event.commons.AttributesKey;
+import de.metas.product.ProductId;
+
+/*
+ * #%L
+ * de.metas.swat.base
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class ShipmentScheduleQtyOnHandStorageTest
+{
+	private static final ProductId PRODUCT_1 = ProductId.ofRepoId(1);
+	private static final ProductId PRODUCT_2 = ProductId.ofRepoId(2);
+
+	private static final AttributesKey ATTRIBUTES_KEY_1 = AttributesKey.ofAttributeValueIds(101);
+	private static final AttributesKey ATTRIBUTES_KEY_2 = AttributesKey.ofAttributeValueIds(102);
+
+	private StockRepository stockRepository;
+
+	/** Same picking group as {@link #warehouseId2} */
+	private WarehouseId warehouseId1;
+	private WarehouseId warehouseId2;
+	private WarehouseId warehouseId3;
+
+	@BeforeEach
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+
+		stockRepository = new StockRepository();
+
+		final I_M_Warehouse_PickingGroup pickingGroup = newInstance(I_M_Warehouse_PickingGroup.class);
+		pickingGroup.setName("pickingGroup");
+		saveRecord(pickingGroup);
+
+		warehouseId1 = createWarehouse(pickingGroup);
+		warehouseId2 = createWarehouse(pickingGroup);
+		warehouseId3 = createWarehouse(null);
+	}
+
+	private static WarehouseId createWarehouse(final I_M_Warehouse_PickingGroup pickingGroup)
+	{
+		final I_M_Warehouse warehouse = newInstance(I_M_Warehouse.class);
+		if (pickingGroup != null)
+		{
+			warehouse.setM_Warehouse_PickingGroup_ID(pickingGroup.getM_Warehouse_PickingGroup_ID());
+		}
+		saveRecord(warehouse);
+		return WarehouseId.ofRepoId(warehouse.getM_Warehouse_ID());
+	}
+
+	private static StockDataItem createStock(
+			final ProductId productId,
+			final WarehouseId warehouseId,
+			final AttributesKey attributesKey,
+			final int qtyOnHand)
+	{
+		final I_MD_Stock record = newInstance(I_MD_Stock.class);
+		record.setM_Product_ID(productId.getRepoId());
+		record.setM_Warehouse_ID(warehouseId.getRepoId());
+		record.setAttributesKey(attributesKey.getAsString());
+		record.setQtyOnHand(BigDecimal.valueOf(qtyOnHand));
+		saveRecord(record);
+
+		return StockDataItem.builder()
+				.productId(productId)
+				.warehouseId(warehouseId)
+				.storageAttributesKey(attributesKey)
+				.qtyOnHand(BigDecimal.valueOf(qtyOnHand))
+				.build();
+	}
+
+	private static I_M_ShipmentSchedule createShipmentSchedule(final ProductId productId, final WarehouseId warehouseId)
+	{
+		final I_M_ShipmentSchedule shipmentSchedule = newInstance(I_M_ShipmentSchedule.class);
+		shipmentSchedule.setM_Product_ID(productId.getRepoId());
+		shipmentSchedule.setM_Warehouse_ID(warehouseId.getRepoId());
+		shipmentSchedule.setAD_Table_ID(getTableId(I_C_OrderLine.class));
+		saveRecord(shipmentSchedule);
+
+		shipmentSchedule.setRecord_ID(shipmentSchedule.getM_ShipmentSchedule_ID());
+		saveRecord(shipmentSchedule);
+		return shipmentSchedule;
+	}
+
+	private static List<StockDataItem> toStockDataItems(final ShipmentScheduleAvailableStock availableStock)
+	{
+		return IntStream.range(0, availableStock.size())
+				.mapToObj(availableStock::getStorageDetail)
+				.map(ShipmentScheduleQtyOnHandStorageTest::toStockDataItem)
+				.collect(Collectors.toList());
+	}
+
+	private static StockDataItem toStockDataItem(final ShipmentScheduleAvailableStockDetail stockDetail)
+	{
+		return StockDataItem.builder()
+				.productId(stockDetail.getProductId())
+				.warehouseId(stockDetail.getWarehouseId())
+				.storageAttributesKey(stockDetail.getStorageAttributesKey())
+				.qtyOnHand(stockDetail.getQtyAvailable())
+				.build();
+	}
+
+	/**
+	 * @return the stock as it was loaded before the snapshot query, i.e. with one sub query per shipment schedule
+	 */
+	private List<StockDataItem> loadStockPerQuery(final ShipmentScheduleQtyOnHandStorage storage, final I_M_ShipmentSchedule shipmentSchedule)
+	{
+		final StockDataMultiQuery multiQuery = StockDataMultiQuery.builder()
+				.stockDataQuery(storage.toQuery(shipmentSchedule))
+				.build();
+
+		try (final Stream<StockDataItem> stream = stockRepository.streamStockDataItems(multiQuery))
+		{
+			return stream.collect(Collectors.toList());
+		}
+	}
+
+	@Test
+	public void stockDetailsMatching_acrossWarehousesAndAttributesKeys()
+	{
+		final StockDataItem stock1 = createStock(PRODUCT_1, warehouseId1, ATTRIBUTES_KEY_1, 10);
+		final StockDataItem stock2 = createStock(PRODUCT_1, warehouseId2, ATTRIBUTES_KEY_2, 20);
+		final StockDataItem stock3 = createStock(PRODUCT_1, warehouseId3, ATTRIBUTES_KEY_1, 30);
+		createStock(PRODUCT_2, warehouseId1, ATTRIBUTES_KEY_1, 40);
+		final StockDataItem stock5 = createStock(PRODUCT_2, warehouseId3, ATTRIBUTES_KEY_2, 50);
+
+		final I_M_ShipmentSchedule schedule1 = createShipmentSchedule(PRODUCT_1, warehouseId1);
+		final I_M_ShipmentSchedule schedule2 = createShipmentSchedule(PRODUCT_1, warehouseId2);
+		final I_M_ShipmentSchedule schedule3 = createShipmentSchedule(PRODUCT_1, warehouseId3);
+		final I_M_ShipmentSchedule schedule4 = createShipmentSchedule(PRODUCT_2, warehouseId3);
+		final ImmutableList<I_M_ShipmentSchedule> shipmentSchedules = ImmutableList.of(schedule1, schedule2, schedule3, schedule4);
+
+		final ShipmentScheduleQtyOnHandStorage storage = new ShipmentScheduleQtyOnHandStorage(shipmentSchedules, stockRepository);
+
+		assertThat(toStockDataItems(storage.getStockDetailsMatching(schedule1))).containsExactly(stock1, stock2);
+		assertThat(toStockDataItems(storage.getStockDetailsMatching(schedule2))).containsExactly(stock1, stock2);
+		assertThat(toStockDataItems(storage.getStockDetailsMatching(schedule3))).containsExactly(stock3);
+		assertThat(toStockDataItems(storage.getStockDetailsMatching(schedule4))).containsExactly(stock5);
+
+		// same stock details as when loading them with one query per shipment schedule
+		for (final I_M_ShipmentSchedule shipmentSchedule : shipmentSchedules)
+		{
+			assertThat(toStockDataItems(storage.getStockDetailsMatching(shipmentSchedule)))
+					.containsExactlyElementsOf(loadStockPerQuery(storage, shipmentSchedule));
+		}
+	}
+
+	@Test
+	public void stockDetailsAreSharedBetweenShipmentSchedules()
+	{
+		createStock(PRODUCT_1, warehouseId1, ATTRIBUTES_KEY_1, 10);
+		createStock(PRODUCT_1, warehouseId2, ATTRIBUTES_KEY_2, 20);
+
+		final I_M_ShipmentSchedule schedule1 = createShipmentSchedule(PRODUCT_1, warehouseId1);
+		final I_M_ShipmentSchedule schedule2 = createShipmentSchedule(PRODUCT_1, warehouseId2);
+		final ShipmentScheduleQtyOnHandStorage storage = new ShipmentScheduleQtyOnHandStorage(ImmutableList.of(schedule1, schedule2), stockRepository);
+
+		final ShipmentScheduleAvailableStock availableStock1 = storage.getStockDetailsMatching(schedule1);
+		assertThat(availableStock1.getTotalQtyAvailable()).isEqualByComparingTo("30");
+
+		// what is allocated to the first shipment schedule is no longer available for the second one
+		availableStock1.subtractQtyOnHand(0, new BigDecimal("4"));
+		availableStock1.subtractQtyOnHand(1, new BigDecimal("20"));
+
+		final ShipmentScheduleAvailableStock availableStock2 = storage.getStockDetailsMatching(schedule2);
+		assertThat(availableStock2.getQtyAvailable(0)).isEqualByComparingTo("6");
+		assertThat(availableStock2.getQtyAvailable(1)).isEqualByComparingTo("0");
+		assertThat(availableStock2.getTotalQtyAvailable()).isEqualByComparingTo("6");
+	}
+
+	@Test
+	public void noStock()
+	{
+		createStock(PRODUCT_2, warehouseId1, ATTRIBUTES_KEY_1, 10);
+
+		final I_M_ShipmentSchedule schedule = createShipmentSchedule(PRODUCT_1, warehouseId1);
+		final ShipmentScheduleQtyOnHandStorage storage = new ShipmentScheduleQtyOnHandStorage(ImmutableList.of(schedule), stockRepository);
+
+		assertThat(storage.getStockDetailsMatching(schedule).isEmpty()).isTrue();
+	}
+
+	@Test
+	public void stockDetailsMatching_indexedByProduct()
+	{
+		final ImmutableList.Builder<ShipmentScheduleAvailableStockDetail> stockDetails = ImmutableList.builder();
+		for (int productRepoId = 1; productRepoId <= 100; productRepoId++)
+		{
+			for (final WarehouseId warehouseId : ImmutableList.of(warehouseId1, warehouseId2, warehouseId3))
+			{
+				for (final AttributesKey attributesKey : ImmutableList.of(ATTRIBUTES_KEY_1, ATTRIBUTES_KEY_2))
+				{
+					stockDetails.add(ShipmentScheduleAvailableStockDetail.builder()
+							.productId(ProductId.ofRepoId(productRepoId))
+							.warehouseId(warehouseId)
+							.storageAttributesKey(attributesKey)
+							.qtyOnHand(BigDecimal.valueOf(productRepoId))
+							.build());
+				}
+			}
+		}
+		final ShipmentScheduleQtyOnHandStorage storage = new ShipmentScheduleQtyOnHandStorage(stockDetails.build());
+
+		final ProductId productId = ProductId.ofRepoId(42);
+		final List<StockDataItem> result = toStockDataItems(storage.getStockDetailsMatching(createShipmentSchedule(productId, warehouseId3)));
+
+		assertThat(result).hasSize(2);
+		assertThat(result).allMatch(item -> productId.equals(item.getProductId()));
+		assertThat(result).allMatch(item -> warehouseId3.equals(item.getWarehouseId()));
+		assertThat(result)
+				.extracting(StockDataItem::getStorageAttributesKey)
+				.containsExactly(ATTRIBUTES_KEY_1, ATTRIBUTES_KEY_2);
+	}
+}
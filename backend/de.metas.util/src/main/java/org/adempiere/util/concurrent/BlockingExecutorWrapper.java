@@ -4,7 +4,6 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.Semaphore;
-import java.util.concurrent.ThreadPoolExecutor;
 
 import org.slf4j.Logger;
 
@@ -37,6 +36,9 @@ import lombok.experimental.Delegate;
 
 /**
  * Thx to https://stackoverflow.com/questions/3446011/threadpoolexecutor-block-when-queue-is-full
+ * <p>
+ * The delegate is usually a {@link java.util.concurrent.ThreadPoolExecutor}, but it can also be an executor which starts a new thread for each task
+ * (see {@link VirtualThreads#newThreadPerTaskExecutor(String)}). In that case, the semaphore is what limits the number of concurrently running tasks.
  */
 @ToString
 public class BlockingExecutorWrapper implements ExecutorService
@@ -44,14 +46,14 @@ public class BlockingExecutorWrapper implements ExecutorService
 	private final Semaphore semaphore;
 
 	@Delegate(excludes = Executor.class) // don't delegate to Executor.execute(); of that, we have our own
-	private final ThreadPoolExecutor delegate;
+	private final ExecutorService delegate;
 
 	private @NonNull Logger logger;
 
 	@Builder
 	private BlockingExecutorWrapper(
 			final int poolSize,
-			@NonNull final ThreadPoolExecutor delegate,
+			@NonNull final ExecutorService delegate,
 			@NonNull final Logger loggerToUse)
 	{
 		this.semaphore = new Semaphore(poolSize);
@@ -0,0 +1,199 @@
+package org.adempiere.util.concurrent;
+
+/*
+ * #%L
+ * de.metas.util
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.metas.util.Check;
+import lombok.Builder;
+import lombok.NonNull;
+
+/**
+ * Executor which runs at most <code>maxConcurrency</code> tasks at the same time on its delegate executor.
+ * <p>
+ * Unlike {@link BlockingExecutorWrapper}, submitting a task never blocks the caller: tasks which can't be started right away are queued (unbounded)
+ * and are run by the delegate's tasks which are already running, in submission order.
+ * Hence, with <code>maxConcurrency=1</code> the tasks are executed one after the other, exactly in the order they were submitted.
+ * <p>
+ * Meant to be used on top of {@link VirtualThreads#newThreadPerTaskExecutor(String)}.
+ */
+public final class ConcurrencyLimitedExecutor extends AbstractExecutorService
+{
+	private final ExecutorService delegate;
+	private final int maxConcurrency;
+
+	private final Queue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger activeWorkers = new AtomicInteger(0);
+	private volatile boolean shutdown = false;
+
+	@Builder
+	private ConcurrencyLimitedExecutor(
+			@NonNull final ExecutorService delegate,
+			final int maxConcurrency)
+	{
+		Check.assume(maxConcurrency > 0, "maxConcurrency > 0 but it was {}", maxConcurrency);
+
+		this.delegate = delegate;
+		this.maxConcurrency = maxConcurrency;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "ConcurrencyLimitedExecutor[maxConcurrency=" + maxConcurrency
+				+ ", activeWorkers=" + activeWorkers.get()
+				+ ", pendingTasks=" + pendingTasks.size()
+				+ ", delegate=" + delegate + "]";
+	}
+
+	public int getMaxConcurrency()
+	{
+		return maxConcurrency;
+	}
+
+	@Override
+	public void execute(@NonNull final Runnable command)
+	{
+		if (shutdown)
+		{
+			throw new RejectedExecutionException("Executor was shut down: " + this);
+		}
+
+		pendingTasks.add(command);
+
+		if (tryAcquireWorkerSlot())
+		{
+			try
+			{
+				delegate.execute(this::runPendingTasks);
+			}
+			catch (final RejectedExecutionException ex)
+			{
+				activeWorkers.decrementAndGet();
+				pendingTasks.remove(command);
+				throw ex;
+			}
+		}
+		// else: one of the active workers will pick up our command
+	}
+
+	private boolean tryAcquireWorkerSlot()
+	{
+		while (true)
+		{
+			final int active = activeWorkers.get();
+			if (active >= maxConcurrency)
+			{
+				return false;
+			}
+			if (activeWorkers.compareAndSet(active, active + 1))
+			{
+				return true;
+			}
+		}
+	}
+
+	private void runPendingTasks()
+	{
+		while (true)
+		{
+			Runnable task;
+			while ((task = pendingTasks.poll()) != null)
+			{
+				runNoFail(task);
+			}
+
+			activeWorkers.decrementAndGet();
+
+			// A task might have been added after our last poll() but before we released our slot,
+			// while execute() still saw us active. In that case we are the ones who have to run it.
+			if (pendingTasks.isEmpty() || !tryAcquireWorkerSlot())
+			{
+				return;
+			}
+		}
+	}
+
+	private static void runNoFail(final Runnable task)
+	{
+		try
+		{
+			task.run();
+		}
+		catch (final RuntimeException ex)
+		{
+			// don't let one failing task stop the remaining pending tasks
+			final Thread thread = Thread.currentThread();
+			thread.getUncaughtExceptionHandler().uncaughtException(thread, ex);
+		}
+	}
+
+	@Override
+	public void shutdown()
+	{
+		shutdown = true;
+		delegate.shutdown();
+	}
+
+	@Override
+	public List<Runnable> shutdownNow()
+	{
+		shutdown = true;
+
+		final List<Runnable> notExecutedTasks = new ArrayList<>();
+		Runnable task;
+		while ((task = pendingTasks.poll()) != null)
+		{
+			notExecutedTasks.add(task);
+		}
+
+		delegate.shutdownNow();
+		return notExecutedTasks;
+	}
+
+	@Override
+	public boolean isShutdown()
+	{
+		return shutdown;
+	}
+
+	@Override
+	public boolean isTerminated()
+	{
+		return shutdown && delegate.isTerminated();
+	}
+
+	@Override
+	public boolean awaitTermination(final long timeout, @NonNull final TimeUnit unit) throws InterruptedException
+	{
+		return delegate.awaitTermination(timeout, unit);
+	}
+}
@@ -0,0 +1,64 @@
+package org.adempiere.util.concurrent;
+
+/*
+ * #%L
+ * de.metas.util
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import javax.annotation.Nullable;
+
+import de.metas.util.Check;
+
+/**
+ * Which kind of threads shall run the tasks of an executor.
+ */
+public enum ExecutorType
+{
+	/**
+	 * A fixed pool of platform threads; the pool size is the concurrency limit.
+	 */
+	PlatformThreadPool,
+
+	/**
+	 * A new virtual thread for each task (see {@link VirtualThreads}), while the number of concurrently running tasks is limited separately.
+	 * Meant for tasks which are mostly blocked on I/O (e.g. JDBC calls).
+	 * <p>
+	 * If the JVM does not support virtual threads, a new (pooled) platform thread is used for each task.
+	 */
+	VirtualThreads;
+
+	public static ExecutorType ofNullableStringOrDefault(@Nullable final String name, @Nullable final ExecutorType defaultType)
+	{
+		if (Check.isEmpty(name, true))
+		{
+			return defaultType;
+		}
+
+		for (final ExecutorType type : values())
+		{
+			if (type.name().equalsIgnoreCase(name.trim()))
+			{
+				return type;
+			}
+		}
+
+		return defaultType;
+	}
+}
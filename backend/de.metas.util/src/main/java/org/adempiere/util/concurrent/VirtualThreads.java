@@ -0,0 +1,119 @@
+package org.adempiere.util.concurrent;
+
+/*
+ * #%L
+ * de.metas.util
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import lombok.NonNull;
+
+/**
+ * Creates executors which are running each task in a new virtual thread.
+ * <p>
+ * We are still compiling for java 8, so the virtual threads API (java 21+) is accessed by reflection.
+ * If the JVM we are running in does not support virtual threads, the executors fall back to a new (cached) platform thread for each task.
+ * <p>
+ * NOTE: the executors created here are not limiting the number of concurrently running tasks. Wrap them in a {@link BlockingExecutorWrapper} or a {@link ConcurrencyLimitedExecutor}
+ * to protect limited resources like the database connection pool.
+ */
+public final class VirtualThreads
+{
+	private static final Method threadOfVirtual = getMethodOrNull(Thread.class, "ofVirtual");
+	private static final Class<?> threadBuilderClass = getClassOrNull("java.lang.Thread$Builder");
+	private static final Method threadBuilderName = getMethodOrNull(threadBuilderClass, "name", String.class, long.class);
+	private static final Method threadBuilderFactory = getMethodOrNull(threadBuilderClass, "factory");
+	private static final Method executorsNewThreadPerTaskExecutor = getMethodOrNull(Executors.class, "newThreadPerTaskExecutor", ThreadFactory.class);
+
+	private VirtualThreads()
+	{
+	}
+
+	/**
+	 * @return true if the JVM supports virtual threads
+	 */
+	public static boolean isSupported()
+	{
+		return threadOfVirtual != null
+				&& threadBuilderName != null
+				&& threadBuilderFactory != null
+				&& executorsNewThreadPerTaskExecutor != null;
+	}
+
+	/**
+	 * @return an executor which is running each task in a new virtual thread, or in a new daemon platform thread if virtual threads are not supported
+	 */
+	public static ExecutorService newThreadPerTaskExecutor(@NonNull final String threadNamePrefix)
+	{
+		if (!isSupported())
+		{
+			return Executors.newCachedThreadPool(CustomizableThreadFactory.builder()
+					.setThreadNamePrefix(threadNamePrefix)
+					.setDaemon(true)
+					.build());
+		}
+
+		try
+		{
+			Object threadBuilder = threadOfVirtual.invoke(null);
+			threadBuilder = threadBuilderName.invoke(threadBuilder, threadNamePrefix + "-", 1L);
+			final ThreadFactory threadFactory = (ThreadFactory)threadBuilderFactory.invoke(threadBuilder);
+
+			return (ExecutorService)executorsNewThreadPerTaskExecutor.invoke(null, threadFactory);
+		}
+		catch (final ReflectiveOperationException ex)
+		{
+			throw new IllegalStateException("Failed creating a virtual thread per task executor", ex);
+		}
+	}
+
+	private static Class<?> getClassOrNull(final String classname)
+	{
+		try
+		{
+			return Class.forName(classname);
+		}
+		catch (final ClassNotFoundException ex)
+		{
+			return null;
+		}
+	}
+
+	private static Method getMethodOrNull(final Class<?> clazz, final String methodName, final Class<?>... parameterTypes)
+	{
+		if (clazz == null)
+		{
+			return null;
+		}
+
+		try
+		{
+			return clazz.getMethod(methodName, parameterTypes);
+		}
+		catch (final NoSuchMethodException ex)
+		{
+			return null;
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package org.adempiere.util.concurrent;
+
+/*
+ * #%L
+ * de.metas.util
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ConcurrencyLimitedExecutorTest
+{
+	private ExecutorService executor;
+
+	@AfterEach
+	void shutdown()
+	{
+		if (executor != null)
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void maxConcurrencyIsNeverExceeded() throws Exception
+	{
+		final int maxConcurrency = 3;
+		executor = ConcurrencyLimitedExecutor.builder()
+				.delegate(VirtualThreads.newThreadPerTaskExecutor("test"))
+				.maxConcurrency(maxConcurrency)
+				.build();
+
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		final int countTasks = 50;
+		final CountDownLatch done = new CountDownLatch(countTasks);
+		for (int i = 0; i < countTasks; i++)
+		{
+			executor.execute(() -> {
+				final int nowRunning = running.incrementAndGet();
+				maxRunning.accumulateAndGet(nowRunning, Math::max);
+				sleep(2);
+				running.decrementAndGet();
+				done.countDown();
+			});
+		}
+
+		assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+		assertThat(maxRunning.get()).isBetween(1, maxConcurrency);
+	}
+
+	@Test
+	void maxConcurrencyOneKeepsSubmissionOrder() throws Exception
+	{
+		executor = ConcurrencyLimitedExecutor.builder()
+				.delegate(VirtualThreads.newThreadPerTaskExecutor("test"))
+				.maxConcurrency(1)
+				.build();
+
+		final List<Integer> executed = Collections.synchronizedList(new ArrayList<>());
+		final int countTasks = 1000;
+		final CountDownLatch done = new CountDownLatch(countTasks);
+		final List<Integer> expected = new ArrayList<>();
+		for (int i = 0; i < countTasks; i++)
+		{
+			final int taskNo = i;
+			expected.add(taskNo);
+			executor.execute(() -> {
+				executed.add(taskNo);
+				done.countDown();
+			});
+		}
+
+		assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+		assertThat(executed).containsExactlyElementsOf(expected);
+	}
+
+	@Test
+	void failingTaskDoesNotStopTheOtherTasks() throws Exception
+	{
+		executor = ConcurrencyLimitedExecutor.builder()
+				.delegate(VirtualThreads.newThreadPerTaskExecutor("test"))
+				.maxConcurrency(1)
+				.build();
+
+		final CountDownLatch done = new CountDownLatch(1);
+		executor.execute(() -> {
+			throw new RuntimeException("expected test failure");
+		});
+		executor.execute(done::countDown);
+
+		assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+	}
+
+	@Test
+	void rejectsTasksAfterShutdown()
+	{
+		executor = ConcurrencyLimitedExecutor.builder()
+				.delegate(VirtualThreads.newThreadPerTaskExecutor("test"))
+				.maxConcurrency(1)
+				.build();
+		executor.shutdown();
+
+		assertThatThrownBy(() -> executor.execute(() -> {})).isInstanceOf(RejectedExecutionException.class);
+		assertThat(executor.isShutdown()).isTrue();
+	}
+
+	private static void sleep(final long millis)
+	{
+		try
+		{
+			Thread.sleep(millis);
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package org.adempiere.util.concurrent;
+
+/*
+ * #%L
+ * de.metas.util
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares the throughput of the executors used for queue processors and async event busses, when the tasks are mostly blocked on I/O (like JDBC calls).
+ * <p>
+ * The blocking I/O is simulated by sleeping. For each concurrency limit, we measure
+ * <ul>
+ * <li>the current fixed platform thread pool (like <code>ThreadPoolQueueProcessor</code>)
+ * <li>a new virtual thread per task, limited by {@link BlockingExecutorWrapper} (like <code>ThreadPoolQueueProcessor</code> with {@link ExecutorType#VirtualThreads})
+ * <li>a new virtual thread per task, limited by {@link ConcurrencyLimitedExecutor} (like the async event bus with {@link ExecutorType#VirtualThreads})
+ * </ul>
+ * and report tasks per second and the peak number of platform threads.
+ * <p>
+ * Run it with a java 21+ JVM to actually get virtual threads; otherwise the "virtual" variants fall back to platform threads.
+ */
+@Ignore
+public class ExecutorTypeBenchmark
+{
+	private static final Logger logger = LoggerFactory.getLogger(ExecutorTypeBenchmark.class);
+
+	private static final int COUNT_TASKS = 20000;
+	private static final int BLOCKING_MILLIS = 5;
+	private static final int[] CONCURRENCY_LIMITS = { 10, 50, 200, 1000 };
+
+	public static void main(final String[] args) throws Exception
+	{
+		new ExecutorTypeBenchmark().runAll();
+	}
+
+	@Test
+	public void runAll() throws Exception
+	{
+		logger.info("Virtual threads supported: {}", VirtualThreads.isSupported());
+
+		// warm up
+		run("warmup", ExecutorTypeBenchmark::newPlatformThreadPool, 10, 1000);
+		run("warmup", ExecutorTypeBenchmark::newVirtualThreadsWithSemaphore, 10, 1000);
+
+		for (final int concurrencyLimit : CONCURRENCY_LIMITS)
+		{
+			run("PlatformThreadPool", ExecutorTypeBenchmark::newPlatformThreadPool, concurrencyLimit, COUNT_TASKS);
+			run("VirtualThreads+Semaphore", ExecutorTypeBenchmark::newVirtualThreadsWithSemaphore, concurrencyLimit, COUNT_TASKS);
+			run("VirtualThreads+ConcurrencyLimitedExecutor", ExecutorTypeBenchmark::newVirtualThreadsWithConcurrencyLimitedExecutor, concurrencyLimit, COUNT_TASKS);
+		}
+	}
+
+	private static void run(
+			final String name,
+			final IntFunction<ExecutorService> executorFactory,
+			final int concurrencyLimit,
+			final int countTasks) throws InterruptedException
+	{
+		final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		threadMXBean.resetPeakThreadCount();
+
+		final ExecutorService executor = executorFactory.apply(concurrencyLimit);
+		final CountDownLatch done = new CountDownLatch(countTasks);
+
+		final long startNanos = System.nanoTime();
+		for (int i = 0; i < countTasks; i++)
+		{
+			executor.execute(() -> {
+				simulateBlockingIO();
+				done.countDown();
+			});
+		}
+		done.await();
+		final long durationNanos = System.nanoTime() - startNanos;
+
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.MINUTES);
+
+		final double tasksPerSecond = countTasks / (durationNanos / 1_000_000_000d);
+		logger.info("{}: concurrencyLimit={}, tasks={}, duration={}ms, tasks/s={}, peak platform threads={}",
+				name,
+				concurrencyLimit,
+				countTasks,
+				TimeUnit.NANOSECONDS.toMillis(durationNanos),
+				String.format("%.0f", tasksPerSecond),
+				threadMXBean.getPeakThreadCount());
+	}
+
+	private static void simulateBlockingIO()
+	{
+		try
+		{
+			Thread.sleep(BLOCKING_MILLIS);
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static ExecutorService newPlatformThreadPool(final int poolSize)
+	{
+		final ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+				poolSize,
+				poolSize,
+				0,
+				TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(poolSize),
+				CustomizableThreadFactory.builder()
+						.setThreadNamePrefix("benchmark-platform")
+						.setDaemon(true)
+						.build());
+
+		return BlockingExecutorWrapper.builder()
+				.delegate(threadPoolExecutor)
+				.poolSize(poolSize)
+				.loggerToUse(logger)
+				.build();
+	}
+
+	private static ExecutorService newVirtualThreadsWithSemaphore(final int concurrencyLimit)
+	{
+		return BlockingExecutorWrapper.builder()
+				.delegate(VirtualThreads.newThreadPerTaskExecutor("benchmark-virtual"))
+				.poolSize(concurrencyLimit)
+				.loggerToUse(logger)
+				.build();
+	}
+
+	private static ExecutorService newVirtualThreadsWithConcurrencyLimitedExecutor(final int concurrencyLimit)
+	{
+		return ConcurrencyLimitedExecutor.builder()
+				.delegate(VirtualThreads.newThreadPerTaskExecutor("benchmark-virtual"))
+				.maxConcurrency(concurrencyLimit)
+				.build();
+	}
+}
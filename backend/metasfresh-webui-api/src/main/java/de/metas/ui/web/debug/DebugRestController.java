@@ -12,6 +12,7 @@ import java.util.Properties;
 import java.util.Set;
 
 import org.adempiere.ad.dao.IQueryStatisticsLogger;
+import org.adempiere.ad.service.ITableIdAllocator;
 import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.exceptions.AdempiereException;
 import org.adempiere.util.lang.impl.TableRecordReference;
@@ -36,10 +37,13 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
 import ch.qos.logback.classic.Level;
+import de.metas.cache.CCache.CCacheStats;
+import de.metas.cache.CCacheStatsOrderBy;
 import de.metas.cache.CacheMgt;
 import de.metas.event.Topic;
 import de.metas.event.Type;
@@ -58,6 +62,8 @@ import de.metas.ui.web.menu.MenuTreeRepository;
 import de.metas.ui.web.process.ProcessRestController;
 import de.metas.ui.web.session.UserSession;
 import de.metas.ui.web.view.IView;
+import de.metas.ui.web.view.InMemoryViewSelectionsStore;
+import de.metas.ui.web.view.InMemoryViewSelectionsStore.InMemoryViewSelectionsStats;
 import de.metas.ui.web.view.IViewsRepository;
 import de.metas.ui.web.view.SqlViewFactory;
 import de.metas.ui.web.view.ViewId;
@@ -70,12 +76,14 @@ import de.metas.ui.web.view.event.ViewChanges;
 import de.metas.ui.web.view.json.JSONViewResult;
 import de.metas.ui.web.websocket.WebSocketConfig;
 import de.metas.ui.web.websocket.WebsocketEventLogRecord;
+import de.metas.ui.web.websocket.WebsocketEventsLog;
 import de.metas.ui.web.websocket.WebsocketSender;
 import de.metas.ui.web.window.WindowConstants;
 import de.metas.ui.web.window.datatypes.DocumentIdsSelection;
 import de.metas.ui.web.window.datatypes.WindowId;
 import de.metas.ui.web.window.datatypes.json.JSONOptions;
 import de.metas.ui.web.window.model.DocumentCollection;
+import de.metas.ui.web.window.model.RootDocumentsCacheStats;
 import de.metas.ui.web.window.model.lookup.LookupDataSourceFactory;
 import de.metas.user.UserId;
 import de.metas.util.Check;
@@ -289,15 +297,65 @@ public class DebugRestController
 		sqlViewFactory.setDefaultProfileId(WindowId.fromJson(windowIdStr), ViewProfileId.fromJson(profileIdStr));
 	}
 
+	/**
+	 * @param orderByStr see {@link CCacheStatsOrderBy}; e.g. use <code>Weight</code> to get the lookup caches which use the most memory first
+	 * @return the total estimated weight of the lookup caches, followed by the stats of each lookup cache
+	 */
 	@RequestMapping(value = "/lookups/cacheStats", method = RequestMethod.GET)
-	public List<String> getLookupCacheStats()
+	public List<String> getLookupCacheStats(
+			@RequestParam(name = "orderBy", required = false) final String orderByStr)
 	{
 		userSession.assertLoggedIn();
 
-		return LookupDataSourceFactory.instance.getCacheStats()
-				.stream()
-				.map(stats -> stats.toString())
-				.collect(GuavaCollectors.toImmutableList());
+		final CCacheStatsOrderBy orderBy = CCacheStatsOrderBy.ofNullableStringOrDefault(orderByStr, CCacheStatsOrderBy.Name);
+		final List<CCacheStats> cacheStats = LookupDataSourceFactory.instance.getCacheStats(orderBy);
+
+		// caches without weigher have a weight of -1
+		final long estimatedWeightTotal = cacheStats.stream()
+				.mapToLong(CCacheStats::getEstimatedWeight)
+				.filter(estimatedWeight -> estimatedWeight > 0)
+				.sum();
+
+		return ImmutableList.<String> builder()
+				.add("Total estimated weight of " + cacheStats.size() + " lookup caches: " + estimatedWeightTotal)
+				.addAll(cacheStats.stream()
+						.map(stats -> stats.toString())
+						.iterator())
+				.build();
+	}
+
+	@GetMapping("/tableIdAllocator/stats")
+	public List<ITableIdAllocator.TableIdAllocatorStats> getTableIdAllocatorStats()
+	{
+		userSession.assertLoggedIn();
+
+		return Services.get(ITableIdAllocator.class).getStats();
+	}
+
+	@GetMapping("/views/selectionStats")
+	public InMemoryViewSelectionsStats getViewSelectionStats()
+	{
+		userSession.assertLoggedIn();
+
+		return InMemoryViewSelectionsStore.instance.getStats();
+	}
+
+	@GetMapping("/documents/cacheStats")
+	public RootDocumentsCacheStats getDocumentsCacheStats()
+	{
+		userSession.assertLoggedIn();
+
+		return documentCollection.getCacheStats();
+	}
+
+	@GetMapping("/cache/stats")
+	public List<CCacheStats> getCacheStats(
+			@RequestParam(name = "orderBy", required = false) final String orderByStr)
+	{
+		userSession.assertLoggedIn();
+
+		final CCacheStatsOrderBy orderBy = CCacheStatsOrderBy.ofNullableStringOrDefault(orderByStr, CCacheStatsOrderBy.Size);
+		return CacheMgt.get().getCacheStats(orderBy);
 	}
 
 	@RequestMapping(value = "/eventBus/postEvent", method = RequestMethod.GET)
@@ -551,6 +609,14 @@ public class DebugRestController
 		return websocketSender.getLoggedEvents(destinationFilter);
 	}
 
+	@GetMapping("websocketEvents/stats")
+	public WebsocketEventsLog.WebsocketEventsStats getWebsocketEventsStats()
+	{
+		userSession.assertLoggedIn();
+
+		return websocketSender.getEventsStats();
+	}
+
 	@PostMapping("/view/{viewId}/deleteRows")
 	public String viewDeleteRowIds(
 			@PathVariable("viewId") final String viewIdStr,
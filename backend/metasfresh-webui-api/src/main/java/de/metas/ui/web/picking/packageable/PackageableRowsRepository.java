@@ -1,8 +1,10 @@
 package de.metas.ui.web.picking.packageable;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 
 import org.compiere.model.I_C_BPartner;
 import org.compiere.model.I_C_Order;
@@ -20,6 +22,8 @@ import de.metas.inoutcandidate.api.ShipmentScheduleId;
 import de.metas.order.OrderLineId;
 import de.metas.quantity.Quantity;
 import de.metas.ui.web.view.ViewId;
+import de.metas.ui.web.window.datatypes.LookupValue;
+import de.metas.ui.web.window.datatypes.LookupValuesList;
 import de.metas.ui.web.window.model.lookup.LookupDataSource;
 import de.metas.ui.web.window.model.lookup.LookupDataSourceFactory;
 import de.metas.util.Services;
@@ -77,13 +81,37 @@ public class PackageableRowsRepository
 			return ImmutableList.of();
 		}
 
-		return Services.get(IPackagingDAO.class).getByShipmentScheduleIds(shipmentScheduleIds)
+		final List<Packageable> packageables = Services.get(IPackagingDAO.class).getByShipmentScheduleIds(shipmentScheduleIds);
+
+		// fetch the lookup values at once, instead of one by one for each row
+		final LookupValuesList orders = findByIds(orderLookup.get(), packageables, Packageable::getSalesOrderId);
+		final LookupValuesList products = findByIds(productLookup.get(), packageables, Packageable::getProductId);
+		final LookupValuesList bpartners = findByIds(bpartnerLookup.get(), packageables, Packageable::getCustomerId);
+
+		return packageables
 				.stream()
-				.map(packageable -> createPackageableRow(viewId, packageable))
+				.map(packageable -> createPackageableRow(viewId, packageable, orders, products, bpartners))
 				.collect(ImmutableList.toImmutableList());
 	}
 
-	private PackageableRow createPackageableRow(final ViewId viewId, final Packageable packageable)
+	private static LookupValuesList findByIds(
+			@NonNull final LookupDataSource lookupDataSource,
+			@NonNull final List<Packageable> packageables,
+			@NonNull final Function<Packageable, Object> idExtractor)
+	{
+		final ImmutableSet<Object> ids = packageables.stream()
+				.map(idExtractor)
+				.filter(Objects::nonNull)
+				.collect(ImmutableSet.toImmutableSet());
+		return lookupDataSource.findByIdsOrdered(ids);
+	}
+
+	private PackageableRow createPackageableRow(
+			final ViewId viewId,
+			final Packageable packageable,
+			final LookupValuesList orders,
+			final LookupValuesList products,
+			final LookupValuesList bpartners)
 	{
 		final Quantity qtyPickedOrDelivered = packageable.getQtyPickedOrDelivered();
 		final Optional<OrderLineId> orderLineId = Optional.ofNullable(packageable.getSalesOrderLineIdOrNull());
@@ -93,9 +121,9 @@ public class PackageableRowsRepository
 				.salesOrderLineId(orderLineId)
 				.viewId(viewId)
 				//
-				.order(orderLookup.get().findById(packageable.getSalesOrderId()))
-				.product(productLookup.get().findById(packageable.getProductId()))
-				.bpartner(bpartnerLookup.get().findById(packageable.getCustomerId()))
+				.order(getLookupValue(orders, orderLookup.get(), packageable.getSalesOrderId()))
+				.product(getLookupValue(products, productLookup.get(), packageable.getProductId()))
+				.bpartner(getLookupValue(bpartners, bpartnerLookup.get(), packageable.getCustomerId()))
 				.preparationDate(packageable.getPreparationDate())
 				//
 				.qtyOrdered(packageable.getQtyOrdered())
@@ -104,6 +132,20 @@ public class PackageableRowsRepository
 				.build();
 	}
 
+	private static LookupValue getLookupValue(
+			@NonNull final LookupValuesList prefetchedLookupValues,
+			@NonNull final LookupDataSource lookupDataSource,
+			final Object id)
+	{
+		if (id == null)
+		{
+			return null;
+		}
+
+		final LookupValue lookupValue = prefetchedLookupValues.getById(id);
+		return lookupValue != null ? lookupValue : lookupDataSource.findById(id);
+	}
+
 	public PackageableRowsData createRowsData(
 			@NonNull final ViewId viewId,
 			@NonNull final Set<ShipmentScheduleId> shipmentScheduleIds)
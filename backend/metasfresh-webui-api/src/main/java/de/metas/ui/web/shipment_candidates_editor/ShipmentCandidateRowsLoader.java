@@ -30,6 +30,7 @@ import de.metas.product.ProductId;
 import de.metas.quantity.Quantity;
 import de.metas.ui.web.window.datatypes.LookupValue;
 import de.metas.ui.web.window.datatypes.LookupValue.IntegerLookupValue;
+import de.metas.ui.web.window.datatypes.LookupValuesList;
 import de.metas.ui.web.window.model.lookup.LookupDataSource;
 import de.metas.uom.UomId;
 import de.metas.util.Check;
@@ -74,6 +75,8 @@ final class ShipmentCandidateRowsLoader
 	private final ImmutableSet<ShipmentScheduleId> shipmentScheduleIds;
 
 	private Map<OrderAndLineId, I_C_OrderLine> salesOrderLines;
+	private LookupValuesList salesOrders;
+	private LookupValuesList products;
 
 	@Builder
 	private ShipmentCandidateRowsLoader(
@@ -118,6 +121,10 @@ final class ShipmentCandidateRowsLoader
 		final ImmutableSet<OrderAndLineId> salesOrderAndLineIds = extractSalesOrderAndLineId(records);
 		this.salesOrderLines = ordersRepo.getOrderLinesByIds(salesOrderAndLineIds);
 
+		// fetch the lookup values at once, instead of one by one for each row
+		this.salesOrders = salesOrdersLookup.findByIdsOrdered(extractSalesOrderIds(salesOrderAndLineIds));
+		this.products = productsLookup.findByIdsOrdered(extractProductIds(records));
+
 		final ImmutableList<ShipmentCandidateRow> rows = records
 				.stream()
 				.map(this::toShipmentCandidateRow)
@@ -138,6 +145,20 @@ final class ShipmentCandidateRowsLoader
 				.collect(ImmutableSet.toImmutableSet());
 	}
 
+	private static ImmutableSet<OrderId> extractSalesOrderIds(@NonNull final Collection<OrderAndLineId> salesOrderAndLineIds)
+	{
+		return salesOrderAndLineIds.stream()
+				.map(OrderAndLineId::getOrderId)
+				.collect(ImmutableSet.toImmutableSet());
+	}
+
+	private static ImmutableSet<ProductId> extractProductIds(@NonNull final Collection<I_M_ShipmentSchedule> records)
+	{
+		return records.stream()
+				.map(record -> ProductId.ofRepoId(record.getM_Product_ID()))
+				.collect(ImmutableSet.toImmutableSet());
+	}
+
 	@Nullable
 	private static OrderAndLineId extractSalesOrderAndLineId(@NonNull final I_M_ShipmentSchedule record)
 	{
@@ -194,7 +215,7 @@ final class ShipmentCandidateRowsLoader
 	{
 		final OrderId salesOrderId = OrderId.ofRepoIdOrNull(record.getC_Order_ID());
 		return salesOrderId != null
-				? salesOrdersLookup.findById(salesOrderId)
+				? getLookupValue(salesOrders, salesOrdersLookup, salesOrderId)
 				: null;
 	}
 
@@ -213,7 +234,16 @@ final class ShipmentCandidateRowsLoader
 	private LookupValue extractProduct(@NonNull final I_M_ShipmentSchedule record)
 	{
 		final ProductId productId = ProductId.ofRepoId(record.getM_Product_ID());
-		return productsLookup.findById(productId);
+		return getLookupValue(products, productsLookup, productId);
+	}
+
+	private static LookupValue getLookupValue(
+			@NonNull final LookupValuesList prefetchedLookupValues,
+			@NonNull final LookupDataSource lookupDataSource,
+			@NonNull final Object id)
+	{
+		final LookupValue lookupValue = prefetchedLookupValues.getById(id);
+		return lookupValue != null ? lookupValue : lookupDataSource.findById(id);
 	}
 
 	@VisibleForTesting
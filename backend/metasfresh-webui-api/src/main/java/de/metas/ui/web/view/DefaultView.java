@@ -3,7 +3,6 @@ package de.metas.ui.web.view;
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import de.metas.cache.CCache;
 import de.metas.i18n.ITranslatableString;
 import de.metas.i18n.TranslatableStrings;
 import de.metas.logging.LogManager;
@@ -132,7 +131,7 @@ public final class DefaultView implements IEditableView
 
 	//
 	// Caching
-	private final transient CCache<DocumentId, IViewRow> cache_rowsById;
+	private final transient ViewRowsCache rowsCache;
 
 	private final IViewInvalidationAdvisor viewInvalidationAdvisor;
 
@@ -176,10 +175,7 @@ public final class DefaultView implements IEditableView
 
 		//
 		// Cache
-		cache_rowsById = CCache.newLRUCache(
-				viewDataRepository.getTableName() + "#rowById#viewId=" + viewId, // cache name
-				100, // maxSize
-				2); // expireAfterMinutes
+		rowsCache = ViewRowsCache.newInstance(viewDataRepository.getTableName(), viewId);
 
 		logger.debug("View created: {}", this);
 	}
@@ -278,13 +274,13 @@ public final class DefaultView implements IEditableView
 	@Override
 	public void invalidateAll()
 	{
-		cache_rowsById.reset();
+		rowsCache.reset();
 	}
 
 	@Override
 	public void invalidateRowById(final DocumentId rowId)
 	{
-		cache_rowsById.remove(rowId);
+		rowsCache.remove(rowId);
 	}
 
 	@Override
@@ -318,10 +314,7 @@ public final class DefaultView implements IEditableView
 		final ViewEvaluationCtx evalCtx = getViewEvaluationCtx();
 		final ViewRowIdsOrderedSelection orderedSelection = getOrderedSelection(orderBy.toDocumentQueryOrderByList());
 
-		final List<IViewRow> rows = viewDataRepository.retrievePage(evalCtx, orderedSelection, firstRow, pageLength);
-
-		// Add to cache
-		rows.forEach(row -> cache_rowsById.put(row.getId(), row));
+		final List<IViewRow> rows = viewDataRepository.retrievePage(evalCtx, orderedSelection, firstRow, pageLength, rowsCache);
 
 		return ViewResult.builder()
 				.view(this)
@@ -411,7 +404,7 @@ public final class DefaultView implements IEditableView
 	{
 		checkChangedRows();
 
-		return cache_rowsById.getOrLoad(rowId, () -> retrieveRowById(rowId));
+		return rowsCache.getOrLoad(rowId, () -> retrieveRowById(rowId));
 	}
 
 	private IViewRow retrieveRowById(final DocumentId rowId)
@@ -527,7 +520,7 @@ public final class DefaultView implements IEditableView
 		}
 
 		// Invalidate local rowsById cache
-		cache_rowsById.removeAll(rowIds);
+		rowsCache.removeAll(rowIds);
 
 		// Collect event
 		// TODO: check which rowIds are contained in this view and fire events only for those
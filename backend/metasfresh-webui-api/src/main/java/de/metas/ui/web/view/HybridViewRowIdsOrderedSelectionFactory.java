@@ -0,0 +1,302 @@
+package de.metas.ui.web.view;
+
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.compiere.util.DB;
+import org.slf4j.Logger;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableSet;
+
+import de.metas.logging.LogManager;
+import de.metas.ui.web.document.filter.DocumentFilterList;
+import de.metas.ui.web.document.filter.sql.SqlDocumentFilterConverterContext;
+import de.metas.ui.web.view.descriptor.SqlAndParams;
+import de.metas.ui.web.view.descriptor.SqlViewBinding;
+import de.metas.ui.web.view.descriptor.SqlViewSelectionQueryBuilder;
+import de.metas.ui.web.window.datatypes.DocumentIdsSelection;
+import de.metas.ui.web.window.model.DocumentQueryOrderByList;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Keeps the selection in memory (see {@link InMemoryViewSelectionsStore}) if it's not bigger than {@link InMemoryViewSelectionsStore#getMaxRows()},
+ * else saves it to <code>T_WEBUI_ViewSelection</code> by delegating to {@link SqlViewRowIdsOrderedSelectionFactory}.
+ * <p>
+ * In-memory selections are supported only for views which have a single integer key and no grouping fields.
+ * Sorting and filtering an in-memory selection is still done by the database, but on the record IDs which are passed as parameter,
+ * because the order by and filter expressions are SQL expressions.
+ */
+public class HybridViewRowIdsOrderedSelectionFactory implements ViewRowIdsOrderedSelectionFactory
+{
+	public static HybridViewRowIdsOrderedSelectionFactory of(final SqlViewBinding viewBinding)
+	{
+		return new HybridViewRowIdsOrderedSelectionFactory(viewBinding);
+	}
+
+	private static final Logger logger = LogManager.getLogger(HybridViewRowIdsOrderedSelectionFactory.class);
+	private final InMemoryViewSelectionsStore inMemorySelections = InMemoryViewSelectionsStore.instance;
+
+	private final SqlViewBinding viewBinding;
+	private final SqlViewRowIdsOrderedSelectionFactory sqlFactory;
+
+	private HybridViewRowIdsOrderedSelectionFactory(@NonNull final SqlViewBinding viewBinding)
+	{
+		this.viewBinding = viewBinding;
+		this.sqlFactory = SqlViewRowIdsOrderedSelectionFactory.of(viewBinding);
+	}
+
+	private SqlViewSelectionQueryBuilder newSqlViewSelectionQueryBuilder()
+	{
+		return SqlViewSelectionQueryBuilder.newInstance(viewBinding);
+	}
+
+	private boolean isInMemorySelectionSupported()
+	{
+		return viewBinding.getSqlViewSelect().isInMemorySelectionSupported();
+	}
+
+	/**
+	 * @return the record IDs of given selection or <code>null</code> if the selection is saved in database
+	 */
+	@Nullable
+	public ViewRecordIds getInMemoryRecordIds(@NonNull final String selectionId)
+	{
+		return inMemorySelections.getRecordIds(selectionId);
+	}
+
+	private Set<Integer> toRecordIds(final DocumentIdsSelection rowIds)
+	{
+		return viewBinding.getRowIdsConverter().convertToRecordIds(rowIds);
+	}
+
+	@Override
+	public String getSqlWhereClause(final ViewId viewId, final DocumentIdsSelection rowIds)
+	{
+		final ViewRecordIds inMemoryRecordIds = getInMemoryRecordIds(viewId.getViewId());
+		if (inMemoryRecordIds == null)
+		{
+			return sqlFactory.getSqlWhereClause(viewId, rowIds);
+		}
+
+		if (rowIds.isEmpty())
+		{
+			new AdempiereException("got empty rowIds")
+					.throwIfDeveloperModeOrLogWarningElse(logger);
+			return "1=0";
+		}
+
+		final Set<Integer> recordIds = rowIds.isAll()
+				? inMemoryRecordIds.toSet()
+				: inMemoryRecordIds.retainContained(toRecordIds(rowIds));
+		if (recordIds.isEmpty())
+		{
+			return "1=0";
+		}
+
+		final String keyColumnName = viewBinding.getTableName() + "." + viewBinding.getSqlViewKeyColumnNamesMap().getSingleKeyColumnName();
+		return DB.buildSqlList(keyColumnName, recordIds, null);
+	}
+
+	@Override
+	public ViewRowIdsOrderedSelection createOrderedSelection(
+			final ViewEvaluationCtx viewEvalCtx,
+			final ViewId viewId,
+			final DocumentFilterList filters,
+			final DocumentQueryOrderByList orderBys,
+			final boolean applySecurityRestrictions,
+			final SqlDocumentFilterConverterContext context)
+	{
+		final int maxRows = inMemorySelections.getMaxRows();
+		if (maxRows <= 0)
+		{
+			return sqlFactory.createOrderedSelection(viewEvalCtx, viewId, filters, orderBys, applySecurityRestrictions, context);
+		}
+		if (!isInMemorySelectionSupported())
+		{
+			inMemorySelections.notifyNotSupported();
+			return sqlFactory.createOrderedSelection(viewEvalCtx, viewId, filters, orderBys, applySecurityRestrictions, context);
+		}
+
+		//
+		// Fetch one record more than we can keep in memory, to find out if the selection is too big
+		final int queryLimit = sqlFactory.extractQueryLimit(viewEvalCtx);
+		final int fetchLimit = queryLimit > 0 ? Math.min(queryLimit, maxRows + 1) : maxRows + 1;
+		final SqlAndParams sqlSelect = newSqlViewSelectionQueryBuilder()
+				.applySecurityRestrictions(applySecurityRestrictions)
+				.buildSqlSelectRecordIdsFrom(viewEvalCtx, viewId, filters, orderBys, fetchLimit, context);
+
+		final Stopwatch stopwatch = Stopwatch.createStarted();
+		final ViewRecordIds recordIds = retrieveRecordIds(sqlSelect);
+		if (recordIds.size() > maxRows)
+		{
+			logger.trace("Selection {} has more than {} rows => saving it to database", viewId, maxRows);
+			inMemorySelections.notifySpilledToDatabase();
+			return sqlFactory.createOrderedSelection(viewEvalCtx, viewId, filters, orderBys, applySecurityRestrictions, context);
+		}
+
+		inMemorySelections.put(viewId.getViewId(), recordIds);
+		logger.trace("Created in-memory selection {}, rowsCount={}, duration={}", viewId, recordIds.size(), stopwatch);
+
+		return ViewRowIdsOrderedSelection.builder()
+				.viewId(viewId)
+				.size(recordIds.size())
+				.orderBys(orderBys)
+				.queryLimit(queryLimit)
+				.build();
+	}
+
+	@Override
+	public ViewRowIdsOrderedSelection createOrderedSelectionFromSelection(
+			@NonNull final ViewEvaluationCtx viewEvalCtx,
+			@NonNull final ViewRowIdsOrderedSelection fromSelection,
+			@NonNull final DocumentFilterList filters,
+			@NonNull final DocumentQueryOrderByList orderBys,
+			@NonNull final SqlDocumentFilterConverterContext filterConverterCtx)
+	{
+		final ViewRecordIds fromRecordIds = getInMemoryRecordIds(fromSelection.getSelectionId());
+		if (fromRecordIds == null)
+		{
+			return sqlFactory.createOrderedSelectionFromSelection(viewEvalCtx, fromSelection, filters, orderBys, filterConverterCtx);
+		}
+
+		final ViewId newViewId = ViewId.random(fromSelection.getWindowId());
+
+		// NOTE: the new selection is never bigger than the one we select from, so it also fits in memory
+		final SqlAndParams sqlSelect = newSqlViewSelectionQueryBuilder()
+				.buildSqlSelectRecordIdsFromRecordIds(viewEvalCtx, fromRecordIds.toCommaSeparatedString(), filters, orderBys, filterConverterCtx);
+		final ViewRecordIds recordIds = retrieveRecordIds(sqlSelect);
+		inMemorySelections.put(newViewId.getViewId(), recordIds);
+
+		return ViewRowIdsOrderedSelection.builder()
+				.viewId(newViewId)
+				.size(recordIds.size())
+				.orderBys(orderBys)
+				.queryLimit(fromSelection.getQueryLimit())
+				.build();
+	}
+
+	private static ViewRecordIds retrieveRecordIds(@NonNull final SqlAndParams sqlSelect)
+	{
+		final List<Integer> recordIds = DB.retrieveRows(sqlSelect.getSql(), sqlSelect.getSqlParams(), rs -> rs.getInt(1));
+		return ViewRecordIds.ofArray(recordIds.stream().mapToInt(Integer::intValue).toArray());
+	}
+
+	@Override
+	public ViewRowIdsOrderedSelection addRowIdsToSelection(final ViewRowIdsOrderedSelection selection, final DocumentIdsSelection rowIds)
+	{
+		if (!inMemorySelections.isInMemory(selection.getSelectionId()))
+		{
+			return sqlFactory.addRowIdsToSelection(selection, rowIds);
+		}
+
+		if (rowIds.isEmpty())
+		{
+			// nothing changed
+			return selection;
+		}
+		else if (rowIds.isAll())
+		{
+			throw new IllegalArgumentException("Cannot add ALL to selection");
+		}
+
+		final Set<Integer> recordIdsToAdd = toRecordIds(rowIds);
+		final ViewRecordIds recordIds = inMemorySelections.compute(selection.getSelectionId(), currentRecordIds -> currentRecordIds.addingAll(recordIdsToAdd));
+		return recordIds != null ? selection.withSize(recordIds.size()) : selection;
+	}
+
+	@Override
+	public ViewRowIdsOrderedSelection removeRowIdsFromSelection(final ViewRowIdsOrderedSelection selection, final DocumentIdsSelection rowIds)
+	{
+		if (!inMemorySelections.isInMemory(selection.getSelectionId()))
+		{
+			return sqlFactory.removeRowIdsFromSelection(selection, rowIds);
+		}
+
+		if (rowIds.isEmpty())
+		{
+			// nothing changed
+			return selection;
+		}
+
+		final ViewRecordIds recordIds;
+		if (rowIds.isAll())
+		{
+			recordIds = inMemorySelections.compute(selection.getSelectionId(), currentRecordIds -> ViewRecordIds.EMPTY);
+		}
+		else
+		{
+			final Set<Integer> recordIdsToRemove = toRecordIds(rowIds);
+			recordIds = inMemorySelections.compute(selection.getSelectionId(), currentRecordIds -> currentRecordIds.removingAll(recordIdsToRemove));
+		}
+		return recordIds != null ? selection.withSize(recordIds.size()) : selection;
+	}
+
+	@Override
+	public boolean containsAnyOfRowIds(final ViewRowIdsOrderedSelection selection, final DocumentIdsSelection rowIds)
+	{
+		final ViewRecordIds recordIds = getInMemoryRecordIds(selection.getSelectionId());
+		if (recordIds == null)
+		{
+			return sqlFactory.containsAnyOfRowIds(selection, rowIds);
+		}
+
+		if (rowIds.isEmpty())
+		{
+			return false;
+		}
+		else if (rowIds.isAll())
+		{
+			return !recordIds.isEmpty();
+		}
+		else
+		{
+			return recordIds.containsAny(toRecordIds(rowIds));
+		}
+	}
+
+	@Override
+	public void deleteSelections(@NonNull final Set<String> selectionIds)
+	{
+		final ImmutableSet<String> selectionIdsNotInMemory = inMemorySelections.removeAll(selectionIds);
+		if (!selectionIdsNotInMemory.isEmpty())
+		{
+			sqlFactory.deleteSelections(selectionIdsNotInMemory);
+		}
+	}
+
+	@Override
+	public void scheduleDeleteSelections(@NonNull final Set<String> selectionIds)
+	{
+		final ImmutableSet<String> selectionIdsNotInMemory = inMemorySelections.removeAll(selectionIds);
+		if (!selectionIdsNotInMemory.isEmpty())
+		{
+			sqlFactory.scheduleDeleteSelections(selectionIdsNotInMemory);
+		}
+	}
+}
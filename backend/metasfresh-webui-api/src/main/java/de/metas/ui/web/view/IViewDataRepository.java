@@ -14,6 +14,7 @@ import de.metas.ui.web.window.datatypes.DocumentIdsSelection;
 import de.metas.ui.web.window.descriptor.DocumentFieldWidgetType;
 import de.metas.ui.web.window.model.DocumentQueryOrderByList;
 import de.metas.ui.web.window.model.sql.SqlOptions;
+import lombok.NonNull;
 
 /*
  * #%L
@@ -58,6 +59,22 @@ public interface IViewDataRepository
 
 	List<IViewRow> retrievePage(ViewEvaluationCtx viewEvalCtx, ViewRowIdsOrderedSelection orderedSelection, int firstRow, int pageLength) throws DBException;
 
+	/**
+	 * Same as {@link #retrievePage(ViewEvaluationCtx, ViewRowIdsOrderedSelection, int, int)}, but the rows which are already in <code>rowsCache</code> are not loaded again.
+	 * The loaded rows are added to <code>rowsCache</code>.
+	 */
+	default List<IViewRow> retrievePage(
+			final ViewEvaluationCtx viewEvalCtx,
+			final ViewRowIdsOrderedSelection orderedSelection,
+			final int firstRow,
+			final int pageLength,
+			@NonNull final ViewRowsCache rowsCache) throws DBException
+	{
+		final List<IViewRow> rows = retrievePage(viewEvalCtx, orderedSelection, firstRow, pageLength);
+		rowsCache.putAll(rows);
+		return rows;
+	}
+
 	List<DocumentId> retrieveRowIdsByPage(ViewEvaluationCtx viewEvalCtx, ViewRowIdsOrderedSelection orderedSelection, int firstRow, int pageLength);
 
 	<T> List<T> retrieveModelsByIds(ViewId viewId, DocumentIdsSelection rowIds, Class<T> modelClass);
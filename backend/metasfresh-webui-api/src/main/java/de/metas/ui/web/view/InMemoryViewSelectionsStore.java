@@ -0,0 +1,147 @@
+package de.metas.ui.web.view;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+import javax.annotation.Nullable;
+
+import org.adempiere.service.ISysConfigBL;
+
+import com.google.common.collect.ImmutableSet;
+
+import de.metas.util.Services;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Keeps the record IDs of those view selections which are small enough to not be saved in <code>T_WEBUI_ViewSelection</code>.
+ *
+ * @see HybridViewRowIdsOrderedSelectionFactory
+ */
+public final class InMemoryViewSelectionsStore
+{
+	public static final transient InMemoryViewSelectionsStore instance = new InMemoryViewSelectionsStore();
+
+	private static final String SYSCONFIG_MaxRows = "webui.view.selection.InMemory.MaxRows";
+	private static final int DEFAULT_MaxRows = 5000;
+
+	private final ConcurrentHashMap<String, ViewRecordIds> recordIdsBySelectionId = new ConcurrentHashMap<>();
+
+	private final AtomicLong countCreatedInMemory = new AtomicLong();
+	private final AtomicLong countSpilledToDatabase = new AtomicLong();
+	private final AtomicLong countNotSupported = new AtomicLong();
+
+	private InMemoryViewSelectionsStore()
+	{
+	}
+
+	/**
+	 * @return how many rows a selection can have in order to be kept in memory; zero or less means in-memory selections are disabled
+	 */
+	public int getMaxRows()
+	{
+		return Services.get(ISysConfigBL.class).getIntValue(SYSCONFIG_MaxRows, DEFAULT_MaxRows);
+	}
+
+	@Nullable
+	public ViewRecordIds getRecordIds(@NonNull final String selectionId)
+	{
+		return recordIdsBySelectionId.get(selectionId);
+	}
+
+	public boolean isInMemory(@NonNull final String selectionId)
+	{
+		return recordIdsBySelectionId.containsKey(selectionId);
+	}
+
+	void put(@NonNull final String selectionId, @NonNull final ViewRecordIds recordIds)
+	{
+		recordIdsBySelectionId.put(selectionId, recordIds);
+		countCreatedInMemory.incrementAndGet();
+	}
+
+	/**
+	 * @return the changed record IDs or <code>null</code> if the selection is not (anymore) in memory
+	 */
+	@Nullable
+	ViewRecordIds compute(@NonNull final String selectionId, @NonNull final UnaryOperator<ViewRecordIds> remappingFunction)
+	{
+		return recordIdsBySelectionId.computeIfPresent(selectionId, (id, recordIds) -> remappingFunction.apply(recordIds));
+	}
+
+	/**
+	 * Removes given selections.
+	 *
+	 * @return the selection IDs which were not in memory
+	 */
+	ImmutableSet<String> removeAll(@NonNull final Set<String> selectionIds)
+	{
+		return selectionIds.stream()
+				.filter(selectionId -> recordIdsBySelectionId.remove(selectionId) == null)
+				.collect(ImmutableSet.toImmutableSet());
+	}
+
+	void notifySpilledToDatabase()
+	{
+		countSpilledToDatabase.incrementAndGet();
+	}
+
+	void notifyNotSupported()
+	{
+		countNotSupported.incrementAndGet();
+	}
+
+	public InMemoryViewSelectionsStats getStats()
+	{
+		return InMemoryViewSelectionsStats.builder()
+				.maxRows(getMaxRows())
+				.countCreatedInMemory(countCreatedInMemory.get())
+				.countSpilledToDatabase(countSpilledToDatabase.get())
+				.countNotSupported(countNotSupported.get())
+				.currentSelectionsCount(recordIdsBySelectionId.size())
+				.currentRecordIdsCount(recordIdsBySelectionId.values().stream().mapToLong(ViewRecordIds::size).sum())
+				.build();
+	}
+
+	@Value
+	@Builder
+	public static class InMemoryViewSelectionsStats
+	{
+		int maxRows;
+
+		/** how many selections were created in memory */
+		long countCreatedInMemory;
+		/** how many selections would have been supported, but were too big and were saved to database */
+		long countSpilledToDatabase;
+		/** how many selections were saved to database because they are not supported (e.g. grouping or composite keys) */
+		long countNotSupported;
+
+		int currentSelectionsCount;
+		long currentRecordIdsCount;
+	}
+}
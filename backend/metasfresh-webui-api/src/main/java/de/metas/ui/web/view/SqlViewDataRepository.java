@@ -8,8 +8,11 @@ import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
+import javax.annotation.Nullable;
+
 import org.adempiere.ad.dao.IQueryBL;
 import org.adempiere.ad.dao.impl.TypedSqlQueryFilter;
 import org.adempiere.ad.trx.api.ITrx;
@@ -23,6 +26,7 @@ import org.slf4j.Logger;
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import de.metas.logging.LogManager;
@@ -85,7 +89,7 @@ class SqlViewDataRepository implements IViewDataRepository
 	private final SqlViewKeyColumnNamesMap keyColumnNamesMap;
 	private final Map<String, DocumentFieldWidgetType> widgetTypesByFieldName;
 	private final SqlViewSelectData sqlViewSelect;
-	private final ViewRowIdsOrderedSelectionFactory viewRowIdsOrderedSelectionFactory;
+	private final HybridViewRowIdsOrderedSelectionFactory viewRowIdsOrderedSelectionFactory;
 	private final DocumentFilterDescriptorsProvider viewFilterDescriptors;
 	private final DocumentQueryOrderByList defaultOrderBys;
 
@@ -103,7 +107,7 @@ class SqlViewDataRepository implements IViewDataRepository
 		widgetTypesByFieldName = sqlBindings.getWidgetTypesByFieldName();
 		sqlViewSelect = sqlBindings.getSqlViewSelect();
 		viewFilterDescriptors = sqlBindings.getViewFilterDescriptors();
-		viewRowIdsOrderedSelectionFactory = SqlViewRowIdsOrderedSelectionFactory.of(sqlBindings);
+		viewRowIdsOrderedSelectionFactory = HybridViewRowIdsOrderedSelectionFactory.of(sqlBindings);
 		defaultOrderBys = sqlBindings.getDefaultOrderBys();
 
 		this.hasIncludedRows = sqlBindings.hasGroupingFields();
@@ -226,6 +230,7 @@ class SqlViewDataRepository implements IViewDataRepository
 				.viewEvalCtx(viewEvalCtx)
 				.viewId(viewId)
 				.rowId(rowId)
+				.inMemoryRecordIds(viewRowIdsOrderedSelectionFactory.getInMemoryRecordIds(viewId.getViewId()))
 				.build();
 
 		PreparedStatement pstmt = null;
@@ -494,11 +499,95 @@ class SqlViewDataRepository implements IViewDataRepository
 		logger.debug("Using: {}", orderedSelection);
 
 		final ViewId viewId = orderedSelection.getViewId();
+		final ViewRecordIds inMemoryPageRecordIds = getInMemoryPageRecordIds(viewId, firstRow, pageLength);
+		return retrievePageFromDB(viewEvalCtx, viewId, firstRow, pageLength, inMemoryPageRecordIds);
+	}
+
+	@Override
+	public List<IViewRow> retrievePage(
+			final ViewEvaluationCtx viewEvalCtx,
+			final ViewRowIdsOrderedSelection orderedSelection,
+			final int firstRow,
+			final int pageLength,
+			@NonNull final ViewRowsCache rowsCache) throws DBException
+	{
+		final ViewId viewId = orderedSelection.getViewId();
+		final ViewRecordIds inMemoryPageRecordIds = getInMemoryPageRecordIds(viewId, firstRow, pageLength);
+
+		//
+		// Find out which rows are in the page:
+		// * if the selection is kept in memory, we already know them
+		// * else we query them, but only if there is a chance to find them in cache
+		final List<DocumentId> pageRowIds;
+		if (inMemoryPageRecordIds != null)
+		{
+			pageRowIds = inMemoryPageRecordIds.toList(DocumentId::of);
+		}
+		else if (!rowsCache.isEmpty())
+		{
+			pageRowIds = retrieveRowIdsByPage(viewEvalCtx, orderedSelection, firstRow, pageLength);
+		}
+		else
+		{
+			final List<IViewRow> rows = retrievePageFromDB(viewEvalCtx, viewId, firstRow, pageLength, null);
+			rowsCache.putAll(rows);
+			return rows;
+		}
+
+		if (pageRowIds.isEmpty())
+		{
+			return ImmutableList.of();
+		}
+
+		final ImmutableMap<DocumentId, IViewRow> cachedRowsById = rowsCache.getAllPresent(pageRowIds);
+		if (cachedRowsById.size() == pageRowIds.size())
+		{
+			logger.debug("Got page from cache: firstRow={}, pageLength={} - {}", firstRow, pageLength, this);
+			return ImmutableList.copyOf(cachedRowsById.values()); // same order as pageRowIds
+		}
+
+		//
+		// Load the rows which are not cached
+		if (inMemoryPageRecordIds == null)
+		{
+			// we cannot load only some of the rows of a page which is saved in database, so we load the whole page
+			final List<IViewRow> rows = retrievePageFromDB(viewEvalCtx, viewId, firstRow, pageLength, null);
+			rowsCache.putAll(rows);
+			return rows;
+		}
+
+		final ViewRecordIds recordIdsToLoad = ViewRecordIds.ofArray(pageRowIds.stream()
+				.filter(rowId -> !cachedRowsById.containsKey(rowId))
+				.mapToInt(DocumentId::toInt)
+				.toArray());
+		final List<IViewRow> loadedRows = retrievePageFromDB(viewEvalCtx, viewId, 0, recordIdsToLoad.size(), recordIdsToLoad);
+		rowsCache.putAll(loadedRows);
+
+		final Map<DocumentId, IViewRow> loadedRowsById = Maps.uniqueIndex(loadedRows, IViewRow::getId);
+		return pageRowIds.stream()
+				.map(rowId -> loadedRowsById.containsKey(rowId) ? loadedRowsById.get(rowId) : cachedRowsById.get(rowId))
+				.filter(Objects::nonNull) // e.g. record was deleted
+				.collect(ImmutableList.toImmutableList());
+	}
+
+	private List<IViewRow> retrievePageFromDB(
+			final ViewEvaluationCtx viewEvalCtx,
+			final ViewId viewId,
+			final int firstRow,
+			final int pageLength,
+			@Nullable final ViewRecordIds inMemoryPageRecordIds) throws DBException
+	{
+		if (inMemoryPageRecordIds != null && inMemoryPageRecordIds.isEmpty())
+		{
+			return ImmutableList.of();
+		}
+
 		final SqlAndParams sqlAndParams = sqlViewSelect.selectByPage()
 				.viewEvalCtx(viewEvalCtx)
 				.viewId(viewId)
 				.firstRowZeroBased(firstRow)
 				.pageLength(pageLength)
+				.inMemoryPageRecordIds(inMemoryPageRecordIds)
 				.build();
 
 		PreparedStatement pstmt = null;
@@ -524,6 +613,18 @@ class SqlViewDataRepository implements IViewDataRepository
 		}
 	}
 
+	/**
+	 * @return the record IDs of the requested page or <code>null</code> if the selection is not kept in memory
+	 */
+	@Nullable
+	private ViewRecordIds getInMemoryPageRecordIds(final ViewId viewId, final int firstRow, final int pageLength)
+	{
+		final ViewRecordIds inMemoryRecordIds = viewRowIdsOrderedSelectionFactory.getInMemoryRecordIds(viewId.getViewId());
+		return inMemoryRecordIds != null
+				? inMemoryRecordIds.subList(firstRow, pageLength)
+				: null;
+	}
+
 	@Override
 	public List<DocumentId> retrieveRowIdsByPage(final ViewEvaluationCtx viewEvalCtx,
 			final ViewRowIdsOrderedSelection orderedSelection,
@@ -534,11 +635,18 @@ class SqlViewDataRepository implements IViewDataRepository
 		logger.debug("Using: {}", orderedSelection);
 
 		final ViewId viewId = orderedSelection.getViewId();
+		final ViewRecordIds inMemoryPageRecordIds = getInMemoryPageRecordIds(viewId, firstRow, pageLength);
+		if (inMemoryPageRecordIds != null && inMemoryPageRecordIds.isEmpty())
+		{
+			return ImmutableList.of();
+		}
+
 		final SqlAndParams sqlAndParams = sqlViewSelect.selectRowIdsByPage()
 				.viewEvalCtx(viewEvalCtx)
 				.viewId(viewId)
 				.firstRowZeroBased(firstRow)
 				.pageLength(pageLength)
+				.inMemoryPageRecordIds(inMemoryPageRecordIds)
 				.build();
 
 		PreparedStatement pstmt = null;
@@ -710,7 +818,12 @@ class SqlViewDataRepository implements IViewDataRepository
 			final int limit)
 	{
 		final SqlViewRowFieldLoader fieldLoader = rowFieldLoaders.get(fieldName);
-		final SqlAndParams sql = sqlViewSelect.selectFieldValues(viewEvalCtx, selectionId, fieldName, limit);
+		final SqlAndParams sql = sqlViewSelect.selectFieldValues(
+				viewEvalCtx,
+				selectionId,
+				viewRowIdsOrderedSelectionFactory.getInMemoryRecordIds(selectionId),
+				fieldName,
+				limit);
 
 		final String adLanguage = viewEvalCtx.getAdLanguage();
 		return DB.retrieveRows(
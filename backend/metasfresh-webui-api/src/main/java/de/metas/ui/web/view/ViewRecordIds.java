@@ -0,0 +1,191 @@
+package de.metas.ui.web.view;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import lombok.EqualsAndHashCode;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Immutable, ordered list of distinct record IDs, kept as primitive arrays.
+ * <p>
+ * It's used to keep a view selection in memory instead of saving it to <code>T_WEBUI_ViewSelection</code>.
+ */
+@EqualsAndHashCode(of = "recordIds")
+public final class ViewRecordIds
+{
+	public static ViewRecordIds ofArray(@NonNull final int[] recordIds)
+	{
+		return recordIds.length > 0
+				? new ViewRecordIds(IntStream.of(recordIds).distinct().toArray())
+				: EMPTY;
+	}
+
+	public static final ViewRecordIds EMPTY = new ViewRecordIds(new int[] {});
+
+	private static final int TOSTRING_MAX_RECORD_IDS = 10;
+
+	/** record IDs, in order */
+	private final int[] recordIds;
+	/** same record IDs, sorted, to be able to do a binary search */
+	private final int[] recordIdsSorted;
+
+	private ViewRecordIds(final int[] recordIds)
+	{
+		this.recordIds = recordIds;
+		this.recordIdsSorted = recordIds.clone();
+		Arrays.sort(this.recordIdsSorted);
+	}
+
+	@Override
+	public String toString()
+	{
+		final String recordIdsStr = IntStream.of(recordIds)
+				.limit(TOSTRING_MAX_RECORD_IDS)
+				.mapToObj(String::valueOf)
+				.collect(Collectors.joining(","));
+
+		return "ViewRecordIds[size=" + recordIds.length + ": " + recordIdsStr + (recordIds.length > TOSTRING_MAX_RECORD_IDS ? ",..." : "") + "]";
+	}
+
+	public int size()
+	{
+		return recordIds.length;
+	}
+
+	public boolean isEmpty()
+	{
+		return recordIds.length == 0;
+	}
+
+	public boolean contains(final int recordId)
+	{
+		return Arrays.binarySearch(recordIdsSorted, recordId) >= 0;
+	}
+
+	public boolean containsAny(@NonNull final Collection<Integer> recordIds)
+	{
+		return recordIds.stream().anyMatch(this::contains);
+	}
+
+	/**
+	 * @return those of given record IDs which are contained
+	 */
+	public ImmutableSet<Integer> retainContained(@NonNull final Collection<Integer> recordIds)
+	{
+		return recordIds.stream()
+				.filter(this::contains)
+				.collect(ImmutableSet.toImmutableSet());
+	}
+
+	/**
+	 * @return the record IDs starting with <code>firstIndex</code> (zero based), but not more than <code>maxSize</code>
+	 */
+	public ViewRecordIds subList(final int firstIndex, final int maxSize)
+	{
+		if (firstIndex <= 0 && maxSize >= recordIds.length)
+		{
+			return this;
+		}
+		if (firstIndex >= recordIds.length || maxSize <= 0)
+		{
+			return EMPTY;
+		}
+
+		final int firstIndexEffective = Math.max(firstIndex, 0);
+		final int lastIndexExclusive = (int)Math.min((long)firstIndexEffective + maxSize, recordIds.length);
+		return new ViewRecordIds(Arrays.copyOfRange(recordIds, firstIndexEffective, lastIndexExclusive));
+	}
+
+	/**
+	 * @return new instance with the not already contained record IDs appended at the end
+	 */
+	public ViewRecordIds addingAll(@NonNull final Collection<Integer> recordIdsToAdd)
+	{
+		final int[] newRecordIds = recordIdsToAdd.stream()
+				.mapToInt(Integer::intValue)
+				.filter(recordId -> !contains(recordId))
+				.distinct()
+				.toArray();
+		if (newRecordIds.length == 0)
+		{
+			return this;
+		}
+
+		final int[] recordIdsNew = Arrays.copyOf(recordIds, recordIds.length + newRecordIds.length);
+		System.arraycopy(newRecordIds, 0, recordIdsNew, recordIds.length, newRecordIds.length);
+		return new ViewRecordIds(recordIdsNew);
+	}
+
+	/**
+	 * @return new instance without given record IDs
+	 */
+	public ViewRecordIds removingAll(@NonNull final Set<Integer> recordIdsToRemove)
+	{
+		if (!containsAny(recordIdsToRemove))
+		{
+			return this;
+		}
+
+		final int[] recordIdsNew = IntStream.of(recordIds)
+				.filter(recordId -> !recordIdsToRemove.contains(recordId))
+				.toArray();
+		return new ViewRecordIds(recordIdsNew);
+	}
+
+	public <T> ImmutableList<T> toList(@NonNull final IntFunction<T> mapper)
+	{
+		return IntStream.of(recordIds).mapToObj(mapper).collect(ImmutableList.toImmutableList());
+	}
+
+	public ImmutableSet<Integer> toSet()
+	{
+		return IntStream.of(recordIds).boxed().collect(ImmutableSet.toImmutableSet());
+	}
+
+	/**
+	 * @return record IDs, in order, comma separated (e.g. to be used as SQL parameter)
+	 */
+	public String toCommaSeparatedString()
+	{
+		final StringBuilder sb = new StringBuilder(recordIds.length * 8);
+		for (final int recordId : recordIds)
+		{
+			if (sb.length() > 0)
+			{
+				sb.append(",");
+			}
+			sb.append(recordId);
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,112 @@
+package de.metas.ui.web.view;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Callable;
+
+import org.adempiere.service.ISysConfigBL;
+
+import com.google.common.collect.ImmutableMap;
+
+import de.metas.cache.CCache;
+import de.metas.ui.web.window.datatypes.DocumentId;
+import de.metas.util.Services;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * The already loaded rows of a view, indexed by row ID.
+ * <p>
+ * Used to serve pages (including pages of a re-sorted selection) without loading the rows again.
+ * The rows are invalidated when the view is notified about changed records (see {@link IViewInvalidationAdvisor}).
+ */
+public final class ViewRowsCache
+{
+	public static ViewRowsCache newInstance(@NonNull final String tableName, @NonNull final ViewId viewId)
+	{
+		return new ViewRowsCache(tableName, viewId);
+	}
+
+	private static final String SYSCONFIG_MaxSize = "webui.view.RowsCache.MaxSize";
+	private static final int DEFAULT_MaxSize = 1000;
+
+	private final CCache<DocumentId, IViewRow> rowsById;
+
+	private ViewRowsCache(@NonNull final String tableName, @NonNull final ViewId viewId)
+	{
+		final int maxSize = Services.get(ISysConfigBL.class).getIntValue(SYSCONFIG_MaxSize, DEFAULT_MaxSize);
+
+		rowsById = CCache.newLRUCache(
+				tableName + "#rowById#viewId=" + viewId, // cache name
+				maxSize > 0 ? maxSize : 1, // maxSize
+				2); // expireAfterMinutes
+	}
+
+	public boolean isEmpty()
+	{
+		return rowsById.isEmpty();
+	}
+
+	public IViewRow getOrLoad(@NonNull final DocumentId rowId, @NonNull final Callable<IViewRow> rowLoader)
+	{
+		return rowsById.getOrLoad(rowId, rowLoader);
+	}
+
+	/**
+	 * @return the cached rows; the rows which are not cached are not part of the result
+	 */
+	public ImmutableMap<DocumentId, IViewRow> getAllPresent(@NonNull final Collection<DocumentId> rowIds)
+	{
+		final LinkedHashMap<DocumentId, IViewRow> result = new LinkedHashMap<>(rowIds.size());
+		for (final DocumentId rowId : rowIds)
+		{
+			final IViewRow row = rowsById.get(rowId);
+			if (row != null)
+			{
+				result.put(rowId, row);
+			}
+		}
+		return ImmutableMap.copyOf(result);
+	}
+
+	public void putAll(@NonNull final Collection<? extends IViewRow> rows)
+	{
+		rows.forEach(row -> rowsById.put(row.getId(), row));
+	}
+
+	public void remove(@NonNull final DocumentId rowId)
+	{
+		rowsById.remove(rowId);
+	}
+
+	public void removeAll(@NonNull final Collection<DocumentId> rowIds)
+	{
+		rowsById.removeAll(rowIds);
+	}
+
+	public void reset()
+	{
+		rowsById.reset();
+	}
+}
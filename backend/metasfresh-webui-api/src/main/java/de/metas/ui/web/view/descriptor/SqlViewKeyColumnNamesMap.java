@@ -171,6 +171,33 @@ public final class SqlViewKeyColumnNamesMap
 		return singleKeyColumnName != null;
 	}
 
+	public boolean isSingleIntKey()
+	{
+		if (!isSingleKey())
+		{
+			return false;
+		}
+
+		final Class<?> sqlValueClass = keyFields.get(0).getSqlValueClass();
+		return Integer.class.equals(sqlValueClass) || int.class.equals(sqlValueClass);
+	}
+
+	/**
+	 * Builds a derived table which looks like {@link I_T_WEBUI_ViewSelection}, i.e. it has the same key column and a {@link I_T_WEBUI_ViewSelection#COLUMNNAME_Line} column,
+	 * but its rows are the record IDs given as one comma separated SQL parameter, in that order.
+	 * <p>
+	 * Supported only if {@link #isSingleIntKey()}.
+	 *
+	 * @return <code>unnest(...) WITH ORDINALITY AS tableAlias(IntKey1, Line)</code>; SQL parameters required: 1=comma separated record IDs
+	 */
+	public String getSqlSelectionFromRecordIdsParam(@NonNull final String tableAlias)
+	{
+		Check.assume(isSingleIntKey(), "single integer key: {}", this);
+
+		return "unnest(string_to_array(?, ',')::integer[]) WITH ORDINALITY AS " + tableAlias
+				+ "(" + getSingleWebuiSelectionColumnName() + ", " + I_T_WEBUI_ViewSelection.COLUMNNAME_Line + ")";
+	}
+
 	public String getWebuiSelectionColumnNameForKeyColumnName(@NonNull final String keyColumnName)
 	{
 		final String webuiSelectionColumnName = webuiSelectionColumnNamesByKeyColumnName.get(keyColumnName);
@@ -22,6 +22,7 @@ import de.metas.ui.web.base.model.I_T_WEBUI_ViewSelection;
 import de.metas.ui.web.base.model.I_T_WEBUI_ViewSelectionLine;
 import de.metas.ui.web.view.ViewEvaluationCtx;
 import de.metas.ui.web.view.ViewId;
+import de.metas.ui.web.view.ViewRecordIds;
 import de.metas.ui.web.window.datatypes.DocumentId;
 import de.metas.ui.web.window.datatypes.DocumentIdsSelection;
 import de.metas.ui.web.window.descriptor.sql.SqlSelectDisplayValue;
@@ -80,6 +81,14 @@ public class SqlViewSelectData
 	private final IStringExpression sqlSelectById;
 	private final IStringExpression sqlSelectLines;
 
+	/**
+	 * Same as the queries above, but reading the selection from a list of record IDs instead of {@link I_T_WEBUI_ViewSelection}.
+	 * Those are <code>null</code> if not {@link #isInMemorySelectionSupported()}.
+	 */
+	private final IStringExpression sqlSelectByPageInMemory;
+	private final IStringExpression sqlSelectRowIdsByPageInMemory;
+	private final IStringExpression sqlSelectByIdInMemory;
+
 	@Builder
 	private SqlViewSelectData(
 			@NonNull final String sqlTableName,
@@ -94,31 +103,62 @@ public class SqlViewSelectData
 		this.displayFieldNames = ImmutableSet.copyOf(displayFieldNames);
 		this.fieldsByFieldName = Maps.uniqueIndex(allFields, SqlViewRowFieldBinding::getFieldName);
 
-		final IStringExpression sqlSelect = buildSqlSelect(sqlTableName, sqlTableAlias, keyColumnNamesMap, displayFieldNames, allFields, groupingBinding);
+		final boolean inMemorySelection = false;
+		final IStringExpression sqlSelect = buildSqlSelect(sqlTableName, sqlTableAlias, keyColumnNamesMap, displayFieldNames, allFields, groupingBinding, inMemorySelection);
+		final IStringExpression sqlSelectRowIds = buildSqlSelect(
+				sqlTableName,
+				sqlTableAlias,
+				keyColumnNamesMap,
+				ImmutableList.of(), // displayFieldNames
+				extractKeyFields(allFields, keyColumnNamesMap), // allFields
+				groupingBinding,
+				inMemorySelection);
+
+		sqlSelectByPage = appendSqlWhereByPage(sqlSelect);
+		sqlSelectRowIdsByPage = appendSqlWhereByPage(sqlSelectRowIds);
+		sqlSelectById = appendSqlWhereById(sqlSelect, keyColumnNamesMap);
+
+		if (groupingBinding == null && keyColumnNamesMap.isSingleIntKey())
+		{
+			final boolean inMemory = true;
+			final IStringExpression sqlSelectInMemory = buildSqlSelect_WithoutGrouping(sqlTableName, sqlTableAlias, keyColumnNamesMap, displayFieldNames, allFields, inMemory);
+			final IStringExpression sqlSelectRowIdsInMemory = buildSqlSelect_WithoutGrouping(
+					sqlTableName,
+					sqlTableAlias,
+					keyColumnNamesMap,
+					ImmutableList.of(), // displayFieldNames
+					extractKeyFields(allFields, keyColumnNamesMap), // allFields
+					inMemory);
+
+			sqlSelectByPageInMemory = appendSqlWhereByPage(sqlSelectInMemory);
+			sqlSelectRowIdsByPageInMemory = appendSqlWhereByPage(sqlSelectRowIdsInMemory);
+			sqlSelectByIdInMemory = appendSqlWhereById(sqlSelectInMemory, keyColumnNamesMap);
+		}
+		else
+		{
+			sqlSelectByPageInMemory = null;
+			sqlSelectRowIdsByPageInMemory = null;
+			sqlSelectByIdInMemory = null;
+		}
+
+		this.sqlSelectLines = groupingBinding != null
+				? buildSqlSelectLines(sqlTableName, sqlTableAlias, keyColumnNamesMap, displayFieldNames, allFields)
+				: null;
+	}
 
-		sqlSelectByPage = sqlSelect.toComposer()
+	private static IStringExpression appendSqlWhereByPage(final IStringExpression sqlSelect)
+	{
+		return sqlSelect.toComposer()
 				.append("\n WHERE ")
 				// NOTE: already filtered by UUID
 				.append("\n " + COLUMNNAME_Paging_SeqNo_OneBased + " BETWEEN ? AND ?")
 				.append("\n ORDER BY " + COLUMNNAME_Paging_SeqNo_OneBased)
 				.build();
+	}
 
-		sqlSelectRowIdsByPage = buildSqlSelect(
-				sqlTableName,
-				sqlTableAlias,
-				keyColumnNamesMap,
-				ImmutableList.of(), // displayFieldNames
-				extractKeyFields(allFields, keyColumnNamesMap), // allFields
-				groupingBinding)
-						//
-						.toComposer()
-						.append("\n WHERE ")
-						// NOTE: already filtered by UUID
-						.append("\n " + COLUMNNAME_Paging_SeqNo_OneBased + " BETWEEN ? AND ?")
-						.append("\n ORDER BY " + COLUMNNAME_Paging_SeqNo_OneBased)
-						.build();
-
-		sqlSelectById = sqlSelect.toComposer()
+	private static IStringExpression appendSqlWhereById(final IStringExpression sqlSelect, final SqlViewKeyColumnNamesMap keyColumnNamesMap)
+	{
+		return sqlSelect.toComposer()
 				.append("\n WHERE ")
 				// NOTE: already filtered by UUID
 				.append("\n")
@@ -127,10 +167,14 @@ public class SqlViewSelectData
 						.map(keyColumnName -> COLUMNNAME_Paging_Prefix + keyColumnName + "=?")
 						.collect(Collectors.joining("\nAND ")))
 				.build();
+	}
 
-		this.sqlSelectLines = groupingBinding != null
-				? buildSqlSelectLines(sqlTableName, sqlTableAlias, keyColumnNamesMap, displayFieldNames, allFields)
-				: null;
+	/**
+	 * @return true if the selection can also be provided as a list of record IDs instead of being saved in {@link I_T_WEBUI_ViewSelection}
+	 */
+	public boolean isInMemorySelectionSupported()
+	{
+		return sqlSelectByPageInMemory != null;
 	}
 
 	private IStringExpression getSqlSelectLines()
@@ -156,24 +200,30 @@ public class SqlViewSelectData
 			final SqlViewKeyColumnNamesMap keyColumnNamesMap,
 			final Collection<String> displayFieldNames,
 			final Collection<SqlViewRowFieldBinding> allFields,
-			final SqlViewGroupingBinding groupingBinding)
+			final SqlViewGroupingBinding groupingBinding,
+			final boolean inMemorySelection)
 	{
 		if (groupingBinding == null)
 		{
-			return buildSqlSelect_WithoutGrouping(sqlTableName, sqlTableAlias, keyColumnNamesMap, displayFieldNames, allFields);
+			return buildSqlSelect_WithoutGrouping(sqlTableName, sqlTableAlias, keyColumnNamesMap, displayFieldNames, allFields, inMemorySelection);
 		}
 		else
 		{
+			Check.assume(!inMemorySelection, "in memory selections are not supported when grouping");
 			return buildSqlSelect_WithGrouping(sqlTableName, sqlTableAlias, keyColumnNamesMap, displayFieldNames, allFields, groupingBinding);
 		}
 	}
 
+	/**
+	 * SQL Parameters required: 1=UUID; if <code>inMemorySelection</code>: 2=comma separated record IDs
+	 */
 	private static IStringExpression buildSqlSelect_WithoutGrouping(
 			@NonNull final String sqlTableName,
 			@NonNull final String sqlTableAlias,
 			@NonNull final SqlViewKeyColumnNamesMap keyColumnNamesMap,
 			@NonNull final Collection<String> displayFieldNames,
-			@NonNull final Collection<SqlViewRowFieldBinding> allFields)
+			@NonNull final Collection<SqlViewRowFieldBinding> allFields,
+			final boolean inMemorySelection)
 	{
 		final List<String> sqlSelectValuesList = new ArrayList<>();
 		final List<IStringExpression> sqlSelectDisplayNamesList = new ArrayList<>();
@@ -211,12 +261,20 @@ public class SqlViewSelectData
 				.append("\n , sel." + I_T_WEBUI_ViewSelection.COLUMNNAME_Line + " AS " + COLUMNNAME_Paging_SeqNo_OneBased)
 				.append("\n , sel." + I_T_WEBUI_ViewSelection.COLUMNNAME_UUID + " AS " + COLUMNNAME_Paging_UUID)
 				.append("\n , ").append(keyColumnNamesMap.getWebuiSelectionColumnNamesCommaSeparated(columnName -> "sel." + columnName + " AS " + COLUMNNAME_Paging_Prefix + columnName))
-				.append("\n , " + keyColumnNamesMap.getSqlIsNullExpression(sqlTableName) + " AS " + COLUMNNAME_IsRecordMissing)
-				.append("\n   FROM " + I_T_WEBUI_ViewSelection.Table_Name + " sel")
-				.append("\n   LEFT OUTER JOIN " + sqlTableName + " ON (" + keyColumnNamesMap.getSqlJoinCondition(sqlTableName, "sel") + ")")
-				// Filter by UUID. Keep this closer to the source table, see https://github.com/metasfresh/metasfresh-webui-api/issues/437
-				.append("\n   WHERE sel." + I_T_WEBUI_ViewSelection.COLUMNNAME_UUID + "=?")
-				.append("\n ) " + sqlTableAlias); // FROM
+				.append("\n , " + keyColumnNamesMap.getSqlIsNullExpression(sqlTableName) + " AS " + COLUMNNAME_IsRecordMissing);
+		if (inMemorySelection)
+		{
+			sql.append("\n   FROM (SELECT ?::varchar AS " + I_T_WEBUI_ViewSelection.COLUMNNAME_UUID + ", ids.* FROM " + keyColumnNamesMap.getSqlSelectionFromRecordIdsParam("ids") + ") sel")
+					.append("\n   LEFT OUTER JOIN " + sqlTableName + " ON (" + keyColumnNamesMap.getSqlJoinCondition(sqlTableName, "sel") + ")");
+		}
+		else
+		{
+			sql.append("\n   FROM " + I_T_WEBUI_ViewSelection.Table_Name + " sel")
+					.append("\n   LEFT OUTER JOIN " + sqlTableName + " ON (" + keyColumnNamesMap.getSqlJoinCondition(sqlTableName, "sel") + ")")
+					// Filter by UUID. Keep this closer to the source table, see https://github.com/metasfresh/metasfresh-webui-api/issues/437
+					.append("\n   WHERE sel." + I_T_WEBUI_ViewSelection.COLUMNNAME_UUID + "=?");
+		}
+		sql.append("\n ) " + sqlTableAlias); // FROM
 
 		return sql.build().caching();
 	}
@@ -376,13 +434,23 @@ public class SqlViewSelectData
 		return sql.build().caching();
 	}
 
+	/**
+	 * @param inMemoryPageRecordIds if set, the page is not fetched from {@link I_T_WEBUI_ViewSelection} but it consists of given record IDs, in this order
+	 */
 	@Builder(builderMethodName = "selectByPage", builderClassName = "SelectByPageBuilder")
 	private SqlAndParams selectByIdPageBuilder(
 			@NonNull final ViewEvaluationCtx viewEvalCtx,
 			@NonNull final ViewId viewId,
 			final int firstRowZeroBased,
-			final int pageLength)
+			final int pageLength,
+			@Nullable final ViewRecordIds inMemoryPageRecordIds)
 	{
+		if (inMemoryPageRecordIds != null)
+		{
+			final String sql = getSqlSelectInMemory(sqlSelectByPageInMemory).evaluate(viewEvalCtx.toEvaluatee(), OnVariableNotFound.Fail);
+			return SqlAndParams.of(sql, viewId.getViewId(), inMemoryPageRecordIds.toCommaSeparatedString(), 1, inMemoryPageRecordIds.size());
+		}
+
 		Check.assume(firstRowZeroBased >= 0, "firstRow >= 0 but it was {}", firstRowZeroBased);
 		Check.assume(pageLength > 0, "pageLength > 0 but it was {}", pageLength);
 
@@ -395,13 +463,32 @@ public class SqlViewSelectData
 		return SqlAndParams.of(sql, viewSelectionId, firstSeqNo, lastSeqNo);
 	}
 
+	private IStringExpression getSqlSelectInMemory(final IStringExpression sqlSelectInMemory)
+	{
+		if (sqlSelectInMemory == null)
+		{
+			throw new AdempiereException("In memory selections are not supported for " + sqlTableName);
+		}
+		return sqlSelectInMemory;
+	}
+
+	/**
+	 * @param inMemoryPageRecordIds if set, the page is not fetched from {@link I_T_WEBUI_ViewSelection} but it consists of given record IDs, in this order
+	 */
 	@Builder(builderMethodName = "selectRowIdsByPage", builderClassName = "SelectRowIdsByPageBuilder")
 	private SqlAndParams selectRowIdsByIdPageBuilder(
 			@NonNull final ViewEvaluationCtx viewEvalCtx,
 			@NonNull final ViewId viewId,
 			final int firstRowZeroBased,
-			final int pageLength)
+			final int pageLength,
+			@Nullable final ViewRecordIds inMemoryPageRecordIds)
 	{
+		if (inMemoryPageRecordIds != null)
+		{
+			final String sql = getSqlSelectInMemory(sqlSelectRowIdsByPageInMemory).evaluate(viewEvalCtx.toEvaluatee(), OnVariableNotFound.Fail);
+			return SqlAndParams.of(sql, viewId.getViewId(), inMemoryPageRecordIds.toCommaSeparatedString(), 1, inMemoryPageRecordIds.size());
+		}
+
 		Check.assume(firstRowZeroBased >= 0, "firstRow >= 0 but it was {}", firstRowZeroBased);
 		Check.assume(pageLength > 0, "pageLength > 0 but it was {}", pageLength);
 
@@ -414,16 +501,27 @@ public class SqlViewSelectData
 		return SqlAndParams.of(sql, viewSelectionId, firstSeqNo, lastSeqNo);
 	}
 
+	/**
+	 * @param inMemoryRecordIds if set, the selection is not {@link I_T_WEBUI_ViewSelection} but given record IDs
+	 */
 	@Builder(builderMethodName = "selectById", builderClassName = "SelectByIdBuilder")
 	private SqlAndParams selectByIdBuilder(
 			@NonNull final ViewEvaluationCtx viewEvalCtx,
 			@NonNull final ViewId viewId,
-			@NonNull final DocumentId rowId)
+			@NonNull final DocumentId rowId,
+			@Nullable final ViewRecordIds inMemoryRecordIds)
 	{
-		final String sql = getSqlSelectById().evaluate(viewEvalCtx.toEvaluatee(), OnVariableNotFound.Fail);
+		final IStringExpression sqlSelectById = inMemoryRecordIds != null ? getSqlSelectInMemory(sqlSelectByIdInMemory) : getSqlSelectById();
+		final String sql = sqlSelectById.evaluate(viewEvalCtx.toEvaluatee(), OnVariableNotFound.Fail);
 
 		final ArrayList<Object> sqlParams = new ArrayList<>();
 		sqlParams.add(viewId.getViewId());
+		if (inMemoryRecordIds != null)
+		{
+			// NOTE: the selection is needed only to check if the row is part of it
+			final boolean rowIdInSelection = rowId.isInt() && inMemoryRecordIds.contains(rowId.toInt());
+			sqlParams.add(rowIdInSelection ? String.valueOf(rowId.toInt()) : "");
+		}
 		sqlParams.addAll(keyColumnNamesMap.getSqlValuesList(rowId));
 		return SqlAndParams.of(sql, sqlParams);
 	}
@@ -453,9 +551,13 @@ public class SqlViewSelectData
 		return SqlAndParams.of(sql, sqlParams);
 	}
 
+	/**
+	 * @param inMemoryRecordIds if set, the selection is not {@link I_T_WEBUI_ViewSelection} but given record IDs
+	 */
 	public SqlAndParams selectFieldValues(
 			@NonNull final ViewEvaluationCtx viewEvalCtx,
 			@NonNull final String selectionId,
+			@Nullable final ViewRecordIds inMemoryRecordIds,
 			@NonNull final String fieldName,
 			final int limit)
 	{
@@ -496,10 +598,20 @@ public class SqlViewSelectData
 			sqlExpression
 					.append("\n, ").append(sqlDisplayValue.withJoinOnTableNameOrAlias(sqlTableName).toStringExpressionWithColumnNameAlias());
 		}
-		sqlExpression.append("\n FROM " + I_T_WEBUI_ViewSelection.Table_Name + " sel")
-				.append("\n INNER JOIN " + sqlTableName + " ON (" + keyColumnNamesMap.getSqlJoinCondition(sqlTableName, "sel") + ")")
-				// Filter by UUID. Keep this closer to the source table, see https://github.com/metasfresh/metasfresh-webui-api/issues/437
-				.append("\n WHERE sel." + I_T_WEBUI_ViewSelection.COLUMNNAME_UUID + "=?")
+		if (inMemoryRecordIds != null)
+		{
+			Check.assume(isInMemorySelectionSupported(), "in memory selections are supported for {}", sqlTableName);
+			sqlExpression.append("\n FROM " + keyColumnNamesMap.getSqlSelectionFromRecordIdsParam("sel"))
+					.append("\n INNER JOIN " + sqlTableName + " ON (" + keyColumnNamesMap.getSqlJoinCondition(sqlTableName, "sel") + ")");
+		}
+		else
+		{
+			sqlExpression.append("\n FROM " + I_T_WEBUI_ViewSelection.Table_Name + " sel")
+					.append("\n INNER JOIN " + sqlTableName + " ON (" + keyColumnNamesMap.getSqlJoinCondition(sqlTableName, "sel") + ")")
+					// Filter by UUID. Keep this closer to the source table, see https://github.com/metasfresh/metasfresh-webui-api/issues/437
+					.append("\n WHERE sel." + I_T_WEBUI_ViewSelection.COLUMNNAME_UUID + "=?");
+		}
+		sqlExpression
 				.append("\n ORDER BY sel." + I_T_WEBUI_ViewSelection.COLUMNNAME_Line)
 				.append("\n) t")
 				.append("\n LIMIT ?");
@@ -507,6 +619,7 @@ public class SqlViewSelectData
 		final String sql = sqlExpression.build()
 				.evaluate(viewEvalCtx.toEvaluatee(), OnVariableNotFound.Fail);
 
-		return SqlAndParams.of(sql, selectionId, limit);
+		final Object selectionParam = inMemoryRecordIds != null ? inMemoryRecordIds.toCommaSeparatedString() : selectionId;
+		return SqlAndParams.of(sql, selectionParam, limit);
 	}
 }
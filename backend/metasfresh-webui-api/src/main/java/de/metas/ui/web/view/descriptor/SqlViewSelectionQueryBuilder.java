@@ -239,18 +239,57 @@ public final class SqlViewSelectionQueryBuilder
 			final int queryLimit,
 			final SqlDocumentFilterConverterContext filterConverterCtx)
 	{
-		final String sqlTableName = getTableName();
-		final String sqlTableAlias = getTableAlias();
 		final SqlViewKeyColumnNamesMap keyColumnNamesMap = getSqlViewKeyColumnNamesMap();
 
 		//
 		// INSERT INTO T_WEBUI_ViewSelection[Line] (...)
-		final CompositeStringExpression.Builder sqlBuilder = IStringExpression.composer();
-		sqlBuilder.append("INSERT INTO " + I_T_WEBUI_ViewSelection.Table_Name + " ("
+		final String sqlInsertInto = "INSERT INTO " + I_T_WEBUI_ViewSelection.Table_Name + " ("
 				+ " " + I_T_WEBUI_ViewSelection.COLUMNNAME_UUID
 				+ ", " + I_T_WEBUI_ViewSelection.COLUMNNAME_Line // SeqNo
 				+ ", " + keyColumnNamesMap.getWebuiSelectionColumnNamesCommaSeparated() // keys: IntKey1... StringKey1...
-				+ ")");
+				+ ")";
+
+		final SqlAndParams sqlSelect = buildSqlSelectSelection_WithoutGrouping(viewEvalCtx, newViewId, filters, orderBys, queryLimit, filterConverterCtx);
+		return SqlAndParams.of(sqlInsertInto + sqlSelect.getSql(), sqlSelect.getSqlParams());
+	}
+
+	/**
+	 * @return SQL which selects the record IDs which {@link #buildSqlCreateSelectionFrom(ViewEvaluationCtx, ViewId, DocumentFilterList, DocumentQueryOrderByList, int, SqlDocumentFilterConverterContext)}
+	 *         would insert in {@link I_T_WEBUI_ViewSelection}, in the same order; the record ID is the first column.
+	 */
+	public SqlAndParams buildSqlSelectRecordIdsFrom(
+			@NonNull final ViewEvaluationCtx viewEvalCtx,
+			@NonNull final ViewId newViewId,
+			@NonNull final DocumentFilterList filters,
+			@NonNull final DocumentQueryOrderByList orderBys,
+			final int queryLimit,
+			@NonNull final SqlDocumentFilterConverterContext filterConverterCtx)
+	{
+		Check.assume(!hasGroupingFields(), "grouping is not supported");
+
+		final SqlAndParams sqlSelect = buildSqlSelectSelection_WithoutGrouping(viewEvalCtx, newViewId, filters, orderBys, queryLimit, filterConverterCtx);
+		final String sql = "SELECT sel." + getSqlViewKeyColumnNamesMap().getSingleKeyColumnName()
+				+ "\n FROM (" + sqlSelect.getSql() + "\n) sel"
+				+ "\n ORDER BY sel." + I_T_WEBUI_ViewSelection.COLUMNNAME_Line;
+		return SqlAndParams.of(sql, sqlSelect.getSqlParams());
+	}
+
+	/**
+	 * @return <code>SELECT UUID, Line, keys FROM ... WHERE ... LIMIT ...</code>
+	 */
+	private SqlAndParams buildSqlSelectSelection_WithoutGrouping(
+			@NonNull final ViewEvaluationCtx viewEvalCtx,
+			@NonNull final ViewId newViewId,
+			final DocumentFilterList filters,
+			final DocumentQueryOrderByList orderBys,
+			final int queryLimit,
+			final SqlDocumentFilterConverterContext filterConverterCtx)
+	{
+		final String sqlTableName = getTableName();
+		final String sqlTableAlias = getTableAlias();
+		final SqlViewKeyColumnNamesMap keyColumnNamesMap = getSqlViewKeyColumnNamesMap();
+
+		final CompositeStringExpression.Builder sqlBuilder = IStringExpression.composer();
 
 		//
 		// SELECT ... FROM ... WHERE 1=1
@@ -269,8 +308,8 @@ public final class SqlViewSelectionQueryBuilder
 			sqlBuilder.append(
 					IStringExpression.composer()
 							.append("\n SELECT ")
-							.append("\n  ?") // UUID
-							.append("\n, ").append(sqlSeqNo) // Line/SeqNo
+							.append("\n  ? AS " + I_T_WEBUI_ViewSelection.COLUMNNAME_UUID) // UUID
+							.append("\n, ").append(sqlSeqNo).append(" AS " + I_T_WEBUI_ViewSelection.COLUMNNAME_Line) // Line/SeqNo
 							.append("\n, ").append(keyColumnNamesMap.getKeyColumnNamesCommaSeparated(sqlTableAlias)) // keys
 							//
 							.append("\n FROM ").append(sqlTableName).append(" ").append(sqlTableAlias)
@@ -519,6 +558,77 @@ public final class SqlViewSelectionQueryBuilder
 		final String sqlTableAlias = getTableAlias();
 		final SqlViewKeyColumnNamesMap keyColumnNamesMap = getSqlViewKeyColumnNamesMap();
 
+		final SqlSourceTableAndOrderBys sqlSourceTableAndOrderBys = buildSqlSourceTableAndOrderBys(viewEvalCtx, filters, orderBys, filterConverterCtx);
+		final SqlAndParams sqlSourceTable = sqlSourceTableAndOrderBys.getSqlSourceTable();
+		final String sqlOrderBys = sqlSourceTableAndOrderBys.getSqlOrderBys();
+
+		//
+		final String sqlJoinCondition = keyColumnNamesMap.getSqlJoinCondition(sqlTableAlias, "sel");
+
+		//
+		return SqlAndParams.builder()
+				.append("INSERT INTO " + I_T_WEBUI_ViewSelection.Table_Name + " ("
+						+ " " + I_T_WEBUI_ViewSelection.COLUMNNAME_UUID
+						+ ", " + I_T_WEBUI_ViewSelection.COLUMNNAME_Line
+						+ ", " + keyColumnNamesMap.getWebuiSelectionColumnNamesCommaSeparated()
+						+ ")")
+				.append("\n SELECT ")
+				.append("\n  ?", newViewId.getViewId()) // newUUID
+				.append("\n, ").append("row_number() OVER (").append(sqlOrderBys != null ? "ORDER BY " + sqlOrderBys : "").append(")") // Line
+				.append("\n, ").append(keyColumnNamesMap.getKeyColumnNamesCommaSeparated()) // keys
+				.append("\n FROM ").append(I_T_WEBUI_ViewSelection.Table_Name).append(" sel")
+				.append("\n INNER JOIN ").append(sqlSourceTable).append(" ").append(sqlTableAlias).append(" ON (").append(sqlJoinCondition).append(")")
+				.append("\n WHERE sel.").append(I_T_WEBUI_ViewSelection.COLUMNNAME_UUID).append("=?", fromSelectionId) // fromUUID
+				.build();
+	}
+
+	/**
+	 * Like {@link #buildSqlCreateSelectionFromSelection(ViewEvaluationCtx, ViewId, String, DocumentFilterList, DocumentQueryOrderByList, SqlDocumentFilterConverterContext)},
+	 * but the source selection is given as comma separated record IDs (first SQL parameter) and the resulting record IDs are just selected.
+	 * Records with the same order by values keep their order from source selection.
+	 *
+	 * @return <code>SELECT recordId FROM [source record IDs] INNER JOIN ourTable WHERE [filters] ORDER BY [orderBys]</code>
+	 */
+	public SqlAndParams buildSqlSelectRecordIdsFromRecordIds(
+			@NonNull final ViewEvaluationCtx viewEvalCtx,
+			@NonNull final String fromRecordIdsCommaSeparated,
+			@NonNull final DocumentFilterList filters,
+			@NonNull final DocumentQueryOrderByList orderBys,
+			@NonNull final SqlDocumentFilterConverterContext filterConverterCtx)
+	{
+		final String sqlTableAlias = getTableAlias();
+		final SqlViewKeyColumnNamesMap keyColumnNamesMap = getSqlViewKeyColumnNamesMap();
+
+		final SqlSourceTableAndOrderBys sqlSourceTableAndOrderBys = buildSqlSourceTableAndOrderBys(viewEvalCtx, filters, orderBys, filterConverterCtx);
+		final SqlAndParams sqlSourceTable = sqlSourceTableAndOrderBys.getSqlSourceTable();
+		final String sqlOrderBys = sqlSourceTableAndOrderBys.getSqlOrderBys();
+
+		return SqlAndParams.builder()
+				.append("SELECT ").append(sqlTableAlias).append(".").append(keyColumnNamesMap.getSingleKeyColumnName())
+				.append("\n FROM ").append(keyColumnNamesMap.getSqlSelectionFromRecordIdsParam("sel"), fromRecordIdsCommaSeparated)
+				.append("\n INNER JOIN ").append(sqlSourceTable).append(" ").append(sqlTableAlias).append(" ON (").append(keyColumnNamesMap.getSqlJoinCondition(sqlTableAlias, "sel")).append(")")
+				.append("\n ORDER BY ").append(sqlOrderBys != null ? sqlOrderBys + ", " : "").append("sel." + I_T_WEBUI_ViewSelection.COLUMNNAME_Line)
+				.build();
+	}
+
+	@Value
+	private static class SqlSourceTableAndOrderBys
+	{
+		@NonNull
+		SqlAndParams sqlSourceTable;
+		@Nullable
+		String sqlOrderBys;
+	}
+
+	private SqlSourceTableAndOrderBys buildSqlSourceTableAndOrderBys(
+			@NonNull final ViewEvaluationCtx viewEvalCtx,
+			@NonNull final DocumentFilterList filters,
+			@NonNull final DocumentQueryOrderByList orderBys,
+			@NonNull final SqlDocumentFilterConverterContext filterConverterCtx)
+	{
+		final String sqlTableAlias = getTableAlias();
+		final SqlViewKeyColumnNamesMap keyColumnNamesMap = getSqlViewKeyColumnNamesMap();
+
 		final DocumentQueryOrderByList orderBysEffective = orderBys.stream()
 				.flatMap(this::flatMapEffectiveFieldNames)
 				.collect(DocumentQueryOrderByList.toDocumentQueryOrderByList());
@@ -596,24 +706,7 @@ public final class SqlViewSelectionQueryBuilder
 				.map(sql -> _viewBinding.replaceTableNameWithTableAlias(sql, sqlTableAlias))
 				.orElse(null);
 
-		//
-		final String sqlJoinCondition = keyColumnNamesMap.getSqlJoinCondition(sqlTableAlias, "sel");
-
-		//
-		return SqlAndParams.builder()
-				.append("INSERT INTO " + I_T_WEBUI_ViewSelection.Table_Name + " ("
-						+ " " + I_T_WEBUI_ViewSelection.COLUMNNAME_UUID
-						+ ", " + I_T_WEBUI_ViewSelection.COLUMNNAME_Line
-						+ ", " + keyColumnNamesMap.getWebuiSelectionColumnNamesCommaSeparated()
-						+ ")")
-				.append("\n SELECT ")
-				.append("\n  ?", newViewId.getViewId()) // newUUID
-				.append("\n, ").append("row_number() OVER (").append(sqlOrderBys != null ? "ORDER BY " + sqlOrderBys : "").append(")") // Line
-				.append("\n, ").append(keyColumnNamesMap.getKeyColumnNamesCommaSeparated()) // keys
-				.append("\n FROM ").append(I_T_WEBUI_ViewSelection.Table_Name).append(" sel")
-				.append("\n INNER JOIN ").append(sqlSourceTable).append(" ").append(sqlTableAlias).append(" ON (").append(sqlJoinCondition).append(")")
-				.append("\n WHERE sel.").append(I_T_WEBUI_ViewSelection.COLUMNNAME_UUID).append("=?", fromSelectionId) // fromUUID
-				.build();
+		return new SqlSourceTableAndOrderBys(sqlSourceTable, sqlOrderBys);
 	}
 
 	/**
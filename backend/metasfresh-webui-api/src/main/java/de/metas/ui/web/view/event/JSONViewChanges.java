@@ -1,14 +1,19 @@
 package de.metas.ui.web.view.event;
 
 import java.io.Serializable;
+import java.util.Objects;
 import java.util.Set;
 
+import javax.annotation.Nullable;
+
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableSet;
 
+import de.metas.ui.web.websocket.WebsocketMergeableEvent;
 import de.metas.ui.web.window.datatypes.DocumentIdsSelection;
 import de.metas.ui.web.window.datatypes.WindowId;
 
@@ -36,13 +41,16 @@ import de.metas.ui.web.window.datatypes.WindowId;
 
 @SuppressWarnings("serial")
 @JsonAutoDetect(fieldVisibility = Visibility.ANY, getterVisibility = Visibility.NONE, setterVisibility = Visibility.NONE)
-public final class JSONViewChanges implements Serializable
+public final class JSONViewChanges implements Serializable, WebsocketMergeableEvent
 {
 	public static JSONViewChanges of(final ViewChanges changes)
 	{
 		return new JSONViewChanges(changes);
 	}
 
+	/** When merging events, if there are more changed row IDs than this, the view is considered fully changed */
+	private static final int MAX_CHANGED_IDS_TO_MERGE = 500;
+
 	@JsonProperty("viewId")
 	private final String viewId;
 	@JsonProperty("windowId")
@@ -82,6 +90,18 @@ public final class JSONViewChanges implements Serializable
 		}
 	}
 
+	private JSONViewChanges(
+			final String viewId,
+			final WindowId windowId,
+			@Nullable final Boolean fullyChanged,
+			@Nullable final Set<String> changedIds)
+	{
+		this.viewId = viewId;
+		this.windowId = windowId;
+		this.fullyChanged = fullyChanged;
+		this.changedIds = changedIds;
+	}
+
 	@Override
 	public String toString()
 	{
@@ -108,4 +128,55 @@ public final class JSONViewChanges implements Serializable
 	{
 		return fullyChanged;
 	}
+
+	/**
+	 * Merges the changed row IDs of both events. If there are too many changed row IDs, the view is considered fully changed.
+	 */
+	@Override
+	@Nullable
+	public JSONViewChanges mergeWithLaterEvent(final Object laterEvent)
+	{
+		if (!(laterEvent instanceof JSONViewChanges))
+		{
+			return null;
+		}
+
+		final JSONViewChanges other = (JSONViewChanges)laterEvent;
+		if (!Objects.equals(viewId, other.viewId)
+				|| !Objects.equals(windowId, other.windowId))
+		{
+			return null;
+		}
+
+		if (isFullyChanged())
+		{
+			return this;
+		}
+		else if (other.isFullyChanged())
+		{
+			return other;
+		}
+
+		final ImmutableSet<String> changedIdsMerged = ImmutableSet.<String> builder()
+				.addAll(changedIds != null ? changedIds : ImmutableSet.of())
+				.addAll(other.changedIds != null ? other.changedIds : ImmutableSet.of())
+				.build();
+		if (changedIdsMerged.size() > MAX_CHANGED_IDS_TO_MERGE)
+		{
+			return new JSONViewChanges(viewId, windowId, Boolean.TRUE, null);
+		}
+		else if (changedIdsMerged.isEmpty())
+		{
+			return this;
+		}
+		else
+		{
+			return new JSONViewChanges(viewId, windowId, Boolean.FALSE, changedIdsMerged);
+		}
+	}
+
+	private boolean isFullyChanged()
+	{
+		return fullyChanged != null && fullyChanged;
+	}
 }
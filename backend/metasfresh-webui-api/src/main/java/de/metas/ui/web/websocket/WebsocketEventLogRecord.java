@@ -32,6 +32,8 @@ public final class WebsocketEventLogRecord
 {
 	private final String destination;
 	private final Object payload;
+	/** how many events were merged into this one and therefore not sent */
+	private final int suppressedEventsCount;
 
 	boolean isDestinationMatching(final String destinationFilter)
 	{
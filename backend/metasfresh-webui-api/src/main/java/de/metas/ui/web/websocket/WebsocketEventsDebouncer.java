@@ -0,0 +1,240 @@
+package de.metas.ui.web.websocket;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.slf4j.Logger;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import de.metas.logging.LogManager;
+import lombok.NonNull;
+import lombok.ToString;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Collects the events for a destination during a short time window and then sends them.
+ * <p>
+ * While collecting, an event which is equal to the previous event of the same destination is dropped
+ * and a {@link WebsocketMergeableEvent} is merged with the following event of the same destination, if possible.
+ * The order of the events of a destination is preserved.
+ * <p>
+ * If the time window is zero, the events are sent right away.
+ */
+final class WebsocketEventsDebouncer
+{
+	private static final Logger logger = LogManager.getLogger(WebsocketEventsDebouncer.class);
+
+	private final SimpMessagingTemplate websocketMessagingTemplate;
+	private final WebsocketEventsLog eventsLog;
+	private final ScheduledExecutorService scheduler;
+
+	private volatile int debounceMillis = 0;
+
+	/** pending events indexed by destination; guarded by itself */
+	private final HashMap<String, PendingEvents> pendingEventsByDestination = new HashMap<>();
+	/** guarded by {@link #pendingEventsByDestination} */
+	private boolean shutdown = false;
+
+	public WebsocketEventsDebouncer(
+			@NonNull final SimpMessagingTemplate websocketMessagingTemplate,
+			@NonNull final WebsocketEventsLog eventsLog)
+	{
+		this.websocketMessagingTemplate = websocketMessagingTemplate;
+		this.eventsLog = eventsLog;
+
+		scheduler = Executors.newSingleThreadScheduledExecutor(
+				CustomizableThreadFactory.builder()
+						.setDaemon(true)
+						.setThreadNamePrefix(WebsocketEventsDebouncer.class.getSimpleName())
+						.build());
+	}
+
+	public void setDebounceMillis(final int debounceMillis)
+	{
+		this.debounceMillis = Math.max(debounceMillis, 0);
+		logger.info("Set debounceMillis={}", this.debounceMillis);
+	}
+
+	public void send(@NonNull final String destination, @NonNull final Object payload)
+	{
+		final int debounceMillis = this.debounceMillis;
+		if (debounceMillis <= 0)
+		{
+			final int suppressedEventsCount = 0;
+			sendNow(destination, payload, suppressedEventsCount);
+			return;
+		}
+
+		synchronized (pendingEventsByDestination)
+		{
+			if (!shutdown)
+			{
+				PendingEvents pendingEvents = pendingEventsByDestination.get(destination);
+				if (pendingEvents == null)
+				{
+					pendingEvents = new PendingEvents();
+					pendingEventsByDestination.put(destination, pendingEvents);
+					scheduler.schedule(() -> flush(destination), debounceMillis, TimeUnit.MILLISECONDS);
+				}
+
+				pendingEvents.add(payload);
+				return;
+			}
+		}
+
+		// shutting down => don't collect the events anymore
+		final int suppressedEventsCount = 0;
+		sendNow(destination, payload, suppressedEventsCount);
+	}
+
+	/**
+	 * Sends the pending events right away. Events which are sent after this are not debounced anymore.
+	 */
+	public void shutdown()
+	{
+		final List<String> destinations;
+		synchronized (pendingEventsByDestination)
+		{
+			if (shutdown)
+			{
+				return;
+			}
+			shutdown = true;
+			destinations = new ArrayList<>(pendingEventsByDestination.keySet());
+		}
+
+		// the flushes which are already scheduled will find nothing to send
+		scheduler.shutdown();
+
+		logger.info("Shutting down: flushing the pending events of {} destinations", destinations.size());
+		destinations.forEach(this::flush);
+	}
+
+	private void flush(@NonNull final String destination)
+	{
+		final PendingEvents pendingEvents;
+		synchronized (pendingEventsByDestination)
+		{
+			pendingEvents = pendingEventsByDestination.remove(destination);
+		}
+		if (pendingEvents == null)
+		{
+			return;
+		}
+
+		for (final PendingEvent event : pendingEvents.getEvents())
+		{
+			try
+			{
+				sendNow(destination, event.getPayload(), event.getSuppressedEventsCount());
+			}
+			catch (final Exception ex)
+			{
+				logger.warn("Failed sending event to {}: {}", destination, event, ex);
+			}
+		}
+	}
+
+	private void sendNow(final String destination, final Object payload, final int suppressedEventsCount)
+	{
+		logger.debug("Sending to destination={} (suppressed {} events): payload={}", destination, suppressedEventsCount, payload);
+
+		websocketMessagingTemplate.convertAndSend(destination, payload);
+		eventsLog.logEvent(destination, payload, suppressedEventsCount);
+	}
+
+	@ToString
+	private static final class PendingEvent
+	{
+		private Object payload;
+		private int suppressedEventsCount = 0;
+
+		private PendingEvent(@NonNull final Object payload)
+		{
+			this.payload = payload;
+		}
+
+		public Object getPayload()
+		{
+			return payload;
+		}
+
+		public int getSuppressedEventsCount()
+		{
+			return suppressedEventsCount;
+		}
+
+		/**
+		 * @return true if <code>laterPayload</code> is covered by this event and does not need to be sent anymore
+		 */
+		public boolean mergeFrom(@NonNull final Object laterPayload)
+		{
+			if (Objects.equals(payload, laterPayload))
+			{
+				suppressedEventsCount++;
+				return true;
+			}
+
+			if (payload instanceof WebsocketMergeableEvent)
+			{
+				final Object mergedPayload = ((WebsocketMergeableEvent)payload).mergeWithLaterEvent(laterPayload);
+				if (mergedPayload != null)
+				{
+					payload = mergedPayload;
+					suppressedEventsCount++;
+					return true;
+				}
+			}
+
+			return false;
+		}
+	}
+
+	private static final class PendingEvents
+	{
+		private final List<PendingEvent> events = new ArrayList<>();
+
+		public void add(@NonNull final Object payload)
+		{
+			final PendingEvent lastEvent = !events.isEmpty() ? events.get(events.size() - 1) : null;
+			if (lastEvent != null && lastEvent.mergeFrom(payload))
+			{
+				return;
+			}
+
+			events.add(new PendingEvent(payload));
+		}
+
+		public List<PendingEvent> getEvents()
+		{
+			return events;
+		}
+	}
+}
@@ -5,6 +5,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 
@@ -42,8 +43,23 @@ public final class WebsocketEventsLog
 	private final AtomicInteger logEventsMaxSize = new AtomicInteger(500);
 	private final List<WebsocketEventLogRecord> loggedEvents = new LinkedList<>();
 
+	private final AtomicLong countEventsSent = new AtomicLong();
+	private final AtomicLong countEventsSuppressed = new AtomicLong();
+
 	public void logEvent(final String destination, final Object event)
 	{
+		final int suppressedEventsCount = 0;
+		logEvent(destination, event, suppressedEventsCount);
+	}
+
+	/**
+	 * @param suppressedEventsCount how many events were not sent because they were merged into given <code>event</code>
+	 */
+	public void logEvent(final String destination, final Object event, final int suppressedEventsCount)
+	{
+		countEventsSent.incrementAndGet();
+		countEventsSuppressed.addAndGet(suppressedEventsCount);
+
 		if (!logEventsEnabled.get())
 		{
 			return;
@@ -51,9 +67,9 @@ public final class WebsocketEventsLog
 
 		synchronized (loggedEvents)
 		{
-			logger.info("{}: {}", destination, event);
+			logger.info("{} (suppressed {} events): {}", destination, suppressedEventsCount, event);
 
-			loggedEvents.add(new WebsocketEventLogRecord(destination, event));
+			loggedEvents.add(new WebsocketEventLogRecord(destination, event, suppressedEventsCount));
 			final int maxSize = logEventsMaxSize.get();
 			while (loggedEvents.size() > maxSize)
 			{
@@ -83,6 +99,14 @@ public final class WebsocketEventsLog
 		}
 	}
 
+	public WebsocketEventsStats getStats()
+	{
+		return WebsocketEventsStats.builder()
+				.countEventsSent(countEventsSent.get())
+				.countEventsSuppressed(countEventsSuppressed.get())
+				.build();
+	}
+
 	public List<WebsocketEventLogRecord> getLoggedEvents(final String destinationFilter)
 	{
 		return getLoggedEvents()
@@ -90,4 +114,13 @@ public final class WebsocketEventsLog
 				.filter(websocketEvent -> websocketEvent.isDestinationMatching(destinationFilter))
 				.collect(ImmutableList.toImmutableList());
 	}
+
+	@lombok.Value
+	@lombok.Builder
+	public static class WebsocketEventsStats
+	{
+		long countEventsSent;
+		/** how many events were not sent because they were merged into other events */
+		long countEventsSuppressed;
+	}
 }
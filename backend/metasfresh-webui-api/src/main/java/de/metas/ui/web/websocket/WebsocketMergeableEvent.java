@@ -0,0 +1,40 @@
+package de.metas.ui.web.websocket;
+
+import javax.annotation.Nullable;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Websocket event which can be merged with a later event sent to the same destination, so that only one message is sent instead of two.
+ *
+ * @see WebsocketSender
+ */
+public interface WebsocketMergeableEvent
+{
+	/**
+	 * @param laterEvent an event which was enqueued after this one, for the same destination
+	 * @return a new event which covers both events, or <code>null</code> if the events cannot be merged. This instance and <code>laterEvent</code> shall not be changed.
+	 */
+	@Nullable
+	Object mergeWithLaterEvent(Object laterEvent);
+}
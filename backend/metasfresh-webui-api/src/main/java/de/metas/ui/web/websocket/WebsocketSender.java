@@ -4,6 +4,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import javax.annotation.PreDestroy;
+
 import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.ad.trx.api.ITrxListenerManager.TrxEventTiming;
 import org.adempiere.ad.trx.api.ITrxManager;
@@ -46,6 +48,9 @@ import lombok.NonNull;
  *
  * NOTE: by default, all methods will send the events after the current DB transaction is committed.
  * If there is no current transaction, the events will be sent right away.
+ * <p>
+ * Not yet converted events are then collected per destination for <code>metasfresh.webui.websocket.debounceMillis</code> and merged where possible,
+ * see {@link WebsocketEventsDebouncer}.
  *
  * @author metas-dev <dev@metasfresh.com>
  *
@@ -57,21 +62,37 @@ public class WebsocketSender implements InitializingBean
 
 	private final SimpMessagingTemplate websocketMessagingTemplate;
 	private final WebsocketEventsLog eventsLog = new WebsocketEventsLog();
+	private final WebsocketEventsDebouncer debouncer;
 	private final WebsocketEventsQueue autoflushQueue;
 
 	@Value("${metasfresh.webui.websocket.logEventsEnabled:false}")
 	private boolean logEventsEnabledDefault;
 
+	/** For how long the events of a destination are collected and merged before they are sent. Zero means they are sent right away. */
+	@Value("${metasfresh.webui.websocket.debounceMillis:100}")
+	private int debounceMillis;
+
 	public WebsocketSender(final SimpMessagingTemplate websocketMessagingTemplate)
 	{
 		this.websocketMessagingTemplate = websocketMessagingTemplate;
-		autoflushQueue = new WebsocketEventsQueue("AUTOFLUSH", websocketMessagingTemplate, eventsLog, /* autoflush */true);
+		debouncer = new WebsocketEventsDebouncer(websocketMessagingTemplate, eventsLog);
+		autoflushQueue = new WebsocketEventsQueue("AUTOFLUSH", websocketMessagingTemplate, debouncer, /* autoflush */true);
 	}
 
 	@Override
 	public void afterPropertiesSet() throws Exception
 	{
 		eventsLog.setLogEventsEnabled(logEventsEnabledDefault);
+		debouncer.setDebounceMillis(debounceMillis);
+	}
+
+	/**
+	 * Sends the events which are still collected by the debouncer, so they are not lost when the application is stopped.
+	 */
+	@PreDestroy
+	public void shutdown()
+	{
+		debouncer.shutdown();
 	}
 
 	public void convertAndSend(final Collection<? extends WebsocketEndpointAware> events)
@@ -116,7 +137,7 @@ public class WebsocketSender implements InitializingBean
 	{
 		final String name = trx.getTrxName();
 		final boolean autoflush = false;
-		final WebsocketEventsQueue queue = new WebsocketEventsQueue(name, websocketMessagingTemplate, eventsLog, autoflush);
+		final WebsocketEventsQueue queue = new WebsocketEventsQueue(name, websocketMessagingTemplate, debouncer, autoflush);
 
 		// Bind
 		trx.getTrxListenerManager()
@@ -141,6 +162,11 @@ public class WebsocketSender implements InitializingBean
 		return eventsLog.getLoggedEvents(destinationFilter);
 	}
 
+	public WebsocketEventsLog.WebsocketEventsStats getEventsStats()
+	{
+		return eventsLog.getStats();
+	}
+
 	@lombok.Value
 	@lombok.Builder
 	private static final class WebsocketEvent
@@ -155,19 +181,19 @@ public class WebsocketSender implements InitializingBean
 		/** internal name, used for logging */
 		private final String name;
 		private final SimpMessagingTemplate websocketMessagingTemplate;
-		private final WebsocketEventsLog eventsLog;
+		private final WebsocketEventsDebouncer debouncer;
 		private final boolean autoflush;
 		private final List<WebsocketEvent> events = new ArrayList<>();
 
 		public WebsocketEventsQueue(
 				@NonNull final String name,
 				@NonNull final SimpMessagingTemplate websocketMessagingTemplate,
-				@NonNull final WebsocketEventsLog eventsLog,
+				@NonNull final WebsocketEventsDebouncer debouncer,
 				final boolean autoflush)
 		{
 			this.name = name;
 			this.websocketMessagingTemplate = websocketMessagingTemplate;
-			this.eventsLog = eventsLog;
+			this.debouncer = debouncer;
 			this.autoflush = autoflush;
 		}
 
@@ -231,17 +257,18 @@ public class WebsocketSender implements InitializingBean
 
 		private void sendEvent(final String destination, final Object payload, final boolean converted)
 		{
-			logger.debug("[name={}] Sending to destination={}: payload={}", name, destination, payload);
-
 			if (converted)
 			{
+				logger.debug("[name={}] Sending to destination={}: payload={}", name, destination, payload);
+
 				final Message<?> message = (Message<?>)payload;
 				websocketMessagingTemplate.send(destination, message);
 			}
 			else
 			{
-				websocketMessagingTemplate.convertAndSend(destination, payload);
-				eventsLog.logEvent(destination, payload);
+				logger.debug("[name={}] Forwarding to debouncer, destination={}: payload={}", name, destination, payload);
+
+				debouncer.send(destination, payload);
 			}
 		}
 	}
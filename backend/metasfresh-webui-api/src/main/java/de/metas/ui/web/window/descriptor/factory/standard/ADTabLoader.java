@@ -1,6 +1,5 @@
 package de.metas.ui.web.window.descriptor.factory.standard;
 
-import org.adempiere.ad.element.api.AdWindowId;
 import org.compiere.model.GridTabVO;
 import org.compiere.model.GridWindowVO;
 
@@ -37,7 +36,8 @@ import lombok.Value;
 @Builder
 public class ADTabLoader
 {
-	AdWindowId adWindowId;
+	@NonNull
+	GridWindowVO gridWindowVO;
 
 	@NonNull
 	LayoutFactory rootLayoutFactory;
@@ -47,7 +47,6 @@ public class ADTabLoader
 
 	public void load()
 	{
-		final GridWindowVO gridWindowVO = DocumentLoaderUtil.createGridWindoVO(adWindowId);
 		//
 		// Layout: Create UI details from child tabs
 		for (final GridTabVO detailTabVO : gridWindowVO.getChildTabs(GridTabVO.MAIN_TabNo))
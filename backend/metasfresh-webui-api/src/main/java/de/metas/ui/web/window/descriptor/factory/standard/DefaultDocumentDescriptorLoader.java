@@ -110,7 +110,7 @@ import lombok.NonNull;
 		}
 
 		ADTabLoader.builder()
-				.adWindowId(adWindowId)
+				.gridWindowVO(gridWindowVO) // reuse the already loaded window, don't load it again
 				.rootLayoutFactory(rootLayoutFactory)
 				.layoutBuilder(layoutBuilder)
 				.build()
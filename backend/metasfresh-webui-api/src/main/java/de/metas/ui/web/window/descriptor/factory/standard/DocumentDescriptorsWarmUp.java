@@ -0,0 +1,189 @@
+package de.metas.ui.web.window.descriptor.factory.standard;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.adempiere.ad.dao.IQueryBL;
+import org.adempiere.ad.element.api.AdWindowId;
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.compiere.model.I_AD_Window;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+
+import de.metas.logging.LogManager;
+import de.metas.ui.web.window.datatypes.WindowId;
+import de.metas.util.Services;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * After the application started, loads the document descriptors of all active windows in background,
+ * so that the first user who opens a window does not have to wait until its descriptor is built.
+ * <p>
+ * Configuration:
+ * <ul>
+ * <li><code>metasfresh.webui.descriptors.warmUp.enabled</code> - default true
+ * <li><code>metasfresh.webui.descriptors.warmUp.threads</code> - number of threads; zero or less (the default) means the number of available processors, and it's never more than that
+ * </ul>
+ * <p>
+ * Note: a serialized descriptor snapshot, which would be loaded from disk instead of querying the application dictionary, is not part of this warm-up.
+ * The {@link de.metas.ui.web.window.descriptor.DocumentDescriptor}s are not serializable, because they hold lookup data sources, callouts and other live objects,
+ * so such a snapshot needs its own descriptor format and is a separate piece of work.
+ */
+@Component
+public class DocumentDescriptorsWarmUp
+{
+	private static final Logger logger = LogManager.getLogger(DocumentDescriptorsWarmUp.class);
+
+	@VisibleForTesting
+	static final String THREAD_NAME_PREFIX = "webui-descriptors-warmUp";
+
+	private final DefaultDocumentDescriptorFactory documentDescriptorFactory;
+	private final boolean enabled;
+	private final int threads;
+
+	public DocumentDescriptorsWarmUp(
+			@NonNull final DefaultDocumentDescriptorFactory documentDescriptorFactory,
+			@Value("${metasfresh.webui.descriptors.warmUp.enabled:true}") final boolean enabled,
+			@Value("${metasfresh.webui.descriptors.warmUp.threads:0}") final int threads)
+	{
+		this.documentDescriptorFactory = documentDescriptorFactory;
+		this.enabled = enabled;
+		this.threads = computeThreadsEffective(threads);
+	}
+
+	@VisibleForTesting
+	static int computeThreadsEffective(final int threads)
+	{
+		final int availableProcessors = Runtime.getRuntime().availableProcessors();
+		return threads > 0 ? Math.min(threads, availableProcessors) : availableProcessors;
+	}
+
+	@lombok.Value
+	@VisibleForTesting
+	static class WarmUpResult
+	{
+		int countLoaded;
+		int countFailed;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void onApplicationReady()
+	{
+		if (!enabled)
+		{
+			logger.info("Document descriptors warm-up is disabled");
+			return;
+		}
+
+		try
+		{
+			warmUpAsync();
+		}
+		catch (final Exception ex)
+		{
+			// don't fail the application startup, the descriptors will be loaded on demand
+			logger.warn("Failed starting the document descriptors warm-up. Ignored.", ex);
+		}
+	}
+
+	@VisibleForTesting
+	CompletableFuture<WarmUpResult> warmUpAsync()
+	{
+		final List<WindowId> windowIds = retrieveActiveWindowIds();
+		if (windowIds.isEmpty())
+		{
+			return CompletableFuture.completedFuture(new WarmUpResult(0, 0));
+		}
+
+		final ExecutorService executor = Executors.newFixedThreadPool(
+				threads,
+				CustomizableThreadFactory.builder()
+						.setDaemon(true)
+						.setThreadNamePrefix(THREAD_NAME_PREFIX)
+						.build());
+
+		final Stopwatch stopwatch = Stopwatch.createStarted();
+		final AtomicInteger countLoaded = new AtomicInteger();
+		final AtomicInteger countFailed = new AtomicInteger();
+
+		final CompletableFuture<?>[] futures = windowIds.stream()
+				.map(windowId -> CompletableFuture.runAsync(() -> warmUp(windowId, countLoaded, countFailed), executor))
+				.toArray(CompletableFuture[]::new);
+
+		// no new tasks will be accepted, but the already submitted ones will be executed
+		executor.shutdown();
+
+		logger.info("Started document descriptors warm-up for {} windows using {} threads", windowIds.size(), threads);
+
+		return CompletableFuture.allOf(futures)
+				.thenApply(result -> {
+					logger.info("Document descriptors warm-up done in {}: loaded={}, failed={}, threads={}",
+							stopwatch, countLoaded.get(), countFailed.get(), threads);
+					return new WarmUpResult(countLoaded.get(), countFailed.get());
+				});
+	}
+
+	private List<WindowId> retrieveActiveWindowIds()
+	{
+		return Services.get(IQueryBL.class)
+				.createQueryBuilderOutOfTrx(I_AD_Window.class)
+				.addOnlyActiveRecordsFilter()
+				.orderBy(I_AD_Window.COLUMNNAME_AD_Window_ID)
+				.create()
+				.listIds(AdWindowId::ofRepoId)
+				.stream()
+				.map(WindowId::of)
+				.filter(documentDescriptorFactory::isWindowIdSupported)
+				.collect(ImmutableList.toImmutableList());
+	}
+
+	private void warmUp(
+			@NonNull final WindowId windowId,
+			@NonNull final AtomicInteger countLoaded,
+			@NonNull final AtomicInteger countFailed)
+	{
+		try
+		{
+			documentDescriptorFactory.getDocumentDescriptor(windowId);
+			countLoaded.incrementAndGet();
+		}
+		catch (final Exception ex)
+		{
+			// some windows are not supported by webui (e.g. swing only windows), so don't spam the log
+			logger.debug("Failed loading document descriptor for {}. Ignored.", windowId, ex);
+			countFailed.incrementAndGet();
+		}
+	}
+}
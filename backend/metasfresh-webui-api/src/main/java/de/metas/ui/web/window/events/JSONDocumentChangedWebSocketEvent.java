@@ -5,6 +5,8 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 
+import javax.annotation.Nullable;
+
 import org.adempiere.exceptions.AdempiereException;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
@@ -15,6 +17,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 
 import de.metas.ui.web.websocket.WebSocketConfig;
 import de.metas.ui.web.websocket.WebsocketEndpointAware;
+import de.metas.ui.web.websocket.WebsocketMergeableEvent;
 import de.metas.ui.web.window.datatypes.DocumentId;
 import de.metas.ui.web.window.datatypes.DocumentIdsSelection;
 import de.metas.ui.web.window.datatypes.WindowId;
@@ -59,7 +62,7 @@ import lombok.ToString;
 @JsonAutoDetect(fieldVisibility = Visibility.ANY, getterVisibility = Visibility.NONE, isGetterVisibility = Visibility.NONE, setterVisibility = Visibility.NONE)
 @EqualsAndHashCode
 @ToString
-final class JSONDocumentChangedWebSocketEvent implements WebsocketEndpointAware
+final class JSONDocumentChangedWebSocketEvent implements WebsocketEndpointAware, WebsocketMergeableEvent
 {
 	public static JSONDocumentChangedWebSocketEvent rootDocument(final WindowId windowId, final DocumentId documentId)
 	{
@@ -185,4 +188,25 @@ final class JSONDocumentChangedWebSocketEvent implements WebsocketEndpointAware
 
 		from.getIncludedTabsInfo().values().forEach(this::addIncludedTabInfo);
 	}
+
+	@Override
+	@Nullable
+	public JSONDocumentChangedWebSocketEvent mergeWithLaterEvent(final Object laterEvent)
+	{
+		if (!(laterEvent instanceof JSONDocumentChangedWebSocketEvent))
+		{
+			return null;
+		}
+
+		final JSONDocumentChangedWebSocketEvent other = (JSONDocumentChangedWebSocketEvent)laterEvent;
+		if (!Objects.equals(windowId, other.windowId)
+				|| !Objects.equals(id, other.id))
+		{
+			return null;
+		}
+
+		final JSONDocumentChangedWebSocketEvent merged = copy();
+		merged.mergeFrom(other);
+		return merged;
+	}
 }
@@ -1812,6 +1812,24 @@ public final class Document
 
 	}
 
+	/**
+	 * Estimates how much memory this document is using, by counting its fields and the fields of its included documents (see {@link IIncludedDocumentsCollection#estimateWeight()}).
+	 * The result is not in bytes but it's good enough to compare documents between them.
+	 * <p>
+	 * Note: the caller shall hold the read or write lock of the root document.
+	 *
+	 * @return estimated weight, i.e. number of fields
+	 */
+	/* package */ int estimateWeight()
+	{
+		int weight = fieldsByName.size();
+		for (final IIncludedDocumentsCollection includedDocumentsPerDetailId : includedDocuments.values())
+		{
+			weight += includedDocumentsPerDetailId.estimateWeight();
+		}
+		return weight;
+	}
+
 	/* package */void updateIncludedDetailsStatus()
 	{
 		includedDocuments.values().forEach(IIncludedDocumentsCollection::updateStatusFromParent);
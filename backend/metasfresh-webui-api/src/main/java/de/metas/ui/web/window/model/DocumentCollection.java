@@ -24,8 +24,6 @@ package de.metas.ui.web.window.model;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
@@ -77,7 +75,6 @@ import org.adempiere.model.CopyRecordFactory;
 import org.adempiere.model.CopyRecordSupport;
 import org.adempiere.model.InterfaceWrapperHelper;
 import org.adempiere.model.PlainContextAware;
-import org.adempiere.service.ISysConfigBL;
 import org.adempiere.util.lang.IAutoCloseable;
 import org.adempiere.util.lang.impl.TableRecordReference;
 import org.compiere.model.PO;
@@ -97,15 +94,11 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutionException;
 import java.util.function.Function;
 
 @Component
 public class DocumentCollection
 {
-	private static final String SYSCONFIG_CACHE_SIZE = "de.metas.ui.web.window.model.DocumentCollection.CacheSize";
-	private static final int DEFAULT_CACHE_SIZE = 800;
-
 	private static final Logger logger = LogManager.getLogger(DocumentCollection.class);
 	public static final AdMessageKey MSG_CLONING_NOT_ALLOWED_FOR_CURRENT_WINDOW = AdMessageKey.of("de.metas.ui.web.window.model.DocumentCollection.CloningNotAllowedForCurrentWindow");
 
@@ -118,21 +111,13 @@ public class DocumentCollection
 	@Autowired
 	private DocumentWebsocketPublisher websocketPublisher;
 
-	private final Cache<DocumentKey, Document> rootDocuments;
+	private final RootDocumentsCache<DocumentKey, Document> rootDocuments;
 
 	private final ConcurrentHashMap<String, Set<WindowId>> tableName2windowIds = new ConcurrentHashMap<>();
 
 	/* package */ DocumentCollection()
 	{
-		// setup the cache
-		final int cacheSize = Services
-				.get(ISysConfigBL.class)
-				.getIntValue(SYSCONFIG_CACHE_SIZE, DEFAULT_CACHE_SIZE);
-
-		rootDocuments = CacheBuilder
-				.newBuilder()
-				.maximumSize(cacheSize)
-				.build();
+		rootDocuments = RootDocumentsCache.newInstanceFromSysConfig();
 	}
 
 	public DocumentDescriptorFactory getDocumentDescriptorFactory()
@@ -208,21 +193,14 @@ public class DocumentCollection
 
 	private Document getOrLoadDocument(@NonNull final DocumentKey documentKey)
 	{
-		try
-		{
-			return rootDocuments.get(documentKey, () -> {
+		return rootDocuments.getOrLoad(documentKey, () -> {
 
-				final Document rootDocument = retrieveRootDocumentFromRepository(documentKey)
-						.copy(CopyMode.CheckInReadonly, NullDocumentChangesCollector.instance);
+			final Document rootDocument = retrieveRootDocumentFromRepository(documentKey)
+					.copy(CopyMode.CheckInReadonly, NullDocumentChangesCollector.instance);
 
-				addToTableName2WindowIdsCache(rootDocument.getEntityDescriptor());
-				return rootDocument;
-			});
-		}
-		catch (final ExecutionException e)
-		{
-			throw AdempiereException.wrapIfNeeded(e);
-		}
+			addToTableName2WindowIdsCache(rootDocument.getEntityDescriptor());
+			return rootDocument;
+		});
 	}
 
 	public <R> R forRootDocumentReadonly(@NonNull final DocumentPath documentPath, final Function<Document, R> rootDocumentProcessor)
@@ -416,6 +394,7 @@ public class DocumentCollection
 			}
 
 			rootDocuments.invalidateAll(documentKeysToInvalidate);
+			rootDocuments.invalidateAllIdle(); // idle documents have no changes
 
 			result = "invalidate " + documentKeysToInvalidate.size() + " documents with no changes;"
 					+ " skipped " + countDocumentsWithChanges + " documents with changes";
@@ -427,6 +406,11 @@ public class DocumentCollection
 		return result;
 	}
 
+	public RootDocumentsCacheStats getCacheStats()
+	{
+		return rootDocuments.getStats();
+	}
+
 	private void commitRootDocument(@NonNull final Document rootDocument)
 	{
 		Preconditions.checkState(rootDocument.isRootDocument(), "{} is not a root document", rootDocument);
@@ -689,7 +673,7 @@ public class DocumentCollection
 	public void invalidateDocumentsByWindowId(@NonNull final WindowId windowId)
 
 	{
-		final ImmutableList<DocumentKey> documentKeys = rootDocuments.asMap().keySet()
+		final ImmutableList<DocumentKey> documentKeys = rootDocuments.getKeys()
 				.stream()
 				.filter(documentKey -> windowId.equals(documentKey.getWindowId()))
 				.collect(ImmutableList.toImmutableList());
@@ -73,6 +73,7 @@ public class HighVolumeReadWriteIncludedDocumentsCollection implements IIncluded
 	private final ActionsContext actionsContext = new ActionsContext();
 	private DocumentReadonly parentReadonly = null;
 	private boolean staled = false;
+	private int loadedDocumentsCount = 0;
 
 	private HighVolumeReadWriteIncludedDocumentsCollection(@NonNull final Document parentDocument, @NonNull final DocumentEntityDescriptor entityDescriptor)
 	{
@@ -109,6 +110,7 @@ public class HighVolumeReadWriteIncludedDocumentsCollection implements IIncluded
 		actions = from.actions.copy();
 		parentReadonly = from.parentReadonly;
 		staled = from.staled;
+		loadedDocumentsCount = from.loadedDocumentsCount;
 	}
 
 	@Override
@@ -183,6 +185,7 @@ public class HighVolumeReadWriteIncludedDocumentsCollection implements IIncluded
 		}
 
 		staled = false;
+		loadedDocumentsCount = documents.size();
 
 		return documents;
 	}
@@ -394,6 +397,22 @@ public class HighVolumeReadWriteIncludedDocumentsCollection implements IIncluded
 				.anyMatch(document -> document.hasChangesRecursivelly());
 	}
 
+	@Override
+	public int estimateWeight()
+	{
+		int weight = 0;
+		final Collection<Document> changedDocuments = getChangedDocuments();
+		for (final Document changedDocument : changedDocuments)
+		{
+			weight += changedDocument.estimateWeight();
+		}
+
+		final int countNotChanged = Math.max(loadedDocumentsCount - changedDocuments.size(), 0);
+		weight += countNotChanged * entityDescriptor.getFields().size();
+
+		return weight;
+	}
+
 	@Override
 	public void saveIfHasChanges()
 	{
@@ -42,6 +42,7 @@ public final class HighVolumeReadonlyIncludedDocumentsCollection implements IInc
 {
 	private final Document parentDocument;
 	private final DocumentEntityDescriptor entityDescriptor;
+	private volatile int loadedDocumentsCount = 0;
 
 	private static final LogicExpressionResult RESULT_TabReadOnly = LogicExpressionResult.namedConstant("Tab is readonly", false);
 
@@ -74,11 +75,15 @@ public final class HighVolumeReadonlyIncludedDocumentsCollection implements IInc
 	@Override
 	public OrderedDocumentsList getDocuments(final DocumentQueryOrderByList orderBys)
 	{
-		return DocumentQuery.builder(entityDescriptor)
+		final OrderedDocumentsList documents = DocumentQuery.builder(entityDescriptor)
 				.setParentDocument(parentDocument)
 				.setChangesCollector(NullDocumentChangesCollector.instance)
 				.setOrderBys(orderBys)
 				.retriveDocuments();
+
+		loadedDocumentsCount = documents.size();
+
+		return documents;
 	}
 
 	@Override
@@ -186,6 +191,12 @@ public final class HighVolumeReadonlyIncludedDocumentsCollection implements IInc
 		return false;
 	}
 
+	@Override
+	public int estimateWeight()
+	{
+		return loadedDocumentsCount * entityDescriptor.getFields().size();
+	}
+
 	@Override
 	public void saveIfHasChanges()
 	{
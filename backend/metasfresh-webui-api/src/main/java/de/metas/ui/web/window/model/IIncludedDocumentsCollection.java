@@ -63,6 +63,16 @@ public interface IIncludedDocumentsCollection
 	 */
 	boolean hasChangesRecursivelly();
 
+	/**
+	 * Estimates the weight of the included documents, like {@link Document#estimateWeight()} does for the root document.
+	 * <p>
+	 * High volume collections don't keep their documents in memory (unless they have changes), but they are loading all of them each time they are requested.
+	 * That's why those documents are weighed by the number of documents which were loaded last time.
+	 *
+	 * @return estimated weight, i.e. number of fields
+	 */
+	int estimateWeight();
+
 	void saveIfHasChanges();
 
 	void markStaleAll();
@@ -0,0 +1,342 @@
+package de.metas.ui.web.window.model;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+import javax.annotation.Nullable;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.service.ISysConfigBL;
+import org.adempiere.util.lang.IAutoCloseable;
+import org.slf4j.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableSet;
+
+import de.metas.logging.LogManager;
+import de.metas.util.Services;
+import lombok.Builder;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Cache of root {@link Document}s, used by {@link DocumentCollection}.
+ * <p>
+ * By default, the cache is bounded by the estimated weight of the documents (see {@link Document#estimateWeight()}),
+ * so a few big documents with many included documents will not keep the same amount of memory as many small ones.
+ * Alternatively, it can be bounded by the number of documents.
+ * Note that a document is weighed when it's added to the cache, i.e. when it's loaded or when its changes are committed.
+ * <p>
+ * The documents without changes which are evicted because the cache is full are moved to an "idle" cache which keeps them softly reachable,
+ * i.e. the garbage collector may reclaim them when memory is needed. If such a document is requested again, it's moved back and it's not loaded again from database.
+ * <p>
+ * Configuration (sysconfig):
+ * <ul>
+ * <li>{@value #SYSCONFIG_CacheMaxWeight} - max total weight, default {@value #DEFAULT_CacheMaxWeight}; if zero or negative, the cache is bounded by {@value #SYSCONFIG_CacheSize}
+ * <li>{@value #SYSCONFIG_CacheSize} - max number of documents; used if the cache is not bounded by weight
+ * <li>{@value #SYSCONFIG_IdleCacheSize} - max number of idle documents, default {@value #DEFAULT_IdleCacheSize}; if zero or negative, the idle cache is disabled
+ * </ul>
+ */
+final class RootDocumentsCache<K, T>
+{
+	private static final Logger logger = LogManager.getLogger(RootDocumentsCache.class);
+
+	private static final String SYSCONFIG_CacheSize = "de.metas.ui.web.window.model.DocumentCollection.CacheSize";
+	private static final int DEFAULT_CacheSize = 800;
+
+	private static final String SYSCONFIG_CacheMaxWeight = "de.metas.ui.web.window.model.DocumentCollection.CacheMaxWeight";
+	/** about {@link #DEFAULT_CacheSize} documents with 500 fields each, including the fields of their loaded included documents */
+	private static final int DEFAULT_CacheMaxWeight = 400_000;
+
+	private static final String SYSCONFIG_IdleCacheSize = "de.metas.ui.web.window.model.DocumentCollection.IdleCacheSize";
+	private static final int DEFAULT_IdleCacheSize = 2 * DEFAULT_CacheSize;
+
+	public static <K> RootDocumentsCache<K, Document> newInstanceFromSysConfig()
+	{
+		final ISysConfigBL sysConfigBL = Services.get(ISysConfigBL.class);
+		return RootDocumentsCache.<K, Document> builder()
+				.maxWeight(sysConfigBL.getIntValue(SYSCONFIG_CacheMaxWeight, DEFAULT_CacheMaxWeight))
+				.maxSize(sysConfigBL.getIntValue(SYSCONFIG_CacheSize, DEFAULT_CacheSize))
+				.idleMaxSize(sysConfigBL.getIntValue(SYSCONFIG_IdleCacheSize, DEFAULT_IdleCacheSize))
+				.weigher(Document::estimateWeight)
+				.hasChanges(Document::hasChangesRecursivelly)
+				.lockForReading(Document::lockForReading)
+				.build();
+	}
+
+	private final int maxWeight;
+	private final int maxSize;
+	private final ToIntFunction<T> weigher;
+	private final Predicate<T> hasChanges;
+	private final Function<T, IAutoCloseable> lockForReading;
+	private final Cache<K, T> documents;
+
+	/** documents without changes which were evicted from {@link #documents}; null if disabled */
+	@Nullable
+	private final Cache<K, T> idleDocuments;
+
+	@Builder
+	@VisibleForTesting
+	RootDocumentsCache(
+			final int maxWeight,
+			final int maxSize,
+			final int idleMaxSize,
+			@NonNull final ToIntFunction<T> weigher,
+			@NonNull final Predicate<T> hasChanges,
+			@NonNull final Function<T, IAutoCloseable> lockForReading)
+	{
+		this.weigher = weigher;
+		this.hasChanges = hasChanges;
+		this.lockForReading = lockForReading;
+
+		if (idleMaxSize > 0)
+		{
+			idleDocuments = CacheBuilder.newBuilder()
+					.softValues()
+					.maximumSize(idleMaxSize)
+					.recordStats()
+					.build();
+		}
+		else
+		{
+			idleDocuments = null;
+		}
+
+		final CacheBuilder<K, T> cacheBuilder = CacheBuilder.newBuilder()
+				.recordStats()
+				.removalListener(this::onRemoval);
+		if (maxWeight > 0)
+		{
+			this.maxWeight = maxWeight;
+			this.maxSize = -1;
+			documents = cacheBuilder
+					.maximumWeight(maxWeight)
+					.weigher((K key, T document) -> weigher.applyAsInt(document))
+					.build();
+		}
+		else
+		{
+			this.maxWeight = -1;
+			this.maxSize = maxSize;
+			documents = cacheBuilder
+					.maximumSize(maxSize)
+					.build();
+		}
+
+		logger.info("Created {}", this);
+	}
+
+	@Override
+	public String toString()
+	{
+		return MoreObjects.toStringHelper(this)
+				.omitNullValues()
+				.add("maxWeight", maxWeight > 0 ? maxWeight : null)
+				.add("maxSize", maxSize > 0 ? maxSize : null)
+				.add("idleCacheEnabled", idleDocuments != null)
+				.toString();
+	}
+
+	private void onRemoval(final RemovalNotification<K, T> notification)
+	{
+		if (idleDocuments == null || notification.getCause() != RemovalCause.SIZE)
+		{
+			return;
+		}
+
+		final K key = notification.getKey();
+		final T document = notification.getValue();
+		if (key == null || document == null || hasChanges.test(document))
+		{
+			return;
+		}
+
+		idleDocuments.put(key, document);
+	}
+
+	public T getOrLoad(@NonNull final K key, @NonNull final Callable<T> loader)
+	{
+		try
+		{
+			return documents.get(key, () -> {
+				final T idleDocument = getAndRemoveIdleDocument(key);
+				return idleDocument != null ? idleDocument : loader.call();
+			});
+		}
+		catch (final ExecutionException e)
+		{
+			throw AdempiereException.wrapIfNeeded(e);
+		}
+	}
+
+	@Nullable
+	private T getAndRemoveIdleDocument(@NonNull final K key)
+	{
+		if (idleDocuments == null)
+		{
+			return null;
+		}
+
+		final T document = idleDocuments.getIfPresent(key);
+		if (document != null)
+		{
+			idleDocuments.invalidate(key);
+		}
+		return document;
+	}
+
+	@Nullable
+	public T getIfPresent(@NonNull final K key)
+	{
+		final T document = documents.getIfPresent(key);
+		if (document != null)
+		{
+			return document;
+		}
+
+		return idleDocuments != null ? idleDocuments.getIfPresent(key) : null;
+	}
+
+	public void put(@NonNull final K key, @NonNull final T document)
+	{
+		if (idleDocuments != null)
+		{
+			idleDocuments.invalidate(key);
+		}
+		documents.put(key, document);
+	}
+
+	public void invalidate(@NonNull final K key)
+	{
+		documents.invalidate(key);
+		if (idleDocuments != null)
+		{
+			idleDocuments.invalidate(key);
+		}
+	}
+
+	public void invalidateAll(@NonNull final Collection<K> keys)
+	{
+		documents.invalidateAll(keys);
+		if (idleDocuments != null)
+		{
+			idleDocuments.invalidateAll(keys);
+		}
+	}
+
+	public void invalidateAll()
+	{
+		documents.invalidateAll();
+		invalidateAllIdle();
+	}
+
+	/**
+	 * Invalidates all idle documents. Idle documents never have changes.
+	 */
+	public void invalidateAllIdle()
+	{
+		if (idleDocuments != null)
+		{
+			idleDocuments.invalidateAll();
+		}
+	}
+
+	/**
+	 * @return all keys, including the keys of idle documents
+	 */
+	public Set<K> getKeys()
+	{
+		final ImmutableSet.Builder<K> keys = ImmutableSet.builder();
+		keys.addAll(documents.asMap().keySet());
+		if (idleDocuments != null)
+		{
+			keys.addAll(idleDocuments.asMap().keySet());
+		}
+		return keys.build();
+	}
+
+	/**
+	 * @return the (not idle) documents, indexed by key
+	 */
+	public Map<K, T> asMap()
+	{
+		return documents.asMap();
+	}
+
+	public long size()
+	{
+		return documents.size();
+	}
+
+	public void cleanUp()
+	{
+		documents.cleanUp();
+		if (idleDocuments != null)
+		{
+			idleDocuments.cleanUp();
+		}
+	}
+
+	public RootDocumentsCacheStats getStats()
+	{
+		long weight = 0;
+		for (final T document : documents.asMap().values())
+		{
+			// the document might be changed by another thread meanwhile
+			try (final IAutoCloseable readLock = lockForReading.apply(document))
+			{
+				weight += weigher.applyAsInt(document);
+			}
+		}
+
+		final CacheStats stats = documents.stats();
+		final CacheStats idleStats = idleDocuments != null ? idleDocuments.stats() : null;
+
+		return RootDocumentsCacheStats.builder()
+				.size(documents.size())
+				.weight(weight)
+				.maxWeight(maxWeight > 0 ? maxWeight : null)
+				.maxSize(maxSize > 0 ? maxSize : null)
+				.hitCount(stats.hitCount())
+				.missCount(stats.missCount())
+				.evictionCount(stats.evictionCount())
+				.idleCacheEnabled(idleDocuments != null)
+				.idleSize(idleDocuments != null ? idleDocuments.size() : 0)
+				.idleHitCount(idleStats != null ? idleStats.hitCount() : 0)
+				.idleEvictionCount(idleStats != null ? idleStats.evictionCount() : 0)
+				.build();
+	}
+}
@@ -0,0 +1,55 @@
+package de.metas.ui.web.window.model;
+
+import javax.annotation.Nullable;
+
+import lombok.Builder;
+import lombok.Value;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Statistics of the root documents cache of {@link DocumentCollection}.
+ */
+@Value
+@Builder
+public class RootDocumentsCacheStats
+{
+	long size;
+	/** estimated weight of all (not idle) documents; see {@link Document#estimateWeight()} */
+	long weight;
+	@Nullable
+	Integer maxWeight;
+	@Nullable
+	Integer maxSize;
+
+	long hitCount;
+	long missCount;
+	long evictionCount;
+
+	boolean idleCacheEnabled;
+	long idleSize;
+	/** how many documents were taken back from the idle cache instead of being loaded from database */
+	long idleHitCount;
+	/** how many idle documents were evicted, including the ones reclaimed by the garbage collector */
+	long idleEvictionCount;
+}
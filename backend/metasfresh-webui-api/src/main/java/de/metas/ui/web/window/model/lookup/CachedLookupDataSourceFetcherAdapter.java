@@ -1,6 +1,10 @@
 package de.metas.ui.web.window.model.lookup;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import com.google.common.base.MoreObjects;
@@ -137,6 +141,34 @@ public final class CachedLookupDataSourceFetcherAdapter implements LookupDataSou
 		return cache_retrieveLookupValueById.getOrLoad(evalCtx, () -> delegate.retrieveLookupValueById(evalCtx));
 	}
 
+	@Override
+	public Map<LookupDataSourceContext, LookupValue> retrieveLookupValuesByIds(final Collection<LookupDataSourceContext> evalCtxs)
+	{
+		final HashMap<LookupDataSourceContext, LookupValue> result = new HashMap<>(evalCtxs.size());
+		final List<LookupDataSourceContext> evalCtxsToLoad = new ArrayList<>();
+		for (final LookupDataSourceContext evalCtx : evalCtxs)
+		{
+			final LookupValue lookupValue = cache_retrieveLookupValueById.get(evalCtx);
+			if (lookupValue != null)
+			{
+				result.put(evalCtx, lookupValue);
+			}
+			else
+			{
+				evalCtxsToLoad.add(evalCtx);
+			}
+		}
+
+		if (!evalCtxsToLoad.isEmpty())
+		{
+			final Map<LookupDataSourceContext, LookupValue> loadedLookupValues = delegate.retrieveLookupValuesByIds(evalCtxsToLoad);
+			loadedLookupValues.forEach(cache_retrieveLookupValueById::put);
+			result.putAll(loadedLookupValues);
+		}
+
+		return result;
+	}
+
 	@Override
 	public Builder newContextForFetchingList()
 	{
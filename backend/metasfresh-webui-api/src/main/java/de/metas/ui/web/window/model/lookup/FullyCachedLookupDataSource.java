@@ -2,7 +2,6 @@ package de.metas.ui.web.window.model.lookup;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.function.Predicate;
 
 import org.compiere.model.I_AD_SysConfig;
 import org.compiere.util.Evaluatee;
@@ -53,7 +52,7 @@ class FullyCachedLookupDataSource implements LookupDataSource
 
 	private final LookupDataSourceFetcher fetcher;
 
-	private final transient CCache<LookupDataSourceContext, LookupValuesList> cacheByPartition;
+	private final transient CCache<LookupDataSourceContext, LookupValuesIndex> cacheByPartition;
 
 	private FullyCachedLookupDataSource(@NonNull final LookupDataSourceFetcher fetcher)
 	{
@@ -63,11 +62,12 @@ class FullyCachedLookupDataSource implements LookupDataSource
 		Check.assumeNotEmpty(cachePrefix, "cachePrefix is not empty");
 		final int maxSize = 100;
 		final int expireAfterMinutes = 60 * 2;
-		cacheByPartition = CCache.<LookupDataSourceContext, LookupValuesList> builder()
+		cacheByPartition = CCache.<LookupDataSourceContext, LookupValuesIndex> builder()
 				.cacheName(cachePrefix + "#" + NAME + "#LookupByPartition")
 				.cacheMapType(CacheMapType.LRU)
 				.initialCapacity(maxSize)
 				.expireMinutes(expireAfterMinutes)
+				.weigher((evalCtx, index) -> index.getEstimatedSizeInBytes()) // reported as estimatedWeight in the cache stats (see the lookups/cacheStats debug endpoint); the cache is bounded by maxSize, not by weight
 				.additionalTableNameToResetFor(I_AD_SysConfig.Table_Name) // when the AvailableToPromiseRepository's SysConfig changes, we need to reset the cache. The same might apply to other cases.
 				.build();
 	}
@@ -80,38 +80,32 @@ class FullyCachedLookupDataSource implements LookupDataSource
 				.toString();
 	}
 
-	private LookupValuesList getLookupValuesList(final Evaluatee parentEvaluatee)
+	private LookupValuesIndex getLookupValuesIndex(final Evaluatee parentEvaluatee)
 	{
 		final LookupDataSourceContext evalCtx = fetcher.newContextForFetchingList()
 				.setParentEvaluatee(parentEvaluatee)
 				.putFilter(LookupDataSourceContext.FILTER_Any, FIRST_ROW, Integer.MAX_VALUE)
 				.build();
 
-		return cacheByPartition.getOrLoad(evalCtx, fetcher::retrieveEntities);
+		return cacheByPartition.getOrLoad(evalCtx, this::retrieveLookupValuesIndex);
+	}
+
+	private LookupValuesIndex retrieveLookupValuesIndex(final LookupDataSourceContext evalCtx)
+	{
+		final LookupValuesList lookupValues = fetcher.retrieveEntities(evalCtx);
+		return LookupValuesIndex.of(lookupValues);
 	}
 
 	@Override
 	public LookupValuesList findEntities(final Evaluatee ctx, final String filter, final int firstRow, final int pageLength)
 	{
-		final LookupValuesList partition = getLookupValuesList(ctx);
-		if (partition.isEmpty())
-		{
-			return partition;
-		}
-
-		final Predicate<LookupValue> filterPredicate = LookupValueFilterPredicates.of(filter);
-		if (filterPredicate == LookupValueFilterPredicates.MATCH_ALL)
-		{
-			return partition.offsetAndLimit(firstRow, pageLength);
-		}
-
-		return partition.filter(filterPredicate, firstRow, pageLength);
+		return getLookupValuesIndex(ctx).filter(filter, firstRow, pageLength);
 	}
 
 	@Override
 	public LookupValuesList findEntities(final Evaluatee ctx, final int pageLength)
 	{
-		return getLookupValuesList(ctx).limit(pageLength);
+		return getLookupValuesIndex(ctx).getLookupValuesList().limit(pageLength);
 	}
 
 	@Override
@@ -123,7 +117,7 @@ class FullyCachedLookupDataSource implements LookupDataSource
 			return null;
 		}
 
-		final LookupValuesList partition = getLookupValuesList(Evaluatees.empty());
+		final LookupValuesList partition = getLookupValuesIndex(Evaluatees.empty()).getLookupValuesList();
 		return partition.getById(idNormalized);
 	}
 
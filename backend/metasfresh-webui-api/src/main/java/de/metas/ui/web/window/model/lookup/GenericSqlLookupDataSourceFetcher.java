@@ -22,8 +22,12 @@
 
 package de.metas.ui.web.window.model.lookup;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
 import de.metas.adempiere.service.impl.TooltipType;
 import de.metas.cache.CCache.CCacheStats;
 import de.metas.i18n.ITranslatableString;
@@ -41,14 +45,27 @@ import de.metas.ui.web.window.descriptor.sql.SqlForFetchingLookupById;
 import de.metas.ui.web.window.descriptor.sql.SqlForFetchingLookups;
 import de.metas.ui.web.window.descriptor.sql.SqlLookupDescriptor;
 import de.metas.util.StringUtils;
+import lombok.Builder;
 import lombok.NonNull;
+import org.adempiere.ad.expression.api.IExpressionEvaluator.OnVariableNotFound;
+import org.adempiere.ad.expression.api.IStringExpression;
 import org.adempiere.ad.service.impl.LookupDAO.SQLNamePairIterator;
 import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.ad.validationRule.INamePairPredicate;
+import org.adempiere.exceptions.DBException;
 import org.compiere.util.DB;
 import org.slf4j.Logger;
 
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class GenericSqlLookupDataSourceFetcher implements LookupDataSourceFetcher
@@ -63,6 +80,9 @@ public class GenericSqlLookupDataSourceFetcher implements LookupDataSourceFetche
 
 	private static final Logger logger = LogManager.getLogger(GenericSqlLookupDataSourceFetcher.class);
 
+	private static final String SQL_IdsAlias = "lookup_ids";
+	private static final int RETRIEVE_BY_IDS_BatchSize = 500;
+
 	private final @NonNull String lookupTableName;
 	private final @NonNull Optional<String> lookupTableNameAsOptional;
 	private final boolean numericKey;
@@ -70,12 +90,29 @@ public class GenericSqlLookupDataSourceFetcher implements LookupDataSourceFetche
 
 	private final SqlForFetchingLookups sqlForFetchingExpression;
 	private final SqlForFetchingLookupById sqlForFetchingLookupByIdExpression;
+	/** same as {@link #sqlForFetchingLookupByIdExpression} but correlated to {@value #SQL_IdsAlias}.id, see {@link #retrieveLookupValuesByIds(Collection)} */
+	private final IStringExpression sqlForFetchingLookupByIdsExpression;
 	private final INamePairPredicate postQueryPredicate;
 
 	private final boolean isTranslatable;
 
 	private final Optional<WindowId> zoomIntoWindowId;
 
+	private final SqlExecutorForFetchingByIds sqlExecutorForFetchingByIds;
+
+	/**
+	 * Executes the SQL built by {@link GenericSqlLookupDataSourceFetcher#retrieveLookupValuesByIds(Collection)}.
+	 */
+	@FunctionalInterface
+	@VisibleForTesting
+	interface SqlExecutorForFetchingByIds
+	{
+		/**
+		 * @return the name, description and active flag (same as the "by ID" SQL returns) indexed by the ID, as it was returned by database; the IDs which were not found are missing
+		 */
+		Map<Object, String[]> retrieveNameAndDescriptionAndActiveById(String sql, List<Object> sqlParams);
+	}
+
 	private GenericSqlLookupDataSourceFetcher(@NonNull final LookupDescriptor lookupDescriptor)
 	{
 		final SqlLookupDescriptor sqlLookupDescriptor = lookupDescriptor.cast(SqlLookupDescriptor.class);
@@ -86,6 +123,7 @@ public class GenericSqlLookupDataSourceFetcher implements LookupDataSourceFetche
 		entityTypeIndex = sqlLookupDescriptor.getEntityTypeIndex();
 		sqlForFetchingExpression = sqlLookupDescriptor.getSqlForFetchingExpression();
 		sqlForFetchingLookupByIdExpression = sqlLookupDescriptor.getSqlForFetchingLookupByIdExpression();
+		sqlForFetchingLookupByIdsExpression = sqlForFetchingLookupByIdExpression.toStringExpression(SQL_IdsAlias + ".id");
 		postQueryPredicate = sqlLookupDescriptor.getPostQueryPredicate();
 
 		isTranslatable = sqlForFetchingLookupByIdExpression.requiresParameter(LookupDataSourceContext.PARAM_AD_Language.getName());
@@ -93,6 +131,34 @@ public class GenericSqlLookupDataSourceFetcher implements LookupDataSourceFetche
 		zoomIntoWindowId = lookupDescriptor.getZoomIntoWindowId();
 
 		tooltipType = sqlLookupDescriptor.getTooltipType();
+
+		sqlExecutorForFetchingByIds = GenericSqlLookupDataSourceFetcher::retrieveNameAndDescriptionAndActiveByIdFromDB;
+	}
+
+	@Builder(builderMethodName = "builderForTesting")
+	@VisibleForTesting
+	private GenericSqlLookupDataSourceFetcher(
+			@NonNull final String lookupTableName,
+			final boolean numericKey,
+			@NonNull final SqlForFetchingLookupById sqlForFetchingLookupByIdExpression,
+			@NonNull final SqlExecutorForFetchingByIds sqlExecutorForFetchingByIds)
+	{
+		this.lookupTableName = lookupTableName;
+		lookupTableNameAsOptional = Optional.of(lookupTableName);
+		this.numericKey = numericKey;
+		entityTypeIndex = -1;
+		sqlForFetchingExpression = null;
+		this.sqlForFetchingLookupByIdExpression = sqlForFetchingLookupByIdExpression;
+		sqlForFetchingLookupByIdsExpression = sqlForFetchingLookupByIdExpression.toStringExpression(SQL_IdsAlias + ".id");
+		postQueryPredicate = INamePairPredicate.NULL;
+
+		isTranslatable = sqlForFetchingLookupByIdExpression.requiresParameter(LookupDataSourceContext.PARAM_AD_Language.getName());
+
+		zoomIntoWindowId = Optional.empty();
+
+		tooltipType = TooltipType.DEFAULT;
+
+		this.sqlExecutorForFetchingByIds = sqlExecutorForFetchingByIds;
 	}
 
 	@Override
@@ -212,6 +278,120 @@ public class GenericSqlLookupDataSourceFetcher implements LookupDataSourceFetche
 			return LOOKUPVALUE_NULL;
 		}
 
+		return createLookupValue(id, nameAndDescriptionAndActive, evalCtx);
+	}
+
+	/**
+	 * Retrieves the lookup values of all given contexts with one SQL query (per batch), instead of one query for each ID.
+	 */
+	@Override
+	public Map<LookupDataSourceContext, LookupValue> retrieveLookupValuesByIds(@NonNull final Collection<LookupDataSourceContext> evalCtxs)
+	{
+		// NOTE: the contexts which have the same parameters (e.g. AD_Language) are producing the same SQL, so they can be fetched together
+		final ListMultimap<String, LookupDataSourceContext> evalCtxsBySql = ArrayListMultimap.create();
+		for (final LookupDataSourceContext evalCtx : evalCtxs)
+		{
+			final String sqlForFetchingLookupById = sqlForFetchingLookupByIdsExpression.evaluate(evalCtx, OnVariableNotFound.Fail);
+			evalCtxsBySql.put(sqlForFetchingLookupById, evalCtx);
+		}
+
+		final HashMap<LookupDataSourceContext, LookupValue> result = new HashMap<>(evalCtxs.size());
+		for (final String sqlForFetchingLookupById : evalCtxsBySql.keySet())
+		{
+			for (final List<LookupDataSourceContext> evalCtxsBatch : Lists.partition(evalCtxsBySql.get(sqlForFetchingLookupById), RETRIEVE_BY_IDS_BatchSize))
+			{
+				result.putAll(retrieveLookupValuesByIds(sqlForFetchingLookupById, evalCtxsBatch));
+			}
+		}
+
+		return result;
+	}
+
+	private Map<LookupDataSourceContext, LookupValue> retrieveLookupValuesByIds(
+			@NonNull final String sqlForFetchingLookupById,
+			@NonNull final List<LookupDataSourceContext> evalCtxs)
+	{
+		final LinkedHashMap<Object, LookupDataSourceContext> evalCtxsById = new LinkedHashMap<>(evalCtxs.size());
+		for (final LookupDataSourceContext evalCtx : evalCtxs)
+		{
+			final Object id = evalCtx.getIdToFilter();
+			if (id == null)
+			{
+				throw new IllegalStateException("No ID provided in " + evalCtx);
+			}
+			evalCtxsById.put(id, evalCtx);
+		}
+
+		final List<Object> sqlParams = ImmutableList.copyOf(evalCtxsById.keySet());
+		final String sql = buildSqlForFetchingByIds(sqlForFetchingLookupById, sqlParams.size());
+
+		final HashMap<LookupDataSourceContext, LookupValue> result = new HashMap<>(evalCtxs.size());
+		sqlExecutorForFetchingByIds.retrieveNameAndDescriptionAndActiveById(sql, sqlParams).forEach((idObj, nameAndDescriptionAndActive) -> {
+			final Object id = LookupValue.normalizeId(idObj, numericKey);
+			final LookupDataSourceContext evalCtx = evalCtxsById.get(id);
+			if (evalCtx == null)
+			{
+				return; // shall not happen
+			}
+			if (nameAndDescriptionAndActive == null || nameAndDescriptionAndActive.length == 0)
+			{
+				return;
+			}
+
+			result.put(evalCtx, createLookupValue(id, nameAndDescriptionAndActive, evalCtx));
+		});
+
+		// the contexts for which nothing was found
+		evalCtxs.forEach(evalCtx -> result.putIfAbsent(evalCtx, LOOKUPVALUE_NULL));
+
+		return result;
+	}
+
+	@VisibleForTesting
+	static String buildSqlForFetchingByIds(@NonNull final String sqlForFetchingLookupById, final int idsCount)
+	{
+		return "SELECT " + SQL_IdsAlias + ".id, (" + sqlForFetchingLookupById + "\n LIMIT 1)"
+				+ "\n FROM (SELECT unnest(ARRAY[" + String.join(",", Collections.nCopies(idsCount, "?")) + "]) AS id) " + SQL_IdsAlias;
+	}
+
+	private static Map<Object, String[]> retrieveNameAndDescriptionAndActiveByIdFromDB(
+			@NonNull final String sql,
+			@NonNull final List<Object> sqlParams)
+	{
+		final LinkedHashMap<Object, String[]> result = new LinkedHashMap<>(sqlParams.size());
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try
+		{
+			pstmt = DB.prepareStatement(sql, ITrx.TRXNAME_None);
+			DB.setParameters(pstmt, sqlParams);
+			rs = pstmt.executeQuery();
+			while (rs.next())
+			{
+				final Array nameAndDescriptionAndActiveArray = rs.getArray(2);
+				if (nameAndDescriptionAndActiveArray != null)
+				{
+					result.put(rs.getObject(1), (String[])nameAndDescriptionAndActiveArray.getArray());
+				}
+			}
+		}
+		catch (final SQLException ex)
+		{
+			throw new DBException(ex, sql, sqlParams);
+		}
+		finally
+		{
+			DB.close(rs, pstmt);
+		}
+
+		return result;
+	}
+
+	private LookupValue createLookupValue(
+			@NonNull final Object id,
+			@NonNull final String[] nameAndDescriptionAndActive,
+			@NonNull final LookupDataSourceContext evalCtx)
+	{
 		final String displayName = nameAndDescriptionAndActive[0];
 		final String description = nameAndDescriptionAndActive.length >= 2 ? nameAndDescriptionAndActive[1] : null;
 		final boolean active = nameAndDescriptionAndActive.length < 3 || StringUtils.toBoolean(nameAndDescriptionAndActive[2]);
@@ -61,6 +61,8 @@ public interface LookupDataSource extends LookupValueByIdSupplier
 	LookupValue findById(Object id);
 
 	/**
+	 * The default implementation fetches the lookup values one by one. Implementations which are loading the values from database shall fetch them all at once.
+	 *
 	 * @return lookup values in the same order as the collection order
 	 */
 	@NonNull
@@ -71,8 +73,6 @@ public interface LookupDataSource extends LookupValueByIdSupplier
 			return LookupValuesList.EMPTY;
 		}
 
-		// TODO @teo: avoid SQL N+1 problem and also return the data ordered in the input collection order
-
 		return new LinkedHashSet<>(ids)
 				.stream()
 				.map(this::findById)
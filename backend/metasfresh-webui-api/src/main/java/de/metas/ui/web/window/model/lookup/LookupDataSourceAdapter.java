@@ -1,11 +1,15 @@
 package de.metas.ui.web.window.model.lookup;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 import org.compiere.util.Evaluatee;
 
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
 
 import de.metas.cache.CCache.CCacheStats;
 import de.metas.ui.web.window.datatypes.LookupValue;
@@ -119,10 +123,7 @@ final class LookupDataSourceAdapter implements LookupDataSource
 
 		//
 		// Build the validation context
-		final LookupDataSourceContext evalCtx = fetcher.newContextForFetchingById(idNormalized)
-				.putFilterById(idNormalized)
-				.putShowInactive(true)
-				.build();
+		final LookupDataSourceContext evalCtx = newContextForFetchingById(idNormalized);
 
 		//
 		// Get the lookup value
@@ -134,6 +135,39 @@ final class LookupDataSourceAdapter implements LookupDataSource
 		return lookupValue;
 	}
 
+	/**
+	 * Fetches all lookup values at once (see {@link LookupDataSourceFetcher#retrieveLookupValuesByIds(java.util.Collection)}) instead of one by one.
+	 */
+	@Override
+	public LookupValuesList findByIdsOrdered(@NonNull final Collection<? extends Object> ids)
+	{
+		final boolean numericKey = fetcher.isNumericKey();
+		final ImmutableList<LookupDataSourceContext> evalCtxs = ids.stream()
+				.map(idObj -> LookupValue.normalizeId(idObj, numericKey))
+				.filter(Objects::nonNull)
+				.distinct()
+				.map(this::newContextForFetchingById)
+				.collect(ImmutableList.toImmutableList());
+		if (evalCtxs.isEmpty())
+		{
+			return LookupValuesList.EMPTY;
+		}
+
+		final Map<LookupDataSourceContext, LookupValue> lookupValuesByEvalCtx = fetcher.retrieveLookupValuesByIds(evalCtxs);
+		return evalCtxs.stream()
+				.map(lookupValuesByEvalCtx::get)
+				.filter(lookupValue -> lookupValue != null && lookupValue != LookupDataSourceFetcher.LOOKUPVALUE_NULL)
+				.collect(LookupValuesList.collect());
+	}
+
+	private LookupDataSourceContext newContextForFetchingById(@NonNull final Object idNormalized)
+	{
+		return fetcher.newContextForFetchingById(idNormalized)
+				.putFilterById(idNormalized)
+				.putShowInactive(true)
+				.build();
+	}
+
 	@Override
 	public List<CCacheStats> getCacheStats()
 	{
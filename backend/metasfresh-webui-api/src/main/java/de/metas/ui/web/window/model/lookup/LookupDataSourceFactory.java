@@ -2,6 +2,7 @@ package de.metas.ui.web.window.model.lookup;
 
 import de.metas.cache.CCache;
 import de.metas.cache.CCache.CCacheStats;
+import de.metas.cache.CCacheStatsOrderBy;
 import de.metas.logging.LogManager;
 import de.metas.ui.web.window.descriptor.LookupDescriptor;
 import de.metas.ui.web.window.descriptor.sql.SqlLookupDescriptor;
@@ -16,7 +17,6 @@ import org.slf4j.Logger;
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
@@ -160,14 +160,14 @@ public final class LookupDataSourceFactory
 				.forEach(CacheInvalidationGroup::cacheInvalidate);
 	}
 
-	public List<CCacheStats> getCacheStats()
+	public List<CCacheStats> getCacheStats(@NonNull final CCacheStatsOrderBy orderBy)
 	{
 		return lookupDataSourcesCache
 				.values()
 				.stream()
 				.flatMap(dataSource -> dataSource.getCacheStats().stream())
 				.distinct()
-				.sorted(Comparator.comparing(CCacheStats::getName))
+				.sorted(orderBy.getComparator())
 				.collect(GuavaCollectors.toImmutableList());
 	}
 
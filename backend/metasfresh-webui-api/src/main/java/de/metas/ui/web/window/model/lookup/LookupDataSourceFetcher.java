@@ -9,7 +9,10 @@ import de.metas.ui.web.window.datatypes.WindowId;
 import lombok.NonNull;
 
 import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /*
@@ -48,6 +51,25 @@ public interface LookupDataSourceFetcher
 	@Nullable
 	LookupValue retrieveLookupValueById(@NonNull LookupDataSourceContext evalCtx);
 
+	/**
+	 * Retrieves the lookup values of more IDs at once.
+	 * <p>
+	 * The default implementation calls {@link #retrieveLookupValueById(LookupDataSourceContext)} for each context.
+	 *
+	 * @param evalCtxs one context for each ID, created like the ones for {@link #retrieveLookupValueById(LookupDataSourceContext)}
+	 * @return lookup values indexed by context; the contexts for which nothing was found are mapped to {@link #LOOKUPVALUE_NULL}
+	 */
+	default Map<LookupDataSourceContext, LookupValue> retrieveLookupValuesByIds(@NonNull final Collection<LookupDataSourceContext> evalCtxs)
+	{
+		final HashMap<LookupDataSourceContext, LookupValue> result = new HashMap<>(evalCtxs.size());
+		for (final LookupDataSourceContext evalCtx : evalCtxs)
+		{
+			final LookupValue lookupValue = retrieveLookupValueById(evalCtx);
+			result.put(evalCtx, lookupValue != null ? lookupValue : LOOKUPVALUE_NULL);
+		}
+		return result;
+	}
+
 	LookupDataSourceContext.Builder newContextForFetchingList();
 
 	LookupValuesList retrieveEntities(LookupDataSourceContext evalCtx);
@@ -53,6 +53,14 @@ public final class LookupValueFilterPredicates
 		return new ContainsLookupValueFilterPredicate(filterNorm, adLanguage);
 	}
 
+	/**
+	 * Normalizes the filter string and the display names before matching them. Also used by {@link LookupValuesIndex}.
+	 */
+	static String normalizeString(final String str)
+	{
+		return str.toLowerCase();
+	}
+
 	public static interface LookupValueFilterPredicate extends Predicate<LookupValue>
 	{
 		@Override
@@ -104,11 +112,6 @@ public final class LookupValueFilterPredicates
 					.toString();
 		}
 
-		private static final String normalizeString(final String str)
-		{
-			return str.toLowerCase();
-		}
-
 		@Override
 		public boolean test(final LookupValue lookupValue)
 		{
@@ -0,0 +1,301 @@
+package de.metas.ui.web.window.model.lookup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import de.metas.ui.web.window.datatypes.LookupValue;
+import de.metas.ui.web.window.datatypes.LookupValuesList;
+import de.metas.ui.web.window.model.lookup.LookupValueFilterPredicates.LookupValueFilterPredicate;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Immutable {@link LookupValuesList} together with a trigram index of the values' normalized display names.
+ * <p>
+ * Filtering by a string of at least 3 characters only checks the values which contain all trigrams of the filter string,
+ * instead of checking all values. The filter semantics are the same as {@link LookupValueFilterPredicates#of(String)} because the candidates are always checked using that predicate.
+ * <p>
+ * Small lists are not indexed because scanning them is cheap.
+ */
+final class LookupValuesIndex
+{
+	public static LookupValuesIndex of(@NonNull final LookupValuesList lookupValues)
+	{
+		return new LookupValuesIndex(lookupValues, DEFAULT_MinSizeToIndex);
+	}
+
+	@VisibleForTesting
+	static LookupValuesIndex of(@NonNull final LookupValuesList lookupValues, final int minSizeToIndex)
+	{
+		return new LookupValuesIndex(lookupValues, minSizeToIndex);
+	}
+
+	private static final int DEFAULT_MinSizeToIndex = 1000;
+	private static final int TRIGRAM_LENGTH = 3;
+
+	/** rough estimation of the size of a {@link HashMap} entry with a boxed Long key and an int[] value (without the array elements) */
+	private static final int ESTIMATED_BYTES_PER_INDEX_ENTRY = 80;
+	private static final int ESTIMATED_BYTES_PER_VALUE_REFERENCE = 8;
+
+	private final LookupValuesList lookupValues;
+	/** the values in the same order as {@link #lookupValues}; the index is referencing the positions in this list */
+	private final ImmutableList<LookupValue> values;
+	/** trigram to ascending positions in {@link #values}; null if not indexed */
+	@Nullable
+	private final Map<Long, int[]> positionsByTrigram;
+	private final int estimatedSizeInBytes;
+
+	private LookupValuesIndex(@NonNull final LookupValuesList lookupValues, final int minSizeToIndex)
+	{
+		this.lookupValues = lookupValues;
+		this.values = ImmutableList.copyOf(lookupValues.getValues());
+
+		if (values.size() >= minSizeToIndex)
+		{
+			positionsByTrigram = buildTrigramsIndex(values);
+			estimatedSizeInBytes = estimateSizeInBytes(values, positionsByTrigram);
+		}
+		else
+		{
+			positionsByTrigram = null;
+			estimatedSizeInBytes = values.size() * ESTIMATED_BYTES_PER_VALUE_REFERENCE;
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return MoreObjects.toStringHelper(this)
+				.add("size", values.size())
+				.add("indexed", isIndexed())
+				.add("trigrams", positionsByTrigram != null ? positionsByTrigram.size() : null)
+				.add("estimatedSizeInBytes", estimatedSizeInBytes)
+				.toString();
+	}
+
+	public LookupValuesList getLookupValuesList()
+	{
+		return lookupValues;
+	}
+
+	public boolean isIndexed()
+	{
+		return positionsByTrigram != null;
+	}
+
+	/**
+	 * @return estimated memory used by this index, not including the {@link LookupValue}s themselves
+	 */
+	public int getEstimatedSizeInBytes()
+	{
+		return estimatedSizeInBytes;
+	}
+
+	public LookupValuesList filter(@Nullable final String filter, final int firstRow, final int pageLength)
+	{
+		if (lookupValues.isEmpty())
+		{
+			return lookupValues;
+		}
+
+		final LookupValueFilterPredicate filterPredicate = LookupValueFilterPredicates.of(filter);
+		if (filterPredicate.isMatchAll())
+		{
+			return lookupValues.offsetAndLimit(firstRow, pageLength);
+		}
+
+		final String filterNormalized = LookupValueFilterPredicates.normalizeString(filter.trim());
+		if (positionsByTrigram == null || filterNormalized.length() < TRIGRAM_LENGTH)
+		{
+			return lookupValues.filter(filterPredicate, firstRow, pageLength);
+		}
+
+		final int[] candidatePositions = getCandidatePositions(filterNormalized);
+
+		final int firstRowEffective = Math.max(firstRow, 0);
+		final int pageLengthEffective = pageLength <= 0 ? Integer.MAX_VALUE : pageLength;
+		final List<LookupValue> result = new ArrayList<>(Math.min(candidatePositions.length, pageLengthEffective));
+		int countMatched = 0;
+		for (final int position : candidatePositions)
+		{
+			final LookupValue value = values.get(position);
+			if (!filterPredicate.test(value))
+			{
+				continue;
+			}
+
+			countMatched++;
+			if (countMatched <= firstRowEffective)
+			{
+				continue;
+			}
+
+			result.add(value);
+			if (result.size() >= pageLengthEffective)
+			{
+				break;
+			}
+		}
+
+		return result.stream().collect(LookupValuesList.collect(lookupValues.getDebugProperties()));
+	}
+
+	/**
+	 * @return ascending positions of the values which contain all trigrams of the given filter
+	 */
+	private int[] getCandidatePositions(@NonNull final String filterNormalized)
+	{
+		final List<int[]> positionsList = new ArrayList<>();
+		for (final long trigram : extractTrigrams(filterNormalized))
+		{
+			final int[] positions = positionsByTrigram.get(trigram);
+			if (positions == null)
+			{
+				return new int[0];
+			}
+			positionsList.add(positions);
+		}
+
+		// intersect, starting with the shortest list
+		positionsList.sort((positions1, positions2) -> positions1.length - positions2.length);
+		int[] result = positionsList.get(0);
+		for (int i = 1, size = positionsList.size(); i < size && result.length > 0; i++)
+		{
+			result = intersect(result, positionsList.get(i));
+		}
+		return result;
+	}
+
+	private static int[] intersect(final int[] sortedArray1, final int[] sortedArray2)
+	{
+		final int[] result = new int[Math.min(sortedArray1.length, sortedArray2.length)];
+		int resultSize = 0;
+		int i1 = 0;
+		int i2 = 0;
+		while (i1 < sortedArray1.length && i2 < sortedArray2.length)
+		{
+			final int value1 = sortedArray1[i1];
+			final int value2 = sortedArray2[i2];
+			if (value1 < value2)
+			{
+				i1++;
+			}
+			else if (value1 > value2)
+			{
+				i2++;
+			}
+			else
+			{
+				result[resultSize++] = value1;
+				i1++;
+				i2++;
+			}
+		}
+		return resultSize == result.length ? result : Arrays.copyOf(result, resultSize);
+	}
+
+	private static Map<Long, int[]> buildTrigramsIndex(final List<LookupValue> values)
+	{
+		final HashMap<Long, IntArrayBuilder> positionsBuilders = new HashMap<>();
+		for (int position = 0, size = values.size(); position < size; position++)
+		{
+			final String displayName = values.get(position).getDisplayName();
+			if (displayName == null)
+			{
+				continue;
+			}
+
+			for (final long trigram : extractTrigrams(LookupValueFilterPredicates.normalizeString(displayName)))
+			{
+				positionsBuilders.computeIfAbsent(trigram, k -> new IntArrayBuilder()).addIfNotLast(position);
+			}
+		}
+
+		final HashMap<Long, int[]> positionsByTrigram = new HashMap<>(positionsBuilders.size() * 4 / 3 + 1);
+		positionsBuilders.forEach((trigram, positionsBuilder) -> positionsByTrigram.put(trigram, positionsBuilder.toArray()));
+		return positionsByTrigram;
+	}
+
+	@VisibleForTesting
+	static long[] extractTrigrams(@NonNull final String str)
+	{
+		final int count = str.length() - TRIGRAM_LENGTH + 1;
+		if (count <= 0)
+		{
+			return new long[0];
+		}
+
+		final long[] trigrams = new long[count];
+		for (int i = 0; i < count; i++)
+		{
+			trigrams[i] = ((long)str.charAt(i) << 32) | ((long)str.charAt(i + 1) << 16) | str.charAt(i + 2);
+		}
+		return trigrams;
+	}
+
+	private static int estimateSizeInBytes(final List<LookupValue> values, final Map<Long, int[]> positionsByTrigram)
+	{
+		long size = (long)values.size() * ESTIMATED_BYTES_PER_VALUE_REFERENCE;
+		for (final int[] positions : positionsByTrigram.values())
+		{
+			size += ESTIMATED_BYTES_PER_INDEX_ENTRY + 4L * positions.length;
+		}
+		return (int)Math.min(size, Integer.MAX_VALUE);
+	}
+
+	private static final class IntArrayBuilder
+	{
+		private int[] array = new int[4];
+		private int size = 0;
+
+		/** adds the given value, unless it was the last one added (i.e. the same value contains the trigram more than once) */
+		public void addIfNotLast(final int value)
+		{
+			if (size > 0 && array[size - 1] == value)
+			{
+				return;
+			}
+
+			if (size >= array.length)
+			{
+				array = Arrays.copyOf(array, array.length * 2);
+			}
+			array[size++] = value;
+		}
+
+		public int[] toArray()
+		{
+			return Arrays.copyOf(array, size);
+		}
+	}
+}
@@ -16,9 +16,12 @@ import org.compiere.model.I_M_Product;
 import org.compiere.model.I_M_Product_Category;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
 
 import de.metas.bpartner.BPartnerId;
+import de.metas.material.dispo.commons.repository.atp.AvailableToPromiseInMemoryEngine;
 import de.metas.material.dispo.commons.repository.atp.AvailableToPromiseRepository;
+import de.metas.material.event.PostMaterialEventService;
 import de.metas.money.CurrencyId;
 import de.metas.money.Money;
 import de.metas.order.OrderAndLineId;
@@ -77,7 +80,7 @@ public class PurchaseRowFactoryTest
 		this.ONE = Quantity.of(BigDecimal.ONE, each);
 
 		purchaseRowFactory = new PurchaseRowFactory(
-				new AvailableToPromiseRepository(),
+				new AvailableToPromiseRepository(new AvailableToPromiseInMemoryEngine(Mockito.mock(PostMaterialEventService.class))),
 				new DoNothingPurchaseProfitInfoServiceImpl());
 	}
 
@@ -30,7 +30,9 @@ import de.metas.bpartner.BPartnerId;
 import de.metas.bpartner.service.impl.BPartnerBL;
 import de.metas.currency.CurrencyCode;
 import de.metas.currency.impl.PlainCurrencyDAO;
+import de.metas.material.dispo.commons.repository.atp.AvailableToPromiseInMemoryEngine;
 import de.metas.material.dispo.commons.repository.atp.AvailableToPromiseRepository;
+import de.metas.material.event.PostMaterialEventService;
 import de.metas.money.CurrencyId;
 import de.metas.order.OrderAndLineId;
 import de.metas.order.OrderLineRepository;
@@ -164,7 +166,7 @@ public class PurchaseRowsLoaderTest
 				purchaseProfitInfoService);
 
 		final PurchaseRowFactory purchaseRowFactory = new PurchaseRowFactory(
-				new AvailableToPromiseRepository(),
+				new AvailableToPromiseRepository(new AvailableToPromiseInMemoryEngine(Mockito.mock(PostMaterialEventService.class))),
 				purchaseProfitInfoService);
 
 		salesOrder2PurchaseViewFactory = new SalesOrder2PurchaseViewFactory(
@@ -221,7 +223,7 @@ public class PurchaseRowsLoaderTest
 				.purchaseDemandWithCandidatesList(demandWithCandidates)
 				.viewSupplier(() -> null)
 				.purchaseRowFactory(new PurchaseRowFactory(
-						new AvailableToPromiseRepository(),
+						new AvailableToPromiseRepository(new AvailableToPromiseInMemoryEngine(Mockito.mock(PostMaterialEventService.class))),
 						new DoNothingPurchaseProfitInfoServiceImpl()))
 				.availabilityCheckService(availabilityCheckService)
 				.build();
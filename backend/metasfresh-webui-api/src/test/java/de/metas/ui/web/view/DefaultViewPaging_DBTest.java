@@ -0,0 +1,175 @@
+package de.metas.ui.web.view;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.util.Properties;
+
+import org.compiere.Adempiere.RunMode;
+import org.compiere.util.Env;
+import org.junit.Ignore;
+
+import com.google.common.base.Stopwatch;
+
+import de.metas.ui.web.view.descriptor.SqlViewBinding;
+import de.metas.ui.web.view.descriptor.SqlViewRowFieldBinding;
+import de.metas.ui.web.view.json.JSONViewDataType;
+import de.metas.ui.web.window.datatypes.WindowId;
+import de.metas.ui.web.window.datatypes.json.JSONOptions;
+import de.metas.ui.web.window.descriptor.DocumentFieldWidgetType;
+import de.metas.ui.web.window.descriptor.sql.SqlSelectValue;
+import de.metas.util.Check;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Compares paging a big <code>C_Invoice_Candidate</code> view (e.g. 100k rows) without and with the view's rows cache.
+ * <p>
+ * Run it with <code>-DPropertyFile=...</code> and make sure there are enough invoice candidates in the database.
+ */
+@Ignore
+// requires database connection
+public class DefaultViewPaging_DBTest
+{
+	private static final int PAGES_COUNT = 10;
+	private static final int PAGE_LENGTH = 100;
+
+	public static void main(final String[] args)
+	{
+		final DefaultViewPaging_DBTest test = new DefaultViewPaging_DBTest();
+		test.setupAdempiere();
+		test.run();
+	}
+
+	private void setupAdempiere()
+	{
+		//
+		// Use hardcoded default PropertyFile if none found
+		if (Check.isEmpty(System.getProperty("PropertyFile"), true))
+		{
+			final String propertyFile = new File(".").getAbsolutePath()
+					+ File.separator + ".." + File.separator + ".."
+					+ File.separator + "de.metas.endcustomer."
+					+ File.separator + "Adempiere.properties_" + System.getProperty("user.name");
+			System.out.println("Set default PropertyFile=" + propertyFile);
+			System.setProperty("PropertyFile", propertyFile);
+		}
+
+		Env.getSingleAdempiereInstance(null).startup(RunMode.SWING_CLIENT);
+
+		final Properties ctx = Env.getCtx();
+		Env.setContext(ctx, Env.CTXNAME_AD_Client_ID, 1000000);
+		Env.setContext(ctx, Env.CTXNAME_AD_Org_ID, 1000000);
+		Env.setContext(ctx, Env.CTXNAME_AD_Role_ID, 1000000);
+		Env.setContext(ctx, Env.CTXNAME_AD_User_ID, 100);
+		Env.setContext(ctx, Env.CTXNAME_AD_Language, "en_US");
+	}
+
+	private void run()
+	{
+		final SqlViewDataRepository viewDataRepository = new SqlViewDataRepository(createInvoiceCandidatesViewBinding());
+
+		final Stopwatch createStopwatch = Stopwatch.createStarted();
+		final DefaultView view = DefaultView.builder(viewDataRepository)
+				.setViewId(ViewId.random(WindowId.of(540092)))
+				.setViewType(JSONViewDataType.grid)
+				.build();
+		System.out.println("Created view with " + view.size() + " rows in " + createStopwatch);
+
+		final ViewRowIdsOrderedSelection selection = view.getDefaultSelectionBeforeFacetsFiltering();
+		final ViewEvaluationCtx evalCtx = ViewEvaluationCtx.newInstanceFromCurrentContext();
+		final ViewRowsOrderBy orderBy = ViewRowsOrderBy.empty(JSONOptions.newInstance());
+
+		// warm up
+		viewDataRepository.retrievePage(evalCtx, selection, 0, PAGE_LENGTH);
+
+		final Stopwatch withoutCache = Stopwatch.createStarted();
+		for (int i = 0; i < 2; i++)
+		{
+			for (int page = 0; page < PAGES_COUNT; page++)
+			{
+				viewDataRepository.retrievePage(evalCtx, selection, page * PAGE_LENGTH, PAGE_LENGTH);
+			}
+		}
+		withoutCache.stop();
+
+		final Stopwatch withCacheCold = Stopwatch.createStarted();
+		for (int page = 0; page < PAGES_COUNT; page++)
+		{
+			view.getPage(page * PAGE_LENGTH, PAGE_LENGTH, orderBy);
+		}
+		withCacheCold.stop();
+
+		final Stopwatch withCacheWarm = Stopwatch.createStarted();
+		for (int page = 0; page < PAGES_COUNT; page++)
+		{
+			view.getPage(page * PAGE_LENGTH, PAGE_LENGTH, orderBy);
+		}
+		withCacheWarm.stop();
+
+		System.out.println("Paging " + PAGES_COUNT + " pages of " + PAGE_LENGTH + " rows");
+		System.out.println("without rows cache (2 rounds): " + withoutCache);
+		System.out.println("with rows cache, 1st round: " + withCacheCold);
+		System.out.println("with rows cache, 2nd round: " + withCacheWarm);
+
+		view.close(ViewCloseAction.DONE);
+	}
+
+	private static SqlViewBinding createInvoiceCandidatesViewBinding()
+	{
+		return SqlViewBinding.builder()
+				.tableName("C_Invoice_Candidate")
+				.field(SqlViewRowFieldBinding.builder()
+						.fieldName("C_Invoice_Candidate_ID")
+						.widgetType(DocumentFieldWidgetType.Integer)
+						.sqlValueClass(Integer.class)
+						.keyColumn(true)
+						.sqlSelectValue(SqlSelectValue.builder()
+								.columnName("C_Invoice_Candidate_ID")
+								.columnNameAlias("C_Invoice_Candidate_ID")
+								.build())
+						.fieldLoader((rs, adLanguage) -> rs.getInt("C_Invoice_Candidate_ID"))
+						.build())
+				.field(SqlViewRowFieldBinding.builder()
+						.fieldName("Bill_BPartner_ID")
+						.widgetType(DocumentFieldWidgetType.Integer)
+						.sqlValueClass(Integer.class)
+						.sqlSelectValue(SqlSelectValue.builder()
+								.columnName("Bill_BPartner_ID")
+								.columnNameAlias("Bill_BPartner_ID")
+								.build())
+						.fieldLoader((rs, adLanguage) -> rs.getInt("Bill_BPartner_ID"))
+						.build())
+				.field(SqlViewRowFieldBinding.builder()
+						.fieldName("NetAmtToInvoice")
+						.widgetType(DocumentFieldWidgetType.Amount)
+						.sqlValueClass(BigDecimal.class)
+						.sqlSelectValue(SqlSelectValue.builder()
+								.columnName("NetAmtToInvoice")
+								.columnNameAlias("NetAmtToInvoice")
+								.build())
+						.fieldLoader((rs, adLanguage) -> rs.getBigDecimal("NetAmtToInvoice"))
+						.build())
+				.displayFieldNames("C_Invoice_Candidate_ID", "Bill_BPartner_ID", "NetAmtToInvoice")
+				.build();
+	}
+}
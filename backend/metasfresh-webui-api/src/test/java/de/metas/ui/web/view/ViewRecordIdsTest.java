@@ -0,0 +1,83 @@
+package de.metas.ui.web.view;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class ViewRecordIdsTest
+{
+	@Test
+	public void ofArray_keepsOrderAndRemovesDuplicates()
+	{
+		final ViewRecordIds recordIds = ViewRecordIds.ofArray(new int[] { 30, 10, 20, 10 });
+
+		assertThat(recordIds.size()).isEqualTo(3);
+		assertThat(recordIds.toCommaSeparatedString()).isEqualTo("30,10,20");
+		assertThat(recordIds.contains(20)).isTrue();
+		assertThat(recordIds.contains(40)).isFalse();
+	}
+
+	@Test
+	public void subList()
+	{
+		final ViewRecordIds recordIds = ViewRecordIds.ofArray(new int[] { 50, 40, 30, 20, 10 });
+
+		assertThat(recordIds.subList(0, 2).toCommaSeparatedString()).isEqualTo("50,40");
+		assertThat(recordIds.subList(3, 100).toCommaSeparatedString()).isEqualTo("20,10");
+		assertThat(recordIds.subList(0, 100)).isSameAs(recordIds);
+		assertThat(recordIds.subList(5, 10).isEmpty()).isTrue();
+	}
+
+	@Test
+	public void addingAll_appendsOnlyMissingRecordIds()
+	{
+		final ViewRecordIds recordIds = ViewRecordIds.ofArray(new int[] { 3, 1 })
+				.addingAll(ImmutableList.of(1, 5, 2, 5));
+
+		assertThat(recordIds.toCommaSeparatedString()).isEqualTo("3,1,5,2");
+		assertThat(recordIds.contains(5)).isTrue();
+	}
+
+	@Test
+	public void removingAll()
+	{
+		final ViewRecordIds recordIds = ViewRecordIds.ofArray(new int[] { 3, 1, 2 });
+
+		assertThat(recordIds.removingAll(ImmutableSet.of(1, 7)).toCommaSeparatedString()).isEqualTo("3,2");
+		assertThat(recordIds.removingAll(ImmutableSet.of(7))).isSameAs(recordIds);
+	}
+
+	@Test
+	public void retainContained()
+	{
+		final ViewRecordIds recordIds = ViewRecordIds.ofArray(new int[] { 3, 1, 2 });
+
+		assertThat(recordIds.retainContained(ImmutableList.of(2, 4, 3))).containsExactlyInAnyOrder(2, 3);
+		assertThat(recordIds.containsAny(ImmutableList.of(4, 5))).isFalse();
+	}
+}
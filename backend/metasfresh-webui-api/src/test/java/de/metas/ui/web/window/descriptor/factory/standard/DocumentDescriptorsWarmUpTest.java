@@ -0,0 +1,174 @@
+package de.metas.ui.web.window.descriptor.factory.standard;
+
+import static org.adempiere.model.InterfaceWrapperHelper.newInstance;
+import static org.adempiere.model.InterfaceWrapperHelper.saveRecord;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.test.AdempiereTestHelper;
+import org.compiere.model.I_AD_Window;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import de.metas.ui.web.window.datatypes.WindowId;
+import de.metas.ui.web.window.descriptor.factory.standard.DocumentDescriptorsWarmUp.WarmUpResult;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class DocumentDescriptorsWarmUpTest
+{
+	private DefaultDocumentDescriptorFactory documentDescriptorFactory;
+
+	@BeforeEach
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+
+		documentDescriptorFactory = Mockito.mock(DefaultDocumentDescriptorFactory.class);
+		Mockito.when(documentDescriptorFactory.isWindowIdSupported(any())).thenReturn(true);
+	}
+
+	private static WindowId createWindow(final boolean active)
+	{
+		final I_AD_Window window = newInstance(I_AD_Window.class);
+		window.setName("window");
+		window.setIsActive(active);
+		saveRecord(window);
+		return WindowId.of(window.getAD_Window_ID());
+	}
+
+	private static WarmUpResult await(final DocumentDescriptorsWarmUp warmUp) throws Exception
+	{
+		return warmUp.warmUpAsync().get(10, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void computeThreadsEffective()
+	{
+		final int availableProcessors = Runtime.getRuntime().availableProcessors();
+		assertThat(DocumentDescriptorsWarmUp.computeThreadsEffective(0)).as("default").isEqualTo(availableProcessors);
+		assertThat(DocumentDescriptorsWarmUp.computeThreadsEffective(-5)).isEqualTo(availableProcessors);
+		assertThat(DocumentDescriptorsWarmUp.computeThreadsEffective(1)).isEqualTo(1);
+		assertThat(DocumentDescriptorsWarmUp.computeThreadsEffective(Integer.MAX_VALUE)).isEqualTo(availableProcessors);
+	}
+
+	@Test
+	public void disabled_doesNotLoadAnything()
+	{
+		createWindow(true);
+
+		new DocumentDescriptorsWarmUp(documentDescriptorFactory, false, 1).onApplicationReady();
+
+		Mockito.verify(documentDescriptorFactory, Mockito.never()).isWindowIdSupported(any());
+		Mockito.verify(documentDescriptorFactory, Mockito.never()).getDocumentDescriptor(any());
+	}
+
+	@Test
+	public void loadsActiveAndSupportedWindows() throws Exception
+	{
+		final WindowId windowId1 = createWindow(true);
+		final WindowId windowId2 = createWindow(true);
+		final WindowId inactiveWindowId = createWindow(false);
+		final WindowId unsupportedWindowId = createWindow(true);
+		Mockito.when(documentDescriptorFactory.isWindowIdSupported(unsupportedWindowId)).thenReturn(false);
+
+		final WarmUpResult result = await(new DocumentDescriptorsWarmUp(documentDescriptorFactory, true, 1));
+
+		assertThat(result).isEqualTo(new WarmUpResult(2, 0));
+		Mockito.verify(documentDescriptorFactory).getDocumentDescriptor(windowId1);
+		Mockito.verify(documentDescriptorFactory).getDocumentDescriptor(windowId2);
+		Mockito.verify(documentDescriptorFactory, Mockito.never()).getDocumentDescriptor(inactiveWindowId);
+		Mockito.verify(documentDescriptorFactory, Mockito.never()).getDocumentDescriptor(unsupportedWindowId);
+	}
+
+	@Test
+	public void failedWindows_areCountedAndIgnored() throws Exception
+	{
+		createWindow(true);
+		final WindowId failingWindowId = createWindow(true);
+		Mockito.when(documentDescriptorFactory.getDocumentDescriptor(failingWindowId)).thenThrow(new AdempiereException("test"));
+
+		final WarmUpResult result = await(new DocumentDescriptorsWarmUp(documentDescriptorFactory, true, 1));
+
+		assertThat(result).isEqualTo(new WarmUpResult(1, 1));
+	}
+
+	@Test
+	public void noActiveWindows() throws Exception
+	{
+		createWindow(false);
+
+		final WarmUpResult result = await(new DocumentDescriptorsWarmUp(documentDescriptorFactory, true, 1));
+
+		assertThat(result).isEqualTo(new WarmUpResult(0, 0));
+		Mockito.verify(documentDescriptorFactory, Mockito.never()).getDocumentDescriptor(any());
+	}
+
+	@Test
+	public void usesConfiguredThreadsInBackground() throws Exception
+	{
+		for (int i = 0; i < 10; i++)
+		{
+			createWindow(true);
+		}
+
+		final Set<String> threadNames = ConcurrentHashMap.newKeySet();
+		Mockito.when(documentDescriptorFactory.getDocumentDescriptor(any())).then(invocation -> {
+			threadNames.add(Thread.currentThread().getName());
+			return null;
+		});
+
+		final WarmUpResult result = await(new DocumentDescriptorsWarmUp(documentDescriptorFactory, true, 1));
+
+		assertThat(result).isEqualTo(new WarmUpResult(10, 0));
+		assertThat(threadNames).hasSize(1);
+		assertThat(threadNames).allMatch(threadName -> threadName.startsWith(DocumentDescriptorsWarmUp.THREAD_NAME_PREFIX));
+	}
+
+	@Test
+	public void defaultThreads_loadsAllWindowsInBackground() throws Exception
+	{
+		for (int i = 0; i < 20; i++)
+		{
+			createWindow(true);
+		}
+
+		final Set<String> threadNames = ConcurrentHashMap.newKeySet();
+		Mockito.when(documentDescriptorFactory.getDocumentDescriptor(any())).then(invocation -> {
+			threadNames.add(Thread.currentThread().getName());
+			return null;
+		});
+
+		final WarmUpResult result = await(new DocumentDescriptorsWarmUp(documentDescriptorFactory, true, 0));
+
+		assertThat(result).isEqualTo(new WarmUpResult(20, 0));
+		assertThat(threadNames.size()).isBetween(1, Runtime.getRuntime().availableProcessors());
+		assertThat(threadNames).allMatch(threadName -> threadName.startsWith(DocumentDescriptorsWarmUp.THREAD_NAME_PREFIX));
+	}
+}
@@ -0,0 +1,187 @@
+package de.metas.ui.web.window.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.junit.jupiter.api.Test;
+
+import lombok.Value;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class RootDocumentsCacheTest
+{
+	@Value
+	private static class TestDocument
+	{
+		String name;
+		int weight;
+		boolean changed;
+	}
+
+	private static final Callable<TestDocument> FAILING_LOADER = () -> {
+		throw new AssertionError("document shall not be loaded");
+	};
+
+	private final List<String> documentsLockedForReading = new ArrayList<>();
+
+	private RootDocumentsCache.RootDocumentsCacheBuilder<String, TestDocument> newCache()
+	{
+		return RootDocumentsCache.<String, TestDocument> builder()
+				.weigher(TestDocument::getWeight)
+				.hasChanges(TestDocument::isChanged)
+				.lockForReading(document -> {
+					documentsLockedForReading.add(document.getName());
+					return () -> documentsLockedForReading.remove(document.getName());
+				});
+	}
+
+	@Test
+	public void boundedBySize()
+	{
+		final RootDocumentsCache<String, TestDocument> cache = newCache().maxSize(2).build();
+
+		cache.put("a", new TestDocument("a", 100, false));
+		cache.put("b", new TestDocument("b", 100, false));
+		cache.put("c", new TestDocument("c", 100, false));
+
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.getIfPresent("a")).isNull();
+		assertThat(cache.getStats().getMaxSize()).isEqualTo(2);
+		assertThat(cache.getStats().getMaxWeight()).isNull();
+	}
+
+	@Test
+	public void boundedByWeight()
+	{
+		final RootDocumentsCache<String, TestDocument> cache = newCache().maxWeight(10).maxSize(100).build();
+
+		cache.put("a", new TestDocument("a", 4, false));
+		cache.put("b", new TestDocument("b", 4, false));
+		assertThat(cache.size()).isEqualTo(2);
+
+		cache.put("c", new TestDocument("c", 4, false));
+
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.getIfPresent("a")).isNull();
+		assertThat(cache.getStats().getWeight()).isEqualTo(8);
+		assertThat(cache.getStats().getMaxWeight()).isEqualTo(10);
+		assertThat(cache.getStats().getMaxSize()).isNull();
+	}
+
+	@Test
+	public void getStats_weighsDocumentsWhileLockedForReading()
+	{
+		final List<String> documentsWeighedWhileLocked = new ArrayList<>();
+		final RootDocumentsCache<String, TestDocument> cache = newCache()
+				.maxSize(10)
+				.weigher(document -> {
+					if (documentsLockedForReading.contains(document.getName()))
+					{
+						documentsWeighedWhileLocked.add(document.getName());
+					}
+					return document.getWeight();
+				})
+				.build();
+		cache.put("a", new TestDocument("a", 3, false));
+		cache.put("b", new TestDocument("b", 5, false));
+
+		assertThat(cache.getStats().getWeight()).isEqualTo(8);
+		assertThat(documentsWeighedWhileLocked).containsExactlyInAnyOrder("a", "b");
+		assertThat(documentsLockedForReading).as("all locks released").isEmpty();
+	}
+
+	@Test
+	public void getOrLoad()
+	{
+		final RootDocumentsCache<String, TestDocument> cache = newCache().maxSize(10).build();
+		final TestDocument document = new TestDocument("a", 1, false);
+
+		assertThat(cache.getOrLoad("a", () -> document)).isSameAs(document);
+		assertThat(cache.getOrLoad("a", FAILING_LOADER)).isSameAs(document);
+
+		assertThat(cache.getStats().getMissCount()).isEqualTo(1);
+		assertThat(cache.getStats().getHitCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void evictedDocumentWithoutChanges_isTakenBackFromIdleCache()
+	{
+		final RootDocumentsCache<String, TestDocument> cache = newCache().maxSize(1).idleMaxSize(10).build();
+		final TestDocument documentA = new TestDocument("a", 1, false);
+
+		cache.put("a", documentA);
+		cache.put("b", new TestDocument("b", 1, false));
+
+		assertThat(cache.size()).isEqualTo(1);
+		assertThat(cache.getKeys()).containsExactlyInAnyOrder("a", "b");
+		assertThat(cache.getStats().getIdleSize()).isEqualTo(1);
+
+		assertThat(cache.getOrLoad("a", FAILING_LOADER)).isSameAs(documentA);
+		assertThat(cache.getStats().getIdleHitCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void evictedDocumentWithChanges_isNotKeptIdle()
+	{
+		final RootDocumentsCache<String, TestDocument> cache = newCache().maxSize(1).idleMaxSize(10).build();
+
+		cache.put("a", new TestDocument("a", 1, true));
+		cache.put("b", new TestDocument("b", 1, false));
+
+		assertThat(cache.getIfPresent("a")).isNull();
+		assertThat(cache.getStats().getIdleSize()).isZero();
+	}
+
+	@Test
+	public void invalidate_alsoInvalidatesIdleDocuments()
+	{
+		final RootDocumentsCache<String, TestDocument> cache = newCache().maxSize(1).idleMaxSize(10).build();
+
+		cache.put("a", new TestDocument("a", 1, false));
+		cache.put("b", new TestDocument("b", 1, false));
+
+		cache.invalidate("a");
+		assertThat(cache.getIfPresent("a")).isNull();
+		assertThat(cache.getIfPresent("b")).isNotNull();
+
+		cache.put("c", new TestDocument("c", 1, false)); // moves "b" to idle
+		cache.invalidateAll();
+		assertThat(cache.getKeys()).isEmpty();
+	}
+
+	@Test
+	public void idleCacheDisabledByDefault()
+	{
+		final RootDocumentsCache<String, TestDocument> cache = newCache().maxSize(1).build();
+
+		cache.put("a", new TestDocument("a", 1, false));
+		cache.put("b", new TestDocument("b", 1, false));
+
+		assertThat(cache.getIfPresent("a")).isNull();
+		assertThat(cache.getStats().isIdleCacheEnabled()).isFalse();
+	}
+}
@@ -0,0 +1,267 @@
+package de.metas.ui.web.window.model.lookup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.adempiere.ad.expression.api.IStringExpression;
+import org.adempiere.test.AdempiereTestHelper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.metas.ui.web.window.datatypes.LookupValue;
+import de.metas.ui.web.window.datatypes.LookupValuesList;
+import de.metas.ui.web.window.descriptor.sql.SqlForFetchingLookupById;
+import lombok.Value;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class GenericSqlLookupDataSourceFetcherTest
+{
+	private static final String SQL_BY_ID_PREFIX = "SELECT ARRAY[Name, Description, IsActive] FROM Test WHERE Test_ID=";
+
+	@Value
+	private static class ExecutedQuery
+	{
+		String sql;
+		List<Object> sqlParams;
+	}
+
+	/**
+	 * Fake database: returns the rows of the known IDs, in reverse order of the given IDs, and records the executed queries.
+	 */
+	private static class TestSqlExecutor implements GenericSqlLookupDataSourceFetcher.SqlExecutorForFetchingByIds
+	{
+		private final Map<Integer, String[]> rowsById = new LinkedHashMap<>();
+		private final List<ExecutedQuery> executedQueries = new ArrayList<>();
+
+		public void addRow(final int id, final String name, final boolean active)
+		{
+			rowsById.put(id, new String[] { name, "description of " + name, active ? "Y" : "N" });
+		}
+
+		@Override
+		public Map<Object, String[]> retrieveNameAndDescriptionAndActiveById(final String sql, final List<Object> sqlParams)
+		{
+			executedQueries.add(new ExecutedQuery(sql, ImmutableList.copyOf(sqlParams)));
+
+			final LinkedHashMap<Object, String[]> result = new LinkedHashMap<>();
+			for (final Object id : ImmutableList.copyOf(sqlParams).reverse())
+			{
+				final String[] row = rowsById.get(id);
+				if (row != null)
+				{
+					result.put(id, row);
+				}
+			}
+			return result;
+		}
+
+		public List<ExecutedQuery> getExecutedQueries()
+		{
+			return executedQueries;
+		}
+	}
+
+	private TestSqlExecutor sqlExecutor;
+	private GenericSqlLookupDataSourceFetcher fetcher;
+
+	@BeforeEach
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+
+		sqlExecutor = new TestSqlExecutor();
+		fetcher = GenericSqlLookupDataSourceFetcher.builderForTesting()
+				.lookupTableName("Test")
+				.numericKey(true)
+				.sqlForFetchingLookupByIdExpression(SqlForFetchingLookupById.builder()
+						.sql(IStringExpression.composer()
+								.append(SQL_BY_ID_PREFIX).append(SqlForFetchingLookupById.SQL_PARAM_KeyId)
+								.build())
+						.build())
+				.sqlExecutorForFetchingByIds(sqlExecutor)
+				.build();
+	}
+
+	private LookupDataSourceContext newContextForFetchingById(final int id)
+	{
+		return fetcher.newContextForFetchingById(id)
+				.putFilterById(id)
+				.putShowInactive(true)
+				.build();
+	}
+
+	private List<LookupDataSourceContext> newContextsForFetchingByIds(final Integer... ids)
+	{
+		return Arrays.stream(ids)
+				.map(this::newContextForFetchingById)
+				.collect(ImmutableList.toImmutableList());
+	}
+
+	private static List<Integer> toIds(final LookupValuesList lookupValues)
+	{
+		return lookupValues.stream()
+				.map(LookupValue::getIdAsInt)
+				.collect(ImmutableList.toImmutableList());
+	}
+
+	@Test
+	public void buildSqlForFetchingByIds()
+	{
+		assertThat(GenericSqlLookupDataSourceFetcher.buildSqlForFetchingByIds("SELECT ARRAY[Name] FROM Test WHERE Test_ID=lookup_ids.id", 3))
+				.isEqualTo("SELECT lookup_ids.id, (SELECT ARRAY[Name] FROM Test WHERE Test_ID=lookup_ids.id\n LIMIT 1)"
+						+ "\n FROM (SELECT unnest(ARRAY[?,?,?]) AS id) lookup_ids");
+	}
+
+	@Test
+	public void retrieveLookupValuesByIds()
+	{
+		sqlExecutor.addRow(1, "one", true);
+		sqlExecutor.addRow(2, "two", false);
+
+		final List<LookupDataSourceContext> evalCtxs = newContextsForFetchingByIds(1, 2, 3);
+		final Map<LookupDataSourceContext, LookupValue> result = fetcher.retrieveLookupValuesByIds(evalCtxs);
+
+		assertThat(result).hasSize(3);
+
+		final LookupValue lookupValue1 = result.get(evalCtxs.get(0));
+		assertThat(lookupValue1.getIdAsInt()).isEqualTo(1);
+		assertThat(lookupValue1.getDisplayName()).isEqualTo("one");
+		assertThat(lookupValue1.getDescriptionTrl().getDefaultValue()).isEqualTo("description of one");
+		assertThat(lookupValue1.isActive()).isTrue();
+
+		final LookupValue lookupValue2 = result.get(evalCtxs.get(1));
+		assertThat(lookupValue2.getIdAsInt()).isEqualTo(2);
+		assertThat(lookupValue2.isActive()).isFalse();
+
+		// missing IDs are mapped to the "null" lookup value, like retrieveLookupValueById does
+		assertThat(result.get(evalCtxs.get(2))).isSameAs(LookupDataSourceFetcher.LOOKUPVALUE_NULL);
+
+		// one single query, correlated to the IDs
+		assertThat(sqlExecutor.getExecutedQueries()).hasSize(1);
+		final ExecutedQuery query = sqlExecutor.getExecutedQueries().get(0);
+		assertThat(query.getSqlParams()).containsExactly(1, 2, 3);
+		assertThat(query.getSql())
+				.contains(SQL_BY_ID_PREFIX + "lookup_ids.id")
+				.contains("unnest(ARRAY[?,?,?])");
+	}
+
+	@Test
+	public void retrieveLookupValuesByIds_splitsInBatchesOf500()
+	{
+		final Integer[] ids = IntStream.rangeClosed(1, 1201).boxed().toArray(Integer[]::new);
+		Arrays.stream(ids).forEach(id -> sqlExecutor.addRow(id, "name" + id, true));
+
+		final List<LookupDataSourceContext> evalCtxs = newContextsForFetchingByIds(ids);
+		final Map<LookupDataSourceContext, LookupValue> result = fetcher.retrieveLookupValuesByIds(evalCtxs);
+
+		assertThat(result).hasSize(1201);
+		assertThat(result.get(evalCtxs.get(1200)).getDisplayName()).isEqualTo("name1201");
+
+		final List<ExecutedQuery> executedQueries = sqlExecutor.getExecutedQueries();
+		assertThat(executedQueries)
+				.extracting(query -> query.getSqlParams().size())
+				.containsExactly(500, 500, 201);
+		assertThat(executedQueries.get(0).getSqlParams()).startsWith(1, 2).endsWith(500);
+		assertThat(executedQueries.get(2).getSqlParams()).startsWith(1001).endsWith(1201);
+
+		final String expectedLastSql = GenericSqlLookupDataSourceFetcher.buildSqlForFetchingByIds(SQL_BY_ID_PREFIX + "lookup_ids.id", 201);
+		assertThat(executedQueries.get(2).getSql()).isEqualTo(expectedLastSql);
+	}
+
+	@Test
+	public void lookupDataSourceAdapter_findByIdsOrdered()
+	{
+		sqlExecutor.addRow(1, "one", true);
+		sqlExecutor.addRow(2, "two", true);
+		sqlExecutor.addRow(3, "three", true);
+
+		final LookupDataSource lookupDataSource = LookupDataSourceAdapter.of(fetcher);
+		final LookupValuesList result = lookupDataSource.findByIdsOrdered(ImmutableList.of(3, 99, 1, 2, 3));
+
+		// same order as the given IDs, without the missing ones and without duplicates
+		assertThat(toIds(result)).containsExactly(3, 1, 2);
+		assertThat(sqlExecutor.getExecutedQueries()).hasSize(1);
+		assertThat(sqlExecutor.getExecutedQueries().get(0).getSqlParams()).containsExactly(3, 99, 1, 2);
+	}
+
+	@Test
+	public void lookupDataSourceAdapter_findByIdsOrdered_noIds()
+	{
+		final LookupDataSource lookupDataSource = LookupDataSourceAdapter.of(fetcher);
+
+		assertThat(lookupDataSource.findByIdsOrdered(ImmutableList.of()).isEmpty()).isTrue();
+		assertThat(sqlExecutor.getExecutedQueries()).isEmpty();
+	}
+
+	@Test
+	public void cachedAdapter_loadsOnlyTheMissingIds()
+	{
+		sqlExecutor.addRow(1, "one", true);
+		sqlExecutor.addRow(2, "two", true);
+		sqlExecutor.addRow(3, "three", true);
+
+		final CachedLookupDataSourceFetcherAdapter cachedFetcher = CachedLookupDataSourceFetcherAdapter.of(fetcher);
+
+		final Map<LookupDataSourceContext, LookupValue> result1 = cachedFetcher.retrieveLookupValuesByIds(newContextsForFetchingByIds(1, 2, 99));
+		assertThat(result1).hasSize(3);
+
+		final List<LookupDataSourceContext> evalCtxs = newContextsForFetchingByIds(1, 2, 3, 99);
+		final Map<LookupDataSourceContext, LookupValue> result2 = cachedFetcher.retrieveLookupValuesByIds(evalCtxs);
+		assertThat(result2).hasSize(4);
+		assertThat(result2.get(evalCtxs.get(2)).getDisplayName()).isEqualTo("three");
+		// the not found IDs are cached too
+		assertThat(result2.get(evalCtxs.get(3))).isSameAs(LookupDataSourceFetcher.LOOKUPVALUE_NULL);
+
+		assertThat(sqlExecutor.getExecutedQueries())
+				.extracting(ExecutedQuery::getSqlParams)
+				.containsExactly(ImmutableList.of(1, 2, 99), ImmutableList.of(3));
+
+		// the values loaded at once are also served by the "by ID" cache
+		assertThat(cachedFetcher.retrieveLookupValueById(newContextForFetchingById(3)).getDisplayName()).isEqualTo("three");
+		assertThat(sqlExecutor.getExecutedQueries()).hasSize(2);
+	}
+
+	@Test
+	public void cachedAdapter_viaLookupDataSourceAdapter()
+	{
+		sqlExecutor.addRow(1, "one", true);
+		sqlExecutor.addRow(2, "two", true);
+
+		final LookupDataSource lookupDataSource = LookupDataSourceAdapter.of(CachedLookupDataSourceFetcherAdapter.of(fetcher));
+
+		assertThat(toIds(lookupDataSource.findByIdsOrdered(ImmutableList.of(2, 1)))).containsExactly(2, 1);
+		assertThat(toIds(lookupDataSource.findByIdsOrdered(ImmutableList.of(1, 2)))).containsExactly(1, 2);
+
+		assertThat(sqlExecutor.getExecutedQueries()).hasSize(1);
+		assertThat(sqlExecutor.getExecutedQueries().get(0).getSqlParams()).containsExactly(2, 1);
+	}
+}
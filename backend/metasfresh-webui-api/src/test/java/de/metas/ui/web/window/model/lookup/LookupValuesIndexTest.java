@@ -0,0 +1,101 @@
+package de.metas.ui.web.window.model.lookup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.metas.ui.web.window.datatypes.LookupValue;
+import de.metas.ui.web.window.datatypes.LookupValue.IntegerLookupValue;
+import de.metas.ui.web.window.datatypes.LookupValuesList;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2020 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class LookupValuesIndexTest
+{
+	private LookupValuesList lookupValues;
+	private LookupValuesIndex indexed;
+	private LookupValuesIndex notIndexed;
+
+	@BeforeEach
+	public void beforeEach()
+	{
+		final String[] words = { "Apple", "Banana", "Cherry", "apfel", "Birne", "Kirsche", "\u00C4pfel" };
+		lookupValues = IntStream.rangeClosed(1, 500)
+				.mapToObj(id -> IntegerLookupValue.of(id, words[id % words.length] + " " + id))
+				.collect(LookupValuesList.collect());
+
+		indexed = LookupValuesIndex.of(lookupValues, 0);
+		notIndexed = LookupValuesIndex.of(lookupValues, Integer.MAX_VALUE);
+	}
+
+	private void assertSameResult(final String filter, final int firstRow, final int pageLength)
+	{
+		final LookupValuesList expected = lookupValues.filter(LookupValueFilterPredicates.of(filter), firstRow, pageLength);
+
+		assertThat(indexed.filter(filter, firstRow, pageLength).getValues()).containsExactlyElementsOf(expected.getValues());
+		assertThat(notIndexed.filter(filter, firstRow, pageLength).getValues()).containsExactlyElementsOf(expected.getValues());
+	}
+
+	@Test
+	public void isIndexed()
+	{
+		assertThat(indexed.isIndexed()).isTrue();
+		assertThat(notIndexed.isIndexed()).isFalse();
+		assertThat(indexed.getEstimatedSizeInBytes()).isGreaterThan(notIndexed.getEstimatedSizeInBytes());
+	}
+
+	@Test
+	public void sameResultAsLinearFilter()
+	{
+		for (final String filter : new String[] { "app", "APP", "  pfel ", "e 1", "\u00C4pf", "\u00E4pf", "herry 49", "ap", "a", "xyz", "Kirsche 500" })
+		{
+			assertSameResult(filter, 0, 10);
+			assertSameResult(filter, 5, 10);
+			assertSameResult(filter, 0, 0);
+		}
+	}
+
+	@Test
+	public void matchAll()
+	{
+		assertThat(indexed.filter(null, 10, 20).getValues()).hasSize(20);
+		assertThat(indexed.filter("  ", 0, 0).getValues()).hasSize(500);
+	}
+
+	@Test
+	public void filterWithSpace()
+	{
+		assertThat(indexed.filter("Banana 2", 0, 5).getValues())
+				.extracting(LookupValue::getIdAsInt)
+				.containsExactly(22, 29, 204, 211, 218);
+	}
+
+	@Test
+	public void noMatch()
+	{
+		assertThat(indexed.filter("Mango", 0, 100).getValues()).isEmpty();
+	}
+}